@@ -0,0 +1,81 @@
+package redis.clients.jedis.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.PrebuiltJedisShardInfo;
+import redis.clients.jedis.ShardedJedisSentinel;
+import redis.clients.jedis.simulator.SimulatedCluster;
+
+/**
+ * 连接池借还的开销：每次从所有池借一个连接（getShards）与按 key 只借一个连接的对比
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PoolBenchmark {
+
+	@Param({ "1", "4", "16" })
+	public int masters;
+
+	private SimulatedCluster cluster;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		cluster = new SimulatedCluster(masters, 0, 64);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		cluster.close();
+	}
+
+	@Benchmark
+	public int getShardsBorrowAll() {
+		List<JedisShardInfo> shards = cluster.pools().getShards();
+		for (JedisShardInfo shard : shards) {
+			((PrebuiltJedisShardInfo) shard).close();
+		}
+		return shards.size();
+	}
+
+	@Benchmark
+	public ShardedJedisSentinel routedConstruction() {
+		ShardedJedisSentinel jedis = new ShardedJedisSentinel(cluster.pools());
+		jedis.close();
+		return jedis;
+	}
+
+	@Benchmark
+	public String legacyClientGet() {
+		try (ShardedJedisSentinel jedis = new ShardedJedisSentinel(cluster.pools().getShards())) {
+			return jedis.get("foo");
+		}
+	}
+
+	@Benchmark
+	public String routedClientGet() {
+		try (ShardedJedisSentinel jedis = new ShardedJedisSentinel(cluster.pools())) {
+			return jedis.get("foo");
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package redis.clients.jedis.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisShardInfo;
+import redis.clients.jedis.ShardedJedisSentinel;
+import redis.clients.jedis.util.ShardRing;
+import redis.clients.jedis.util.ShardUtils;
+import redis.clients.jedis.util.Sharding;
+import redis.clients.jedis.util.ShardingStrategy;
+import redis.clients.jedis.util.Sharded;
+
+/**
+ * 不涉及网络的路由开销：环的构建、各分片算法按 key 查分片
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoutingBenchmark {
+
+	private static final int KEYS = 1024;
+
+	@Param({ "1", "4", "16", "64" })
+	public int shards;
+
+	private List<JedisShardInfo> shardInfos;
+	private Sharded<Jedis, JedisShardInfo> sharded;
+	private ShardRing ring;
+	private Sharding jump;
+	private Sharding rendezvous;
+	private Sharding hashTags;
+	private String[] keys;
+	private int next;
+
+	@Setup
+	public void setup() {
+		shardInfos = new ArrayList<>();
+		for (int i = 0; i < shards; i++) {
+			shardInfos.add(new JedisShardInfo("127.0.0.1", 6379 + i));
+		}
+		sharded = new Sharded<>(shardInfos);
+		ring = ShardRing.of(shards);
+		jump = ShardingStrategy.JUMP.create(shards);
+		rendezvous = ShardingStrategy.RENDEZVOUS.create(shards);
+		hashTags = ShardingStrategy.KETAMA.withHashTags().create(shards);
+		Random random = new Random(42);
+		keys = new String[KEYS];
+		for (int i = 0; i < KEYS; i++) {
+			keys[i] = "user:" + random.nextInt(1_000_000);
+		}
+	}
+
+	private String nextKey() {
+		return keys[next++ & (KEYS - 1)];
+	}
+
+	@Benchmark
+	public ShardedJedisSentinel shardedJedisSentinelConstruction() {
+		return new ShardedJedisSentinel(shardInfos);
+	}
+
+	@Benchmark
+	public ShardRing ringConstruction() {
+		return ShardRing.of(shards);
+	}
+
+	@Benchmark
+	public int ringLookup() {
+		return ring.shardIndex(nextKey());
+	}
+
+	@Benchmark
+	public int jumpLookup() {
+		return jump.shardIndex(nextKey());
+	}
+
+	@Benchmark
+	public int rendezvousLookup() {
+		return rendezvous.shardIndex(nextKey());
+	}
+
+	@Benchmark
+	public int hashTagRingLookup() {
+		return hashTags.shardIndex(nextKey());
+	}
+
+	@Benchmark
+	public JedisShardInfo treeMapLookup() {
+		return sharded.getShardInfo(nextKey());
+	}
+
+	@Benchmark
+	public int shardUtilsIndex() {
+		return ShardUtils.shardIndex(nextKey(), shards);
+	}
+}
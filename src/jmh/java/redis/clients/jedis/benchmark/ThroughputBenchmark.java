@@ -0,0 +1,76 @@
+package redis.clients.jedis.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import redis.clients.jedis.ShardedJedisSentinel;
+import redis.clients.jedis.simulator.SimulatedCluster;
+
+/**
+ * 多线程端到端 get/set 吞吐，每次操作新建一个客户端，模拟按请求使用的方式
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class ThroughputBenchmark {
+
+	@Param({ "4" })
+	public int masters;
+
+	private SimulatedCluster cluster;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		cluster = new SimulatedCluster(masters, 0, 16);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		cluster.close();
+	}
+
+	private static String randomKey() {
+		return "key:" + ThreadLocalRandom.current().nextInt(10_000);
+	}
+
+	@Benchmark
+	public String get() {
+		try (ShardedJedisSentinel jedis = new ShardedJedisSentinel(cluster.pools())) {
+			return jedis.get(randomKey());
+		}
+	}
+
+	@Benchmark
+	public String set() {
+		try (ShardedJedisSentinel jedis = new ShardedJedisSentinel(cluster.pools())) {
+			return jedis.set(randomKey(), "value");
+		}
+	}
+
+	@Benchmark
+	public String legacyGet() {
+		try (ShardedJedisSentinel jedis = new ShardedJedisSentinel(cluster.pools().getShards())) {
+			return jedis.get(randomKey());
+		}
+	}
+}
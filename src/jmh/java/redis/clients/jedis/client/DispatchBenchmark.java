@@ -0,0 +1,97 @@
+package redis.clients.jedis.client;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import redis.clients.jedis.ShardedJedis;
+import redis.clients.jedis.ShardedJedisSentinel;
+import redis.clients.jedis.simulator.SimulatedCluster;
+
+/**
+ * 命令行客户端的命令分发：{@link CommandTable} 查找、经 MethodHandle 调用，以及一行命令的完整执行。
+ * 与 {@link CommandTable} 同包，才能直接测它。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+	private static final String[] GET_LINE = { "get", "foo" };
+
+	private SimulatedCluster cluster;
+	private JedisCmdExecutor executor;
+	private CommandTable table;
+	private CommandTable.Entry get;
+	private Object[] getArgs;
+	private PrintWriter nullWriter;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		cluster = new SimulatedCluster(4, 0, 64);
+		executor = new JedisCmdExecutor(new JedisClientConfig(cluster.writeClientConfig().getAbsolutePath()));
+		table = CommandTable.of(Arrays.asList(ShardedJedis.class.getDeclaredMethods()));
+		get = table.find("get", 1);
+		getArgs = get.arguments(Arrays.asList("foo"));
+		nullWriter = new PrintWriter(new Writer() {
+			@Override
+			public void write(char[] cbuf, int off, int len) {
+			}
+
+			@Override
+			public void flush() {
+			}
+
+			@Override
+			public void close() {
+			}
+		});
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		cluster.close();
+	}
+
+	@Benchmark
+	public Object find() {
+		return table.find("zrangeByScore", 3);
+	}
+
+	@Benchmark
+	public Object handleGet() throws Throwable {
+		try (ShardedJedisSentinel jedis = new ShardedJedisSentinel(cluster.pools())) {
+			return get.invoke(jedis, getArgs);
+		}
+	}
+
+	@Benchmark
+	public Object directGet() {
+		try (ShardedJedisSentinel jedis = new ShardedJedisSentinel(cluster.pools())) {
+			return jedis.get("foo");
+		}
+	}
+
+	@Benchmark
+	public void cliRunLine() throws Throwable {
+		executor.run(GET_LINE, nullWriter);
+	}
+}
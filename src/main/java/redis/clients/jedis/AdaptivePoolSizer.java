@@ -0,0 +1,217 @@
+package redis.clients.jedis;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import redis.clients.jedis.metrics.HistogramSnapshot;
+import redis.clients.jedis.util.Log;
+
+/**
+ * 在总连接数不变的前提下，按各 master 的借连接等待和借出峰值调整各自连接池的 maxTotal。
+ * <p>
+ * 每个周期取各 master 在这一周期内的借连接等待 p99、借出连接数峰值和等待者个数：
+ * 连接已用满（峰值达到上限或有等待者）且 p99 超出目标的 master 扩容一半；
+ * 连续 3 个周期峰值都低于上限的 master 每次收回一半空余，保留峰值的 1/4 作余量。
+ * 扩容先用未分配的额度，不够时立即从有空余的 master 收回，按等待严重程度依次分配，各 master 的上限之和不超过总数。
+ * <p>
+ * 等待 p99 只在连接用满时才作为扩容依据，新建连接（而非排队）造成的等待不会触发扩容。
+ */
+public class AdaptivePoolSizer implements Closeable, Log {
+
+	/**
+	 * 连续多少个周期有空余才收缩
+	 */
+	private static final int SHRINK_AFTER = 3;
+
+	private final JedisSentinelPools pools;
+	private final PoolSizingPolicy policy;
+	private final int budget;
+	private final int maxPerMaster;
+	private final HistogramSnapshot[] lastWait;
+	private final int[] calm;
+	private final AtomicLongArray lastP99;
+	private final ScheduledExecutorService scheduler;
+
+	AdaptivePoolSizer(JedisSentinelPools pools, PoolSizingPolicy policy) {
+		this.pools = pools;
+		this.policy = policy;
+		List<SentinelMasterPool> list = pools.getMasterPools();
+		int n = list.size();
+		this.budget = policy.getMaxTotalConnections() > 0
+				? policy.getMaxTotalConnections()
+				: n * pools.getPoolConfig().getMaxTotal();
+		if (budget < n * policy.getMinPerMaster()) {
+			throw new IllegalArgumentException("maxTotalConnections " + budget + " is less than minPerMaster "
+					+ policy.getMinPerMaster() + " x " + n + " masters");
+		}
+		this.maxPerMaster = policy.getMaxPerMaster() > 0 ? Math.min(policy.getMaxPerMaster(), budget) : budget;
+		this.lastWait = new HistogramSnapshot[n];
+		this.calm = new int[n];
+		this.lastP99 = new AtomicLongArray(n);
+		// 从平均分配开始
+		int share = clamp(budget / Math.max(1, n));
+		for (int i = 0; i < n; i++) {
+			lastWait[i] = pools.getMetrics().master(i).borrowWaitSnapshot();
+			if (list.get(i).getMaxTotal() != share) {
+				list.get(i).setMaxTotal(share);
+			}
+		}
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+				JedisSentinelPools.daemonThreadFactory("AdaptivePoolSizer"));
+		executor.scheduleWithFixedDelay(this::adjustQuietly, policy.getIntervalMillis(), policy.getIntervalMillis(),
+				TimeUnit.MILLISECONDS);
+		this.scheduler = executor;
+	}
+
+	public PoolSizingPolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * 各 master 连接数上限之和的上限
+	 */
+	public int getBudget() {
+		return budget;
+	}
+
+	/**
+	 * 当前分配给各 master 的上限之和
+	 */
+	public int getAllocated() {
+		int sum = 0;
+		for (SentinelMasterPool pool : pools.getMasterPools()) {
+			sum += pool.getMaxTotal();
+		}
+		return sum;
+	}
+
+	public int getMaxTotal(int shard) {
+		return pools.getMasterPools().get(shard).getMaxTotal();
+	}
+
+	/**
+	 * 下标为 shard 的 master 最近一个周期的借连接等待 p99
+	 */
+	public long getBorrowWaitP99Micros(int shard) {
+		return TimeUnit.NANOSECONDS.toMicros(lastP99.get(shard));
+	}
+
+	private void adjustQuietly() {
+		try {
+			adjust();
+		} catch (RuntimeException e) {
+			warn("Adjusting pool sizes failed: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * 按上次调用以来的指标调整一次，通常由后台线程每 {@link PoolSizingPolicy#getIntervalMillis()} 调用
+	 */
+	public synchronized void adjust() {
+		List<SentinelMasterPool> list = pools.getMasterPools();
+		int n = list.size();
+		long target = TimeUnit.MICROSECONDS.toNanos(policy.getTargetWaitMicros());
+		int[] size = new int[n];
+		int[] next = new int[n];
+		int[] floor = new int[n];
+		int[] want = new int[n];
+		double[] pressure = new double[n];
+		List<Integer> growers = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			SentinelMasterPool pool = list.get(i);
+			HistogramSnapshot wait = pools.getMetrics().master(i).borrowWaitSnapshot();
+			HistogramSnapshot delta = wait.minus(lastWait[i]);
+			lastWait[i] = wait;
+			long p99 = delta.getCount() == 0 ? 0 : delta.getP99();
+			lastP99.set(i, p99);
+			int waiters = pool.getNumWaiters();
+			int peak = Math.max(pool.takePeakActive(), pool.getNumActive());
+			size[i] = pool.getMaxTotal();
+			next[i] = size[i];
+			floor[i] = clamp(peak + Math.max(1, peak / 4));
+			boolean saturated = waiters > 0 || peak >= size[i];
+			if (saturated && (p99 > target || waiters > 0)) {
+				calm[i] = 0;
+				want[i] = clamp(Math.max(size[i] + Math.max(1, size[i] / 2), peak + waiters));
+				if (want[i] > size[i]) {
+					pressure[i] = (double) p99 / target + waiters;
+					growers.add(i);
+				}
+			} else if (floor[i] < size[i] && p99 <= target) {
+				if (++calm[i] >= SHRINK_AFTER) {
+					// 每次收回一半空余，避免流量回升时来回抖动
+					next[i] = size[i] - Math.max(1, (size[i] - floor[i]) / 2);
+				}
+			} else {
+				calm[i] = 0;
+			}
+		}
+
+		int free = budget;
+		for (int i = 0; i < n; i++) {
+			free -= next[i];
+		}
+		growers.sort(Comparator.comparingDouble((Integer i) -> pressure[i]).reversed());
+		boolean[] growing = new boolean[n];
+		growers.forEach(i -> growing[i] = true);
+		for (int i : growers) {
+			int need = want[i] - next[i];
+			if (need > free) {
+				free += reclaim(need - free, next, floor, growing);
+			}
+			int grant = Math.min(need, free);
+			next[i] += grant;
+			free -= grant;
+		}
+
+		for (int i = 0; i < n; i++) {
+			if (next[i] != size[i]) {
+				list.get(i).setMaxTotal(next[i]);
+				info("Resized pool of {} from {} to {} (borrow wait p99 {}us, {} waiters, {}/{} connections allocated).",
+						list.get(i).getMasterName(), size[i], next[i], TimeUnit.NANOSECONDS.toMicros(lastP99.get(i)),
+						list.get(i).getNumWaiters(), budget - free, budget);
+			}
+		}
+	}
+
+	/**
+	 * 从不在扩容的 master 收回空余，空余多的先收，收到 floor 为止
+	 *
+	 * @return 收回的连接数
+	 */
+	private int reclaim(int amount, int[] next, int[] floor, boolean[] growing) {
+		List<Integer> donors = new ArrayList<>();
+		for (int i = 0; i < next.length; i++) {
+			if (!growing[i] && next[i] > floor[i]) {
+				donors.add(i);
+			}
+		}
+		donors.sort(Comparator.comparingInt((Integer i) -> next[i] - floor[i]).reversed());
+		int reclaimed = 0;
+		for (int i : donors) {
+			if (reclaimed >= amount) {
+				break;
+			}
+			int take = Math.min(next[i] - floor[i], amount - reclaimed);
+			next[i] -= take;
+			calm[i] = 0;
+			reclaimed += take;
+		}
+		return reclaimed;
+	}
+
+	private int clamp(int size) {
+		return Math.max(policy.getMinPerMaster(), Math.min(maxPerMaster, size));
+	}
+
+	@Override
+	public void close() {
+		scheduler.shutdownNow();
+	}
+}
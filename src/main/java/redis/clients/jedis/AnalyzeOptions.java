@@ -0,0 +1,53 @@
+package redis.clients.jedis;
+
+/**
+ * 键空间分析的参数：每次 SCAN 取多少个 key，抽样比例，最大 key 排行的长度。
+ */
+public class AnalyzeOptions {
+
+	/**
+	 * 每次 SCAN 1000 个 key，全量分析，列出最大的 20 个 key
+	 */
+	public static final AnalyzeOptions DEFAULT = new AnalyzeOptions(1000, 1.0, 20);
+
+	private final int scanCount;
+	private final double sampleRate;
+	private final int topN;
+
+	/**
+	 * @param scanCount  SCAN 的 COUNT，也是一次管道查询的 key 数上限
+	 * @param sampleRate 分析的 key 所占比例，(0, 1]；按 key 的哈希抽样，计数按比例放大
+	 * @param topN       最大 key 排行的长度
+	 */
+	public AnalyzeOptions(int scanCount, double sampleRate, int topN) {
+		if (scanCount <= 0) {
+			throw new IllegalArgumentException("scanCount must be positive");
+		}
+		if (!(sampleRate > 0 && sampleRate <= 1)) {
+			throw new IllegalArgumentException("sampleRate must be in (0, 1]: " + sampleRate);
+		}
+		if (topN < 0) {
+			throw new IllegalArgumentException("topN must not be negative");
+		}
+		this.scanCount = scanCount;
+		this.sampleRate = sampleRate;
+		this.topN = topN;
+	}
+
+	public int getScanCount() {
+		return scanCount;
+	}
+
+	public double getSampleRate() {
+		return sampleRate;
+	}
+
+	public int getTopN() {
+		return topN;
+	}
+
+	@Override
+	public String toString() {
+		return "AnalyzeOptions{scanCount=" + scanCount + ", sampleRate=" + sampleRate + ", topN=" + topN + "}";
+	}
+}
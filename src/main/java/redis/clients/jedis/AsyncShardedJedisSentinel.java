@@ -0,0 +1,231 @@
+package redis.clients.jedis;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import redis.clients.jedis.util.Log;
+import redis.clients.jedis.util.Sharding;
+
+/**
+ * 基于 {@link JedisSentinelPools} 的异步客户端，所有命令返回 {@link CompletableFuture}。
+ * <p>
+ * 每个 master 有自己的有界线程池，线程数不超过该 master 的连接数；队列满时直接失败，不阻塞调用方。
+ * 超时由单独的定时线程触发，到期后 future 以 {@link TimeoutException} 结束。
+ */
+public class AsyncShardedJedisSentinel implements Closeable, Log {
+
+	public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+	public static final long DEFAULT_TIMEOUT_MILLIS = Protocol.DEFAULT_TIMEOUT;
+
+	private final JedisSentinelPools pools;
+	private final Sharding sharding;
+	private final ThreadPoolExecutor[] executors;
+	private final ScheduledThreadPoolExecutor timer;
+	private final long timeoutMillis;
+
+	public AsyncShardedJedisSentinel(JedisSentinelPools pools, int threadsPerMaster, int queueCapacity,
+			long timeoutMillis) {
+		if (threadsPerMaster <= 0 || queueCapacity <= 0 || timeoutMillis <= 0) {
+			throw new IllegalArgumentException("threadsPerMaster, queueCapacity and timeoutMillis must be positive");
+		}
+		this.pools = pools;
+		this.sharding = pools.getSharding();
+		this.timeoutMillis = timeoutMillis;
+		this.executors = new ThreadPoolExecutor[sharding.shards()];
+		for (int i = 0; i < executors.length; i++) {
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(
+					threadsPerMaster,
+					threadsPerMaster,
+					60L,
+					TimeUnit.SECONDS,
+					new ArrayBlockingQueue<>(queueCapacity),
+					JedisSentinelPools.daemonThreadFactory("AsyncShardedJedisSentinel-" + i));
+			executor.allowCoreThreadTimeOut(true);
+			executors[i] = executor;
+		}
+		this.timer = new ScheduledThreadPoolExecutor(1, JedisSentinelPools.daemonThreadFactory("AsyncShardedJedisSentinel-timer"));
+		this.timer.setRemoveOnCancelPolicy(true);
+	}
+
+	public AsyncShardedJedisSentinel(JedisSentinelPools pools, int threadsPerMaster) {
+		this(pools, threadsPerMaster, DEFAULT_QUEUE_CAPACITY, DEFAULT_TIMEOUT_MILLIS);
+	}
+
+	/**
+	 * 线程数取连接池的 maxTotal，多出的线程只会在 borrow 上排队
+	 */
+	public AsyncShardedJedisSentinel(JedisSentinelPools pools) {
+		this(pools, Math.max(1, pools.getPoolConfig().getMaxTotal()));
+	}
+
+	/**
+	 * 在 key 所属 master 的线程池上执行 command，连接在任务内借出并归还
+	 */
+	public <T> CompletableFuture<T> execute(String key, Function<Jedis, T> command) {
+		int shard = sharding.shardIndex(key);
+		// 迁移和热点统计可能在本对象创建之后才开启，每次都重新取
+		HotKeys hotKeys = pools.getHotKeys();
+		if (hotKeys != null) {
+			hotKeys.record(shard, key);
+		}
+		Resharding resharding = pools.getResharding();
+		if (resharding == null) {
+			return submit(shard, command);
+		}
+		return submit(shard, jedis -> {
+			resharding.pull(key);
+			return command.apply(jedis);
+		});
+	}
+
+	public <T> CompletableFuture<T> execute(byte[] key, Function<Jedis, T> command) {
+		int shard = sharding.shardIndex(key);
+		HotKeys hotKeys = pools.getHotKeys();
+		if (hotKeys != null) {
+			hotKeys.record(shard, key);
+		}
+		Resharding resharding = pools.getResharding();
+		if (resharding == null) {
+			return submit(shard, command);
+		}
+		return submit(shard, jedis -> {
+			resharding.pull(key);
+			return command.apply(jedis);
+		});
+	}
+
+	private <T> CompletableFuture<T> submit(int shard, Function<Jedis, T> command) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		try {
+			executors[shard].execute(() -> {
+				if (future.isDone()) {
+					// 排队期间已超时
+					return;
+				}
+				try (Jedis jedis = pools.getMasterPools().get(shard).getResource()) {
+					future.complete(command.apply(jedis));
+				} catch (Throwable e) {
+					future.completeExceptionally(e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			future.completeExceptionally(e);
+			return future;
+		}
+		ScheduledFuture<?> timeout = timer.schedule(
+				() -> future.completeExceptionally(new TimeoutException("Timed out after " + timeoutMillis + "ms on shard " + shard)),
+				timeoutMillis,
+				TimeUnit.MILLISECONDS);
+		future.whenComplete((r, e) -> timeout.cancel(false));
+		return future;
+	}
+
+	public CompletableFuture<String> get(String key) {
+		return execute(key, j -> j.get(key));
+	}
+
+	public CompletableFuture<String> set(String key, String value) {
+		return execute(key, j -> j.set(key, value));
+	}
+
+	public CompletableFuture<String> setex(String key, int seconds, String value) {
+		return execute(key, j -> j.setex(key, seconds, value));
+	}
+
+	public CompletableFuture<Long> del(String key) {
+		return execute(key, j -> j.del(key));
+	}
+
+	public CompletableFuture<Boolean> exists(String key) {
+		return execute(key, j -> j.exists(key));
+	}
+
+	public CompletableFuture<Long> expire(String key, int seconds) {
+		return execute(key, j -> j.expire(key, seconds));
+	}
+
+	public CompletableFuture<Long> incr(String key) {
+		return execute(key, j -> j.incr(key));
+	}
+
+	public CompletableFuture<String> hget(String key, String field) {
+		return execute(key, j -> j.hget(key, field));
+	}
+
+	public CompletableFuture<Long> hset(String key, String field, String value) {
+		return execute(key, j -> j.hset(key, field, value));
+	}
+
+	public CompletableFuture<Map<String, String>> hgetAll(String key) {
+		return execute(key, j -> j.hgetAll(key));
+	}
+
+	/**
+	 * 按 master 拆分后并发 MGET，全部返回后按传入顺序合并
+	 */
+	public CompletableFuture<List<String>> mget(String... keys) {
+		HotKeys hotKeys = pools.getHotKeys();
+		Resharding resharding = pools.getResharding();
+		List<List<Integer>> positions = new ArrayList<>(sharding.shards());
+		for (int i = 0; i < sharding.shards(); i++) {
+			positions.add(null);
+		}
+		for (int i = 0; i < keys.length; i++) {
+			int shard = sharding.shardIndex(keys[i]);
+			if (hotKeys != null) {
+				hotKeys.record(shard, keys[i]);
+			}
+			if (positions.get(shard) == null) {
+				positions.set(shard, new ArrayList<>());
+			}
+			positions.get(shard).add(i);
+		}
+
+		String[] values = new String[keys.length];
+		List<CompletableFuture<?>> futures = new ArrayList<>();
+		for (int shard = 0; shard < positions.size(); shard++) {
+			List<Integer> idx = positions.get(shard);
+			if (idx == null) {
+				continue;
+			}
+			String[] group = new String[idx.size()];
+			for (int i = 0; i < group.length; i++) {
+				group[i] = keys[idx.get(i)];
+			}
+			futures.add(submit(shard, j -> {
+				if (resharding != null) {
+					for (String key : group) {
+						resharding.pull(key);
+					}
+				}
+				return j.mget(group);
+			}).thenAccept(result -> {
+				for (int i = 0; i < group.length; i++) {
+					values[idx.get(i)] = result.get(i);
+				}
+			}));
+		}
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+				.thenApply(v -> Arrays.asList(values));
+	}
+
+	@Override
+	public void close() {
+		for (ThreadPoolExecutor executor : executors) {
+			executor.shutdown();
+		}
+		timer.shutdownNow();
+	}
+}
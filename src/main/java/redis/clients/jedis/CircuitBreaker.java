@@ -0,0 +1,313 @@
+package redis.clients.jedis;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import redis.clients.jedis.util.Log;
+
+/**
+ * 一个 master 的熔断器，由 {@link SentinelMasterPool} 在借连接前询问、在借还连接时记录结果。
+ * <p>
+ * 关闭：正常放行，滑动窗口内的失败率达到阈值时打开。打开：借连接直接抛出
+ * {@link redis.clients.jedis.exceptions.JedisConnectionException}，不占用连接池也不等待超时，
+ * 过了 openMillis 转为半开。半开：只放行 halfOpenProbes 个探测请求，都成功则关闭，任何一个失败则重新打开；
+ * 只有这一轮半开放行的探测请求的结果决定状态，打开之前借出、之后才归还的连接只计入窗口。
+ * <p>
+ * sentinel 的事件也会改变状态：+odown 立即打开；+sdown 之后第一次失败即打开，不等失败率；
+ * -sdown、-odown 让打开的熔断器立即半开；+switch-master 换了连接池，清空统计并半开（已关闭的保持关闭）。
+ * <p>
+ * 结果按借出到归还计一次：借不到连接或连接被判为损坏算失败，命令返回错误应答不算。
+ * 窗口分成 10 段，记录只做几次原子加，段切换时与并发的记录之间不加锁，可能丢掉少量计数。
+ */
+public class CircuitBreaker implements Log {
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	/**
+	 * {@link #tryAcquire()} 拒绝
+	 */
+	static final long REJECTED = -1L;
+
+	/**
+	 * {@link #tryAcquire()} 在关闭状态放行，不是探测请求
+	 */
+	static final long CALL = 0L;
+
+	private static final int BUCKETS = 10;
+
+	private final String masterName;
+	private final CircuitBreakerPolicy policy;
+	private final long origin = System.nanoTime();
+	private final long bucketNanos;
+	private final AtomicLongArray bucketIds = new AtomicLongArray(BUCKETS);
+	private final AtomicLongArray calls = new AtomicLongArray(BUCKETS);
+	private final AtomicLongArray failures = new AtomicLongArray(BUCKETS);
+	private int probes;
+	private int probeSuccesses;
+	private long round;
+	private final LongAdder rejected = new LongAdder();
+	private final AtomicLong opened = new AtomicLong();
+	private volatile State state = State.CLOSED;
+	private volatile long openUntilNanos;
+	private volatile boolean suspected;
+	private volatile String reason;
+	private volatile long changedMillis = System.currentTimeMillis();
+
+	CircuitBreaker(String masterName, CircuitBreakerPolicy policy) {
+		this.masterName = masterName;
+		this.policy = policy;
+		this.bucketNanos = Math.max(1, TimeUnit.MILLISECONDS.toNanos(policy.getWindowMillis()) / BUCKETS);
+		for (int i = 0; i < BUCKETS; i++) {
+			bucketIds.set(i, -1L);
+		}
+	}
+
+	/**
+	 * @return {@link #REJECTED} 表示拒绝，{@link #CALL} 表示正常放行；半开时放行的探测请求返回这一轮半开的编号（正数），
+	 *         须以带这个编号的 {@link #onSuccess(long)} 或 {@link #onFailure(long)} 结束
+	 */
+	long tryAcquire() {
+		State s = state;
+		if (s == State.CLOSED) {
+			return CALL;
+		}
+		if (s == State.OPEN) {
+			if (System.nanoTime() - openUntilNanos < 0) {
+				rejected.increment();
+				return REJECTED;
+			}
+			halfOpen(State.OPEN, "open for " + policy.getOpenMillis() + " ms");
+		}
+		long permit = admitProbe();
+		if (permit == REJECTED) {
+			rejected.increment();
+		}
+		return permit;
+	}
+
+	/**
+	 * @param permit 借连接时 {@link #tryAcquire()} 的返回值
+	 */
+	void onSuccess(long permit) {
+		record(false);
+		if (permit > 0) {
+			probeSucceeded(permit);
+		}
+	}
+
+	/**
+	 * @param permit 借连接时 {@link #tryAcquire()} 的返回值
+	 */
+	void onFailure(long permit) {
+		record(true);
+		if (permit > 0) {
+			probeFailed(permit);
+		} else if (state == State.CLOSED) {
+			if (suspected) {
+				trip(State.CLOSED, "failed after +sdown");
+				return;
+			}
+			long[] window = window();
+			if (window[0] >= policy.getMinimumCalls() && window[1] >= policy.getFailureRate() * window[0]) {
+				trip(State.CLOSED, window[1] + " of " + window[0] + " calls failed");
+			}
+		}
+	}
+
+	/**
+	 * sentinel 发布的 +sdown、-sdown、+odown、-odown 或 +switch-master
+	 *
+	 * @param source 报告的 sentinel，+switch-master 时为新 master 的地址，仅用于日志
+	 */
+	void onSentinelEvent(String event, String source) {
+		switch (event) {
+		case "+sdown":
+			suspected = true;
+			break;
+		case "+odown":
+			suspected = true;
+			trip(null, "+odown from " + source);
+			break;
+		case "-sdown":
+		case "-odown":
+			suspected = false;
+			halfOpen(State.OPEN, event + " from " + source);
+			break;
+		case "+switch-master":
+			suspected = false;
+			switched(source);
+			break;
+		default:
+			break;
+		}
+	}
+
+	private void record(boolean failure) {
+		long id = (System.nanoTime() - origin) / bucketNanos;
+		int slot = (int) (id % BUCKETS);
+		long current = bucketIds.get(slot);
+		if (current < id && bucketIds.compareAndSet(slot, current, id)) {
+			calls.set(slot, 0);
+			failures.set(slot, 0);
+		}
+		calls.incrementAndGet(slot);
+		if (failure) {
+			failures.incrementAndGet(slot);
+		}
+	}
+
+	/**
+	 * @return 窗口内的调用数与失败数
+	 */
+	private long[] window() {
+		long oldest = (System.nanoTime() - origin) / bucketNanos - BUCKETS + 1;
+		long[] sum = new long[2];
+		for (int i = 0; i < BUCKETS; i++) {
+			if (bucketIds.get(i) >= oldest) {
+				sum[0] += calls.get(i);
+				sum[1] += failures.get(i);
+			}
+		}
+		return sum;
+	}
+
+	private void clearWindow() {
+		for (int i = 0; i < BUCKETS; i++) {
+			bucketIds.set(i, -1L);
+			calls.set(i, 0);
+			failures.set(i, 0);
+		}
+	}
+
+	private synchronized long admitProbe() {
+		if (state == State.CLOSED) {
+			return CALL;
+		}
+		if (state == State.HALF_OPEN && probes < policy.getHalfOpenProbes()) {
+			probes++;
+			return round;
+		}
+		return REJECTED;
+	}
+
+	/**
+	 * 只认这一轮半开放行的探测请求，之前几轮的晚到结果忽略
+	 */
+	private synchronized void probeSucceeded(long permit) {
+		if (state == State.HALF_OPEN && permit == round && ++probeSuccesses >= policy.getHalfOpenProbes()) {
+			close();
+		}
+	}
+
+	private synchronized void probeFailed(long permit) {
+		if (permit == round) {
+			trip(State.HALF_OPEN, "probe failed");
+		}
+	}
+
+	/**
+	 * 从 expected 转为打开，expected 为 null 时不论当前状态（已打开的重新计时）
+	 */
+	private synchronized void trip(State expected, String why) {
+		if (expected != null && state != expected) {
+			return;
+		}
+		openUntilNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(policy.getOpenMillis());
+		reason = why;
+		if (state != State.OPEN) {
+			state = State.OPEN;
+			changedMillis = System.currentTimeMillis();
+			opened.incrementAndGet();
+			warn("Circuit breaker of {} opened: {}.", masterName, why);
+		}
+	}
+
+	private synchronized void halfOpen(State expected, String why) {
+		if (state == expected) {
+			probes = 0;
+			probeSuccesses = 0;
+			round++;
+			state = State.HALF_OPEN;
+			changedMillis = System.currentTimeMillis();
+			reason = why;
+			info("Circuit breaker of {} half-open: {}.", masterName, why);
+		}
+	}
+
+	private synchronized void close() {
+		if (state == State.HALF_OPEN) {
+			clearWindow();
+			state = State.CLOSED;
+			changedMillis = System.currentTimeMillis();
+			reason = null;
+			info("Circuit breaker of {} closed after {} successful probes.", masterName, policy.getHalfOpenProbes());
+		}
+	}
+
+	private synchronized void switched(String master) {
+		clearWindow();
+		if (state != State.CLOSED) {
+			halfOpen(state, "+switch-master to " + master);
+		}
+	}
+
+	public String getMasterName() {
+		return masterName;
+	}
+
+	public CircuitBreakerPolicy getPolicy() {
+		return policy;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	/**
+	 * 是否有 sentinel 报告 master 主观下线且尚未撤销
+	 */
+	public boolean isSuspected() {
+		return suspected;
+	}
+
+	/**
+	 * 最近一次打开或半开的原因，关闭时为 null
+	 */
+	public String getReason() {
+		return reason;
+	}
+
+	public long getChangedMillis() {
+		return changedMillis;
+	}
+
+	/**
+	 * 窗口内失败的比例，没有调用时为 0
+	 */
+	public double getFailureRate() {
+		long[] window = window();
+		return window[0] == 0 ? 0 : (double) window[1] / window[0];
+	}
+
+	public long getOpenedCount() {
+		return opened.get();
+	}
+
+	/**
+	 * 因打开或半开的探测名额用完而直接拒绝的次数
+	 */
+	public long getRejectedCount() {
+		return rejected.sum();
+	}
+
+	@Override
+	public String toString() {
+		return masterName + " " + state + (reason == null ? "" : " (" + reason + ")")
+				+ String.format(", failure rate %.2f, opened %d, rejected %d", getFailureRate(), getOpenedCount(),
+						getRejectedCount());
+	}
+}
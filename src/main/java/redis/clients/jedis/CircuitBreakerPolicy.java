@@ -0,0 +1,67 @@
+package redis.clients.jedis;
+
+/**
+ * 熔断器的参数：多高的失败率、多少次调用之后打开，打开多久，半开时放行多少个探测请求。
+ */
+public class CircuitBreakerPolicy {
+
+	/**
+	 * 10 秒内至少 20 次调用且一半失败时打开，5 秒后半开，3 个探测请求都成功后关闭
+	 */
+	public static final CircuitBreakerPolicy DEFAULT = new CircuitBreakerPolicy(0.5, 20, 10_000L, 5_000L, 3);
+
+	private final double failureRate;
+	private final int minimumCalls;
+	private final long windowMillis;
+	private final long openMillis;
+	private final int halfOpenProbes;
+
+	/**
+	 * @param failureRate    窗口内失败的比例达到多少时打开，0 到 1 之间
+	 * @param minimumCalls   窗口内至少多少次调用才计算失败率；sentinel 报告主观下线后第一次失败即打开
+	 * @param windowMillis   统计失败率的滑动窗口
+	 * @param openMillis     打开后多久转为半开
+	 * @param halfOpenProbes 半开时同时放行的探测请求数，也是关闭所需的连续成功数
+	 */
+	public CircuitBreakerPolicy(double failureRate, int minimumCalls, long windowMillis, long openMillis,
+			int halfOpenProbes) {
+		if (failureRate <= 0 || failureRate > 1) {
+			throw new IllegalArgumentException("failureRate must be in (0, 1]");
+		}
+		if (minimumCalls <= 0 || windowMillis <= 0 || openMillis <= 0 || halfOpenProbes <= 0) {
+			throw new IllegalArgumentException("minimumCalls, windowMillis, openMillis and halfOpenProbes must be positive");
+		}
+		this.failureRate = failureRate;
+		this.minimumCalls = minimumCalls;
+		this.windowMillis = windowMillis;
+		this.openMillis = openMillis;
+		this.halfOpenProbes = halfOpenProbes;
+	}
+
+	public double getFailureRate() {
+		return failureRate;
+	}
+
+	public int getMinimumCalls() {
+		return minimumCalls;
+	}
+
+	public long getWindowMillis() {
+		return windowMillis;
+	}
+
+	public long getOpenMillis() {
+		return openMillis;
+	}
+
+	public int getHalfOpenProbes() {
+		return halfOpenProbes;
+	}
+
+	@Override
+	public String toString() {
+		return "CircuitBreakerPolicy{failureRate=" + failureRate + ", minimumCalls=" + minimumCalls
+				+ ", windowMillis=" + windowMillis + ", openMillis=" + openMillis
+				+ ", halfOpenProbes=" + halfOpenProbes + "}";
+	}
+}
@@ -0,0 +1,50 @@
+package redis.clients.jedis;
+
+/**
+ * 按模式删除 key 的节奏：每次 SCAN 取多少个 key，每个 master 每秒最多删除多少个 key，
+ * 模式为 * 时是否直接 FLUSHDB ASYNC。
+ */
+public class DeletePolicy {
+
+	/**
+	 * 每次 SCAN 1000 个 key，不限速，模式为 * 时 FLUSHDB ASYNC
+	 */
+	public static final DeletePolicy DEFAULT = new DeletePolicy(1000, -1, true);
+
+	private final int scanCount;
+	private final int maxKeysPerSecond;
+	private final boolean flushAsync;
+
+	/**
+	 * @param scanCount        SCAN 的 COUNT，也是一次 UNLINK 的 key 数上限
+	 * @param maxKeysPerSecond 每个 master 每秒最多删除的 key 数，&lt;= 0 表示不限
+	 * @param flushAsync       模式为 * 时用 FLUSHDB ASYNC 清空整个库，不受限速约束；
+	 *                         服务端不支持时退回 SCAN + UNLINK
+	 */
+	public DeletePolicy(int scanCount, int maxKeysPerSecond, boolean flushAsync) {
+		if (scanCount <= 0) {
+			throw new IllegalArgumentException("scanCount must be positive");
+		}
+		this.scanCount = scanCount;
+		this.maxKeysPerSecond = maxKeysPerSecond;
+		this.flushAsync = flushAsync;
+	}
+
+	public int getScanCount() {
+		return scanCount;
+	}
+
+	public int getMaxKeysPerSecond() {
+		return maxKeysPerSecond;
+	}
+
+	public boolean isFlushAsync() {
+		return flushAsync;
+	}
+
+	@Override
+	public String toString() {
+		return "DeletePolicy{scanCount=" + scanCount + ", maxKeysPerSecond=" + maxKeysPerSecond
+				+ ", flushAsync=" + flushAsync + "}";
+	}
+}
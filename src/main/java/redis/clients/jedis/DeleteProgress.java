@@ -0,0 +1,83 @@
+package redis.clients.jedis;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一个 master 上按模式删除的进度
+ */
+public class DeleteProgress {
+
+	private final String masterName;
+	private final long matched;
+	private final long deleted;
+	private final long elapsedNanos;
+	private final boolean flushed;
+	private final boolean done;
+	private final String error;
+
+	DeleteProgress(String masterName, long matched, long deleted, long elapsedNanos, boolean flushed, boolean done,
+			String error) {
+		this.masterName = masterName;
+		this.matched = matched;
+		this.deleted = deleted;
+		this.elapsedNanos = elapsedNanos;
+		this.flushed = flushed;
+		this.done = done;
+		this.error = error;
+	}
+
+	public String getMasterName() {
+		return masterName;
+	}
+
+	/**
+	 * @return SCAN 返回的匹配模式的 key 数
+	 */
+	public long getMatched() {
+		return matched;
+	}
+
+	/**
+	 * @return UNLINK 实际删除的 key 数；FLUSHDB 时为清空前的 DBSIZE
+	 */
+	public long getDeleted() {
+		return deleted;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * @return 从开始到现在（或结束时）的平均每秒删除数
+	 */
+	public double getKeysPerSecond() {
+		return elapsedNanos <= 0 ? 0 : deleted * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+	}
+
+	/**
+	 * @return 是否用 FLUSHDB ASYNC 清空
+	 */
+	public boolean isFlushed() {
+		return flushed;
+	}
+
+	public boolean isDone() {
+		return done;
+	}
+
+	/**
+	 * @return 使该 master 中止的错误，没有时为 null
+	 */
+	public String getError() {
+		return error;
+	}
+
+	@Override
+	public String toString() {
+		return masterName + "{matched=" + matched + ", deleted=" + deleted
+				+ ", elapsed=" + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + "ms"
+				+ ", rate=" + Math.round(getKeysPerSecond()) + "/s"
+				+ (flushed ? ", flushed" : "") + (done ? ", done" : "") + (error == null ? "" : ", error=" + error) + "}";
+	}
+}
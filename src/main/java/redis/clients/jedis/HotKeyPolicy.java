@@ -0,0 +1,47 @@
+package redis.clients.jedis;
+
+/**
+ * 热点 key 统计的参数：每个 master 保留多少个 key、sketch 多宽、多久衰减一半。
+ */
+public class HotKeyPolicy {
+
+	/**
+	 * 每个 master 保留 20 个 key，每行 4096 个计数器（每个 master 64KB），每分钟减半
+	 */
+	public static final HotKeyPolicy DEFAULT = new HotKeyPolicy(20, 4096, 60_000L);
+
+	private final int topK;
+	private final int width;
+	private final long halfLifeMillis;
+
+	/**
+	 * @param topK           每个 master 保留的热点 key 个数
+	 * @param width          count-min sketch 每行的计数器个数，共 4 行
+	 * @param halfLifeMillis 计数减半的间隔，&lt;= 0 表示不衰减
+	 */
+	public HotKeyPolicy(int topK, int width, long halfLifeMillis) {
+		if (topK <= 0 || width <= 0) {
+			throw new IllegalArgumentException("topK and width must be positive");
+		}
+		this.topK = topK;
+		this.width = width;
+		this.halfLifeMillis = halfLifeMillis;
+	}
+
+	public int getTopK() {
+		return topK;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public long getHalfLifeMillis() {
+		return halfLifeMillis;
+	}
+
+	@Override
+	public String toString() {
+		return "HotKeyPolicy{topK=" + topK + ", width=" + width + ", halfLifeMillis=" + halfLifeMillis + "}";
+	}
+}
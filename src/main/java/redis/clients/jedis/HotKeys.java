@@ -0,0 +1,69 @@
+package redis.clients.jedis;
+
+import java.util.List;
+
+import redis.clients.jedis.util.HotKeySketch;
+import redis.clients.jedis.util.HotKeySketch.HotKey;
+
+/**
+ * 客户端侧的热点 key 统计，每个 master 一个 {@link HotKeySketch}。
+ * <p>
+ * {@link ShardedJedisSentinel}、{@link ShardedJedisSentinelPipeline} 与 {@link AsyncShardedJedisSentinel}
+ * 发往 master（或其副本）的每条单 key 命令记一次，多 key 命令每个 key 记一次；本地缓存命中的读不计。
+ * 统计的是本进程发出的命令，多个客户端进程需要各自查看。
+ */
+public class HotKeys {
+
+	private final JedisSentinelPools pools;
+	private final HotKeyPolicy policy;
+	private final HotKeySketch[] sketches;
+
+	HotKeys(JedisSentinelPools pools, HotKeyPolicy policy) {
+		this.pools = pools;
+		this.policy = policy;
+		this.sketches = new HotKeySketch[pools.getMasterPools().size()];
+		for (int i = 0; i < sketches.length; i++) {
+			sketches[i] = new HotKeySketch(policy.getWidth(), policy.getTopK(), policy.getHalfLifeMillis());
+		}
+	}
+
+	void record(int shard, String key) {
+		sketches[shard].record(key);
+	}
+
+	void record(int shard, byte[] key) {
+		sketches[shard].record(key);
+	}
+
+	/**
+	 * 下标为 shard 的 master 上最热的 key，按估计次数从高到低
+	 */
+	public List<HotKey> topKeys(int shard) {
+		return sketches[shard].top();
+	}
+
+	/**
+	 * 下标为 shard 的 master 记录的命令数，与 {@link HotKey#getCount()} 以同样的速度衰减
+	 */
+	public long getRecorded(int shard) {
+		return sketches[shard].recorded();
+	}
+
+	public String getMasterName(int shard) {
+		return pools.getMasterPools().get(shard).getMasterName();
+	}
+
+	public int shards() {
+		return sketches.length;
+	}
+
+	public HotKeyPolicy getPolicy() {
+		return policy;
+	}
+
+	public void reset() {
+		for (HotKeySketch sketch : sketches) {
+			sketch.clear();
+		}
+	}
+}
@@ -2,24 +2,65 @@ package redis.clients.jedis;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.metrics.JedisMetrics;
+import redis.clients.jedis.metrics.MasterMetrics;
 import redis.clients.jedis.util.Log;
+import redis.clients.jedis.util.SafeEncoder;
+import redis.clients.jedis.util.Sharding;
+import redis.clients.jedis.util.ShardingStrategy;
 
 public class JedisSentinelPools implements Closeable, Log {
 
 	private final Set<MasterListener> masterListeners = new HashSet<>();
-	private final List<JedisSentinelPool> pools = new ArrayList<>();
+	private final List<SentinelMasterPool> pools = new ArrayList<>();
+	private List<JedisSentinelPool> legacyPools;
+	private volatile ShardingStrategy shardingStrategy = ShardingStrategy.KETAMA;
+	private volatile Sharding sharding;
+	private volatile SentinelTopology topology;
+	private volatile long topologyRefreshMillis = SentinelTopology.DEFAULT_REFRESH_MILLIS;
+	/** 按 host:port 索引的 sentinel 连接池，用于解析和刷新拓扑；订阅仍由 MasterListener 各自建连 */
+	private final Map<String, JedisPool> sentinelPools = new java.util.LinkedHashMap<>();
+	private final List<MasterSwitchListener> switchListeners = new CopyOnWriteArrayList<>();
+	private volatile ShardedNearCache nearCache;
+	private volatile ReplicaReads replicaReads;
+	private volatile HotKeys hotKeys;
+	private volatile AdaptivePoolSizer poolSizer;
+	private volatile List<CircuitBreaker> circuitBreakers;
+	private volatile Resharding resharding;
+	private final List<PatternDelete> deletes = new CopyOnWriteArrayList<>();
+	private final ExecutorService executor = Executors.newCachedThreadPool(daemonThreadFactory("JedisSentinelPools-worker"));
 
+	private final JedisMetrics metrics;
 	private final List<String> masterNames;
 	private final Set<String> sentinels;
 	private final GenericObjectPoolConfig<?> poolConfig;
@@ -35,7 +76,16 @@ public class JedisSentinelPools implements Closeable, Log {
 	private final String sentinelUser;
 	private final String sentinelPassword;
 	private final String sentinelClientName;
+	private final long startupTimeoutMillis;
 
+	/**
+	 * 启动时解析 master 地址、建连接池并预热到 minIdle 的默认总时限
+	 */
+	public static final long DEFAULT_STARTUP_TIMEOUT_MILLIS = 10_000L;
+
+	/**
+	 * @param startupTimeoutMillis 构造时解析所有 master 并预热连接池的总时限，见 {@link #initPools()}
+	 */
 	public JedisSentinelPools(
 			List<String> masterNames,
 			Set<String> sentinels,
@@ -51,8 +101,11 @@ public class JedisSentinelPools implements Closeable, Log {
 			int sentinelSoTimeout,
 			String sentinelUser,
 			String sentinelPassword,
-			String sentinelClientName) {
+			String sentinelClientName,
+			long startupTimeoutMillis) {
+		this.startupTimeoutMillis = startupTimeoutMillis;
 		this.masterNames = masterNames;
+		this.metrics = new JedisMetrics(masterNames);
 		this.sentinels = sentinels;
 		this.poolConfig = poolConfig;
 		this.connectionTimeout = connectionTimeout;
@@ -71,6 +124,41 @@ public class JedisSentinelPools implements Closeable, Log {
 		initPools();
 	}
 
+	public JedisSentinelPools(
+			List<String> masterNames,
+			Set<String> sentinels,
+			GenericObjectPoolConfig<?> poolConfig,
+			int connectionTimeout,
+			int soTimeout,
+			int infiniteSoTimeout,
+			String user,
+			String password,
+			int database,
+			String clientName,
+			int sentinelConnectionTimeout,
+			int sentinelSoTimeout,
+			String sentinelUser,
+			String sentinelPassword,
+			String sentinelClientName) {
+		this(
+				masterNames,
+				sentinels,
+				poolConfig,
+				connectionTimeout,
+				soTimeout,
+				infiniteSoTimeout,
+				user,
+				password,
+				database,
+				clientName,
+				sentinelConnectionTimeout,
+				sentinelSoTimeout,
+				sentinelUser,
+				sentinelPassword,
+				sentinelClientName,
+				DEFAULT_STARTUP_TIMEOUT_MILLIS);
+	}
+
 	public JedisSentinelPools(
 			List<String> masterNames,
 			Set<String> sentinels,
@@ -384,36 +472,55 @@ public class JedisSentinelPools implements Closeable, Log {
 		this(masterNames, sentinels, poolConfig, timeout, timeout, password, database, clientName);
 	}
 
+	/**
+	 * 并行启动：同时向所有 sentinel 解析全部 master，每个 master 的连接池建好后各自预热到 minIdle，
+	 * 总耗时约为最快的 sentinel 应答加一次建连，而不是随 master 数量线性增长。
+	 * <p>
+	 * 到 startupTimeoutMillis 仍有 master 解析不出地址时抛出 {@link JedisException}；
+	 * 预热没做完的连接池照常使用，剩下的连接在后台继续建立或在首次借用时建立。
+	 */
 	public void initPools() {
 		info("begin init jedis sentinel pools......");
-		Map<String, List<JedisSentinelPool>> masters = new java.util.LinkedHashMap<>();
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(startupTimeoutMillis);
+		for (String sentinel : sentinels) {
+			HostAndPort hap = HostAndPort.parseString(sentinel);
+			sentinelPools.computeIfAbsent(hap.toString(), k -> newSentinelPool(hap));
+		}
+		Map<String, HostAndPort> addresses = resolveMasters(masterNames, deadline);
+
+		Map<String, List<SentinelMasterPool>> masters = new java.util.LinkedHashMap<>();
+		List<Future<?>> warmups = new ArrayList<>(masterNames.size());
 		for (String masterName : masterNames) {
-			JedisSentinelPool jedisSentinelPool = new JedisSentinelPool(
+			MasterMetrics masterMetrics = metrics.master(pools.size());
+			SentinelMasterPool pool = new SentinelMasterPool(
 					masterName,
-					iterableOnce(sentinels),
-					poolConfig,
-					connectionTimeout,
-					soTimeout,
-					infiniteSoTimeout,
-					user,
-					password,
-					database,
-					clientName,
-					sentinelConnectionTimeout,
-					sentinelSoTimeout,
-					sentinelUser,
-					sentinelPassword,
-					sentinelClientName);
-			pools.add(jedisSentinelPool);
+					addresses.get(masterName),
+					master -> newPool(master, masterMetrics),
+					poolConfig.getMinIdle(),
+					executor,
+					masterMetrics);
+			pools.add(pool);
 			masters
 					.computeIfAbsent(masterName, k -> new ArrayList<>())
-					.add(jedisSentinelPool);
+					.add(pool);
+			if (poolConfig.getMinIdle() > 0) {
+				warmups.add(executor.submit(() -> prewarm(pool)));
+			}
 		}
 
+		// 分片只与 master 的名字和顺序有关，不带地址，master 切换不需要重建
+		if (sharding == null || sharding.shards() != pools.size()) {
+			sharding = shardingStrategy.create(masterNames);
+		}
+
+		// 所有 sentinel 的通知汇总到同一个拓扑，每次切换只重建一次连接池
+		topology = new SentinelTopology(masters, sentinelPools, executor, this::fireMasterSwitch);
+		topology.scheduleRefresh(topologyRefreshMillis);
 		for (String sentinel : sentinels) {
 			HostAndPort hap = HostAndPort.parseString(sentinel);
 			MasterListener masterListener = new MasterListener(
-					masters,
+					topology,
 					hap.getHost(),
 					hap.getPort(),
 					sentinelConnectionTimeout,
@@ -425,6 +532,155 @@ public class JedisSentinelPools implements Closeable, Log {
 			masterListeners.add(masterListener);
 			masterListener.start();
 		}
+
+		int warmed = 0;
+		for (Future<?> warmup : warmups) {
+			try {
+				warmup.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+				warmed++;
+			} catch (TimeoutException e) {
+				// 不取消，让它在后台做完
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			} catch (ExecutionException e) {
+				// prewarm 自己记录了日志
+			}
+		}
+		info("Initialized {} pools ({} pre-warmed to minIdle {}) in {} ms.", pools.size(), warmed,
+				poolConfig.getMinIdle(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+	}
+
+	private void prewarm(SentinelMasterPool pool) {
+		try {
+			pool.addObjects(poolConfig.getMinIdle());
+		} catch (RuntimeException e) {
+			warn("Can not pre-warm {}: {}", pool, e.getMessage());
+		}
+	}
+
+	/**
+	 * 解析单个 master 的地址，时限与启动相同
+	 */
+	private HostAndPort resolveMaster(String masterName) {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(startupTimeoutMillis);
+		return resolveMasters(Collections.singletonList(masterName), deadline).get(masterName);
+	}
+
+	/**
+	 * 同时询问所有 sentinel，每个 sentinel 一条连接、一次 SENTINEL MASTERS（没有权限时逐个 GET-MASTER-ADDR-BY-NAME），
+	 * 每个 master 取最先给出的地址。个别 sentinel 慢或不可达不会拖慢启动，它的查询在后台超时。
+	 *
+	 * @throws JedisException 到 deadline 或所有 sentinel 都已应答时仍有 master 没有地址：
+	 *                        有 sentinel 应答过时报告未知的 master，否则报告没有可达的 sentinel
+	 */
+	private Map<String, HostAndPort> resolveMasters(List<String> names, long deadline) {
+		Set<String> wanted = new LinkedHashSet<>(names);
+		Map<String, HostAndPort> resolved = new ConcurrentHashMap<>();
+		CountDownLatch done = new CountDownLatch(1);
+		AtomicInteger remaining = new AtomicInteger(sentinels.size());
+		AtomicInteger answered = new AtomicInteger();
+		for (String sentinel : sentinels) {
+			HostAndPort hap = HostAndPort.parseString(sentinel);
+			Runnable query = () -> {
+				try {
+					if (querySentinel(hap, wanted, resolved)) {
+						answered.incrementAndGet();
+					}
+				} finally {
+					if (remaining.decrementAndGet() == 0 || resolved.size() == wanted.size()) {
+						done.countDown();
+					}
+				}
+			};
+			try {
+				executor.execute(query);
+			} catch (RejectedExecutionException e) {
+				query.run();
+			}
+		}
+		try {
+			done.await(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JedisException("Interrupted while resolving masters from sentinels", e);
+		}
+		Set<String> missing = new LinkedHashSet<>(wanted);
+		missing.removeAll(resolved.keySet());
+		if (!missing.isEmpty()) {
+			if (answered.get() == 0) {
+				throw new JedisException("No sentinel reachable, cannot determine where is " + missing
+						+ " master is running...");
+			}
+			int pending = remaining.get();
+			throw new JedisException("Unknown master " + missing + ", not monitored by any of the " + answered.get()
+					+ " sentinels that answered" + (pending > 0 ? ", " + pending + " did not answer in time" : ""));
+		}
+		return new HashMap<>(resolved);
+	}
+
+	/**
+	 * @return sentinel 是否应答，不论是否监控了要找的 master
+	 */
+	private boolean querySentinel(HostAndPort hap, Set<String> wanted, Map<String, HostAndPort> resolved) {
+		try (Jedis jedis = sentinelPools.get(hap.toString()).getResource()) {
+			Set<String> monitored = new HashSet<>();
+			try {
+				for (Map<String, String> master : jedis.sentinelMasters()) {
+					String name = master.get("name");
+					if (wanted.contains(name) && master.get("ip") != null && master.get("port") != null) {
+						monitored.add(name);
+						resolved.putIfAbsent(name, new HostAndPort(master.get("ip"), Integer.parseInt(master.get("port"))));
+					}
+				}
+			} catch (JedisDataException e) {
+				for (String name : wanted) {
+					if (resolved.containsKey(name)) {
+						continue;
+					}
+					List<String> masterAddr = jedis.sentinelGetMasterAddrByName(name);
+					if (masterAddr != null && masterAddr.size() == 2) {
+						monitored.add(name);
+						resolved.putIfAbsent(name, new HostAndPort(masterAddr.get(0), Integer.parseInt(masterAddr.get(1))));
+					}
+				}
+			}
+			for (String name : wanted) {
+				if (!monitored.contains(name) && !resolved.containsKey(name)) {
+					warn("Master {} is not monitored by sentinel {}.", name, hap);
+				}
+			}
+			return true;
+		} catch (JedisException e) {
+			warn("Can not resolve masters from sentinel {}: {}", hap, e.getMessage());
+			return false;
+		}
+	}
+
+	private MeteredJedisPool newPool(HostAndPort master, MasterMetrics masterMetrics) {
+		return new MeteredJedisPool(poolConfig, newFactory(master, masterMetrics), masterMetrics);
+	}
+
+	private MeteredJedisFactory newFactory(HostAndPort address, MasterMetrics masterMetrics) {
+		return new MeteredJedisFactory(
+				address,
+				connectionTimeout,
+				soTimeout,
+				infiniteSoTimeout,
+				user,
+				password,
+				database,
+				clientName,
+				masterMetrics);
+	}
+
+	private JedisPool newSentinelPool(HostAndPort hap) {
+		JedisPoolConfig config = new JedisPoolConfig();
+		config.setMaxTotal(4);
+		config.setMaxIdle(2);
+		config.setMaxWaitMillis(sentinelSoTimeout);
+		return new JedisPool(config, hap.getHost(), hap.getPort(), sentinelConnectionTimeout, sentinelSoTimeout,
+				sentinelUser, sentinelPassword, Protocol.DEFAULT_DATABASE, sentinelClientName);
 	}
 
 // 传给ShardedJedis的是现成的Jedis
@@ -433,7 +689,7 @@ public class JedisSentinelPools implements Closeable, Log {
 		List<PrebuiltJedisShardInfo> shards = new ArrayList<>();
 
 		try {
-			for (JedisSentinelPool pool : pools) {
+			for (SentinelMasterPool pool : pools) {
 				shards.add(new PrebuiltJedisShardInfo(pool.getResource()));
 			}
 		} catch (Exception ex) {
@@ -443,9 +699,377 @@ public class JedisSentinelPools implements Closeable, Log {
 		return shards.stream().map(a -> (JedisShardInfo) a).collect(Collectors.toList());
 	}
 
+	/**
+	 * 按 masterNames 的顺序返回各 master 的连接池，下标即分片序号
+	 */
+	public List<SentinelMasterPool> getMasterPools() {
+		return Collections.unmodifiableList(pools);
+	}
+
+	/**
+	 * @deprecated 各 master 的连接池已换成 {@link SentinelMasterPool}，用 {@link #getMasterPools()}。
+	 * 第一次调用时为每个 master 向 sentinel 查询一次地址，建一个委托给 {@link SentinelMasterPool} 的
+	 * {@link JedisSentinelPool}，借出的连接与 {@link #getMasterPools()} 的相同，也随 master 切换
+	 */
+	@Deprecated
+	public synchronized List<JedisSentinelPool> getPools() {
+		if (legacyPools == null) {
+			List<JedisSentinelPool> list = new ArrayList<>(pools.size());
+			for (SentinelMasterPool pool : pools) {
+				list.add(new LegacySentinelPool(pool, iterableOnce(sentinels), poolConfig, connectionTimeout, soTimeout,
+						infiniteSoTimeout, user, password, database, clientName, sentinelConnectionTimeout,
+						sentinelSoTimeout, sentinelUser, sentinelPassword, sentinelClientName));
+			}
+			legacyPools = Collections.unmodifiableList(list);
+		}
+		return legacyPools;
+	}
+
+	/**
+	 * key 到 {@link #getMasterPools()} 下标的映射，所有 {@link ShardedJedisSentinel} 共享
+	 */
+	public Sharding getSharding() {
+		return sharding;
+	}
+
+	public ShardingStrategy getShardingStrategy() {
+		return shardingStrategy;
+	}
+
+	/**
+	 * 更换分片算法，默认 {@link ShardingStrategy#KETAMA}。只对之后创建的 {@link ShardedJedisSentinel} 生效，
+	 * 应在处理请求前调用；换算法会改变大部分 key 的归属，已有数据需要用
+	 * {@link #startResharding(List, ShardingStrategy, ReshardPolicy)} 迁移。
+	 */
+	public synchronized void setShardingStrategy(ShardingStrategy strategy) {
+		this.shardingStrategy = strategy;
+		if (!pools.isEmpty()) {
+			sharding = strategy.create(masterNames);
+		}
+	}
+
+	/**
+	 * 各 master 当前的地址、config-epoch 和副本，以及各 sentinel 的健康状况，见 {@link SentinelTopology#snapshot()}
+	 */
+	public SentinelTopology getTopology() {
+		return topology;
+	}
+
+	/**
+	 * 全量查询所有 sentinel 的间隔，默认 {@link SentinelTopology#DEFAULT_REFRESH_MILLIS}，&lt;= 0 表示只靠监听器更新
+	 */
+	public synchronized void setTopologyRefreshMillis(long refreshMillis) {
+		this.topologyRefreshMillis = refreshMillis;
+		if (topology != null) {
+			topology.scheduleRefresh(refreshMillis);
+		}
+	}
+
+	public GenericObjectPoolConfig<?> getPoolConfig() {
+		return poolConfig;
+	}
+
+	/**
+	 * 跨分片并行执行命令用的线程池，随 {@link #close()} 关闭
+	 */
+	public ExecutorService getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * 惰性地 SCAN 所有 master，返回的流用完或 limit 截断后应当关闭（try-with-resources），以停止预取。
+	 * 最多 {@link ScanOptions#getMaxCursors()} 个 master 同时推进，每个只预取一页，内存占用与 key 总数无关；
+	 * 可以 parallel()，按 master 拆分。与 SCAN 一样，期间被修改的 key 可能重复或遗漏，master 切换后继续的游标亦然。
+	 */
+	public Stream<String> scan(ScanOptions options) {
+		ShardScanSpliterator<String> spliterator = new ShardScanSpliterator<>(this, options, SafeEncoder::encode);
+		return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+	}
+
+	/**
+	 * 同 {@link #scan(ScanOptions)}，key 不解码
+	 */
+	public Stream<byte[]> scanBinary(ScanOptions options) {
+		ShardScanSpliterator<byte[]> spliterator = new ShardScanSpliterator<>(this, options, key -> key);
+		return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+	}
+
+	public ShardedJedisSentinelPipeline pipelined() {
+		return new ShardedJedisSentinelPipeline(this);
+	}
+
+	public void addMasterSwitchListener(MasterSwitchListener listener) {
+		switchListeners.add(listener);
+	}
+
+	public void removeMasterSwitchListener(MasterSwitchListener listener) {
+		switchListeners.remove(listener);
+	}
+
+	private void fireMasterSwitch(String masterName, HostAndPort master) {
+		for (int i = 0; i < masterNames.size(); i++) {
+			if (!masterNames.get(i).equals(masterName)) {
+				continue;
+			}
+			for (MasterSwitchListener listener : switchListeners) {
+				try {
+					listener.onMasterSwitch(i, masterName, master);
+				} catch (RuntimeException e) {
+					error("MasterSwitchListener failed on {}", masterName, e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 为 {@link ShardedJedisSentinel} 的 get/hget/hgetAll 开启本地缓存。
+	 * 依赖各 master 的 keyspace 通知做失效，master 切换时清空对应分片。
+	 *
+	 * @param maxEntriesPerShard     每个分片最多缓存的 key 数
+	 * @param ttlMillis              缓存的最长存活时间，作为丢失通知时的兜底，&lt;= 0 表示不过期
+	 * @param configureNotifications master 未开启 keyspace 通知时是否通过 CONFIG SET 开启；
+	 *                               不开启则该分片不使用缓存
+	 */
+	public synchronized ShardedNearCache enableNearCache(int maxEntriesPerShard, long ttlMillis,
+			boolean configureNotifications) {
+		if (nearCache == null) {
+			nearCache = new ShardedNearCache(this, maxEntriesPerShard, ttlMillis, configureNotifications);
+			addMasterSwitchListener(nearCache);
+		}
+		return nearCache;
+	}
+
+	public ShardedNearCache getNearCache() {
+		return nearCache;
+	}
+
+	/**
+	 * 让 {@link ShardedJedisSentinel} 的只读命令从副本读，写命令仍然发往 master；
+	 * 同一个实例写过某个分片之后，该分片的读也留在 master 上，保证读到自己的写。
+	 */
+	public synchronized ReplicaReads enableReplicaReads(ReplicaReadPolicy policy) {
+		if (replicaReads == null) {
+			ReplicaReads reads = new ReplicaReads(this, policy);
+			for (int i = 0; i < pools.size(); i++) {
+				int shard = i;
+				metrics.replicas(shard).bindPool(
+						() -> reads.getReplicas(shard).stream().mapToInt(ReplicaPool::getNumActive).sum(),
+						() -> reads.getReplicas(shard).stream().mapToInt(ReplicaPool::getNumIdle).sum(),
+						() -> reads.getReplicas(shard).stream().mapToInt(ReplicaPool::getNumWaiters).sum());
+			}
+			replicaReads = reads;
+			addMasterSwitchListener(reads);
+		}
+		return replicaReads;
+	}
+
+	public ReplicaReads getReplicaReads() {
+		return replicaReads;
+	}
+
+	/**
+	 * 统计之后创建的 {@link ShardedJedisSentinel}、{@link ShardedJedisSentinelPipeline} 和
+	 * {@link AsyncShardedJedisSentinel} 访问的 key，按 master 给出估计访问次数最高的 key，见 {@link HotKeys}。
+	 * 每条命令多一次哈希和几次原子自增。
+	 */
+	public synchronized HotKeys enableHotKeys(HotKeyPolicy policy) {
+		if (hotKeys == null) {
+			hotKeys = new HotKeys(this, policy);
+		}
+		return hotKeys;
+	}
+
+	public HotKeys getHotKeys() {
+		return hotKeys;
+	}
+
+	/**
+	 * 在总连接数 {@link PoolSizingPolicy#getMaxTotalConnections()} 以内，按借连接等待和借出峰值
+	 * 定期调整各 master 连接池的 maxTotal，忙的 master 多分、闲的少分，见 {@link AdaptivePoolSizer}
+	 */
+	public synchronized AdaptivePoolSizer enableAdaptivePoolSizing(PoolSizingPolicy policy) {
+		if (poolSizer == null) {
+			poolSizer = new AdaptivePoolSizer(this, policy);
+		}
+		return poolSizer;
+	}
+
+	public AdaptivePoolSizer getPoolSizer() {
+		return poolSizer;
+	}
+
+	/**
+	 * 为每个 master 开启熔断器：失败率过高或 sentinel 报告客观下线时，发往该 master 的命令在借连接时立即失败，
+	 * 不占用请求线程，之后用少量探测请求逐步恢复，见 {@link CircuitBreaker}
+	 *
+	 * @return 各 master 的熔断器，下标即分片序号
+	 */
+	public synchronized List<CircuitBreaker> enableCircuitBreakers(CircuitBreakerPolicy policy) {
+		if (circuitBreakers == null) {
+			List<CircuitBreaker> list = new ArrayList<>(pools.size());
+			for (SentinelMasterPool pool : pools) {
+				CircuitBreaker breaker = new CircuitBreaker(pool.getMasterName(), policy);
+				pool.setCircuitBreaker(breaker);
+				list.add(breaker);
+			}
+			circuitBreakers = Collections.unmodifiableList(list);
+		}
+		return circuitBreakers;
+	}
+
+	public List<CircuitBreaker> getCircuitBreakers() {
+		return circuitBreakers;
+	}
+
+	/**
+	 * 开始把 key 从旧的 master 列表迁移到当前的 master 列表，迁移期间 {@link ShardedJedisSentinel}
+	 * 会先到旧 master 上找换了 master 的 key，见 {@link Resharding}。
+	 * 只对之后创建的 {@link ShardedJedisSentinel} 生效，应在处理请求前调用。
+	 *
+	 * @param previousMasterNames 之前 redis.masters 的值，顺序不能变
+	 */
+	public Resharding startResharding(List<String> previousMasterNames, ReshardPolicy policy) {
+		return startResharding(previousMasterNames, shardingStrategy, policy);
+	}
+
+	/**
+	 * 同 {@link #startResharding(List, ReshardPolicy)}，旧布局使用 previousStrategy 分片，可用于更换分片算法
+	 */
+	public synchronized Resharding startResharding(
+			List<String> previousMasterNames,
+			ShardingStrategy previousStrategy,
+			ReshardPolicy policy) {
+		if (resharding != null && resharding.isActive()) {
+			throw new IllegalStateException("Resharding is already running");
+		}
+		Resharding r = new Resharding(this, previousMasterNames, previousStrategy, policy);
+		resharding = r;
+		r.start();
+		return r;
+	}
+
+	public Resharding getResharding() {
+		return resharding;
+	}
+
+	/**
+	 * 并行导出所有 master 的 key（DUMP 与剩余过期时间）到 dir 下，每个 master 一个 &lt;master&gt;.snapshot 文件，
+	 * 文件格式见 {@link KeyspaceSnapshot}。导出期间修改的 key 以读到的那一刻为准。
+	 *
+	 * @param scanCount 每次 SCAN 的 COUNT，也是一次管道 DUMP 的 key 数
+	 */
+	public List<SnapshotStats> exportSnapshot(Path dir, int scanCount) throws IOException {
+		return new KeyspaceSnapshot(this).export(dir, scanCount);
+	}
+
+	/**
+	 * 并行导入 dir 下所有 .snapshot 文件，每个 key 按当前分片 RESTORE 到所属的 master，
+	 * 因此可以导入到 master 数量不同的部署。
+	 *
+	 * @param replace 目标上已有同名 key 时是否覆盖；不覆盖时计入 {@link SnapshotStats#getSkipped()}
+	 */
+	public List<SnapshotStats> importSnapshot(Path dir, boolean replace) throws IOException {
+		return new KeyspaceSnapshot(this).restore(dir, replace);
+	}
+
+	/**
+	 * 并行扫描（或抽样）所有 master，统计最大的 key、各类型的大小分布和各 master 的 key 数与字节数，
+	 * 字节数来自 MEMORY USAGE（需要 Redis 4.0 以上）。内存占用与 key 总数无关。
+	 */
+	public KeyspaceReport analyze(AnalyzeOptions options) {
+		return new KeyspaceAnalyzer(this, options).analyze();
+	}
+
+	/**
+	 * 在后台删除所有 master 上匹配 pattern 的 key，进度见 {@link PatternDelete#progress()}。
+	 * 删除期间新写入的匹配 key 不保证被删除。
+	 *
+	 * @param pattern SCAN 的 MATCH 模式，* 表示整个库
+	 */
+	public PatternDelete deleteByPattern(String pattern, DeletePolicy policy) {
+		PatternDelete delete = new PatternDelete(this, pattern, policy);
+		deletes.add(delete);
+		delete.completion().whenComplete((result, e) -> deletes.remove(delete));
+		delete.start();
+		return delete;
+	}
+
+	/**
+	 * 不属于当前布局的 master 的连接池，不随 sentinel 切换
+	 */
+	SentinelMasterPool newMasterPool(String masterName) {
+		MasterMetrics masterMetrics = metrics.detached(masterName);
+		return new SentinelMasterPool(
+				masterName,
+				resolveMaster(masterName),
+				master -> newPool(master, masterMetrics),
+				poolConfig.getMinIdle(),
+				executor,
+				masterMetrics);
+	}
+
+	ReplicaPool newReplicaPool(int shard, HostAndPort replica) {
+		MasterMetrics replicaMetrics = metrics.replicas(shard);
+		return new ReplicaPool(poolConfig, replica, newFactory(replica, replicaMetrics), replicaMetrics);
+	}
+
+	/**
+	 * 各 master 及其副本的命令耗时、连接池和切换指标，可通过 {@link JedisMetrics#registerMBeans()} 发布到 JMX
+	 */
+	public JedisMetrics getMetrics() {
+		return metrics;
+	}
+
+	int getDatabase() {
+		return database;
+	}
+
+	/**
+	 * 按连接池的认证、库号和客户端名建一条不归池管理的连接，用于订阅等长连接
+	 */
+	Jedis connect(HostAndPort hap) {
+		Jedis jedis = new Jedis(hap.getHost(), hap.getPort(), connectionTimeout, soTimeout);
+		try {
+			if (user != null) {
+				jedis.auth(user, password);
+			} else if (password != null) {
+				jedis.auth(password);
+			}
+			if (database != Protocol.DEFAULT_DATABASE) {
+				jedis.select(database);
+			}
+			if (clientName != null) {
+				jedis.clientSetname(clientName);
+			}
+			return jedis;
+		} catch (RuntimeException e) {
+			jedis.close();
+			throw e;
+		}
+	}
+
 	public void close() {
 		masterListeners.forEach(MasterListener::shutdown);
+		if (topology != null) {
+			topology.close();
+		}
+		if (nearCache != null) {
+			nearCache.close();
+		}
+		if (replicaReads != null) {
+			replicaReads.close();
+		}
+		if (resharding != null) {
+			resharding.close();
+		}
+		if (poolSizer != null) {
+			poolSizer.close();
+		}
+		closeAll(deletes);
+		executor.shutdown();
 		closeAll(pools);
+		closeAll(sentinelPools.values());
+		metrics.close();
 	}
 
 	public void closeAll(Iterable<? extends Closeable> closeables) {
@@ -457,6 +1081,11 @@ public class JedisSentinelPools implements Closeable, Log {
 		});
 	}
 
+	/**
+	 * @return 只能遍历一次的副本，第二次起迭代为空；{@link JedisSentinelPool} 用它解析 master 地址后不会启动监听器
+	 * @deprecated 只为 {@link #getPools()} 保留
+	 */
+	@Deprecated
 	public Set<String> iterableOnce(Set<String> original) {
 		return new HashSet<String>() {
 
@@ -479,4 +1108,13 @@ public class JedisSentinelPools implements Closeable, Log {
 			}
 		};
 	}
+
+	static ThreadFactory daemonThreadFactory(String prefix) {
+		AtomicInteger seq = new AtomicInteger();
+		return r -> {
+			Thread t = new Thread(r, prefix + "-" + seq.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		};
+	}
 }
@@ -0,0 +1,260 @@
+package redis.clients.jedis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.util.Hashing;
+import redis.clients.jedis.util.Log;
+import redis.clients.jedis.util.SafeEncoder;
+
+/**
+ * 并行分析所有 master 的键空间，见 {@link JedisSentinelPools#analyze(AnalyzeOptions)}。
+ * <p>
+ * 每个 master 一个线程：SCAN 一页，对抽中的 key 用管道查 TYPE 和 MEMORY USAGE，再按类型用管道查长度
+ * （STRLEN、LLEN、SCARD、ZCARD、HLEN、XLEN）。每个线程只保留计数、按 2 的幂分桶的直方图和大小为 topN 的小顶堆，
+ * 内存占用与 key 总数无关，全部完成后合并。
+ */
+final class KeyspaceAnalyzer implements Log {
+
+	private static final byte[] SCAN_START = ScanParams.SCAN_POINTER_START_BINARY;
+	private static final byte[] COUNT = SafeEncoder.encode("COUNT");
+	private static final byte[] USAGE = SafeEncoder.encode("USAGE");
+	private static final Comparator<KeyspaceReport.BigKey> BY_BYTES =
+			Comparator.comparingLong(KeyspaceReport.BigKey::getBytes);
+
+	private final JedisSentinelPools pools;
+	private final AnalyzeOptions options;
+	private final int sampleThreshold;
+
+	KeyspaceAnalyzer(JedisSentinelPools pools, AnalyzeOptions options) {
+		this.pools = pools;
+		this.options = options;
+		// 哈希的低 16 位小于该值的 key 被抽中
+		this.sampleThreshold = (int) Math.ceil(options.getSampleRate() * 65536);
+	}
+
+	KeyspaceReport analyze() {
+		long started = System.nanoTime();
+		List<SentinelMasterPool> masters = pools.getMasterPools();
+		ExecutorService workers = Executors.newFixedThreadPool(masters.size(), JedisSentinelPools.daemonThreadFactory("KeyspaceAnalyzer"));
+		List<Accumulator> results = new ArrayList<>(masters.size());
+		try {
+			List<Future<Accumulator>> futures = new ArrayList<>(masters.size());
+			for (SentinelMasterPool pool : masters) {
+				futures.add(workers.submit(() -> analyze(pool)));
+			}
+			for (Future<Accumulator> future : futures) {
+				results.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JedisException("Keyspace analysis interrupted", e);
+		} catch (ExecutionException e) {
+			throw new JedisException(e.getCause());
+		} finally {
+			workers.shutdownNow();
+		}
+		return merge(results, System.nanoTime() - started);
+	}
+
+	private Accumulator analyze(SentinelMasterPool pool) {
+		Accumulator acc = new Accumulator(pool.getMasterName(), options.getTopN());
+		byte[][] scanArgs = { SCAN_START, COUNT, Protocol.toByteArray(options.getScanCount()) };
+		try {
+			do {
+				try (Jedis jedis = pool.getResource()) {
+					@SuppressWarnings("unchecked")
+					List<Object> reply = (List<Object>) jedis.sendCommand(Protocol.Command.SCAN, scanArgs);
+					scanArgs[0] = (byte[]) reply.get(0);
+					@SuppressWarnings("unchecked")
+					List<byte[]> page = (List<byte[]>) reply.get(1);
+					analyzePage(jedis, sample(page), acc);
+				}
+			} while (!Arrays.equals(scanArgs[0], SCAN_START));
+		} catch (RuntimeException e) {
+			acc.error = e.toString();
+			warn("Keyspace analysis of {} stopped: {}", pool.getMasterName(), e.getMessage());
+		}
+		return acc;
+	}
+
+	private List<byte[]> sample(List<byte[]> page) {
+		if (sampleThreshold >= 65536) {
+			return page;
+		}
+		List<byte[]> sampled = new ArrayList<>();
+		for (byte[] key : page) {
+			if ((Hashing.MURMUR_HASH.hash(key) & 0xFFFF) < sampleThreshold) {
+				sampled.add(key);
+			}
+		}
+		return sampled;
+	}
+
+	private void analyzePage(Jedis jedis, List<byte[]> keys, Accumulator acc) {
+		if (keys.isEmpty()) {
+			return;
+		}
+		List<Response<String>> types = new ArrayList<>(keys.size());
+		List<Response<Object>> usages = new ArrayList<>(keys.size());
+		Pipeline pipeline = jedis.pipelined();
+		for (byte[] key : keys) {
+			types.add(pipeline.type(key));
+			usages.add(pipeline.sendCommand(Protocol.Command.MEMORY, USAGE, key));
+		}
+		pipeline.sync();
+
+		List<Response<Object>> lengths = new ArrayList<>(keys.size());
+		pipeline = jedis.pipelined();
+		for (int i = 0; i < keys.size(); i++) {
+			Protocol.Command command = lengthCommand(types.get(i).get());
+			lengths.add(command == null ? null : pipeline.sendCommand(command, keys.get(i)));
+		}
+		pipeline.sync();
+
+		for (int i = 0; i < keys.size(); i++) {
+			String type = types.get(i).get();
+			if ("none".equals(type)) {
+				// SCAN 之后被删除或过期
+				continue;
+			}
+			acc.add(keys.get(i), type, longValue(usages.get(i)), longValue(lengths.get(i)));
+		}
+	}
+
+	private static Protocol.Command lengthCommand(String type) {
+		switch (type) {
+			case "string":
+				return Protocol.Command.STRLEN;
+			case "list":
+				return Protocol.Command.LLEN;
+			case "set":
+				return Protocol.Command.SCARD;
+			case "zset":
+				return Protocol.Command.ZCARD;
+			case "hash":
+				return Protocol.Command.HLEN;
+			case "stream":
+				return Protocol.Command.XLEN;
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * @return 整数回复的值；命令不支持（如 Redis 4.0 以前没有 MEMORY USAGE）或没有回复时为 0
+	 */
+	private static long longValue(Response<Object> response) {
+		if (response == null) {
+			return 0;
+		}
+		try {
+			Object value = response.get();
+			return value instanceof Long ? (Long) value : 0;
+		} catch (JedisDataException e) {
+			return 0;
+		}
+	}
+
+	private KeyspaceReport merge(List<Accumulator> results, long elapsedNanos) {
+		double scale = 1 / options.getSampleRate();
+		List<KeyspaceReport.MasterStats> masters = new ArrayList<>(results.size());
+		Map<String, TypeAccumulator> types = new TreeMap<>();
+		PriorityQueue<KeyspaceReport.BigKey> top = new PriorityQueue<>(BY_BYTES);
+		for (Accumulator acc : results) {
+			masters.add(new KeyspaceReport.MasterStats(acc.masterName, Math.round(acc.keys * scale),
+					Math.round(acc.bytes * scale), acc.error));
+			acc.types.forEach((type, t) -> types.computeIfAbsent(type, k -> new TypeAccumulator()).merge(t));
+			for (KeyspaceReport.BigKey key : acc.top) {
+				offer(top, key, options.getTopN());
+			}
+		}
+		Map<String, KeyspaceReport.TypeStats> typeStats = new TreeMap<>();
+		types.forEach((type, t) -> {
+			long[] histogram = new long[t.histogram.length];
+			for (int i = 0; i < histogram.length; i++) {
+				histogram[i] = Math.round(t.histogram[i] * scale);
+			}
+			typeStats.put(type, new KeyspaceReport.TypeStats(type, Math.round(t.keys * scale),
+					Math.round(t.bytes * scale), Math.round(t.elements * scale), histogram));
+		});
+		List<KeyspaceReport.BigKey> bigKeys = new ArrayList<>(top);
+		bigKeys.sort(BY_BYTES.reversed());
+		KeyspaceReport report = new KeyspaceReport(options.getSampleRate(), elapsedNanos, masters, typeStats, bigKeys);
+		info("Analyzed keyspace with {}: {}", options, masters);
+		return report;
+	}
+
+	private static void offer(PriorityQueue<KeyspaceReport.BigKey> top, KeyspaceReport.BigKey key, int limit) {
+		if (limit == 0) {
+			return;
+		}
+		if (top.size() < limit) {
+			top.add(key);
+		} else if (top.peek().getBytes() < key.getBytes()) {
+			top.poll();
+			top.add(key);
+		}
+	}
+
+	private static final class Accumulator {
+
+		private final String masterName;
+		private final int topN;
+		private final Map<String, TypeAccumulator> types = new TreeMap<>();
+		private final PriorityQueue<KeyspaceReport.BigKey> top = new PriorityQueue<>(BY_BYTES);
+		private long keys;
+		private long bytes;
+		private String error;
+
+		Accumulator(String masterName, int topN) {
+			this.masterName = masterName;
+			this.topN = topN;
+		}
+
+		void add(byte[] key, String type, long usage, long elements) {
+			keys++;
+			bytes += usage;
+			types.computeIfAbsent(type, k -> new TypeAccumulator()).add(usage, elements);
+			if (topN > 0 && (top.size() < topN || top.peek().getBytes() < usage)) {
+				// 只为进入排行的 key 解码名字
+				offer(top, new KeyspaceReport.BigKey(masterName, SafeEncoder.encode(key), type, usage, elements), topN);
+			}
+		}
+	}
+
+	private static final class TypeAccumulator {
+
+		private final long[] histogram = new long[64];
+		private long keys;
+		private long bytes;
+		private long elements;
+
+		void add(long usage, long count) {
+			keys++;
+			bytes += usage;
+			elements += count;
+			histogram[63 - Long.numberOfLeadingZeros(Math.max(1, usage))]++;
+		}
+
+		void merge(TypeAccumulator other) {
+			keys += other.keys;
+			bytes += other.bytes;
+			elements += other.elements;
+			for (int i = 0; i < histogram.length; i++) {
+				histogram[i] += other.histogram[i];
+			}
+		}
+	}
+}
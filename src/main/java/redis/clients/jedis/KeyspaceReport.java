@@ -0,0 +1,198 @@
+package redis.clients.jedis;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link JedisSentinelPools#analyze(AnalyzeOptions)} 的结果：最大的 key、各类型的大小分布、各 master 的 key 数与字节数。
+ * 抽样时 key 数与字节数已按抽样比例放大，最大 key 排行只包含被抽中的 key。
+ */
+public class KeyspaceReport {
+
+	private final double sampleRate;
+	private final long elapsedNanos;
+	private final List<MasterStats> masters;
+	private final Map<String, TypeStats> types;
+	private final List<BigKey> bigKeys;
+
+	KeyspaceReport(double sampleRate, long elapsedNanos, List<MasterStats> masters, Map<String, TypeStats> types,
+			List<BigKey> bigKeys) {
+		this.sampleRate = sampleRate;
+		this.elapsedNanos = elapsedNanos;
+		this.masters = Collections.unmodifiableList(masters);
+		this.types = Collections.unmodifiableMap(types);
+		this.bigKeys = Collections.unmodifiableList(bigKeys);
+	}
+
+	public double getSampleRate() {
+		return sampleRate;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * @return 按分片序号排列
+	 */
+	public List<MasterStats> getMasters() {
+		return masters;
+	}
+
+	/**
+	 * @return 按类型名排列
+	 */
+	public Map<String, TypeStats> getTypes() {
+		return types;
+	}
+
+	/**
+	 * @return 按 MEMORY USAGE 从大到小排列
+	 */
+	public List<BigKey> getBigKeys() {
+		return bigKeys;
+	}
+
+	/**
+	 * @return 最多的 master 的 key 数与平均数之比，1 表示完全均匀
+	 */
+	public double getKeySkew() {
+		long max = 0;
+		long total = 0;
+		for (MasterStats m : masters) {
+			max = Math.max(max, m.keys);
+			total += m.keys;
+		}
+		return total == 0 ? 1 : max * (double) masters.size() / total;
+	}
+
+	public static class MasterStats {
+
+		private final String masterName;
+		private final long keys;
+		private final long bytes;
+		private final String error;
+
+		MasterStats(String masterName, long keys, long bytes, String error) {
+			this.masterName = masterName;
+			this.keys = keys;
+			this.bytes = bytes;
+			this.error = error;
+		}
+
+		public String getMasterName() {
+			return masterName;
+		}
+
+		public long getKeys() {
+			return keys;
+		}
+
+		public long getBytes() {
+			return bytes;
+		}
+
+		/**
+		 * @return 使分析中止的错误，没有时为 null；中止前的数据仍计入
+		 */
+		public String getError() {
+			return error;
+		}
+
+		@Override
+		public String toString() {
+			return masterName + "{keys=" + keys + ", bytes=" + bytes + (error == null ? "" : ", error=" + error) + "}";
+		}
+	}
+
+	public static class TypeStats {
+
+		private final String type;
+		private final long keys;
+		private final long bytes;
+		private final long elements;
+		private final long[] histogram;
+
+		TypeStats(String type, long keys, long bytes, long elements, long[] histogram) {
+			this.type = type;
+			this.keys = keys;
+			this.bytes = bytes;
+			this.elements = elements;
+			this.histogram = histogram;
+		}
+
+		public String getType() {
+			return type;
+		}
+
+		public long getKeys() {
+			return keys;
+		}
+
+		public long getBytes() {
+			return bytes;
+		}
+
+		/**
+		 * @return 元素总数：string 为字节数，其它类型为成员数
+		 */
+		public long getElements() {
+			return elements;
+		}
+
+		/**
+		 * @return 第 i 个桶是 MEMORY USAGE 在 [2^i, 2^(i+1)) 字节之间的 key 数，第 0 个桶包括 0 和 1
+		 */
+		public long[] getHistogram() {
+			return histogram.clone();
+		}
+
+		@Override
+		public String toString() {
+			return type + "{keys=" + keys + ", bytes=" + bytes + ", elements=" + elements + "}";
+		}
+	}
+
+	public static class BigKey {
+
+		private final String masterName;
+		private final String key;
+		private final String type;
+		private final long bytes;
+		private final long elements;
+
+		BigKey(String masterName, String key, String type, long bytes, long elements) {
+			this.masterName = masterName;
+			this.key = key;
+			this.type = type;
+			this.bytes = bytes;
+			this.elements = elements;
+		}
+
+		public String getMasterName() {
+			return masterName;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		public String getType() {
+			return type;
+		}
+
+		public long getBytes() {
+			return bytes;
+		}
+
+		public long getElements() {
+			return elements;
+		}
+
+		@Override
+		public String toString() {
+			return key + " (" + type + ", " + bytes + " bytes, " + elements + " elements) on " + masterName;
+		}
+	}
+}
@@ -0,0 +1,253 @@
+package redis.clients.jedis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.util.Log;
+import redis.clients.jedis.util.SafeEncoder;
+
+/**
+ * 键空间快照的导出与导入，见 {@link JedisSentinelPools#exportSnapshot(Path, int)} 和
+ * {@link JedisSentinelPools#importSnapshot(Path, boolean)}。
+ * <p>
+ * 每个 master 一个文件（&lt;master&gt;.snapshot）：文件头是魔数、版本和 master 名字，
+ * 之后每条记录依次为 key 长度、key、过期时刻（毫秒时间戳，0 表示不过期）、DUMP 长度、DUMP，
+ * 最后是长度为 -1 的结束标记和记录数，缺少结束标记的文件视为不完整。
+ * 导出时每个 master 一个线程，SCAN 一页后用管道取 DUMP 和 PTTL，写入带缓冲的文件，完成后再改名；
+ * 导入时每个文件一个线程，按当前分片把 key 分组后用管道 RESTORE，因此可以导入到不同数量的 master；
+ * 过期时间按导入时刻换算为剩余毫秒数，已经过期的 key 跳过。版本 1 的文件记录的是导出时的剩余毫秒数，照原样导入。
+ */
+final class KeyspaceSnapshot implements Log {
+
+	static final String SUFFIX = ".snapshot";
+
+	private static final int MAGIC = 0x52585350;
+	private static final int VERSION = 2;
+	/**
+	 * 记录剩余毫秒数而不是过期时刻的旧版本
+	 */
+	private static final int VERSION_RELATIVE_TTL = 1;
+	private static final int BUFFER_SIZE = 1 << 20;
+	private static final int IMPORT_BATCH = 1000;
+	private static final byte[] SCAN_START = ScanParams.SCAN_POINTER_START_BINARY;
+	private static final byte[] REPLACE = SafeEncoder.encode("REPLACE");
+
+	private final JedisSentinelPools pools;
+
+	KeyspaceSnapshot(JedisSentinelPools pools) {
+		this.pools = pools;
+	}
+
+	List<SnapshotStats> export(Path dir, int scanCount) throws IOException {
+		Files.createDirectories(dir);
+		List<SentinelMasterPool> masters = pools.getMasterPools();
+		return runAll(masters.size(), "SnapshotExport", i -> exportMaster(masters.get(i), dir, scanCount));
+	}
+
+	List<SnapshotStats> restore(Path dir, boolean replace) throws IOException {
+		List<Path> files = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+			stream.forEach(files::add);
+		}
+		files.sort(null);
+		return runAll(files.size(), "SnapshotImport", i -> restoreFile(files.get(i), replace));
+	}
+
+	private <T> List<T> runAll(int count, String threadPrefix, Function<Integer, T> task) throws IOException {
+		if (count == 0) {
+			return new ArrayList<>();
+		}
+		ExecutorService workers = Executors.newFixedThreadPool(count, JedisSentinelPools.daemonThreadFactory(threadPrefix));
+		try {
+			List<Future<T>> futures = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				int index = i;
+				futures.add(workers.submit(() -> task.apply(index)));
+			}
+			List<T> results = new ArrayList<>(count);
+			for (Future<T> future : futures) {
+				results.add(future.get());
+			}
+			return results;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JedisException(threadPrefix + " interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof UncheckedIOException) {
+				throw ((UncheckedIOException) e.getCause()).getCause();
+			}
+			throw e.getCause() instanceof RuntimeException
+					? (RuntimeException) e.getCause() : new JedisException(e.getCause());
+		} finally {
+			workers.shutdownNow();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private SnapshotStats exportMaster(SentinelMasterPool pool, Path dir, int scanCount) {
+		long started = System.nanoTime();
+		Path file = dir.resolve(pool.getMasterName() + SUFFIX);
+		Path tmp = dir.resolve(pool.getMasterName() + SUFFIX + ".tmp");
+		byte[][] scanArgs = { SCAN_START, SafeEncoder.encode("COUNT"), Protocol.toByteArray(scanCount) };
+		long keys = 0;
+		long vanished = 0;
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), BUFFER_SIZE))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeUTF(pool.getMasterName());
+			do {
+				List<byte[]> page;
+				List<Response<byte[]>> dumps;
+				List<Response<Long>> ttls;
+				try (Jedis jedis = pool.getResource()) {
+					List<Object> reply = (List<Object>) jedis.sendCommand(Protocol.Command.SCAN, scanArgs);
+					scanArgs[0] = (byte[]) reply.get(0);
+					page = (List<byte[]>) reply.get(1);
+					dumps = new ArrayList<>(page.size());
+					ttls = new ArrayList<>(page.size());
+					Pipeline pipeline = jedis.pipelined();
+					for (byte[] key : page) {
+						dumps.add(pipeline.dump(key));
+						ttls.add(pipeline.pttl(key));
+					}
+					pipeline.sync();
+				}
+				long now = System.currentTimeMillis();
+				for (int i = 0; i < page.size(); i++) {
+					byte[] dump = dumps.get(i).get();
+					long ttl = ttls.get(i).get();
+					if (dump == null || ttl == -2) {
+						// SCAN 之后被删除或过期
+						vanished++;
+						continue;
+					}
+					byte[] key = page.get(i);
+					out.writeInt(key.length);
+					out.write(key);
+					out.writeLong(ttl < 0 ? 0 : now + ttl);
+					out.writeInt(dump.length);
+					out.write(dump);
+					keys++;
+				}
+			} while (!Arrays.equals(scanArgs[0], SCAN_START));
+			out.writeInt(-1);
+			out.writeLong(keys);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		try {
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			SnapshotStats stats = new SnapshotStats(pool.getMasterName(), file, keys, Files.size(file), vanished, 0,
+					System.nanoTime() - started);
+			info("Exported {}", stats);
+			return stats;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private SnapshotStats restoreFile(Path file, boolean replace) {
+		long started = System.nanoTime();
+		long[] counts = new long[3];
+		String masterName;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE))) {
+			int version = in.readInt() == MAGIC ? in.readInt() : -1;
+			if (version != VERSION && version != VERSION_RELATIVE_TTL) {
+				throw new IOException("Not a snapshot file: " + file);
+			}
+			masterName = in.readUTF();
+			ShardedJedisSentinelPipeline pipeline = pools.pipelined();
+			List<Future<Object>> pending = new ArrayList<>(IMPORT_BATCH);
+			long records = 0;
+			while (true) {
+				int keyLength = in.readInt();
+				if (keyLength < 0) {
+					if (in.readLong() != records) {
+						throw new IOException("Record count mismatch in " + file);
+					}
+					break;
+				}
+				byte[] key = new byte[keyLength];
+				in.readFully(key);
+				long expiry = in.readLong();
+				byte[] dump = new byte[in.readInt()];
+				in.readFully(dump);
+				records++;
+				long remaining = expiry;
+				if (version == VERSION && expiry > 0) {
+					remaining = expiry - System.currentTimeMillis();
+					if (remaining <= 0) {
+						counts[1]++;
+						continue;
+					}
+				}
+				byte[] ttl = Protocol.toByteArray(remaining);
+				pending.add(pipeline.execute(key, p -> replace
+						? p.sendCommand(Protocol.Command.RESTORE, key, ttl, dump, REPLACE)
+						: p.sendCommand(Protocol.Command.RESTORE, key, ttl, dump)));
+				if (pending.size() >= IMPORT_BATCH) {
+					sync(pipeline, pending, counts, file);
+				}
+			}
+			sync(pipeline, pending, counts, file);
+		} catch (EOFException e) {
+			throw new UncheckedIOException(new IOException("Truncated snapshot file: " + file, e));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		SnapshotStats stats;
+		try {
+			stats = new SnapshotStats(masterName, file, counts[0], Files.size(file), counts[1], counts[2],
+					System.nanoTime() - started);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		info("Imported {}", stats);
+		return stats;
+	}
+
+	private void sync(ShardedJedisSentinelPipeline pipeline, List<Future<Object>> pending, long[] counts, Path file) {
+		pipeline.sync();
+		for (Future<Object> future : pending) {
+			try {
+				future.get();
+				counts[0]++;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new JedisException("Snapshot import interrupted", e);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof JedisDataException && cause.getMessage() != null
+						&& cause.getMessage().startsWith("BUSYKEY")) {
+					counts[1]++;
+				} else if (cause instanceof JedisDataException) {
+					counts[2]++;
+					debug("Can not restore a key from {}: {}", file, cause.getMessage());
+				} else {
+					// 连接错误时整个文件中止，避免在 master 不可用时逐条报错
+					throw cause instanceof RuntimeException ? (RuntimeException) cause : new JedisException(cause);
+				}
+			}
+		}
+		pending.clear();
+	}
+}
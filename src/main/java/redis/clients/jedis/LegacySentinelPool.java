@@ -0,0 +1,101 @@
+package redis.clients.jedis;
+
+import java.util.Set;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+/**
+ * 兼容旧版 {@link JedisSentinelPools#getPools()} 的 {@link JedisSentinelPool}。
+ * <p>
+ * 构造时由父类向 sentinel 查询一次 master 地址（sentinel 列表只能遍历一次，父类不会启动自己的监听器），
+ * 父类建的连接池立即关闭，之后借连接和统计都委托给同一 master 的 {@link SentinelMasterPool}，随它切换。
+ * 连接池归 {@link JedisSentinelPools} 所有，关闭本对象什么也不做。
+ */
+@Deprecated
+class LegacySentinelPool extends JedisSentinelPool {
+
+	private final SentinelMasterPool delegate;
+
+	LegacySentinelPool(
+			SentinelMasterPool delegate,
+			Set<String> sentinelsOnce,
+			GenericObjectPoolConfig<?> poolConfig,
+			int connectionTimeout,
+			int soTimeout,
+			int infiniteSoTimeout,
+			String user,
+			String password,
+			int database,
+			String clientName,
+			int sentinelConnectionTimeout,
+			int sentinelSoTimeout,
+			String sentinelUser,
+			String sentinelPassword,
+			String sentinelClientName) {
+		super(delegate.getMasterName(), sentinelsOnce, poolConfig, connectionTimeout, soTimeout, infiniteSoTimeout,
+				user, password, database, clientName, sentinelConnectionTimeout, sentinelSoTimeout, sentinelUser,
+				sentinelPassword, sentinelClientName);
+		this.delegate = delegate;
+		closeInternalPool();
+	}
+
+	@Override
+	public Jedis getResource() {
+		return delegate.getResource();
+	}
+
+	@Override
+	public HostAndPort getCurrentHostMaster() {
+		return delegate.getCurrentHostMaster();
+	}
+
+	@Override
+	public void destroy() {
+		// 连接池归 JedisSentinelPools 所有
+	}
+
+	@Override
+	public void close() {
+		// 连接池归 JedisSentinelPools 所有
+	}
+
+	@Override
+	public boolean isClosed() {
+		return delegate.isClosed();
+	}
+
+	@Override
+	public int getNumActive() {
+		return delegate.getNumActive();
+	}
+
+	@Override
+	public int getNumIdle() {
+		return delegate.getNumIdle();
+	}
+
+	@Override
+	public int getNumWaiters() {
+		return delegate.getNumWaiters();
+	}
+
+	@Override
+	public long getMeanBorrowWaitTimeMillis() {
+		return delegate.getMeanBorrowWaitTimeMillis();
+	}
+
+	@Override
+	public long getMaxBorrowWaitTimeMillis() {
+		return delegate.getMaxBorrowWaitTimeMillis();
+	}
+
+	@Override
+	public void addObjects(int count) {
+		delegate.addObjects(count);
+	}
+
+	@Override
+	public String toString() {
+		return delegate.toString();
+	}
+}
@@ -1,38 +1,22 @@
 package redis.clients.jedis;
 
-import java.lang.reflect.Method;
-import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import redis.clients.jedis.exceptions.JedisDataException;
 import redis.clients.jedis.exceptions.JedisException;
 import redis.clients.jedis.util.Log;
 
 class MasterListener extends Thread
 		implements Log {
 
-	/**
-	 * @see JedisSentinelPool#initPool(HostAndPort)
-	 */
-	public static final String INIT_POOL_METHOD_NAME = "initPool";
-	public static final Method INIT_POOL_METHOD;
-
-	static {
-		try {
-			Method poolMethod = JedisSentinelPool.class.getDeclaredMethod(INIT_POOL_METHOD_NAME,
-					HostAndPort.class);
-			poolMethod.setAccessible(true);
-			INIT_POOL_METHOD = poolMethod;
-		} catch (NoSuchMethodException e) {
-			throw new RuntimeException(e);
-		}
-	}
-
 	private final AtomicBoolean running = new AtomicBoolean(false);
-	private final Map<String, List<JedisSentinelPool>> masters;
+	private final SentinelTopology topology;
 	private final String host;
 	private final int port;
+	private final String address;
 	private final int sentinelConnectionTimeout;
 	private final int sentinelSoTimeout;
 	private final String sentinelUser;
@@ -42,7 +26,7 @@ class MasterListener extends Thread
 	private volatile Jedis j = null;
 
 	public MasterListener(
-			Map<String, List<JedisSentinelPool>> masters,
+			SentinelTopology topology,
 			String host,
 			int port,
 			int sentinelConnectionTimeout,
@@ -51,10 +35,11 @@ class MasterListener extends Thread
 			String sentinelPassword,
 			String sentinelClientName,
 			Long subscribeRetryWaitTimeMillis) {
-		super(String.format("MasterListener-%d-masters", masters.size()));
-		this.masters = masters;
+		super(String.format("MasterListener-%s:%d", host, port));
+		this.topology = topology;
 		this.host = host;
 		this.port = port;
+		this.address = host + ":" + port;
 		this.sentinelConnectionTimeout = sentinelConnectionTimeout;
 		this.sentinelSoTimeout = sentinelSoTimeout;
 		this.sentinelUser = sentinelUser;
@@ -64,7 +49,7 @@ class MasterListener extends Thread
 	}
 
 	public MasterListener(
-			Map<String, List<JedisSentinelPool>> masters,
+			SentinelTopology topology,
 			String host,
 			int port,
 			int sentinelConnectionTimeout,
@@ -73,7 +58,7 @@ class MasterListener extends Thread
 			String sentinelPassword,
 			String sentinelClientName) {
 		this(
-				masters,
+				topology,
 				host,
 				port,
 				sentinelConnectionTimeout,
@@ -101,64 +86,54 @@ class MasterListener extends Thread
 					j.clientSetname(sentinelClientName);
 				}
 
-				// code for active refresh
-				masters.forEach((masterName, pools) -> {
+				// code for active refresh：一次 SENTINEL MASTERS 得到所有 master 的地址和 epoch，
+				// 没有权限时逐个 GET-MASTER-ADDR-BY-NAME
+				Map<String, Map<String, String>> masters = masters(j);
+				for (String masterName : topology.masterNames()) {
+					Map<String, String> master = masters.get(masterName);
+					if (master != null && master.get("ip") != null && master.get("port") != null) {
+						topology.update(
+								masterName,
+								new HostAndPort(master.get("ip"), Integer.parseInt(master.get("port"))),
+								epoch(master),
+								address);
+						continue;
+					}
 					List<String> masterAddr = j.sentinelGetMasterAddrByName(masterName);
 					if (masterAddr == null || (masterAddr.size() != 2)) {
-						warn(
-								"Can not get master addr, master name: {}. Sentinel: {}:{}.",
-								masterName,
-								host,
-								port);
+						warn("Can not get master addr, master name: {}. Sentinel: {}.", masterName, address);
 					} else {
-						initPools(pools, toHostAndPort(masterAddr));
+						topology.update(masterName, toHostAndPort(masterAddr), SentinelTopology.UNKNOWN_EPOCH, address);
 					}
-				});
+				}
 
+				topology.subscribed(address, true);
 				j.subscribe(
 						new JedisPubSub() {
 							@Override
 							public void onMessage(String channel, String message) {
-								debug("Sentinel {}:{} published: {}.", host, port, message);
-								String[] switchMasterMsg = message.split(" ");
-								if (switchMasterMsg.length > 4) {
-									List<JedisSentinelPool> pools = masters.get(switchMasterMsg[0]);
-									if (pools != null) {
-										initPools(
-												pools,
-												toHostAndPort(Arrays.asList(switchMasterMsg[3], switchMasterMsg[4])));
-									} else {
-										debug(
-												"Ignoring message on +switch-master for master name {}",
-												switchMasterMsg[0]);
-									}
+								debug("Sentinel {} published on {}: {}.", address, channel, message);
+								if ("+switch-master".equals(channel)) {
+									switchMaster(message);
 								} else {
-									error(
-											"Invalid message received on Sentinel {}:{} " +
-													"on channel +switch-master: {}",
-											host,
-											port,
-											message);
+									masterStatus(channel, message);
 								}
 							}
 						},
-						"+switch-master");
+						"+switch-master", "+sdown", "-sdown", "+odown", "-odown");
 			} catch (JedisException e) {
 				if (running.get()) {
-					error(
-							"Lost connection to Sentinel at {}:{}. Sleeping 5000ms and retrying.",
-							host,
-							port,
-							e);
+					error("Lost connection to Sentinel at {}. Sleeping {}ms and retrying.", address, subscribeRetryWaitTimeMillis, e);
 					try {
 						Thread.sleep(subscribeRetryWaitTimeMillis);
 					} catch (InterruptedException e1) {
 						error("Sleep interrupted: ", e1);
 					}
 				} else {
-					debug("Unsubscribing from Sentinel at {}:{}", host, port);
+					debug("Unsubscribing from Sentinel at {}", address);
 				}
 			} finally {
+				topology.subscribed(address, false);
 				if (j != null) {
 					j.close();
 				}
@@ -166,9 +141,36 @@ class MasterListener extends Thread
 		}
 	}
 
+	private void switchMaster(String message) {
+		String[] switchMasterMsg = message.split(" ");
+		if (switchMasterMsg.length > 4) {
+			if (topology.contains(switchMasterMsg[0])) {
+				HostAndPort master = new HostAndPort(switchMasterMsg[3], Integer.parseInt(switchMasterMsg[4]));
+				topology.switchReported(switchMasterMsg[0], master, address);
+			} else {
+				debug(
+						"Ignoring message on +switch-master for master name {}",
+						switchMasterMsg[0]);
+			}
+		} else {
+			error("Invalid message received on Sentinel {} on channel +switch-master: {}", address, message);
+		}
+	}
+
+	/**
+	 * +sdown 等事件的格式为 &lt;类型&gt; &lt;名称&gt; &lt;ip&gt; &lt;port&gt; ...，只关心类型为 master 的
+	 */
+	private void masterStatus(String channel, String message) {
+		String[] parts = message.split(" ");
+		if (parts.length < 4 || !"master".equals(parts[0]) || !topology.contains(parts[1])) {
+			return;
+		}
+		topology.reportStatus(parts[1], new HostAndPort(parts[2], Integer.parseInt(parts[3])), channel, address);
+	}
+
 	public void shutdown() {
 		try {
-			debug("Shutting down listener on {}:{}", host, port);
+			debug("Shutting down listener on {}", address);
 			running.set(false);
 			// This isn't good, the Jedis object is not thread safe
 			if (j != null) {
@@ -185,14 +187,23 @@ class MasterListener extends Thread
 		return new HostAndPort(host, port);
 	}
 
-	public void initPools(List<JedisSentinelPool> pools, HostAndPort master) {
-		pools.forEach(pool -> {
-			try {
-				MasterListener.INIT_POOL_METHOD.invoke(pool, master);
-			} catch (Exception e) {
-				error("Can not init pool " + pool.getCurrentHostMaster(), e);
+	/**
+	 * SENTINEL MASTERS 按名字索引，sentinel 不支持（如 ACL 限制）时返回空
+	 */
+	private Map<String, Map<String, String>> masters(Jedis sentinel) {
+		Map<String, Map<String, String>> byName = new HashMap<>();
+		try {
+			for (Map<String, String> master : sentinel.sentinelMasters()) {
+				byName.put(master.get("name"), master);
 			}
-		});
+		} catch (JedisDataException e) {
+			debug("SENTINEL MASTERS failed on {}: {}", address, e.getMessage());
+		}
+		return byName;
 	}
 
+	private static long epoch(Map<String, String> master) {
+		String epoch = master.get("config-epoch");
+		return epoch == null ? SentinelTopology.UNKNOWN_EPOCH : Long.parseLong(epoch);
+	}
 }
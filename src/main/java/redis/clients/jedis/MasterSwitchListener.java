@@ -0,0 +1,17 @@
+package redis.clients.jedis;
+
+/**
+ * 收到 Sentinel 的 +switch-master 并切换连接池后回调
+ *
+ * @see JedisSentinelPools#addMasterSwitchListener(MasterSwitchListener)
+ */
+@FunctionalInterface
+public interface MasterSwitchListener {
+
+	/**
+	 * @param shard      分片序号，与 {@link JedisSentinelPools#getMasterPools()} 的下标一致
+	 * @param masterName master 名称
+	 * @param master     新的 master 地址
+	 */
+	void onMasterSwitch(int shard, String masterName, HostAndPort master);
+}
@@ -0,0 +1,79 @@
+package redis.clients.jedis;
+
+import redis.clients.jedis.commands.ProtocolCommand;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.metrics.MasterMetrics;
+
+/**
+ * 记录每条命令从发出到读到应答的耗时。
+ * <p>
+ * 发出的命令按顺序放进定长的环形队列，每读到一个应答取出队首，管道也能正确对应；
+ * 队列满了之后发出的命令不再计时。错误应答照常计时，连接异常记为错误并清空队列。
+ */
+class MeteredClient extends Client {
+
+	private static final int MAX_PENDING = 256;
+
+	private final MasterMetrics metrics;
+	private final long[] started = new long[MAX_PENDING];
+	private final ProtocolCommand[] commands = new ProtocolCommand[MAX_PENDING];
+	private int head;
+	private int size;
+
+	MeteredClient(String host, int port, MasterMetrics metrics) {
+		super(host, port);
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void sendCommand(ProtocolCommand cmd, byte[]... args) {
+		long start = System.nanoTime();
+		try {
+			super.sendCommand(cmd, args);
+		} catch (RuntimeException e) {
+			metrics.recordError();
+			size = 0;
+			throw e;
+		}
+		if (size < MAX_PENDING) {
+			int tail = (head + size) & (MAX_PENDING - 1);
+			started[tail] = start;
+			commands[tail] = cmd;
+			size++;
+		}
+	}
+
+	@Override
+	protected Object readProtocolWithCheckingBroken() {
+		Object reply;
+		try {
+			reply = super.readProtocolWithCheckingBroken();
+		} catch (JedisDataException e) {
+			complete();
+			throw e;
+		} catch (RuntimeException e) {
+			metrics.recordError();
+			size = 0;
+			throw e;
+		}
+		complete();
+		return reply;
+	}
+
+	private void complete() {
+		if (size == 0) {
+			// 订阅消息等没有对应命令的应答
+			return;
+		}
+		metrics.recordCommand(commands[head], System.nanoTime() - started[head]);
+		commands[head] = null;
+		head = (head + 1) & (MAX_PENDING - 1);
+		size--;
+	}
+
+	@Override
+	public void disconnect() {
+		size = 0;
+		super.disconnect();
+	}
+}
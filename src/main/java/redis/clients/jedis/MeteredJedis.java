@@ -0,0 +1,22 @@
+package redis.clients.jedis;
+
+import redis.clients.jedis.metrics.MasterMetrics;
+
+/**
+ * 使用 {@link MeteredClient} 的 {@link Jedis}
+ */
+class MeteredJedis extends Jedis {
+
+	/**
+	 * 借出时熔断器的 {@link CircuitBreaker#tryAcquire()} 结果，归还时交回熔断器
+	 */
+	long breakerPermit = CircuitBreaker.CALL;
+
+	MeteredJedis(HostAndPort hap, int connectionTimeout, int soTimeout, int infiniteSoTimeout, MasterMetrics metrics) {
+		super(hap.getHost(), hap.getPort(), connectionTimeout, soTimeout);
+		client = new MeteredClient(hap.getHost(), hap.getPort(), metrics);
+		client.setConnectionTimeout(connectionTimeout);
+		client.setSoTimeout(soTimeout);
+		client.setInfiniteSoTimeout(infiniteSoTimeout);
+	}
+}
@@ -0,0 +1,105 @@
+package redis.clients.jedis;
+
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.PooledObjectFactory;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.metrics.MasterMetrics;
+
+/**
+ * 与 {@link JedisFactory} 相同的建连、认证、选库和校验，只是创建的是 {@link MeteredJedis}
+ */
+class MeteredJedisFactory implements PooledObjectFactory<Jedis> {
+
+	private final HostAndPort hostAndPort;
+	private final int connectionTimeout;
+	private final int soTimeout;
+	private final int infiniteSoTimeout;
+	private final String user;
+	private final String password;
+	private final int database;
+	private final String clientName;
+	private final MasterMetrics metrics;
+
+	MeteredJedisFactory(
+			HostAndPort hostAndPort,
+			int connectionTimeout,
+			int soTimeout,
+			int infiniteSoTimeout,
+			String user,
+			String password,
+			int database,
+			String clientName,
+			MasterMetrics metrics) {
+		this.hostAndPort = hostAndPort;
+		this.connectionTimeout = connectionTimeout;
+		this.soTimeout = soTimeout;
+		this.infiniteSoTimeout = infiniteSoTimeout;
+		this.user = user;
+		this.password = password;
+		this.database = database;
+		this.clientName = clientName;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public PooledObject<Jedis> makeObject() {
+		Jedis jedis = new MeteredJedis(hostAndPort, connectionTimeout, soTimeout, infiniteSoTimeout, metrics);
+		try {
+			jedis.connect();
+			if (user != null) {
+				jedis.auth(user, password);
+			} else if (password != null) {
+				jedis.auth(password);
+			}
+			if (database != Protocol.DEFAULT_DATABASE) {
+				jedis.select(database);
+			}
+			if (clientName != null) {
+				jedis.clientSetname(clientName);
+			}
+		} catch (JedisException e) {
+			jedis.close();
+			throw e;
+		}
+		return new DefaultPooledObject<>(jedis);
+	}
+
+	@Override
+	public void destroyObject(PooledObject<Jedis> pooled) {
+		Jedis jedis = pooled.getObject();
+		if (jedis.isConnected()) {
+			try {
+				jedis.quit();
+			} catch (Exception ignored) {
+			}
+			try {
+				jedis.disconnect();
+			} catch (Exception ignored) {
+			}
+		}
+	}
+
+	@Override
+	public boolean validateObject(PooledObject<Jedis> pooled) {
+		Jedis jedis = pooled.getObject();
+		try {
+			return jedis.isConnected() && "PONG".equals(jedis.ping());
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	@Override
+	public void activateObject(PooledObject<Jedis> pooled) {
+		Jedis jedis = pooled.getObject();
+		if (jedis.getDB() != database) {
+			jedis.select(database);
+		}
+	}
+
+	@Override
+	public void passivateObject(PooledObject<Jedis> pooled) {
+	}
+}
@@ -0,0 +1,123 @@
+package redis.clients.jedis;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.metrics.MasterMetrics;
+
+/**
+ * 记录借连接等待时间和借还次数的连接池，连接由 {@link MeteredJedisFactory} 创建
+ */
+public class MeteredJedisPool extends JedisPoolAbstract {
+
+	private final MasterMetrics metrics;
+	private final int configuredMaxIdle;
+	private final int configuredMinIdle;
+	private final AtomicInteger peakActive = new AtomicInteger();
+	private volatile CircuitBreaker breaker;
+
+	MeteredJedisPool(GenericObjectPoolConfig<?> poolConfig, MeteredJedisFactory factory, MasterMetrics metrics) {
+		super(poolConfig, factory);
+		this.metrics = metrics;
+		this.configuredMaxIdle = poolConfig.getMaxIdle();
+		this.configuredMinIdle = poolConfig.getMinIdle();
+	}
+
+	@Override
+	public Jedis getResource() {
+		long start = System.nanoTime();
+		Jedis jedis = super.getResource();
+		metrics.recordBorrow(System.nanoTime() - start);
+		int active = getNumActive();
+		if (active > peakActive.get()) {
+			peakActive.accumulateAndGet(active, Math::max);
+		}
+		jedis.setDataSource(this);
+		return jedis;
+	}
+
+	void setCircuitBreaker(CircuitBreaker breaker) {
+		this.breaker = breaker;
+	}
+
+	int getMaxTotal() {
+		return internalPool.getMaxTotal();
+	}
+
+	/**
+	 * @return 上次调用以来借出连接数的峰值，并从当前借出数重新开始记录
+	 */
+	int takePeakActive() {
+		return peakActive.getAndSet(getNumActive());
+	}
+
+	/**
+	 * 调整连接数上限，maxIdle 与 minIdle 不超过新上限；收缩时多出的空闲连接立即关闭，借出的连接归还时关闭
+	 */
+	void resize(int maxTotal) {
+		internalPool.setMaxTotal(maxTotal);
+		internalPool.setMaxIdle(Math.min(configuredMaxIdle, maxTotal));
+		internalPool.setMinIdle(Math.min(configuredMinIdle, maxTotal));
+		int allowed = Math.min(internalPool.getMaxIdle(), Math.max(0, maxTotal - internalPool.getNumActive()));
+		for (int excess = internalPool.getNumIdle() - allowed; excess > 0; excess--) {
+			try {
+				// 已经超出上限，不会新建连接，只会取走空闲的
+				Jedis idle = internalPool.borrowObject(0);
+				internalPool.invalidateObject(idle);
+			} catch (Exception e) {
+				break;
+			}
+		}
+	}
+
+	@Override
+	protected void returnResource(Jedis resource) {
+		if (resource == null) {
+			return;
+		}
+		metrics.recordReturn();
+		CircuitBreaker b = breaker;
+		long permit = takePermit(resource);
+		try {
+			resource.resetState();
+			returnResourceObject(resource);
+		} catch (Exception e) {
+			metrics.recordBroken();
+			returnBrokenResourceObject(resource);
+			if (b != null) {
+				b.onFailure(permit);
+			}
+			throw new JedisException("Resource is returned to the pool as broken", e);
+		}
+		if (b != null) {
+			b.onSuccess(permit);
+		}
+	}
+
+	@Override
+	protected void returnBrokenResource(Jedis resource) {
+		if (resource == null) {
+			return;
+		}
+		metrics.recordReturn();
+		metrics.recordBroken();
+		long permit = takePermit(resource);
+		returnBrokenResourceObject(resource);
+		CircuitBreaker b = breaker;
+		if (b != null) {
+			b.onFailure(permit);
+		}
+	}
+
+	private static long takePermit(Jedis resource) {
+		if (!(resource instanceof MeteredJedis)) {
+			return CircuitBreaker.CALL;
+		}
+		MeteredJedis jedis = (MeteredJedis) resource;
+		long permit = jedis.breakerPermit;
+		jedis.breakerPermit = CircuitBreaker.CALL;
+		return permit;
+	}
+}
@@ -0,0 +1,268 @@
+package redis.clients.jedis;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.util.Log;
+import redis.clients.jedis.util.SafeEncoder;
+
+/**
+ * 在所有 master 上删除匹配模式的 key，见 {@link JedisSentinelPools#deleteByPattern(String, DeletePolicy)}。
+ * <p>
+ * 每个 master 一个线程。每一轮在同一个管道里发出上一页 key 的 UNLINK 和下一次 SCAN，
+ * 一次往返既删除又取到下一页，大 value 由服务端在后台释放，不阻塞事件循环。
+ * 模式为 * 且 {@link DeletePolicy#isFlushAsync()} 时直接 FLUSHDB ASYNC。
+ * 每轮单独借还连接，连接出错时重试该轮（UNLINK 可以重复执行）。
+ */
+public class PatternDelete implements Closeable, Log {
+
+	private static final int MAX_ATTEMPTS = 5;
+	private static final byte[] SCAN_START = ScanParams.SCAN_POINTER_START_BINARY;
+	private static final byte[] MATCH = SafeEncoder.encode("MATCH");
+	private static final byte[] COUNT = SafeEncoder.encode("COUNT");
+	private static final byte[] ASYNC = SafeEncoder.encode("ASYNC");
+
+	private final JedisSentinelPools pools;
+	private final String pattern;
+	private final DeletePolicy policy;
+	private final List<Target> targets = new ArrayList<>();
+	private final CompletableFuture<List<DeleteProgress>> completion = new CompletableFuture<>();
+	private final AtomicInteger remaining = new AtomicInteger();
+	private final ExecutorService workers;
+	private volatile boolean closed;
+
+	PatternDelete(JedisSentinelPools pools, String pattern, DeletePolicy policy) {
+		this.pools = pools;
+		this.pattern = pattern;
+		this.policy = policy;
+		List<SentinelMasterPool> list = pools.getMasterPools();
+		for (int i = 0; i < list.size(); i++) {
+			targets.add(new Target(i, list.get(i)));
+		}
+		this.workers = Executors.newFixedThreadPool(targets.size(), JedisSentinelPools.daemonThreadFactory("PatternDelete"));
+	}
+
+	void start() {
+		info("Deleting {} on {} masters with {}", pattern, targets.size(), policy);
+		remaining.set(targets.size());
+		for (Target target : targets) {
+			workers.execute(() -> run(target));
+		}
+	}
+
+	public String getPattern() {
+		return pattern;
+	}
+
+	public DeletePolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * @return 所有 master 处理完后完成，值为各自的最终进度；有 master 中止时以 {@link JedisException} 结束
+	 */
+	public CompletableFuture<List<DeleteProgress>> completion() {
+		return completion;
+	}
+
+	public List<DeleteProgress> progress() {
+		List<DeleteProgress> all = new ArrayList<>(targets.size());
+		for (Target target : targets) {
+			all.add(target.snapshot());
+		}
+		return Collections.unmodifiableList(all);
+	}
+
+	private void run(Target target) {
+		String name = target.pool.getMasterName();
+		try {
+			if (!("*".equals(pattern) && policy.isFlushAsync() && flush(target))) {
+				scan(target);
+			}
+			target.finish();
+			info("Deleting {} on {} done: {}", pattern, name, target.snapshot());
+		} catch (RuntimeException e) {
+			target.error = e.toString();
+			target.finish();
+			if (!closed) {
+				error("Deleting {} on {} stopped", pattern, name, e);
+			}
+		} finally {
+			if (remaining.decrementAndGet() == 0) {
+				finish();
+			}
+		}
+	}
+
+	/**
+	 * FLUSHDB 不产生逐个 key 的 keyspace 通知，清空后直接清掉该分片的本地缓存
+	 *
+	 * @return 是否已清空；服务端不支持 ASYNC 时返回 false
+	 */
+	private boolean flush(Target target) {
+		for (int attempt = 1; ; attempt++) {
+			try (Jedis jedis = target.pool.getResource()) {
+				long size = jedis.dbSize();
+				jedis.sendCommand(Protocol.Command.FLUSHDB, ASYNC);
+				target.matched.addAndGet(size);
+				target.deleted.addAndGet(size);
+				target.flushed = true;
+				ShardedNearCache nearCache = pools.getNearCache();
+				if (nearCache != null) {
+					nearCache.flush(target.shard);
+				}
+				return true;
+			} catch (JedisDataException e) {
+				warn("FLUSHDB ASYNC is not supported by {}, falling back to SCAN + UNLINK: {}",
+						target.pool.getMasterName(), e.getMessage());
+				return false;
+			} catch (JedisException e) {
+				retryOrThrow(target.pool, attempt, e);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void scan(Target target) {
+		byte[][] args = pattern == null || "*".equals(pattern)
+				? new byte[][] { SCAN_START, COUNT, Protocol.toByteArray(policy.getScanCount()) }
+				: new byte[][] { SCAN_START, MATCH, SafeEncoder.encode(pattern), COUNT, Protocol.toByteArray(policy.getScanCount()) };
+		byte[][] keys = null;
+		do {
+			if (closed) {
+				throw new JedisException("Pattern delete closed");
+			}
+			for (int attempt = 1; ; attempt++) {
+				try (Jedis jedis = target.pool.getResource()) {
+					Pipeline pipeline = jedis.pipelined();
+					Response<Long> unlinked = keys == null ? null : pipeline.unlink(keys);
+					Response<Object> page = pipeline.sendCommand(Protocol.Command.SCAN, args);
+					pipeline.sync();
+					if (unlinked != null) {
+						target.deleted.addAndGet(unlinked.get());
+					}
+					List<Object> reply = (List<Object>) page.get();
+					List<byte[]> found = (List<byte[]>) reply.get(1);
+					args[0] = (byte[]) reply.get(0);
+					keys = found.isEmpty() ? null : found.toArray(new byte[0][]);
+					target.matched.addAndGet(found.size());
+					break;
+				} catch (JedisDataException e) {
+					throw e;
+				} catch (JedisException e) {
+					retryOrThrow(target.pool, attempt, e);
+				}
+			}
+			throttle(target);
+		} while (!Arrays.equals(args[0], SCAN_START));
+		if (keys != null) {
+			for (int attempt = 1; ; attempt++) {
+				try (Jedis jedis = target.pool.getResource()) {
+					target.deleted.addAndGet(jedis.unlink(keys));
+					break;
+				} catch (JedisDataException e) {
+					throw e;
+				} catch (JedisException e) {
+					retryOrThrow(target.pool, attempt, e);
+				}
+			}
+		}
+	}
+
+	private void retryOrThrow(SentinelMasterPool pool, int attempt, JedisException e) {
+		if (attempt >= MAX_ATTEMPTS || closed) {
+			throw e;
+		}
+		warn("Deleting {} on {} failed (attempt {}), retrying: {}", pattern, pool.getMasterName(), attempt, e.getMessage());
+		sleep(TimeUnit.SECONDS.toMillis(attempt));
+	}
+
+	/**
+	 * 按已匹配的 key 数限速，即下一轮 UNLINK 的数量也计入
+	 */
+	private void throttle(Target target) {
+		int rate = policy.getMaxKeysPerSecond();
+		if (rate <= 0) {
+			return;
+		}
+		long due = target.started + TimeUnit.SECONDS.toNanos(target.matched.get()) / rate;
+		long wait = due - System.nanoTime();
+		if (wait > 0) {
+			sleep(TimeUnit.NANOSECONDS.toMillis(wait));
+		}
+	}
+
+	private void finish() {
+		List<DeleteProgress> result = progress();
+		workers.shutdown();
+		for (DeleteProgress p : result) {
+			if (p.getError() != null) {
+				completion.completeExceptionally(new JedisException(
+						"Deleting " + pattern + " stopped on " + p.getMasterName() + ": " + p.getError()));
+				return;
+			}
+		}
+		completion.complete(result);
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JedisException("Pattern delete interrupted", e);
+		}
+	}
+
+	/**
+	 * 停止删除，已删除的 key 不会恢复
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		workers.shutdownNow();
+		try {
+			workers.awaitTermination(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static final class Target {
+
+		private final int shard;
+		private final SentinelMasterPool pool;
+		private final long started = System.nanoTime();
+		private final AtomicLong matched = new AtomicLong();
+		private final AtomicLong deleted = new AtomicLong();
+		private volatile long finished = -1L;
+		private volatile boolean flushed;
+		private volatile String error;
+
+		Target(int shard, SentinelMasterPool pool) {
+			this.shard = shard;
+			this.pool = pool;
+		}
+
+		void finish() {
+			finished = System.nanoTime();
+		}
+
+		DeleteProgress snapshot() {
+			long end = finished < 0 ? System.nanoTime() : finished;
+			return new DeleteProgress(pool.getMasterName(), matched.get(), deleted.get(), end - started, flushed,
+					finished >= 0 && error == null, error);
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package redis.clients.jedis;
+
+/**
+ * 自适应连接池大小的参数：所有 master 共用多少连接、每个 master 的上下限、借连接等待的目标和调整间隔。
+ */
+public class PoolSizingPolicy {
+
+	/**
+	 * 总连接数为 master 数乘以配置的 maxTotal，每个 master 至少 2 条，借连接等待 p99 目标 1ms，每秒调整一次
+	 */
+	public static final PoolSizingPolicy DEFAULT = new PoolSizingPolicy(0, 2, 0, 1000L, 1000L);
+
+	private final int maxTotalConnections;
+	private final int minPerMaster;
+	private final int maxPerMaster;
+	private final long targetWaitMicros;
+	private final long intervalMillis;
+
+	/**
+	 * @param maxTotalConnections 所有 master 的连接数上限之和，&lt;= 0 表示 master 数乘以连接池配置的 maxTotal
+	 * @param minPerMaster        每个 master 的连接数上限至少为多少
+	 * @param maxPerMaster        每个 master 的连接数上限至多为多少，&lt;= 0 表示只受总数限制
+	 * @param targetWaitMicros    每个周期内借连接等待的 p99 目标，超出且连接已用满时扩容
+	 * @param intervalMillis      调整间隔
+	 */
+	public PoolSizingPolicy(int maxTotalConnections, int minPerMaster, int maxPerMaster, long targetWaitMicros,
+			long intervalMillis) {
+		if (minPerMaster <= 0 || targetWaitMicros <= 0 || intervalMillis <= 0) {
+			throw new IllegalArgumentException("minPerMaster, targetWaitMicros and intervalMillis must be positive");
+		}
+		if (maxPerMaster > 0 && maxPerMaster < minPerMaster) {
+			throw new IllegalArgumentException("maxPerMaster must not be less than minPerMaster");
+		}
+		this.maxTotalConnections = maxTotalConnections;
+		this.minPerMaster = minPerMaster;
+		this.maxPerMaster = maxPerMaster;
+		this.targetWaitMicros = targetWaitMicros;
+		this.intervalMillis = intervalMillis;
+	}
+
+	public int getMaxTotalConnections() {
+		return maxTotalConnections;
+	}
+
+	public int getMinPerMaster() {
+		return minPerMaster;
+	}
+
+	public int getMaxPerMaster() {
+		return maxPerMaster;
+	}
+
+	public long getTargetWaitMicros() {
+		return targetWaitMicros;
+	}
+
+	public long getIntervalMillis() {
+		return intervalMillis;
+	}
+
+	@Override
+	public String toString() {
+		return "PoolSizingPolicy{maxTotalConnections=" + maxTotalConnections + ", minPerMaster=" + minPerMaster
+				+ ", maxPerMaster=" + maxPerMaster + ", targetWaitMicros=" + targetWaitMicros
+				+ ", intervalMillis=" + intervalMillis + "}";
+	}
+}
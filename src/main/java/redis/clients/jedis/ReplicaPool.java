@@ -0,0 +1,76 @@
+package redis.clients.jedis;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+import redis.clients.jedis.metrics.MasterMetrics;
+
+/**
+ * 一个副本的连接池，记录借出未还的连接数，供 {@link ReplicaReads} 选择最空闲的副本
+ */
+public class ReplicaPool extends MeteredJedisPool {
+
+	private final HostAndPort address;
+	private final AtomicInteger outstanding = new AtomicInteger();
+	private volatile boolean eligible = true;
+
+	ReplicaPool(
+			GenericObjectPoolConfig<?> poolConfig,
+			HostAndPort address,
+			MeteredJedisFactory factory,
+			MasterMetrics metrics) {
+		super(poolConfig, factory, metrics);
+		this.address = address;
+	}
+
+	public HostAndPort getAddress() {
+		return address;
+	}
+
+	/**
+	 * @return 借出未还的连接数
+	 */
+	public int getOutstanding() {
+		return outstanding.get();
+	}
+
+	/**
+	 * @return 最近一次刷新时是否满足 {@link ReplicaReadPolicy}
+	 */
+	public boolean isEligible() {
+		return eligible;
+	}
+
+	void setEligible(boolean eligible) {
+		this.eligible = eligible;
+	}
+
+	@Override
+	public Jedis getResource() {
+		outstanding.incrementAndGet();
+		try {
+			return super.getResource();
+		} catch (RuntimeException e) {
+			outstanding.decrementAndGet();
+			throw e;
+		}
+	}
+
+	@Override
+	protected void returnResource(Jedis resource) {
+		outstanding.decrementAndGet();
+		super.returnResource(resource);
+	}
+
+	@Override
+	protected void returnBrokenResource(Jedis resource) {
+		outstanding.decrementAndGet();
+		super.returnBrokenResource(resource);
+	}
+
+	@Override
+	public String toString() {
+		return "ReplicaPool{" + address + ", outstanding=" + outstanding + "}";
+	}
+}
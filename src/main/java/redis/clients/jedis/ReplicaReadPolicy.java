@@ -0,0 +1,67 @@
+package redis.clients.jedis;
+
+/**
+ * 从副本读的策略：副本落后多少仍然可以读，找不到可读副本时怎么办，多久刷新一次副本列表。
+ */
+public class ReplicaReadPolicy {
+
+	/**
+	 * 不限复制延迟，与 master 失联 10 秒以上的副本不读，没有可读副本时读 master，每 10 秒刷新
+	 */
+	public static final ReplicaReadPolicy DEFAULT = new ReplicaReadPolicy(-1L, 10_000L, true, 10_000L);
+
+	private final long maxLagBytes;
+	private final long maxLinkDownMillis;
+	private final boolean fallbackToMaster;
+	private final long refreshMillis;
+
+	/**
+	 * @param maxLagBytes       副本的复制偏移量最多落后 master 多少字节，&lt; 0 表示不限
+	 * @param maxLinkDownMillis 副本与 master 断开超过多久就不读，&lt; 0 表示不限
+	 * @param fallbackToMaster  没有满足条件的副本时读 master，否则抛出异常
+	 * @param refreshMillis     通过 sentinel 刷新副本列表和复制延迟的间隔
+	 */
+	public ReplicaReadPolicy(long maxLagBytes, long maxLinkDownMillis, boolean fallbackToMaster, long refreshMillis) {
+		if (refreshMillis <= 0) {
+			throw new IllegalArgumentException("refreshMillis must be positive");
+		}
+		this.maxLagBytes = maxLagBytes;
+		this.maxLinkDownMillis = maxLinkDownMillis;
+		this.fallbackToMaster = fallbackToMaster;
+		this.refreshMillis = refreshMillis;
+	}
+
+	public long getMaxLagBytes() {
+		return maxLagBytes;
+	}
+
+	public long getMaxLinkDownMillis() {
+		return maxLinkDownMillis;
+	}
+
+	public boolean isFallbackToMaster() {
+		return fallbackToMaster;
+	}
+
+	public long getRefreshMillis() {
+		return refreshMillis;
+	}
+
+	/**
+	 * @param lagBytes         复制延迟，未知时为 -1
+	 * @param linkDownMillis   与 master 断开的时长，未断开为 0
+	 * @return 该副本是否可读
+	 */
+	boolean accepts(long lagBytes, long linkDownMillis) {
+		if (maxLinkDownMillis >= 0 && linkDownMillis > maxLinkDownMillis) {
+			return false;
+		}
+		return maxLagBytes < 0 || lagBytes < 0 || lagBytes <= maxLagBytes;
+	}
+
+	@Override
+	public String toString() {
+		return "ReplicaReadPolicy{maxLagBytes=" + maxLagBytes + ", maxLinkDownMillis=" + maxLinkDownMillis
+				+ ", fallbackToMaster=" + fallbackToMaster + ", refreshMillis=" + refreshMillis + "}";
+	}
+}
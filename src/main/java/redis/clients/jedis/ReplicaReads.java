@@ -0,0 +1,162 @@
+package redis.clients.jedis;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.util.Log;
+
+/**
+ * 各 master 的副本连接池。
+ * <p>
+ * 副本列表取自 {@link SentinelTopology}，按 {@link ReplicaReadPolicy#getRefreshMillis()}
+ * 定期刷新拓扑后更新，master 切换时立即刷新对应分片；被 sentinel 标记为下线的副本直接剔除，
+ * 复制延迟或失联时间超出策略的副本保留连接池但暂不参与读。读请求交给借出连接最少的副本。
+ */
+public class ReplicaReads implements MasterSwitchListener, Closeable, Log {
+
+	private final JedisSentinelPools pools;
+	private final ReplicaReadPolicy policy;
+	private final AtomicReferenceArray<List<ReplicaPool>> replicas;
+	private final ScheduledExecutorService refresher;
+
+	ReplicaReads(JedisSentinelPools pools, ReplicaReadPolicy policy) {
+		this.pools = pools;
+		this.policy = policy;
+		int shards = pools.getMasterPools().size();
+		this.replicas = new AtomicReferenceArray<>(shards);
+		if (pools.getTopology().snapshot().getRefreshedMillis() == 0) {
+			pools.getTopology().refresh();
+		}
+		for (int i = 0; i < shards; i++) {
+			replicas.set(i, Collections.emptyList());
+			refresh(i);
+		}
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+				JedisSentinelPools.daemonThreadFactory("ReplicaReads-refresher"));
+		executor.scheduleWithFixedDelay(this::refreshAll, policy.getRefreshMillis(), policy.getRefreshMillis(),
+				TimeUnit.MILLISECONDS);
+		this.refresher = executor;
+	}
+
+	public ReplicaReadPolicy getPolicy() {
+		return policy;
+	}
+
+	public List<ReplicaPool> getReplicas(int shard) {
+		return replicas.get(shard);
+	}
+
+	/**
+	 * 从借出连接最少的可读副本借一条连接
+	 *
+	 * @return 没有可读副本且策略允许读 master 时返回 null
+	 */
+	Jedis borrow(int shard) {
+		List<ReplicaPool> list = replicas.get(shard);
+		int n = list.size();
+		ReplicaPool best = null;
+		// 从随机位置开始找，借出数相同时分散到不同副本
+		int start = n > 1 ? ThreadLocalRandom.current().nextInt(n) : 0;
+		for (int i = 0; i < n; i++) {
+			ReplicaPool pool = list.get((start + i) % n);
+			if (pool.isEligible() && (best == null || pool.getOutstanding() < best.getOutstanding())) {
+				best = pool;
+			}
+		}
+		if (best != null) {
+			return best.getResource();
+		}
+		if (policy.isFallbackToMaster()) {
+			return null;
+		}
+		throw new JedisException("No replica of " + pools.getMasterPools().get(shard).getMasterName()
+				+ " satisfies " + policy);
+	}
+
+	@Override
+	public void onMasterSwitch(int shard, String masterName, HostAndPort master) {
+		refresher.execute(() -> {
+			pools.getTopology().refresh();
+			refresh(shard);
+		});
+	}
+
+	private void refreshAll() {
+		pools.getTopology().refresh();
+		for (int i = 0; i < replicas.length(); i++) {
+			refresh(i);
+		}
+	}
+
+	private synchronized void refresh(int shard) {
+		SentinelMasterPool masterPool = pools.getMasterPools().get(shard);
+		List<TopologySnapshot.Replica> reported = pools.getTopology().getReplicas(masterPool.getMasterName());
+		if (reported == null) {
+			return;
+		}
+		long masterOffset = masterOffset(masterPool);
+		Map<HostAndPort, ReplicaPool> previous = new HashMap<>();
+		for (ReplicaPool pool : replicas.get(shard)) {
+			previous.put(pool.getAddress(), pool);
+		}
+
+		List<ReplicaPool> next = new ArrayList<>(reported.size());
+		for (TopologySnapshot.Replica replica : reported) {
+			if (replica.isDown()) {
+				continue;
+			}
+			HostAndPort address = replica.getAddress();
+			if (address.equals(masterPool.getCurrentHostMaster())) {
+				continue;
+			}
+			long offset = replica.getReplOffset();
+			long lag = masterOffset >= 0 && offset >= 0 ? Math.max(0, masterOffset - offset) : -1L;
+			long linkDown = replica.getLinkDownMillis();
+			ReplicaPool pool = previous.remove(address);
+			if (pool == null) {
+				pool = pools.newReplicaPool(shard, address);
+				info("Reading {} from replica {}", masterPool.getMasterName(), address);
+			}
+			pool.setEligible(policy.accepts(lag, linkDown));
+			next.add(pool);
+		}
+		replicas.set(shard, Collections.unmodifiableList(next));
+		// 已借出的连接归还时随池一起销毁
+		previous.values().forEach(ReplicaPool::close);
+	}
+
+	private long masterOffset(SentinelMasterPool masterPool) {
+		if (policy.getMaxLagBytes() < 0) {
+			return -1L;
+		}
+		try (Jedis jedis = masterPool.getResource()) {
+			for (String line : jedis.info("replication").split("\r\n")) {
+				if (line.startsWith("master_repl_offset:")) {
+					return Long.parseLong(line.substring("master_repl_offset:".length()).trim());
+				}
+			}
+		} catch (JedisException | NumberFormatException e) {
+			debug("Can not read replication offset of {}: {}", masterPool.getMasterName(), e.getMessage());
+		}
+		return -1L;
+	}
+
+	@Override
+	public synchronized void close() {
+		refresher.shutdownNow();
+		for (int i = 0; i < replicas.length(); i++) {
+			replicas.get(i).forEach(ReplicaPool::close);
+			replicas.set(i, Collections.emptyList());
+		}
+	}
+}
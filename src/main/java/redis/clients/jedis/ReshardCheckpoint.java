@@ -0,0 +1,90 @@
+package redis.clients.jedis;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * 各源 master 的 SCAN 游标，每批之后写入文件（先写临时文件再改名），进程退出后可以从这里继续。
+ * 文件里记录了新旧两个布局，布局不同的断点不能继续使用。
+ */
+final class ReshardCheckpoint {
+
+	private static final String PLAN = "plan";
+	private static final String DONE = "done";
+
+	private final Path file;
+	private final Properties state = new Properties();
+
+	private ReshardCheckpoint(Path file) {
+		this.file = file;
+	}
+
+	/**
+	 * @param file 为 null 时只在内存中记录
+	 * @param plan 新旧布局的描述
+	 */
+	static ReshardCheckpoint load(Path file, String plan) {
+		ReshardCheckpoint checkpoint = new ReshardCheckpoint(file);
+		if (file != null && Files.exists(file)) {
+			try (InputStream in = Files.newInputStream(file)) {
+				checkpoint.state.load(in);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Can not read checkpoint " + file, e);
+			}
+			String saved = checkpoint.state.getProperty(PLAN);
+			if (!plan.equals(saved)) {
+				throw new IllegalStateException("Checkpoint " + file + " belongs to another plan: " + saved);
+			}
+		}
+		checkpoint.state.setProperty(PLAN, plan);
+		return checkpoint;
+	}
+
+	/**
+	 * @return 上次的游标，没有时为 null
+	 */
+	synchronized String cursor(String masterName) {
+		String value = state.getProperty("cursor." + masterName);
+		return value == null || DONE.equals(value) ? null : value;
+	}
+
+	synchronized boolean isDone(String masterName) {
+		return DONE.equals(state.getProperty("cursor." + masterName));
+	}
+
+	synchronized void save(String masterName, String cursor) {
+		state.setProperty("cursor." + masterName, cursor);
+		flush();
+	}
+
+	synchronized void done(String masterName) {
+		save(masterName, DONE);
+	}
+
+	private void flush() {
+		if (file == null) {
+			return;
+		}
+		Path dir = file.toAbsolutePath().getParent();
+		try {
+			Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+			try (OutputStream out = Files.newOutputStream(tmp)) {
+				state.store(out, "resharding checkpoint");
+			}
+			try {
+				Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Can not write checkpoint " + file, e);
+		}
+	}
+}
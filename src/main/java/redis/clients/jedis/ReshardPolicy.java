@@ -0,0 +1,51 @@
+package redis.clients.jedis;
+
+import java.nio.file.Path;
+
+/**
+ * 重新分片的节奏：每次 SCAN 取多少个 key，每秒最多扫描多少个 key，断点保存在哪里。
+ */
+public class ReshardPolicy {
+
+	/**
+	 * 每次 SCAN 1000 个 key，不限速，不保存断点
+	 */
+	public static final ReshardPolicy DEFAULT = new ReshardPolicy(1000, -1, null);
+
+	private final int scanCount;
+	private final int maxKeysPerSecond;
+	private final Path checkpoint;
+
+	/**
+	 * @param scanCount        SCAN 的 COUNT，也是一批迁移的 key 数上限
+	 * @param maxKeysPerSecond 每个源 master 每秒最多扫描的 key 数，&lt;= 0 表示不限
+	 * @param checkpoint       保存各源 master SCAN 游标的文件，为 null 时不保存；
+	 *                         用同一个文件重新开始时从上次的游标继续
+	 */
+	public ReshardPolicy(int scanCount, int maxKeysPerSecond, Path checkpoint) {
+		if (scanCount <= 0) {
+			throw new IllegalArgumentException("scanCount must be positive");
+		}
+		this.scanCount = scanCount;
+		this.maxKeysPerSecond = maxKeysPerSecond;
+		this.checkpoint = checkpoint;
+	}
+
+	public int getScanCount() {
+		return scanCount;
+	}
+
+	public int getMaxKeysPerSecond() {
+		return maxKeysPerSecond;
+	}
+
+	public Path getCheckpoint() {
+		return checkpoint;
+	}
+
+	@Override
+	public String toString() {
+		return "ReshardPolicy{scanCount=" + scanCount + ", maxKeysPerSecond=" + maxKeysPerSecond
+				+ ", checkpoint=" + checkpoint + "}";
+	}
+}
@@ -0,0 +1,74 @@
+package redis.clients.jedis;
+
+/**
+ * 一个源 master 的迁移进度
+ */
+public class ReshardProgress {
+
+	private final String masterName;
+	private final long scanned;
+	private final long moved;
+	private final long skipped;
+	private final long failed;
+	private final boolean done;
+	private final String error;
+
+	ReshardProgress(String masterName, long scanned, long moved, long skipped, long failed, boolean done, String error) {
+		this.masterName = masterName;
+		this.scanned = scanned;
+		this.moved = moved;
+		this.skipped = skipped;
+		this.failed = failed;
+		this.done = done;
+		this.error = error;
+	}
+
+	public String getMasterName() {
+		return masterName;
+	}
+
+	/**
+	 * @return 本次运行扫描过的 key 数，从断点恢复时不含之前的运行
+	 */
+	public long getScanned() {
+		return scanned;
+	}
+
+	/**
+	 * @return 迁移到新 master 的 key 数
+	 */
+	public long getMoved() {
+		return moved;
+	}
+
+	/**
+	 * @return 新 master 上已经有同名 key（客户端已经写过）而丢弃旧值的 key 数
+	 */
+	public long getSkipped() {
+		return skipped;
+	}
+
+	/**
+	 * @return RESTORE 失败、仍留在源 master 上的 key 数
+	 */
+	public long getFailed() {
+		return failed;
+	}
+
+	public boolean isDone() {
+		return done;
+	}
+
+	/**
+	 * @return 使该源 master 中止的错误，没有时为 null
+	 */
+	public String getError() {
+		return error;
+	}
+
+	@Override
+	public String toString() {
+		return masterName + "{scanned=" + scanned + ", moved=" + moved + ", skipped=" + skipped + ", failed=" + failed
+				+ (done ? ", done" : "") + (error == null ? "" : ", error=" + error) + "}";
+	}
+}
@@ -0,0 +1,483 @@
+package redis.clients.jedis;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.util.Log;
+import redis.clients.jedis.util.SafeEncoder;
+import redis.clients.jedis.util.Sharding;
+import redis.clients.jedis.util.ShardingStrategy;
+
+/**
+ * 把 key 从旧布局（之前的 master 列表）迁移到 {@link JedisSentinelPools} 当前的布局。
+ * <p>
+ * 每个旧 master 一个线程，用 SCAN 遍历，新布局下不属于它的 key 用管道批量 DUMP/PTTL，
+ * 在新 master 上 RESTORE（不覆盖），成功或新 master 上已有该 key 后从旧 master 上 UNLINK。
+ * 每批之后把游标写入 {@link ReshardPolicy#getCheckpoint() 断点文件}，中断后用同一个文件重新开始即可继续。
+ * <p>
+ * 迁移期间 {@link ShardedJedisSentinel} 访问一个换了 master 的 key 之前，先到旧 master 上找它，
+ * 找到就立即按上面的方式搬到新 master，再对新 master 执行命令；因此读写都不会丢失旧数据。
+ * 同一进程内后台迁移与按需迁移只在 RESTORE 与 UNLINK 期间按 key 加锁，不会把已删除的 key 搬回来。
+ * 一个旧 master 扫描完成后，它上面只有 RESTORE 失败的 key 还需要按需迁移。
+ * 只在旧布局中的 master 的连接池由本类创建，不随 sentinel 切换。
+ */
+public class Resharding implements Closeable, Log {
+
+	private static final int LOCK_STRIPES = 256;
+	private static final int MAX_ATTEMPTS = 5;
+	private static final byte[] SCAN_START = ScanParams.SCAN_POINTER_START_BINARY;
+
+	private final JedisSentinelPools pools;
+	private final ReshardPolicy policy;
+	private final Sharding previousSharding;
+	private final SentinelMasterPool[] previousPools;
+	private final List<SentinelMasterPool> ownPools = new ArrayList<>();
+	private final Map<String, Source> sources = new LinkedHashMap<>();
+	private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+	/**
+	 * 各锁段上搬走的 key 数，用来发现 DUMP 之后被别人搬走的 key
+	 */
+	private final AtomicLongArray versions = new AtomicLongArray(LOCK_STRIPES);
+	private final ReshardCheckpoint checkpoint;
+	private final CompletableFuture<List<ReshardProgress>> completion = new CompletableFuture<>();
+	private final AtomicInteger remaining = new AtomicInteger();
+	private final ExecutorService workers;
+	private volatile boolean active = true;
+	private volatile boolean closed;
+
+	Resharding(
+			JedisSentinelPools pools,
+			List<String> previousMasterNames,
+			ShardingStrategy previousStrategy,
+			ReshardPolicy policy) {
+		if (previousMasterNames.isEmpty() || new HashSet<>(previousMasterNames).size() != previousMasterNames.size()) {
+			throw new IllegalArgumentException("previous master names must be non-empty and distinct: " + previousMasterNames);
+		}
+		this.pools = pools;
+		this.policy = policy;
+		this.previousSharding = previousStrategy.create(previousMasterNames);
+		this.previousPools = new SentinelMasterPool[previousMasterNames.size()];
+		List<String> targetNames = new ArrayList<>();
+		for (SentinelMasterPool pool : pools.getMasterPools()) {
+			targetNames.add(pool.getMasterName());
+		}
+		try {
+			for (int i = 0; i < previousPools.length; i++) {
+				String name = previousMasterNames.get(i);
+				int index = targetNames.indexOf(name);
+				if (index >= 0) {
+					previousPools[i] = pools.getMasterPools().get(index);
+				} else {
+					previousPools[i] = pools.newMasterPool(name);
+					ownPools.add(previousPools[i]);
+				}
+				sources.put(name, new Source(previousPools[i]));
+			}
+			this.checkpoint = ReshardCheckpoint.load(policy.getCheckpoint(),
+					"previous=" + previousMasterNames + "@" + previousStrategy
+							+ ";target=" + targetNames + "@" + pools.getShardingStrategy()
+							+ ";db=" + pools.getDatabase());
+		} catch (RuntimeException e) {
+			pools.closeAll(ownPools);
+			throw e;
+		}
+		for (int i = 0; i < LOCK_STRIPES; i++) {
+			locks[i] = new ReentrantLock();
+		}
+		this.workers = Executors.newFixedThreadPool(sources.size(), JedisSentinelPools.daemonThreadFactory("Resharding"));
+	}
+
+	void start() {
+		info("Resharding {} with {}", sources.keySet(), policy);
+		remaining.set(sources.size());
+		for (Source source : sources.values()) {
+			workers.execute(() -> run(source));
+		}
+	}
+
+	public ReshardPolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * @return 是否仍在迁移；迁移全部成功后为 false，客户端不再查旧 master
+	 */
+	public boolean isActive() {
+		return active;
+	}
+
+	/**
+	 * @return 所有旧 master 处理完后完成，值为各自的最终进度；有 master 中止时以 {@link JedisException} 结束
+	 */
+	public CompletableFuture<List<ReshardProgress>> completion() {
+		return completion;
+	}
+
+	public List<ReshardProgress> progress() {
+		List<ReshardProgress> all = new ArrayList<>(sources.size());
+		sources.forEach((name, source) -> all.add(source.snapshot(name)));
+		return Collections.unmodifiableList(all);
+	}
+
+	/**
+	 * 迁移期间在访问 key 之前调用：key 的 master 变了且旧 master 上还有它时，立即搬到新 master。
+	 * 旧 master 扫描完成后只对 RESTORE 失败的 key 这样做
+	 *
+	 * @return 是否搬动了 key
+	 */
+	boolean pull(String key) {
+		if (!active) {
+			return false;
+		}
+		return pull(SafeEncoder.encode(key), previousSharding.shardIndex(key), pools.getSharding().shardIndex(key));
+	}
+
+	boolean pull(byte[] key) {
+		if (!active) {
+			return false;
+		}
+		return pull(key, previousSharding.shardIndex(key), pools.getSharding().shardIndex(key));
+	}
+
+	private boolean pull(byte[] key, int previousShard, int shard) {
+		Source source = sources.get(previousPools[previousShard].getMasterName());
+		SentinelMasterPool to = pools.getMasterPools().get(shard);
+		if (source.pool == to || source.done && !source.unmoved.contains(ByteBuffer.wrap(key))) {
+			return false;
+		}
+		return move(source, to, Collections.singletonList(key), false) > 0;
+	}
+
+	private void run(Source source) {
+		String name = source.pool.getMasterName();
+		try {
+			if (checkpoint.isDone(name)) {
+				info("Resharding of {} already done according to checkpoint", name);
+			} else {
+				scan(name, source);
+				checkpoint.done(name);
+				info("Resharding of {} done: {}", name, source.snapshot(name));
+			}
+			source.done = true;
+		} catch (RuntimeException e) {
+			source.error = e.toString();
+			if (!closed) {
+				error("Resharding of {} stopped, restart with the same checkpoint to resume", name, e);
+			}
+		} finally {
+			if (remaining.decrementAndGet() == 0) {
+				finish();
+			}
+		}
+	}
+
+	private void scan(String name, Source source) {
+		String saved = checkpoint.cursor(name);
+		byte[] cursor = saved == null ? SCAN_START : SafeEncoder.encode(saved);
+		ScanParams params = new ScanParams().count(policy.getScanCount());
+		long started = System.nanoTime();
+		long scanned = 0;
+		do {
+			if (closed) {
+				throw new JedisException("Resharding closed");
+			}
+			ScanResult<byte[]> page = scanPage(source.pool, cursor, params);
+			List<byte[]> keys = page.getResult();
+			Map<SentinelMasterPool, List<byte[]>> moves = new IdentityHashMap<>();
+			for (byte[] key : keys) {
+				SentinelMasterPool to = pools.getMasterPools().get(pools.getSharding().shardIndex(key));
+				if (to != source.pool) {
+					moves.computeIfAbsent(to, k -> new ArrayList<>()).add(key);
+				}
+			}
+			for (Map.Entry<SentinelMasterPool, List<byte[]>> move : moves.entrySet()) {
+				moveBatch(source, move.getKey(), move.getValue());
+			}
+			source.scanned.addAndGet(keys.size());
+			scanned += keys.size();
+			cursor = page.getCursorAsBytes();
+			checkpoint.save(name, SafeEncoder.encode(cursor));
+			throttle(started, scanned);
+		} while (!Arrays.equals(cursor, SCAN_START));
+	}
+
+	private ScanResult<byte[]> scanPage(SentinelMasterPool pool, byte[] cursor, ScanParams params) {
+		for (int attempt = 1; ; attempt++) {
+			try (Jedis jedis = pool.getResource()) {
+				return jedis.scan(cursor, params);
+			} catch (JedisException e) {
+				retryOrThrow(pool, attempt, e);
+			}
+		}
+	}
+
+	private void moveBatch(Source source, SentinelMasterPool to, List<byte[]> keys) {
+		for (int attempt = 1; ; attempt++) {
+			try {
+				move(source, to, keys, true);
+				return;
+			} catch (JedisException e) {
+				retryOrThrow(source.pool, attempt, e);
+			}
+		}
+	}
+
+	/**
+	 * 先不加锁 DUMP/PTTL，再只锁旧 master 上存在的 key 执行 RESTORE 与 UNLINK。
+	 * DUMP 之后同一锁段上有 key 被搬走的，加锁后重新 DUMP，避免把已搬走（可能已被删除）的 key 搬回来
+	 *
+	 * @param background 是否后台迁移，只有后台迁移计入进度
+	 * @return 搬到新 master（或新 master 上已有）的 key 数
+	 */
+	private int move(Source source, SentinelMasterPool to, List<byte[]> keys, boolean background) {
+		List<Dump> dumps = new ArrayList<>(keys.size());
+		for (byte[] key : keys) {
+			int stripe = stripe(key);
+			dumps.add(new Dump(key, stripe, versions.get(stripe)));
+		}
+		List<Dump> present = dump(source.pool, dumps);
+		if (present.isEmpty()) {
+			return 0;
+		}
+
+		int[] stripes = present.stream().mapToInt(d -> d.stripe).distinct().sorted().toArray();
+		// 按序号加锁，避免与其它批次或按需迁移互相等待
+		for (int stripe : stripes) {
+			locks[stripe].lock();
+		}
+		try {
+			List<Dump> stale = new ArrayList<>();
+			for (Dump d : present) {
+				if (versions.get(d.stripe) != d.version) {
+					stale.add(d);
+				}
+			}
+			if (!stale.isEmpty()) {
+				present.removeAll(stale);
+				present.addAll(dump(source.pool, stale));
+				if (present.isEmpty()) {
+					return 0;
+				}
+			}
+			return restore(source, to, present, background);
+		} finally {
+			for (int i = stripes.length - 1; i >= 0; i--) {
+				locks[stripes[i]].unlock();
+			}
+		}
+	}
+
+	/**
+	 * @return 旧 master 上存在的 key，已填上 DUMP 与 PTTL 的结果
+	 */
+	private List<Dump> dump(SentinelMasterPool from, List<Dump> dumps) {
+		List<Response<byte[]>> payloads = new ArrayList<>(dumps.size());
+		List<Response<Long>> ttls = new ArrayList<>(dumps.size());
+		try (Jedis jedis = from.getResource()) {
+			Pipeline pipeline = jedis.pipelined();
+			for (Dump d : dumps) {
+				payloads.add(pipeline.dump(d.key));
+				ttls.add(pipeline.pttl(d.key));
+			}
+			pipeline.sync();
+		}
+		List<Dump> present = new ArrayList<>(dumps.size());
+		for (int i = 0; i < dumps.size(); i++) {
+			Dump d = dumps.get(i);
+			d.payload = payloads.get(i).get();
+			d.ttl = ttls.get(i).get();
+			if (d.payload != null && d.ttl != -2) {
+				present.add(d);
+			}
+		}
+		return present;
+	}
+
+	/**
+	 * 调用方已持有这些 key 的锁
+	 */
+	private int restore(Source source, SentinelMasterPool to, List<Dump> present, boolean background) {
+		List<Response<Object>> restores = new ArrayList<>(present.size());
+		try (Jedis jedis = to.getResource()) {
+			Pipeline pipeline = jedis.pipelined();
+			for (Dump d : present) {
+				restores.add(pipeline.sendCommand(Protocol.Command.RESTORE,
+						d.key, Protocol.toByteArray(Math.max(0, d.ttl)), d.payload));
+			}
+			pipeline.sync();
+		}
+
+		List<byte[]> restored = new ArrayList<>(present.size());
+		for (int i = 0; i < present.size(); i++) {
+			byte[] key = present.get(i).key;
+			try {
+				restores.get(i).get();
+				restored.add(key);
+				if (background) {
+					source.moved.incrementAndGet();
+				}
+			} catch (JedisDataException e) {
+				if (e.getMessage() != null && e.getMessage().startsWith("BUSYKEY")) {
+					// 新 master 上的值更新，旧值丢弃
+					restored.add(key);
+					if (background) {
+						source.skipped.incrementAndGet();
+					}
+				} else {
+					warn("Can not restore {} from {} to {}: {}", SafeEncoder.encode(key),
+							source.pool.getMasterName(), to.getMasterName(), e.getMessage());
+					// 扫描完成后仍按需迁移这些 key
+					source.unmoved.add(ByteBuffer.wrap(key));
+					if (background) {
+						source.failed.incrementAndGet();
+					}
+				}
+			}
+		}
+		if (!restored.isEmpty()) {
+			try (Jedis jedis = source.pool.getResource()) {
+				jedis.unlink(restored.toArray(new byte[0][]));
+			}
+			for (byte[] key : restored) {
+				source.unmoved.remove(ByteBuffer.wrap(key));
+				versions.incrementAndGet(stripe(key));
+			}
+		}
+		return restored.size();
+	}
+
+	private void retryOrThrow(SentinelMasterPool pool, int attempt, JedisException e) {
+		if (attempt >= MAX_ATTEMPTS || closed) {
+			throw e;
+		}
+		warn("Resharding batch on {} failed (attempt {}), retrying: {}", pool.getMasterName(), attempt, e.getMessage());
+		sleep(TimeUnit.SECONDS.toMillis(attempt));
+	}
+
+	private void throttle(long startedNanos, long scanned) {
+		int rate = policy.getMaxKeysPerSecond();
+		if (rate <= 0) {
+			return;
+		}
+		long due = startedNanos + TimeUnit.SECONDS.toNanos(scanned) / rate;
+		long wait = due - System.nanoTime();
+		if (wait > 0) {
+			sleep(TimeUnit.NANOSECONDS.toMillis(wait));
+		}
+	}
+
+	private void finish() {
+		List<ReshardProgress> result = progress();
+		String failed = null;
+		long unmoved = 0;
+		for (ReshardProgress p : result) {
+			if (p.getError() != null && failed == null) {
+				failed = p.getMasterName() + ": " + p.getError();
+			}
+		}
+		for (Source source : sources.values()) {
+			unmoved += source.unmoved.size();
+		}
+		workers.shutdown();
+		if (failed != null) {
+			// 扫描完成的旧 master 只按需迁移 RESTORE 失败的 key，中止的仍全部按需迁移
+			completion.completeExceptionally(new JedisException("Resharding stopped on " + failed));
+			return;
+		}
+		if (unmoved == 0) {
+			// 旧 master 上已没有需要迁移的 key
+			active = false;
+			info("Resharding finished: {}", result);
+		} else {
+			warn("Resharding finished, {} keys could not be restored and are still read through: {}", unmoved, result);
+		}
+		completion.complete(result);
+	}
+
+	private static int stripe(byte[] key) {
+		return (Arrays.hashCode(key) & Integer.MAX_VALUE) % LOCK_STRIPES;
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JedisException("Resharding interrupted", e);
+		}
+	}
+
+	/**
+	 * 停止后台迁移并关闭只在旧布局中的 master 的连接池，客户端不再查旧 master
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		active = false;
+		workers.shutdownNow();
+		try {
+			workers.awaitTermination(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		pools.closeAll(ownPools);
+	}
+
+	private static final class Source {
+
+		private final SentinelMasterPool pool;
+		private final AtomicLong scanned = new AtomicLong();
+		private final AtomicLong moved = new AtomicLong();
+		private final AtomicLong skipped = new AtomicLong();
+		private final AtomicLong failed = new AtomicLong();
+		/**
+		 * RESTORE 失败、仍留在源 master 上的 key
+		 */
+		private final Set<ByteBuffer> unmoved = ConcurrentHashMap.newKeySet();
+		private volatile boolean done;
+		private volatile String error;
+
+		Source(SentinelMasterPool pool) {
+			this.pool = pool;
+		}
+
+		ReshardProgress snapshot(String name) {
+			return new ReshardProgress(name, scanned.get(), moved.get(), skipped.get(), failed.get(), done, error);
+		}
+	}
+
+	private static final class Dump {
+
+		private final byte[] key;
+		private final int stripe;
+		private final long version;
+		private byte[] payload;
+		private long ttl;
+
+		Dump(byte[] key, int stripe, long version) {
+			this.key = key;
+			this.stripe = stripe;
+			this.version = version;
+		}
+	}
+}
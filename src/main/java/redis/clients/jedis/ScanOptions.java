@@ -0,0 +1,57 @@
+package redis.clients.jedis;
+
+/**
+ * 跨分片 SCAN 的参数：MATCH、COUNT、TYPE，以及同时推进的游标数。
+ */
+public class ScanOptions {
+
+	/**
+	 * 所有 key，每次 SCAN 1000 个，最多 4 个游标同时推进
+	 */
+	public static final ScanOptions DEFAULT = new ScanOptions(null, 1000, null, 4);
+
+	private final String match;
+	private final int count;
+	private final String type;
+	private final int maxCursors;
+
+	/**
+	 * @param match      glob 模式，为 null 时不过滤
+	 * @param count      SCAN 的 COUNT
+	 * @param type       string、hash、list 等，为 null 时不过滤；需要 Redis 6.0 以上
+	 * @param maxCursors 同时推进的 master 游标数上限，每个游标最多预取一页
+	 */
+	public ScanOptions(String match, int count, String type, int maxCursors) {
+		if (count <= 0) {
+			throw new IllegalArgumentException("count must be positive");
+		}
+		if (maxCursors <= 0) {
+			throw new IllegalArgumentException("maxCursors must be positive");
+		}
+		this.match = match;
+		this.count = count;
+		this.type = type;
+		this.maxCursors = maxCursors;
+	}
+
+	public String getMatch() {
+		return match;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public int getMaxCursors() {
+		return maxCursors;
+	}
+
+	@Override
+	public String toString() {
+		return "ScanOptions{match=" + match + ", count=" + count + ", type=" + type + ", maxCursors=" + maxCursors + "}";
+	}
+}
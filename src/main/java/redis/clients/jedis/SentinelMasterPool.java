@@ -0,0 +1,299 @@
+package redis.clients.jedis;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.metrics.MasterMetrics;
+import redis.clients.jedis.util.Log;
+
+/**
+ * 一个 master 的连接池，master 切换时替换内部的 {@link JedisPool}。
+ * <p>
+ * 切换时在后台为新 master 建好连接池并预热到 minIdle（至少一条连接），再原子地替换，
+ * 旧连接池等借出的连接归还（或超时）后在后台关闭，请求不会因切换而等待建连，报告切换的线程也不会。
+ * 预热期间又切换到别的 master 时，先完成的旧目标不再替换。
+ * 借出的 {@link Jedis} 归还给借出它的那个内部连接池；切换记录在 {@link MasterMetrics} 中。
+ */
+public class SentinelMasterPool extends JedisPoolAbstract implements Log {
+
+	/**
+	 * 旧连接池等待借出连接归还的最长时间
+	 */
+	public static final long DRAIN_TIMEOUT_MILLIS = 10_000L;
+
+	private final String masterName;
+	private final Function<HostAndPort, MeteredJedisPool> poolFactory;
+	private final int minIdle;
+	private final Executor executor;
+	private final MasterMetrics metrics;
+	private final AtomicLong switchCount = new AtomicLong();
+	private volatile MeteredJedisPool current;
+	private volatile HostAndPort master;
+	private HostAndPort target;
+	private long generation;
+	private volatile long lastSwitchNanos = -1L;
+	private volatile int maxTotal = -1;
+	private volatile CircuitBreaker breaker;
+	private volatile boolean closed;
+
+	SentinelMasterPool(
+			String masterName,
+			HostAndPort master,
+			Function<HostAndPort, MeteredJedisPool> poolFactory,
+			int minIdle,
+			Executor executor,
+			MasterMetrics metrics) {
+		this.masterName = masterName;
+		this.poolFactory = poolFactory;
+		this.minIdle = minIdle;
+		this.executor = executor;
+		this.metrics = metrics;
+		this.master = master;
+		this.target = master;
+		this.current = poolFactory.apply(master);
+		metrics.bindPool(this::getNumActive, this::getNumIdle, this::getNumWaiters);
+	}
+
+	public String getMasterName() {
+		return masterName;
+	}
+
+	public HostAndPort getCurrentHostMaster() {
+		return master;
+	}
+
+	/**
+	 * @return 最近一次切换从开始建连接池到完成替换的耗时，未切换过时为 -1
+	 */
+	public long getLastSwitchNanos() {
+		return lastSwitchNanos;
+	}
+
+	public long getSwitchCount() {
+		return switchCount.get();
+	}
+
+	/**
+	 * 在后台预热新 master 的连接池后切换，地址与当前（或正在切换到的）地址相同时什么也不做
+	 *
+	 * @return 完成替换时为 true；未切换、关闭或被更新的切换取代时为 false
+	 */
+	CompletableFuture<Boolean> switchTo(HostAndPort newMaster) {
+		long start = System.nanoTime();
+		long switching;
+		synchronized (this) {
+			if (closed || newMaster.equals(target)) {
+				return CompletableFuture.completedFuture(false);
+			}
+			if (newMaster.equals(master)) {
+				// 预热期间又切回当前 master，取消进行中的切换
+				target = master;
+				generation++;
+				return CompletableFuture.completedFuture(false);
+			}
+			target = newMaster;
+			switching = ++generation;
+		}
+		try {
+			return CompletableFuture.supplyAsync(() -> publish(prewarm(newMaster), newMaster, switching, start), executor);
+		} catch (RejectedExecutionException e) {
+			// 已关闭
+			return CompletableFuture.completedFuture(false);
+		}
+	}
+
+	private MeteredJedisPool prewarm(HostAndPort newMaster) {
+		MeteredJedisPool next = poolFactory.apply(newMaster);
+		if (maxTotal > 0) {
+			next.resize(maxTotal);
+		}
+		try {
+			next.addObjects(Math.max(1, minIdle));
+		} catch (JedisException e) {
+			// 新 master 可能还没准备好，照常切换，之后按需建连
+			warn("Can not pre-warm pool of {} on {}: {}", masterName, newMaster, e.getMessage());
+		}
+		return next;
+	}
+
+	private boolean publish(MeteredJedisPool next, HostAndPort newMaster, long switching, long start) {
+		MeteredJedisPool previous;
+		HostAndPort previousMaster;
+		synchronized (this) {
+			if (closed || switching != generation) {
+				debug("Switch of {} to {} superseded.", masterName, newMaster);
+				next.close();
+				return false;
+			}
+			// 预热期间可能调整过上限或开启了熔断器
+			if (maxTotal > 0 && next.getMaxTotal() != maxTotal) {
+				next.resize(maxTotal);
+			}
+			next.setCircuitBreaker(breaker);
+			previous = current;
+			previousMaster = master;
+			current = next;
+			master = newMaster;
+			lastSwitchNanos = System.nanoTime() - start;
+			switchCount.incrementAndGet();
+		}
+		metrics.recordFailover(previousMaster, newMaster, lastSwitchNanos);
+		info("Switched pool of {} to {} in {} ms.", masterName, newMaster,
+				TimeUnit.NANOSECONDS.toMillis(lastSwitchNanos));
+		try {
+			executor.execute(() -> drain(previous));
+		} catch (RejectedExecutionException e) {
+			previous.close();
+		}
+		CircuitBreaker b = breaker;
+		if (b != null) {
+			b.onSentinelEvent("+switch-master", newMaster.toString());
+		}
+		return true;
+	}
+
+	/**
+	 * 熔断器，未开启时为 null，见 {@link JedisSentinelPools#enableCircuitBreakers(CircuitBreakerPolicy)}
+	 */
+	public CircuitBreaker getCircuitBreaker() {
+		return breaker;
+	}
+
+	synchronized void setCircuitBreaker(CircuitBreaker breaker) {
+		this.breaker = breaker;
+		current.setCircuitBreaker(breaker);
+	}
+
+	/**
+	 * sentinel 报告当前 master 的 +sdown、-sdown、+odown、-odown
+	 */
+	void onSentinelEvent(String event, String source) {
+		CircuitBreaker b = breaker;
+		if (b != null) {
+			b.onSentinelEvent(event, source);
+		}
+	}
+
+	/**
+	 * 当前的连接数上限，master 切换后的新连接池沿用
+	 */
+	public int getMaxTotal() {
+		return current.getMaxTotal();
+	}
+
+	/**
+	 * 调整连接数上限，见 {@link AdaptivePoolSizer}
+	 */
+	synchronized void setMaxTotal(int maxTotal) {
+		if (closed) {
+			return;
+		}
+		this.maxTotal = maxTotal;
+		current.resize(maxTotal);
+	}
+
+	/**
+	 * @return 上次调用以来借出连接数的峰值
+	 */
+	int takePeakActive() {
+		return current.takePeakActive();
+	}
+
+	private void drain(MeteredJedisPool pool) {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DRAIN_TIMEOUT_MILLIS);
+		try {
+			while (pool.getNumActive() > 0 && System.nanoTime() < deadline) {
+				Thread.sleep(10);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			pool.close();
+		}
+	}
+
+	@Override
+	public Jedis getResource() {
+		CircuitBreaker b = breaker;
+		long permit = b == null ? CircuitBreaker.CALL : b.tryAcquire();
+		if (permit == CircuitBreaker.REJECTED) {
+			throw new JedisConnectionException("Circuit breaker of " + masterName + " is " + b.getState()
+					+ ": " + b.getReason());
+		}
+		while (true) {
+			MeteredJedisPool pool = current;
+			try {
+				Jedis jedis = pool.getResource();
+				if (jedis instanceof MeteredJedis) {
+					((MeteredJedis) jedis).breakerPermit = permit;
+				}
+				return jedis;
+			} catch (JedisException e) {
+				// 取连接时恰好被切换，旧池已关闭，换新池重试
+				if (pool == current || closed) {
+					if (b != null) {
+						b.onFailure(permit);
+					}
+					throw e;
+				}
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		current.close();
+	}
+
+	@Override
+	public void destroy() {
+		close();
+	}
+
+	@Override
+	public boolean isClosed() {
+		return closed;
+	}
+
+	@Override
+	public int getNumActive() {
+		return current.getNumActive();
+	}
+
+	@Override
+	public int getNumIdle() {
+		return current.getNumIdle();
+	}
+
+	@Override
+	public int getNumWaiters() {
+		return current.getNumWaiters();
+	}
+
+	@Override
+	public long getMeanBorrowWaitTimeMillis() {
+		return current.getMeanBorrowWaitTimeMillis();
+	}
+
+	@Override
+	public long getMaxBorrowWaitTimeMillis() {
+		return current.getMaxBorrowWaitTimeMillis();
+	}
+
+	@Override
+	public void addObjects(int count) {
+		current.addObjects(count);
+	}
+
+	@Override
+	public String toString() {
+		return "SentinelMasterPool{" + masterName + "@" + master + "}";
+	}
+}
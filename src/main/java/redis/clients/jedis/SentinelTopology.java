@@ -0,0 +1,511 @@
+package redis.clients.jedis;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.util.Log;
+
+/**
+ * 所有 {@link MasterListener} 共享的拓扑协调者，也是客户端对 sentinel 拓扑的缓存。
+ * <p>
+ * 多个 sentinel 会各自报告同一次切换，这里按 master 记录当前地址和 config-epoch，
+ * 只有地址变化且 epoch 不比已知的旧时才切换该 master 的连接池，重复或过期的通知直接忽略；
+ * 已知 epoch 之后，不带 epoch 的报告无法判断新旧，不再据此切换；
+ * 各 master 单独加锁，一个 master 的切换不会影响其它 master 的连接池。
+ * <p>
+ * 除了监听器推送的切换，{@link #refresh()} 定期并行查询所有 sentinel（池化连接，每个 sentinel 一次往返），
+ * 补上副本列表、flags 和各 sentinel 的健康状况，也能纠正错过的 +switch-master。
+ * 管理命令和副本读从 {@link #snapshot()} 读取，不必每次访问 sentinel。
+ */
+public class SentinelTopology implements Closeable, Log {
+
+	/**
+	 * sentinel 没有给出 epoch 时使用
+	 */
+	public static final long UNKNOWN_EPOCH = -1L;
+
+	/**
+	 * 默认每 10 秒全量查询一次
+	 */
+	public static final long DEFAULT_REFRESH_MILLIS = 10_000L;
+
+	private final Map<String, MasterState> masters = new LinkedHashMap<>();
+	private final Map<String, SentinelState> sentinels = new LinkedHashMap<>();
+	private final ExecutorService executor;
+	private final BiConsumer<String, HostAndPort> onSwitch;
+	private final ScheduledThreadPoolExecutor refresher;
+	private ScheduledFuture<?> refreshTask;
+	private volatile long refreshedMillis;
+
+	SentinelTopology(
+			Map<String, List<SentinelMasterPool>> pools,
+			Map<String, JedisPool> sentinelPools,
+			ExecutorService executor,
+			BiConsumer<String, HostAndPort> onSwitch) {
+		pools.forEach((name, list) -> masters.put(name, new MasterState(name, list)));
+		sentinelPools.forEach((address, pool) -> sentinels.put(address, new SentinelState(address, pool)));
+		this.executor = executor;
+		this.onSwitch = onSwitch;
+		this.refresher = new ScheduledThreadPoolExecutor(1, JedisSentinelPools.daemonThreadFactory("SentinelTopology-refresher"));
+		this.refresher.setRemoveOnCancelPolicy(true);
+	}
+
+	public boolean contains(String masterName) {
+		return masters.containsKey(masterName);
+	}
+
+	public Iterable<String> masterNames() {
+		return Collections.unmodifiableSet(masters.keySet());
+	}
+
+	public HostAndPort getMaster(String masterName) {
+		MasterState state = masters.get(masterName);
+		return state == null ? null : state.master();
+	}
+
+	public long getEpoch(String masterName) {
+		MasterState state = masters.get(masterName);
+		return state == null ? UNKNOWN_EPOCH : state.epoch();
+	}
+
+	/**
+	 * 最近一次 {@link #refresh()} 得到的副本，从未取到时为 null
+	 */
+	public List<TopologySnapshot.Replica> getReplicas(String masterName) {
+		MasterState state = masters.get(masterName);
+		return state == null ? null : state.replicas();
+	}
+
+	/**
+	 * 报告 sentinel 看到的 master 地址。需要切换时该 master 的连接池在后台预热后替换，
+	 * 全部替换完成后回调切换监听器，调用线程不等待
+	 *
+	 * @param epoch  该 master 的 config-epoch，未知时传 {@link #UNKNOWN_EPOCH}；已知 epoch 之后，未知 epoch 的报告不会切换
+	 * @param source 报告者，仅用于日志
+	 * @return 是否因此开始切换连接池
+	 */
+	public boolean update(String masterName, HostAndPort master, long epoch, String source) {
+		MasterState state = masters.get(masterName);
+		if (state == null) {
+			debug("Ignoring master {} reported by {}: not monitored.", masterName, source);
+			return false;
+		}
+		if (!state.update(master, epoch, source)) {
+			return false;
+		}
+		List<CompletableFuture<Boolean>> switches = new ArrayList<>(state.pools.size());
+		for (SentinelMasterPool pool : state.pools) {
+			switches.add(pool.switchTo(master).exceptionally(e -> {
+				error("Can not switch pool {}", pool, e);
+				return false;
+			}));
+		}
+		CompletableFuture.allOf(switches.toArray(new CompletableFuture<?>[0])).thenRun(() -> {
+			// 预热期间又切换到别的 master 的，由后一次切换回调
+			if (master.equals(state.master())) {
+				onSwitch.accept(masterName, master);
+			}
+		});
+		return true;
+	}
+
+	/**
+	 * 报告 sentinel 发布的 +switch-master。消息里没有 epoch，在后台用该 sentinel 的池化连接查询它当前的 master 和 epoch
+	 * 后再 {@link #update}，不占用监听器的订阅线程。查询时该 sentinel 可能已经又切换过，地址和 epoch 都取查询结果，
+	 * 不把新的 epoch 配给消息里旧的地址。查不到 epoch 而本地已知 epoch 时，交给一次 {@link #refresh()} 按 epoch 选择
+	 */
+	void switchReported(String masterName, HostAndPort master, String sentinel) {
+		try {
+			executor.execute(() -> {
+				Report current = fetchMaster(masterName, sentinel);
+				if (current != null && current.epoch != UNKNOWN_EPOCH) {
+					if (!current.address.equals(master)) {
+						debug("+switch-master of {} to {} from {} is outdated, sentinel now reports {} (epoch {}).",
+								masterName, master, sentinel, current.address, current.epoch);
+					}
+					update(masterName, current.address, current.epoch, sentinel);
+				} else if (getEpoch(masterName) != UNKNOWN_EPOCH) {
+					debug("No epoch for +switch-master of {} to {} from {}, refreshing.", masterName, master, sentinel);
+					refresher.execute(this::refreshQuietly);
+				} else {
+					update(masterName, master, UNKNOWN_EPOCH, sentinel);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// 已关闭
+		}
+	}
+
+	/**
+	 * @return sentinel 当前记录的 master 地址和 config-epoch，查不到时为 null
+	 */
+	private Report fetchMaster(String masterName, String sentinel) {
+		SentinelState state = sentinels.get(sentinel);
+		if (state == null) {
+			return null;
+		}
+		try (Jedis jedis = state.pool.getResource()) {
+			for (Map<String, String> master : jedis.sentinelMasters()) {
+				if (masterName.equals(master.get("name")) && master.get("ip") != null && master.get("port") != null) {
+					return new Report(sentinel, new HostAndPort(master.get("ip"), Integer.parseInt(master.get("port"))),
+							parseLong(master.get("config-epoch"), UNKNOWN_EPOCH), master.get("flags"));
+				}
+			}
+		} catch (JedisException | NumberFormatException e) {
+			warn("Can not get config-epoch of {} from Sentinel {}: {}", masterName, sentinel, e.getMessage());
+		}
+		return null;
+	}
+
+	/**
+	 * 报告 sentinel 发布的 +sdown、-sdown、+odown、-odown，只处理针对当前 master 地址的，
+	 * 更新 flags 并转给该 master 的连接池（熔断器）
+	 */
+	public void reportStatus(String masterName, HostAndPort address, String event, String source) {
+		MasterState state = masters.get(masterName);
+		if (state != null) {
+			state.status(address, event, source);
+		}
+	}
+
+	/**
+	 * 监听器与 sentinel 的订阅建立或断开
+	 */
+	void subscribed(String sentinel, boolean subscribed) {
+		SentinelState state = sentinels.get(sentinel);
+		if (state != null) {
+			state.subscribed = subscribed;
+		}
+	}
+
+	public TopologySnapshot snapshot() {
+		List<TopologySnapshot.Master> ms = new ArrayList<>(masters.size());
+		for (MasterState state : masters.values()) {
+			ms.add(state.snapshot());
+		}
+		List<TopologySnapshot.Sentinel> ss = new ArrayList<>(sentinels.size());
+		for (SentinelState state : sentinels.values()) {
+			ss.add(state.snapshot());
+		}
+		return new TopologySnapshot(System.currentTimeMillis(), refreshedMillis, ms, ss);
+	}
+
+	/**
+	 * 同时向所有 sentinel 查询 SENTINEL MASTERS，并在同一条连接上用管道发出各 master 的 SENTINEL SLAVES，
+	 * 记录每个 sentinel 的耗时或错误。每个 master 采用 epoch 最大的报告（相同时取先配置的 sentinel），
+	 * 地址变化时与 +switch-master 一样切换连接池。等所有 sentinel 应答或超时后返回新的快照。
+	 */
+	public synchronized TopologySnapshot refresh() {
+		Map<SentinelState, CompletableFuture<Map<String, Report>>> pending = new LinkedHashMap<>();
+		try {
+			for (SentinelState sentinel : sentinels.values()) {
+				pending.put(sentinel, CompletableFuture.supplyAsync(() -> query(sentinel), executor));
+			}
+		} catch (RejectedExecutionException e) {
+			// 已关闭
+			return snapshot();
+		}
+		Map<String, Report> best = new HashMap<>();
+		pending.forEach((sentinel, future) -> {
+			Map<String, Report> reports = future.join();
+			if (reports == null) {
+				return;
+			}
+			reports.forEach((name, report) -> {
+				Report current = best.get(name);
+				if (current == null || report.epoch > current.epoch) {
+					best.put(name, report);
+				}
+			});
+		});
+		best.forEach((name, report) -> {
+			update(name, report.address, report.epoch, report.source);
+			masters.get(name).details(report);
+		});
+		refreshedMillis = System.currentTimeMillis();
+		return snapshot();
+	}
+
+	/**
+	 * @return 该 sentinel 报告的、本客户端使用的 master；查询失败时为 null
+	 */
+	private Map<String, Report> query(SentinelState sentinel) {
+		long start = System.nanoTime();
+		try (Jedis jedis = sentinel.pool.getResource()) {
+			Map<String, Report> reports = new HashMap<>();
+			List<Map<String, String>> reported;
+			try {
+				reported = jedis.sentinelMasters();
+			} catch (JedisDataException e) {
+				// 没有 SENTINEL MASTERS 的权限时只能拿到地址
+				for (String name : masters.keySet()) {
+					List<String> addr = jedis.sentinelGetMasterAddrByName(name);
+					if (addr != null && addr.size() == 2) {
+						reports.put(name, new Report(sentinel.address,
+								new HostAndPort(addr.get(0), Integer.parseInt(addr.get(1))), UNKNOWN_EPOCH, null));
+					}
+				}
+				sentinel.succeeded(System.nanoTime() - start, -1);
+				return reports;
+			}
+			Pipeline pipeline = jedis.pipelined();
+			Map<String, Response<Object>> replicas = new LinkedHashMap<>();
+			for (Map<String, String> master : reported) {
+				String name = master.get("name");
+				if (masters.containsKey(name) && master.get("ip") != null && master.get("port") != null) {
+					Report report = new Report(sentinel.address,
+							new HostAndPort(master.get("ip"), Integer.parseInt(master.get("port"))),
+							parseLong(master.get("config-epoch"), UNKNOWN_EPOCH), master.get("flags"));
+					reports.put(name, report);
+					replicas.put(name, pipeline.sendCommand(Protocol.Command.SENTINEL, "slaves", name));
+				}
+			}
+			pipeline.sync();
+			replicas.forEach((name, response) -> {
+				try {
+					reports.get(name).replicas = replicas(response.get());
+				} catch (JedisDataException e) {
+					debug("SENTINEL SLAVES {} failed on {}: {}", name, sentinel.address, e.getMessage());
+				}
+			});
+			sentinel.succeeded(System.nanoTime() - start, reported.size());
+			return reports;
+		} catch (JedisException | NumberFormatException e) {
+			warn("Can not query sentinel {}: {}", sentinel.address, e.getMessage());
+			sentinel.failed(e);
+			return null;
+		}
+	}
+
+	private static List<TopologySnapshot.Replica> replicas(Object reply) {
+		List<TopologySnapshot.Replica> list = new ArrayList<>();
+		for (Object item : (List<?>) reply) {
+			Map<String, String> replica = BuilderFactory.STRING_MAP.build(item);
+			if (replica.get("ip") == null || replica.get("port") == null) {
+				continue;
+			}
+			list.add(new TopologySnapshot.Replica(
+					new HostAndPort(replica.get("ip"), Integer.parseInt(replica.get("port"))),
+					replica.getOrDefault("flags", ""),
+					parseLong(replica.get("slave-repl-offset"), -1L),
+					Math.max(0, parseLong(replica.get("master-link-down-time"), 0L))));
+		}
+		return Collections.unmodifiableList(list);
+	}
+
+	private static long parseLong(String value, long defVal) {
+		if (value == null) {
+			return defVal;
+		}
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			return defVal;
+		}
+	}
+
+	/**
+	 * 每隔 refreshMillis 调用一次 {@link #refresh()}，第一次立即执行；&lt;= 0 表示停止定期刷新
+	 */
+	synchronized void scheduleRefresh(long refreshMillis) {
+		if (refreshTask != null) {
+			refreshTask.cancel(false);
+			refreshTask = null;
+		}
+		if (refreshMillis > 0 && !refresher.isShutdown()) {
+			refreshTask = refresher.scheduleWithFixedDelay(this::refreshQuietly, 0, refreshMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private void refreshQuietly() {
+		try {
+			refresh();
+		} catch (RuntimeException e) {
+			error("Can not refresh sentinel topology", e);
+		}
+	}
+
+	@Override
+	public void close() {
+		refresher.shutdownNow();
+	}
+
+	private static final class Report {
+
+		private final String source;
+		private final HostAndPort address;
+		private final long epoch;
+		private final String flags;
+		private List<TopologySnapshot.Replica> replicas;
+
+		Report(String source, HostAndPort address, long epoch, String flags) {
+			this.source = source;
+			this.address = address;
+			this.epoch = epoch;
+			this.flags = flags;
+		}
+	}
+
+	private final class MasterState {
+
+		private final String name;
+		private final List<SentinelMasterPool> pools;
+		private HostAndPort master;
+		private long epoch = UNKNOWN_EPOCH;
+		private String flags;
+		private List<TopologySnapshot.Replica> replicas;
+		private String source;
+		private long updatedMillis;
+
+		MasterState(String name, List<SentinelMasterPool> pools) {
+			this.name = name;
+			this.pools = pools;
+			this.master = pools.isEmpty() ? null : pools.get(0).getCurrentHostMaster();
+		}
+
+		synchronized HostAndPort master() {
+			return master;
+		}
+
+		synchronized long epoch() {
+			return epoch;
+		}
+
+		synchronized List<TopologySnapshot.Replica> replicas() {
+			return replicas;
+		}
+
+		synchronized TopologySnapshot.Master snapshot() {
+			return new TopologySnapshot.Master(name, master, epoch, flags, replicas, source, updatedMillis);
+		}
+
+		/**
+		 * 记录全量查询得到的 flags 和副本，地址已由 {@link #update} 处理
+		 */
+		synchronized void details(Report report) {
+			if (report.epoch != UNKNOWN_EPOCH && report.epoch < epoch) {
+				return;
+			}
+			flags = report.flags;
+			if (report.replicas != null) {
+				replicas = report.replicas;
+			}
+			source = report.source;
+			updatedMillis = System.currentTimeMillis();
+		}
+
+		void status(HostAndPort address, String event, String source) {
+			synchronized (this) {
+				if (!address.equals(master)) {
+					debug("Ignoring {} of {} {} from {}, current master is {}.", event, name, address, source, master);
+					return;
+				}
+				String flag = event.substring(1, 2) + "_" + event.substring(2);
+				Set<String> set = new LinkedHashSet<>();
+				if (flags != null) {
+					set.addAll(Arrays.asList(flags.split(",")));
+				}
+				if (event.startsWith("+")) {
+					set.add(flag);
+				} else {
+					set.remove(flag);
+				}
+				set.remove("");
+				flags = String.join(",", set);
+			}
+			info("Sentinel {} reported {} of {} {}.", source, event, name, address);
+			for (SentinelMasterPool pool : pools) {
+				pool.onSentinelEvent(event, source);
+			}
+		}
+
+		synchronized boolean update(HostAndPort reported, long reportedEpoch, String source) {
+			if (reportedEpoch == UNKNOWN_EPOCH && epoch != UNKNOWN_EPOCH) {
+				// 落后的 sentinel 可能还报告旧 master，没有 epoch 无从比较
+				if (!reported.equals(master)) {
+					debug("Ignoring master {} {} without epoch from {}, current {} (epoch {}).",
+							name, reported, source, master, epoch);
+				}
+				return false;
+			}
+			if (reportedEpoch != UNKNOWN_EPOCH && epoch != UNKNOWN_EPOCH) {
+				if (reportedEpoch < epoch || (reportedEpoch == epoch && !reported.equals(master))) {
+					debug("Ignoring stale master {} {} (epoch {}) from {}, current {} (epoch {}).",
+							name, reported, reportedEpoch, source, master, epoch);
+					return false;
+				}
+			}
+			if (reportedEpoch > epoch) {
+				epoch = reportedEpoch;
+			}
+			if (reported.equals(master)) {
+				return false;
+			}
+			info("Switching master {} from {} to {} (epoch {}), reported by {}.", name, master, reported, epoch, source);
+			master = reported;
+			// flags 和副本列表属于旧 master，等下一次全量查询
+			flags = null;
+			replicas = null;
+			this.source = source;
+			updatedMillis = System.currentTimeMillis();
+			return true;
+		}
+	}
+
+	private static final class SentinelState {
+
+		private final String address;
+		private final JedisPool pool;
+		private volatile boolean reachable;
+		private volatile boolean subscribed;
+		private volatile long latencyMicros = -1L;
+		private volatile long lastOkMillis;
+		private volatile int masters;
+		private volatile String lastError;
+
+		SentinelState(String address, JedisPool pool) {
+			this.address = address;
+			this.pool = pool;
+		}
+
+		void succeeded(long elapsedNanos, int masters) {
+			this.latencyMicros = TimeUnit.NANOSECONDS.toMicros(elapsedNanos);
+			this.lastOkMillis = System.currentTimeMillis();
+			this.masters = masters;
+			this.lastError = null;
+			this.reachable = true;
+		}
+
+		void failed(Exception e) {
+			// 连接池包装过的异常只说借不到连接，记录根因
+			Throwable cause = e;
+			while (cause.getCause() != null) {
+				cause = cause.getCause();
+			}
+			this.lastError = cause.getMessage() != null ? cause.getMessage() : cause.toString();
+			this.reachable = false;
+		}
+
+		TopologySnapshot.Sentinel snapshot() {
+			return new TopologySnapshot.Sentinel(address, reachable, subscribed, latencyMicros, lastOkMillis, masters,
+					lastError);
+		}
+	}
+}
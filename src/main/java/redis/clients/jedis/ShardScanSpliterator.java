@@ -0,0 +1,214 @@
+package redis.clients.jedis;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.util.SafeEncoder;
+
+/**
+ * 逐个 master 推进 SCAN 游标的 {@link Spliterator}，见 {@link JedisSentinelPools#scan(ScanOptions)}。
+ * <p>
+ * 最多 maxCursors 个游标同时推进，每个游标只比消费者多取一页：取走一页时才发出该 master 的下一次 SCAN，
+ * 因此内存中最多有 maxCursors 页 key，与 key 总数无关。每次 SCAN 单独借还连接，不长期占用连接。
+ * 拆分时把还没开始的 master 分出一半，游标数上限也随之分开（每份至少 1 个）。
+ */
+final class ShardScanSpliterator<T> implements Spliterator<T>, Closeable {
+
+	private static final byte[] MATCH = SafeEncoder.encode("MATCH");
+	private static final byte[] COUNT = SafeEncoder.encode("COUNT");
+	private static final byte[] TYPE = SafeEncoder.encode("TYPE");
+	private static final byte[] DONE = ScanParams.SCAN_POINTER_START_BINARY;
+
+	private final JedisSentinelPools pools;
+	private final byte[][] options;
+	private final Function<byte[], T> decoder;
+	private final Deque<Integer> pending;
+	private final BlockingQueue<Page> ready = new LinkedBlockingQueue<>();
+	private int maxCursors;
+	private int active;
+	private Iterator<byte[]> current;
+	/**
+	 * 拆分出来的实例共用，关闭流时一起停止
+	 */
+	private final AtomicBoolean closed;
+
+	ShardScanSpliterator(JedisSentinelPools pools, ScanOptions scanOptions, Function<byte[], T> decoder) {
+		this(pools, encode(scanOptions), decoder, shards(pools.getMasterPools().size()), scanOptions.getMaxCursors(),
+				new AtomicBoolean());
+	}
+
+	private ShardScanSpliterator(
+			JedisSentinelPools pools,
+			byte[][] options,
+			Function<byte[], T> decoder,
+			Deque<Integer> pending,
+			int maxCursors,
+			AtomicBoolean closed) {
+		this.pools = pools;
+		this.options = options;
+		this.decoder = decoder;
+		this.pending = pending;
+		this.maxCursors = maxCursors;
+		this.closed = closed;
+	}
+
+	private static Deque<Integer> shards(int count) {
+		Deque<Integer> shards = new ArrayDeque<>(count);
+		for (int i = 0; i < count; i++) {
+			shards.add(i);
+		}
+		return shards;
+	}
+
+	/**
+	 * 游标之后的参数，第 0 个位置留给游标
+	 */
+	private static byte[][] encode(ScanOptions scanOptions) {
+		List<byte[]> args = new ArrayList<>();
+		args.add(DONE);
+		if (scanOptions.getMatch() != null) {
+			args.add(MATCH);
+			args.add(SafeEncoder.encode(scanOptions.getMatch()));
+		}
+		args.add(COUNT);
+		args.add(Protocol.toByteArray(scanOptions.getCount()));
+		if (scanOptions.getType() != null) {
+			args.add(TYPE);
+			args.add(SafeEncoder.encode(scanOptions.getType()));
+		}
+		return args.toArray(new byte[0][]);
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super T> action) {
+		while (true) {
+			if (current != null && current.hasNext()) {
+				action.accept(decoder.apply(current.next()));
+				return true;
+			}
+			current = null;
+			Page page = nextPage();
+			if (page == null) {
+				return false;
+			}
+			current = page.keys.iterator();
+		}
+	}
+
+	@Override
+	public void forEachRemaining(Consumer<? super T> action) {
+		while (tryAdvance(action)) {
+			// 逐个消费，保持每个游标只预取一页
+		}
+	}
+
+	private Page nextPage() {
+		if (closed.get()) {
+			throw new IllegalStateException("Scan is closed");
+		}
+		while (active < maxCursors && !pending.isEmpty()) {
+			active++;
+			fetch(pending.poll(), DONE);
+		}
+		if (active == 0) {
+			return null;
+		}
+		Page page;
+		try {
+			page = ready.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			close();
+			throw new JedisException("Interrupted while scanning", e);
+		}
+		if (page.error != null) {
+			close();
+			throw new JedisException("Can not scan " + pools.getMasterPools().get(page.shard).getMasterName(), page.error);
+		}
+		if (Arrays.equals(page.cursor, DONE)) {
+			active--;
+		} else {
+			fetch(page.shard, page.cursor);
+		}
+		return page;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void fetch(int shard, byte[] cursor) {
+		byte[][] args = options.clone();
+		args[0] = cursor;
+		pools.getExecutor().execute(() -> {
+			if (closed.get()) {
+				return;
+			}
+			try (Jedis jedis = pools.getMasterPools().get(shard).getResource()) {
+				List<Object> reply = (List<Object>) jedis.sendCommand(Protocol.Command.SCAN, args);
+				ready.add(new Page(shard, (byte[]) reply.get(0), (List<byte[]>) reply.get(1), null));
+			} catch (RuntimeException e) {
+				ready.add(new Page(shard, DONE, null, e));
+			}
+		});
+	}
+
+	@Override
+	public Spliterator<T> trySplit() {
+		int size = pending.size();
+		// 已有游标在推进时，剩下的 master 可以全部分出去
+		if (closed.get() || size == 0 || size == 1 && active == 0) {
+			return null;
+		}
+		Deque<Integer> split = new ArrayDeque<>();
+		for (int i = 0, n = active == 0 ? size / 2 : (size + 1) / 2; i < n; i++) {
+			split.add(pending.pollLast());
+		}
+		int splitCursors = Math.max(1, maxCursors / 2);
+		maxCursors = Math.max(1, maxCursors - splitCursors);
+		return new ShardScanSpliterator<>(pools, options, decoder, split, splitCursors, closed);
+	}
+
+	@Override
+	public long estimateSize() {
+		return Long.MAX_VALUE;
+	}
+
+	@Override
+	public int characteristics() {
+		return NONNULL;
+	}
+
+	/**
+	 * 停止推进；正在执行的 SCAN 完成后丢弃结果
+	 */
+	@Override
+	public void close() {
+		closed.set(true);
+		ready.clear();
+	}
+
+	private static final class Page {
+
+		final int shard;
+		final byte[] cursor;
+		final List<byte[]> keys;
+		final RuntimeException error;
+
+		Page(int shard, byte[] cursor, List<byte[]> keys, RuntimeException error) {
+			this.shard = shard;
+			this.cursor = cursor;
+			this.keys = keys;
+			this.error = error;
+		}
+	}
+}
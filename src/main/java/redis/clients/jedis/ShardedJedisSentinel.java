@@ -1,9 +1,27 @@
 package redis.clients.jedis;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.params.GeoRadiusParam;
+import redis.clients.jedis.params.LPosParams;
 import redis.clients.jedis.util.Log;
+import redis.clients.jedis.util.Sharding;
+import redis.clients.jedis.util.ShardingStrategy;
 
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisShardInfo;
@@ -11,13 +29,1231 @@ import redis.clients.jedis.ShardedJedis;
 
 public class ShardedJedisSentinel extends ShardedJedis implements Serializable, Log {
 
+	private final transient JedisSentinelPools pools;
+	private final transient Sharding sharding;
+	private final transient Jedis[] borrowed;
+	private final transient ShardedNearCache nearCache;
+	private final transient ReplicaReads replicaReads;
+	private final transient Resharding resharding;
+	private final transient HotKeys hotKeys;
+	/** 从副本借出的连接，与 borrowed 下标对应 */
+	private final transient Jedis[] borrowedReplicas;
+	/** 本实例写过的分片，之后的读也走 master */
+	private final transient boolean[] pinned;
+	/** 正在为本地缓存回源，此时 getShard 不做失效 */
+	private transient boolean loading;
+
 	public ShardedJedisSentinel(List<JedisShardInfo> shards) {
 		super(shards);
-		info("ShardedJedisSentinel Connection ... ");
+		this.pools = null;
+		this.sharding = null;
+		this.borrowed = null;
+		this.nearCache = null;
+		this.replicaReads = null;
+		this.resharding = null;
+		this.hotKeys = null;
+		this.borrowedReplicas = null;
+		this.pinned = null;
+	}
+
+	/**
+	 * 先按 key 定位所属的 master，再从该 master 的连接池借连接；
+	 * 没有用到的分片不会占用连接。路由使用 {@link JedisSentinelPools#getSharding()} 共享的分片表，
+	 * 构造时不再重建；默认的 {@link ShardingStrategy#KETAMA} 下 key 的分布与 {@link #ShardedJedisSentinel(List)} 一致。
+	 * <p>
+	 * 若已调用 {@link JedisSentinelPools#enableNearCache(int, long, boolean)}，get/hget/hgetAll 先查本地缓存；
+	 * 经由本实例发往某个 key 的其它命令会先让该 key 的本地缓存失效。
+	 * <p>
+	 * 若已调用 {@link JedisSentinelPools#enableReplicaReads(ReplicaReadPolicy)}，本类覆盖的只读命令
+	 * （有本地缓存时的 get/hget/hgetAll 除外，touch 会更新访问时间，不算只读）发往副本，其它命令发往 master；
+	 * 本实例写过的分片之后也从 master 读，见 {@link #pinToMaster()}。
+	 * <p>
+	 * 若已调用 {@link JedisSentinelPools#startResharding(List, ReshardPolicy)}，迁移期间访问换了 master 的 key
+	 * 之前先把它从旧 master 搬过来，见 {@link Resharding}。
+	 * <p>
+	 * 若已调用 {@link JedisSentinelPools#enableHotKeys(HotKeyPolicy)}，发出的每条命令按 key 计入 {@link HotKeys}。
+	 */
+	public ShardedJedisSentinel(JedisSentinelPools pools) {
+		super(Collections.emptyList());
+		this.pools = pools;
+		this.sharding = pools.getSharding();
+		this.borrowed = new Jedis[sharding.shards()];
+		this.nearCache = pools.getNearCache();
+		this.replicaReads = pools.getReplicaReads();
+		this.resharding = pools.getResharding();
+		this.hotKeys = pools.getHotKeys();
+		this.borrowedReplicas = replicaReads == null ? null : new Jedis[sharding.shards()];
+		this.pinned = replicaReads == null ? null : new boolean[sharding.shards()];
+	}
+
+	/**
+	 * 本实例之后的读全部发往 master
+	 */
+	public void pinToMaster() {
+		if (pinned != null) {
+			Arrays.fill(pinned, true);
+		}
+	}
+
+	@Override
+	public Jedis getShard(byte[] key) {
+		if (pools == null) {
+			return super.getShard(key);
+		}
+		int shard = sharding.shardIndex(key);
+		if (hotKeys != null) {
+			hotKeys.record(shard, key);
+		}
+		if (resharding != null) {
+			resharding.pull(key);
+		}
+		if (nearCache != null && !loading) {
+			nearCache.invalidate(shard, key);
+		}
+		return write(shard);
+	}
+
+	@Override
+	public Jedis getShard(String key) {
+		if (pools == null) {
+			return super.getShard(key);
+		}
+		int shard = sharding.shardIndex(key);
+		if (hotKeys != null) {
+			hotKeys.record(shard, key);
+		}
+		if (resharding != null) {
+			resharding.pull(key);
+		}
+		if (nearCache != null && !loading) {
+			nearCache.invalidate(shard, key);
+		}
+		return write(shard);
+	}
+
+	/**
+	 * 除了本地缓存回源，经由 getShard 的命令（本类没有覆盖的命令）都视为写
+	 */
+	private Jedis write(int shard) {
+		if (pinned != null && !loading) {
+			pinned[shard] = true;
+		}
+		return borrow(shard);
+	}
+
+	/**
+	 * 只读命令使用的连接：开启副本读且本实例没写过该分片时取副本，否则取 master
+	 */
+	private Jedis read(byte[] key) {
+		if (pools == null) {
+			return super.getShard(key);
+		}
+		int shard = sharding.shardIndex(key);
+		if (hotKeys != null) {
+			hotKeys.record(shard, key);
+		}
+		return read(shard, resharding != null && resharding.pull(key));
+	}
+
+	private Jedis read(String key) {
+		if (pools == null) {
+			return super.getShard(key);
+		}
+		int shard = sharding.shardIndex(key);
+		if (hotKeys != null) {
+			hotKeys.record(shard, key);
+		}
+		return read(shard, resharding != null && resharding.pull(key));
+	}
+
+	/**
+	 * @param pulled key 是否刚从旧 master 搬过来
+	 */
+	private Jedis read(int shard, boolean pulled) {
+		if (pulled && pinned != null) {
+			// 刚搬到新 master 的 key 副本上可能还没有
+			pinned[shard] = true;
+		}
+		if (replicaReads == null || pinned[shard]) {
+			return borrow(shard);
+		}
+		Jedis jedis = borrowedReplicas[shard];
+		if (jedis == null) {
+			jedis = replicaReads.borrow(shard);
+			if (jedis == null) {
+				return borrow(shard);
+			}
+			borrowedReplicas[shard] = jedis;
+		}
+		return jedis;
+	}
+
+	@Override
+	public String get(String key) {
+		if (nearCache == null) {
+			return read(key).get(key);
+		}
+		return nearCache.get(sharding.shardIndex(key), key, () -> load(() -> super.get(key)));
+	}
+
+	@Override
+	public String hget(String key, String field) {
+		if (nearCache == null) {
+			return read(key).hget(key, field);
+		}
+		return nearCache.hget(sharding.shardIndex(key), key, field, () -> load(() -> super.hget(key, field)));
+	}
+
+	@Override
+	public Map<String, String> hgetAll(String key) {
+		if (nearCache == null) {
+			return read(key).hgetAll(key);
+		}
+		return nearCache.hgetAll(sharding.shardIndex(key), key, () -> load(() -> super.hgetAll(key)));
+	}
+
+	@Override
+	public Boolean exists(String key) {
+		return read(key).exists(key);
+	}
+
+	@Override
+	public String type(String key) {
+		return read(key).type(key);
+	}
+
+	@Override
+	public Long ttl(String key) {
+		return read(key).ttl(key);
+	}
+
+	@Override
+	public Long pttl(String key) {
+		return read(key).pttl(key);
+	}
+
+	@Override
+	public Long strlen(String key) {
+		return read(key).strlen(key);
+	}
+
+	@Override
+	public List<String> hmget(String key, String... fields) {
+		return read(key).hmget(key, fields);
+	}
+
+	@Override
+	public Boolean hexists(String key, String field) {
+		return read(key).hexists(key, field);
+	}
+
+	@Override
+	public Long hlen(String key) {
+		return read(key).hlen(key);
+	}
+
+	@Override
+	public Set<String> hkeys(String key) {
+		return read(key).hkeys(key);
+	}
+
+	@Override
+	public List<String> hvals(String key) {
+		return read(key).hvals(key);
+	}
+
+	@Override
+	public Long llen(String key) {
+		return read(key).llen(key);
+	}
+
+	@Override
+	public List<String> lrange(String key, long start, long stop) {
+		return read(key).lrange(key, start, stop);
+	}
+
+	@Override
+	public String lindex(String key, long index) {
+		return read(key).lindex(key, index);
+	}
+
+	@Override
+	public Set<String> smembers(String key) {
+		return read(key).smembers(key);
+	}
+
+	@Override
+	public Long scard(String key) {
+		return read(key).scard(key);
+	}
+
+	@Override
+	public Boolean sismember(String key, String member) {
+		return read(key).sismember(key, member);
+	}
+
+	@Override
+	public String srandmember(String key) {
+		return read(key).srandmember(key);
+	}
+
+	@Override
+	public Set<String> zrange(String key, long start, long stop) {
+		return read(key).zrange(key, start, stop);
+	}
+
+	@Override
+	public Set<String> zrevrange(String key, long start, long stop) {
+		return read(key).zrevrange(key, start, stop);
+	}
+
+	@Override
+	public Long zcard(String key) {
+		return read(key).zcard(key);
+	}
+
+	@Override
+	public Double zscore(String key, String member) {
+		return read(key).zscore(key, member);
+	}
+
+	@Override
+	public Long zrank(String key, String member) {
+		return read(key).zrank(key, member);
+	}
+
+	@Override
+	public Long zcount(String key, double min, double max) {
+		return read(key).zcount(key, min, max);
+	}
+
+	@Override
+	public Set<String> zrangeByScore(String key, double min, double max) {
+		return read(key).zrangeByScore(key, min, max);
+	}
+
+	@Override
+	public Boolean getbit(String key, long offset) {
+		return read(key).getbit(key, offset);
+	}
+
+	@Override
+	public String getrange(String key, long startOffset, long endOffset) {
+		return read(key).getrange(key, startOffset, endOffset);
+	}
+
+	@Override
+	public String substr(String key, int start, int end) {
+		return read(key).substr(key, start, end);
+	}
+
+	@Override
+	public Long bitcount(String key) {
+		return read(key).bitcount(key);
+	}
+
+	@Override
+	public Long bitcount(String key, long start, long end) {
+		return read(key).bitcount(key, start, end);
+	}
+
+	@Override
+	public Long bitpos(String key, boolean value) {
+		return read(key).bitpos(key, value);
+	}
+
+	@Override
+	public Long bitpos(String key, boolean value, BitPosParams params) {
+		return read(key).bitpos(key, value, params);
+	}
+
+	@Override
+	public List<Long> bitfieldReadonly(String key, String... arguments) {
+		return read(key).bitfieldReadonly(key, arguments);
+	}
+
+	@Override
+	public byte[] dump(String key) {
+		return read(key).dump(key);
+	}
+
+	@Override
+	public Long hstrlen(String key, String field) {
+		return read(key).hstrlen(key, field);
+	}
+
+	@Override
+	public ScanResult<Map.Entry<String, String>> hscan(String key, String cursor) {
+		return read(key).hscan(key, cursor);
+	}
+
+	@Override
+	public ScanResult<Map.Entry<String, String>> hscan(String key, String cursor, ScanParams params) {
+		return read(key).hscan(key, cursor, params);
+	}
+
+	@Override
+	public Long lpos(String key, String element) {
+		return read(key).lpos(key, element);
+	}
+
+	@Override
+	public Long lpos(String key, String element, LPosParams params) {
+		return read(key).lpos(key, element, params);
+	}
+
+	@Override
+	public List<Long> lpos(String key, String element, LPosParams params, long count) {
+		return read(key).lpos(key, element, params, count);
+	}
+
+	@Override
+	public List<Boolean> smismember(String key, String... members) {
+		return read(key).smismember(key, members);
+	}
+
+	@Override
+	public List<String> srandmember(String key, int count) {
+		return read(key).srandmember(key, count);
+	}
+
+	@Override
+	public ScanResult<String> sscan(String key, String cursor) {
+		return read(key).sscan(key, cursor);
+	}
+
+	@Override
+	public ScanResult<String> sscan(String key, String cursor, ScanParams params) {
+		return read(key).sscan(key, cursor, params);
+	}
+
+	@Override
+	public Set<Tuple> zrangeWithScores(String key, long start, long stop) {
+		return read(key).zrangeWithScores(key, start, stop);
+	}
+
+	@Override
+	public Set<Tuple> zrevrangeWithScores(String key, long start, long stop) {
+		return read(key).zrevrangeWithScores(key, start, stop);
+	}
+
+	@Override
+	public List<Double> zmscore(String key, String... members) {
+		return read(key).zmscore(key, members);
+	}
+
+	@Override
+	public Long zrevrank(String key, String member) {
+		return read(key).zrevrank(key, member);
+	}
+
+	@Override
+	public Long zcount(String key, String min, String max) {
+		return read(key).zcount(key, min, max);
+	}
+
+	@Override
+	public Long zlexcount(String key, String min, String max) {
+		return read(key).zlexcount(key, min, max);
+	}
+
+	@Override
+	public Set<String> zrangeByLex(String key, String min, String max) {
+		return read(key).zrangeByLex(key, min, max);
+	}
+
+	@Override
+	public Set<String> zrangeByLex(String key, String min, String max, int offset, int count) {
+		return read(key).zrangeByLex(key, min, max, offset, count);
+	}
+
+	@Override
+	public Set<String> zrevrangeByLex(String key, String max, String min) {
+		return read(key).zrevrangeByLex(key, max, min);
+	}
+
+	@Override
+	public Set<String> zrevrangeByLex(String key, String max, String min, int offset, int count) {
+		return read(key).zrevrangeByLex(key, max, min, offset, count);
+	}
+
+	@Override
+	public Set<String> zrangeByScore(String key, String min, String max) {
+		return read(key).zrangeByScore(key, min, max);
+	}
+
+	@Override
+	public Set<String> zrangeByScore(String key, String min, String max, int offset, int count) {
+		return read(key).zrangeByScore(key, min, max, offset, count);
+	}
+
+	@Override
+	public Set<String> zrangeByScore(String key, double min, double max, int offset, int count) {
+		return read(key).zrangeByScore(key, min, max, offset, count);
+	}
+
+	@Override
+	public Set<Tuple> zrangeByScoreWithScores(String key, String min, String max) {
+		return read(key).zrangeByScoreWithScores(key, min, max);
+	}
+
+	@Override
+	public Set<Tuple> zrangeByScoreWithScores(String key, double min, double max) {
+		return read(key).zrangeByScoreWithScores(key, min, max);
+	}
+
+	@Override
+	public Set<Tuple> zrangeByScoreWithScores(String key, String min, String max, int offset, int count) {
+		return read(key).zrangeByScoreWithScores(key, min, max, offset, count);
+	}
+
+	@Override
+	public Set<Tuple> zrangeByScoreWithScores(String key, double min, double max, int offset, int count) {
+		return read(key).zrangeByScoreWithScores(key, min, max, offset, count);
+	}
+
+	@Override
+	public Set<String> zrevrangeByScore(String key, String max, String min) {
+		return read(key).zrevrangeByScore(key, max, min);
+	}
+
+	@Override
+	public Set<String> zrevrangeByScore(String key, double max, double min) {
+		return read(key).zrevrangeByScore(key, max, min);
+	}
+
+	@Override
+	public Set<String> zrevrangeByScore(String key, String max, String min, int offset, int count) {
+		return read(key).zrevrangeByScore(key, max, min, offset, count);
+	}
+
+	@Override
+	public Set<String> zrevrangeByScore(String key, double max, double min, int offset, int count) {
+		return read(key).zrevrangeByScore(key, max, min, offset, count);
+	}
+
+	@Override
+	public Set<Tuple> zrevrangeByScoreWithScores(String key, String max, String min) {
+		return read(key).zrevrangeByScoreWithScores(key, max, min);
+	}
+
+	@Override
+	public Set<Tuple> zrevrangeByScoreWithScores(String key, double max, double min) {
+		return read(key).zrevrangeByScoreWithScores(key, max, min);
+	}
+
+	@Override
+	public Set<Tuple> zrevrangeByScoreWithScores(String key, String max, String min, int offset, int count) {
+		return read(key).zrevrangeByScoreWithScores(key, max, min, offset, count);
+	}
+
+	@Override
+	public Set<Tuple> zrevrangeByScoreWithScores(String key, double max, double min, int offset, int count) {
+		return read(key).zrevrangeByScoreWithScores(key, max, min, offset, count);
+	}
+
+	@Override
+	public ScanResult<Tuple> zscan(String key, String cursor) {
+		return read(key).zscan(key, cursor);
+	}
+
+	@Override
+	public ScanResult<Tuple> zscan(String key, String cursor, ScanParams params) {
+		return read(key).zscan(key, cursor, params);
+	}
+
+	@Override
+	public Double geodist(String key, String member1, String member2) {
+		return read(key).geodist(key, member1, member2);
+	}
+
+	@Override
+	public Double geodist(String key, String member1, String member2, GeoUnit unit) {
+		return read(key).geodist(key, member1, member2, unit);
+	}
+
+	@Override
+	public List<String> geohash(String key, String... members) {
+		return read(key).geohash(key, members);
+	}
+
+	@Override
+	public List<GeoCoordinate> geopos(String key, String... members) {
+		return read(key).geopos(key, members);
+	}
+
+	@Override
+	public List<GeoRadiusResponse> georadiusReadonly(String key, double longitude, double latitude, double radius, GeoUnit unit) {
+		return read(key).georadiusReadonly(key, longitude, latitude, radius, unit);
+	}
+
+	@Override
+	public List<GeoRadiusResponse> georadiusReadonly(String key, double longitude, double latitude, double radius, GeoUnit unit, GeoRadiusParam param) {
+		return read(key).georadiusReadonly(key, longitude, latitude, radius, unit, param);
+	}
+
+	@Override
+	public List<GeoRadiusResponse> georadiusByMemberReadonly(String key, String member, double radius, GeoUnit unit) {
+		return read(key).georadiusByMemberReadonly(key, member, radius, unit);
+	}
+
+	@Override
+	public List<GeoRadiusResponse> georadiusByMemberReadonly(String key, String member, double radius, GeoUnit unit, GeoRadiusParam param) {
+		return read(key).georadiusByMemberReadonly(key, member, radius, unit, param);
+	}
+
+	@Override
+	public long pfcount(String key) {
+		return read(key).pfcount(key);
+	}
+
+	@Override
+	public Long xlen(String key) {
+		return read(key).xlen(key);
+	}
+
+	@Override
+	public List<StreamEntry> xrange(String key, StreamEntryID start, StreamEntryID end, int count) {
+		return read(key).xrange(key, start, end, count);
+	}
+
+	@Override
+	public List<StreamEntry> xrevrange(String key, StreamEntryID end, StreamEntryID start, int count) {
+		return read(key).xrevrange(key, end, start, count);
+	}
+
+	@Override
+	public List<StreamPendingEntry> xpending(String key, String groupname, StreamEntryID start, StreamEntryID end, int count, String consumername) {
+		return read(key).xpending(key, groupname, start, end, count, consumername);
+	}
+
+	@Override
+	public StreamInfo xinfoStream(String key) {
+		return read(key).xinfoStream(key);
+	}
+
+	@Override
+	public List<StreamGroupInfo> xinfoGroup(String key) {
+		return read(key).xinfoGroup(key);
+	}
+
+	@Override
+	public List<StreamConsumersInfo> xinfoConsumers(String key, String group) {
+		return read(key).xinfoConsumers(key, group);
+	}
+
+	@Override
+	public byte[] get(byte[] key) {
+		return read(key).get(key);
+	}
+
+	@Override
+	public Boolean exists(byte[] key) {
+		return read(key).exists(key);
+	}
+
+	@Override
+	public String type(byte[] key) {
+		return read(key).type(key);
+	}
+
+	@Override
+	public Long ttl(byte[] key) {
+		return read(key).ttl(key);
+	}
+
+	@Override
+	public Long pttl(byte[] key) {
+		return read(key).pttl(key);
+	}
+
+	@Override
+	public Long strlen(byte[] key) {
+		return read(key).strlen(key);
+	}
+
+	@Override
+	public Boolean getbit(byte[] key, long offset) {
+		return read(key).getbit(key, offset);
+	}
+
+	@Override
+	public byte[] getrange(byte[] key, long startOffset, long endOffset) {
+		return read(key).getrange(key, startOffset, endOffset);
+	}
+
+	@Override
+	public byte[] substr(byte[] key, int start, int end) {
+		return read(key).substr(key, start, end);
+	}
+
+	@Override
+	public Long bitcount(byte[] key) {
+		return read(key).bitcount(key);
+	}
+
+	@Override
+	public Long bitcount(byte[] key, long start, long end) {
+		return read(key).bitcount(key, start, end);
+	}
+
+	@Override
+	public List<Long> bitfieldReadonly(byte[] key, byte[]... arguments) {
+		return read(key).bitfieldReadonly(key, arguments);
+	}
+
+	@Override
+	public byte[] dump(byte[] key) {
+		return read(key).dump(key);
+	}
+
+	@Override
+	public byte[] hget(byte[] key, byte[] field) {
+		return read(key).hget(key, field);
+	}
+
+	@Override
+	public List<byte[]> hmget(byte[] key, byte[]... fields) {
+		return read(key).hmget(key, fields);
+	}
+
+	@Override
+	public Boolean hexists(byte[] key, byte[] field) {
+		return read(key).hexists(key, field);
+	}
+
+	@Override
+	public Long hlen(byte[] key) {
+		return read(key).hlen(key);
+	}
+
+	@Override
+	public Set<byte[]> hkeys(byte[] key) {
+		return read(key).hkeys(key);
+	}
+
+	@Override
+	public List<byte[]> hvals(byte[] key) {
+		return read(key).hvals(key);
+	}
+
+	@Override
+	public Map<byte[], byte[]> hgetAll(byte[] key) {
+		return read(key).hgetAll(key);
+	}
+
+	@Override
+	public Long hstrlen(byte[] key, byte[] field) {
+		return read(key).hstrlen(key, field);
+	}
+
+	@Override
+	public ScanResult<Map.Entry<byte[], byte[]>> hscan(byte[] key, byte[] cursor) {
+		return read(key).hscan(key, cursor);
+	}
+
+	@Override
+	public ScanResult<Map.Entry<byte[], byte[]>> hscan(byte[] key, byte[] cursor, ScanParams params) {
+		return read(key).hscan(key, cursor, params);
+	}
+
+	@Override
+	public Long llen(byte[] key) {
+		return read(key).llen(key);
+	}
+
+	@Override
+	public List<byte[]> lrange(byte[] key, long start, long stop) {
+		return read(key).lrange(key, start, stop);
+	}
+
+	@Override
+	public byte[] lindex(byte[] key, long index) {
+		return read(key).lindex(key, index);
+	}
+
+	@Override
+	public Long lpos(byte[] key, byte[] element) {
+		return read(key).lpos(key, element);
+	}
+
+	@Override
+	public Long lpos(byte[] key, byte[] element, LPosParams params) {
+		return read(key).lpos(key, element, params);
+	}
+
+	@Override
+	public List<Long> lpos(byte[] key, byte[] element, LPosParams params, long count) {
+		return read(key).lpos(key, element, params, count);
+	}
+
+	@Override
+	public Set<byte[]> smembers(byte[] key) {
+		return read(key).smembers(key);
+	}
+
+	@Override
+	public Long scard(byte[] key) {
+		return read(key).scard(key);
+	}
+
+	@Override
+	public Boolean sismember(byte[] key, byte[] member) {
+		return read(key).sismember(key, member);
+	}
+
+	@Override
+	public List<Boolean> smismember(byte[] key, byte[]... members) {
+		return read(key).smismember(key, members);
+	}
+
+	@Override
+	public byte[] srandmember(byte[] key) {
+		return read(key).srandmember(key);
+	}
+
+	@Override
+	public List<byte[]> srandmember(byte[] key, int count) {
+		return read(key).srandmember(key, count);
+	}
+
+	@Override
+	public ScanResult<byte[]> sscan(byte[] key, byte[] cursor) {
+		return read(key).sscan(key, cursor);
+	}
+
+	@Override
+	public ScanResult<byte[]> sscan(byte[] key, byte[] cursor, ScanParams params) {
+		return read(key).sscan(key, cursor, params);
+	}
+
+	@Override
+	public Set<byte[]> zrange(byte[] key, long start, long stop) {
+		return read(key).zrange(key, start, stop);
+	}
+
+	@Override
+	public Set<Tuple> zrangeWithScores(byte[] key, long start, long stop) {
+		return read(key).zrangeWithScores(key, start, stop);
+	}
+
+	@Override
+	public Set<byte[]> zrevrange(byte[] key, long start, long stop) {
+		return read(key).zrevrange(key, start, stop);
+	}
+
+	@Override
+	public Set<Tuple> zrevrangeWithScores(byte[] key, long start, long stop) {
+		return read(key).zrevrangeWithScores(key, start, stop);
+	}
+
+	@Override
+	public Long zcard(byte[] key) {
+		return read(key).zcard(key);
+	}
+
+	@Override
+	public Double zscore(byte[] key, byte[] member) {
+		return read(key).zscore(key, member);
+	}
+
+	@Override
+	public List<Double> zmscore(byte[] key, byte[]... members) {
+		return read(key).zmscore(key, members);
+	}
+
+	@Override
+	public Long zrank(byte[] key, byte[] member) {
+		return read(key).zrank(key, member);
+	}
+
+	@Override
+	public Long zrevrank(byte[] key, byte[] member) {
+		return read(key).zrevrank(key, member);
+	}
+
+	@Override
+	public Long zcount(byte[] key, byte[] min, byte[] max) {
+		return read(key).zcount(key, min, max);
+	}
+
+	@Override
+	public Long zcount(byte[] key, double min, double max) {
+		return read(key).zcount(key, min, max);
+	}
+
+	@Override
+	public Long zlexcount(byte[] key, byte[] min, byte[] max) {
+		return read(key).zlexcount(key, min, max);
+	}
+
+	@Override
+	public Set<byte[]> zrangeByLex(byte[] key, byte[] min, byte[] max) {
+		return read(key).zrangeByLex(key, min, max);
+	}
+
+	@Override
+	public Set<byte[]> zrangeByLex(byte[] key, byte[] min, byte[] max, int offset, int count) {
+		return read(key).zrangeByLex(key, min, max, offset, count);
+	}
+
+	@Override
+	public Set<byte[]> zrevrangeByLex(byte[] key, byte[] max, byte[] min) {
+		return read(key).zrevrangeByLex(key, max, min);
+	}
+
+	@Override
+	public Set<byte[]> zrevrangeByLex(byte[] key, byte[] max, byte[] min, int offset, int count) {
+		return read(key).zrevrangeByLex(key, max, min, offset, count);
+	}
+
+	@Override
+	public Set<byte[]> zrangeByScore(byte[] key, byte[] min, byte[] max) {
+		return read(key).zrangeByScore(key, min, max);
+	}
+
+	@Override
+	public Set<byte[]> zrangeByScore(byte[] key, double min, double max) {
+		return read(key).zrangeByScore(key, min, max);
+	}
+
+	@Override
+	public Set<byte[]> zrangeByScore(byte[] key, byte[] min, byte[] max, int offset, int count) {
+		return read(key).zrangeByScore(key, min, max, offset, count);
+	}
+
+	@Override
+	public Set<byte[]> zrangeByScore(byte[] key, double min, double max, int offset, int count) {
+		return read(key).zrangeByScore(key, min, max, offset, count);
+	}
+
+	@Override
+	public Set<Tuple> zrangeByScoreWithScores(byte[] key, byte[] min, byte[] max) {
+		return read(key).zrangeByScoreWithScores(key, min, max);
+	}
+
+	@Override
+	public Set<Tuple> zrangeByScoreWithScores(byte[] key, double min, double max) {
+		return read(key).zrangeByScoreWithScores(key, min, max);
+	}
+
+	@Override
+	public Set<Tuple> zrangeByScoreWithScores(byte[] key, byte[] min, byte[] max, int offset, int count) {
+		return read(key).zrangeByScoreWithScores(key, min, max, offset, count);
+	}
+
+	@Override
+	public Set<Tuple> zrangeByScoreWithScores(byte[] key, double min, double max, int offset, int count) {
+		return read(key).zrangeByScoreWithScores(key, min, max, offset, count);
+	}
+
+	@Override
+	public Set<byte[]> zrevrangeByScore(byte[] key, byte[] max, byte[] min) {
+		return read(key).zrevrangeByScore(key, max, min);
+	}
+
+	@Override
+	public Set<byte[]> zrevrangeByScore(byte[] key, double max, double min) {
+		return read(key).zrevrangeByScore(key, max, min);
+	}
+
+	@Override
+	public Set<byte[]> zrevrangeByScore(byte[] key, byte[] max, byte[] min, int offset, int count) {
+		return read(key).zrevrangeByScore(key, max, min, offset, count);
+	}
+
+	@Override
+	public Set<byte[]> zrevrangeByScore(byte[] key, double max, double min, int offset, int count) {
+		return read(key).zrevrangeByScore(key, max, min, offset, count);
+	}
+
+	@Override
+	public Set<Tuple> zrevrangeByScoreWithScores(byte[] key, byte[] max, byte[] min) {
+		return read(key).zrevrangeByScoreWithScores(key, max, min);
+	}
+
+	@Override
+	public Set<Tuple> zrevrangeByScoreWithScores(byte[] key, double max, double min) {
+		return read(key).zrevrangeByScoreWithScores(key, max, min);
+	}
+
+	@Override
+	public Set<Tuple> zrevrangeByScoreWithScores(byte[] key, byte[] max, byte[] min, int offset, int count) {
+		return read(key).zrevrangeByScoreWithScores(key, max, min, offset, count);
+	}
+
+	@Override
+	public Set<Tuple> zrevrangeByScoreWithScores(byte[] key, double max, double min, int offset, int count) {
+		return read(key).zrevrangeByScoreWithScores(key, max, min, offset, count);
+	}
+
+	@Override
+	public ScanResult<Tuple> zscan(byte[] key, byte[] cursor) {
+		return read(key).zscan(key, cursor);
+	}
+
+	@Override
+	public ScanResult<Tuple> zscan(byte[] key, byte[] cursor, ScanParams params) {
+		return read(key).zscan(key, cursor, params);
+	}
+
+	@Override
+	public Double geodist(byte[] key, byte[] member1, byte[] member2) {
+		return read(key).geodist(key, member1, member2);
+	}
+
+	@Override
+	public Double geodist(byte[] key, byte[] member1, byte[] member2, GeoUnit unit) {
+		return read(key).geodist(key, member1, member2, unit);
+	}
+
+	@Override
+	public List<byte[]> geohash(byte[] key, byte[]... members) {
+		return read(key).geohash(key, members);
+	}
+
+	@Override
+	public List<GeoCoordinate> geopos(byte[] key, byte[]... members) {
+		return read(key).geopos(key, members);
+	}
+
+	@Override
+	public List<GeoRadiusResponse> georadiusReadonly(byte[] key, double longitude, double latitude, double radius, GeoUnit unit) {
+		return read(key).georadiusReadonly(key, longitude, latitude, radius, unit);
+	}
+
+	@Override
+	public List<GeoRadiusResponse> georadiusReadonly(byte[] key, double longitude, double latitude, double radius, GeoUnit unit, GeoRadiusParam param) {
+		return read(key).georadiusReadonly(key, longitude, latitude, radius, unit, param);
+	}
+
+	@Override
+	public List<GeoRadiusResponse> georadiusByMemberReadonly(byte[] key, byte[] member, double radius, GeoUnit unit) {
+		return read(key).georadiusByMemberReadonly(key, member, radius, unit);
+	}
+
+	@Override
+	public List<GeoRadiusResponse> georadiusByMemberReadonly(byte[] key, byte[] member, double radius, GeoUnit unit, GeoRadiusParam param) {
+		return read(key).georadiusByMemberReadonly(key, member, radius, unit, param);
+	}
+
+	@Override
+	public long pfcount(byte[] key) {
+		return read(key).pfcount(key);
+	}
+
+	@Override
+	public Long xlen(byte[] key) {
+		return read(key).xlen(key);
+	}
+
+	@Override
+	public List<byte[]> xrange(byte[] key, byte[] start, byte[] end, long count) {
+		return read(key).xrange(key, start, end, count);
+	}
+
+	@Override
+	public List<byte[]> xrevrange(byte[] key, byte[] end, byte[] start, int count) {
+		return read(key).xrevrange(key, end, start, count);
+	}
+
+	@Override
+	public List<byte[]> xpending(byte[] key, byte[] groupname, byte[] start, byte[] end, int count, byte[] consumername) {
+		return read(key).xpending(key, groupname, start, end, count, consumername);
+	}
+
+	@Override
+	public StreamInfo xinfoStream(byte[] key) {
+		return read(key).xinfoStream(key);
+	}
+
+	@Override
+	public List<StreamGroupInfo> xinfoGroup(byte[] key) {
+		return read(key).xinfoGroup(key);
+	}
+
+	@Override
+	public List<StreamConsumersInfo> xinfoConsumers(byte[] key, byte[] group) {
+		return read(key).xinfoConsumers(key, group);
+	}
+
+	private <T> T load(Supplier<T> loader) {
+		loading = true;
+		try {
+			return loader.get();
+		} finally {
+			loading = false;
+		}
+	}
+
+	@Override
+	public JedisShardInfo getShardInfo(byte[] key) {
+		if (pools == null) {
+			return super.getShardInfo(key);
+		}
+		return shardInfo(sharding.shardIndex(key));
+	}
+
+	@Override
+	public JedisShardInfo getShardInfo(String key) {
+		if (pools == null) {
+			return super.getShardInfo(key);
+		}
+		return shardInfo(sharding.shardIndex(key));
+	}
+
+	@Override
+	public Collection<Jedis> getAllShards() {
+		if (pools == null) {
+			return super.getAllShards();
+		}
+		List<Jedis> all = new ArrayList<>(borrowed.length);
+		for (int i = 0; i < borrowed.length; i++) {
+			all.add(borrow(i));
+		}
+		return Collections.unmodifiableList(all);
+	}
+
+	@Override
+	public Collection<JedisShardInfo> getAllShardInfo() {
+		if (pools == null) {
+			return super.getAllShardInfo();
+		}
+		List<JedisShardInfo> all = new ArrayList<>(borrowed.length);
+		for (int i = 0; i < borrowed.length; i++) {
+			all.add(shardInfo(i));
+		}
+		return Collections.unmodifiableList(all);
+	}
+
+	/**
+	 * 按 master 拆分 key，每个 master 发一次原生 MGET，结果按传入顺序合并
+	 */
+	public List<String> mget(String... keys) {
+		String[] values = new String[keys.length];
+		for (Group<List<String>> group : scatter(keys, 1, this::read, Jedis::mget)) {
+			for (int i = 0; i < group.positions.length; i++) {
+				values[group.positions[i]] = group.result.get(i);
+			}
+		}
+		return Arrays.asList(values);
+	}
+
+	/**
+	 * 参数为 key1, value1, key2, value2 ...，每个 master 发一次 MSET。
+	 * 跨 master 时不是原子操作。
+	 */
+	public String mset(String... keysvalues) {
+		if (keysvalues.length % 2 != 0) {
+			throw new IllegalArgumentException("wrong number of arguments for mset");
+		}
+		scatter(keysvalues, 2, this::getShard, Jedis::mset);
+		return "OK";
+	}
+
+	public Long del(String... keys) {
+		return sum(scatter(keys, 1, this::getShard, Jedis::del));
+	}
+
+	public Long unlink(String... keys) {
+		return sum(scatter(keys, 1, this::getShard, Jedis::unlink));
+	}
+
+	public Long exists(String... keys) {
+		return sum(scatter(keys, 1, this::read, Jedis::exists));
+	}
+
+	private static long sum(List<Group<Long>> groups) {
+		long total = 0;
+		for (Group<Long> group : groups) {
+			total += group.result;
+		}
+		return total;
+	}
+
+	/**
+	 * 把 args 按 stride 切成以 key 开头的若干段，按 shard 给出的连接分组后并发执行 command。
+	 * 连接在当前线程借出，每个连接只交给一个线程使用。
+	 */
+	private <R> List<Group<R>> scatter(String[] args, int stride, Function<String, Jedis> shard,
+			BiFunction<Jedis, String[], R> command) {
+		Map<Jedis, List<Integer>> byShard = new IdentityHashMap<>();
+		for (int i = 0; i < args.length; i += stride) {
+			byShard.computeIfAbsent(shard.apply(args[i]), k -> new ArrayList<>()).add(i);
+		}
+		List<Group<R>> groups = new ArrayList<>(byShard.size());
+		byShard.forEach((jedis, offsets) -> groups.add(new Group<>(jedis, offsets, args, stride)));
+		if (groups.isEmpty()) {
+			return groups;
+		}
+
+		List<Future<?>> futures = new ArrayList<>(groups.size() - 1);
+		RuntimeException failure = null;
+		for (int i = 0; i < groups.size() - 1; i++) {
+			Group<R> group = groups.get(i);
+			if (pools == null) {
+				failure = run(group, command, failure);
+				continue;
+			}
+			try {
+				futures.add(pools.getExecutor().submit(() -> group.result = command.apply(group.jedis, group.args)));
+			} catch (RejectedExecutionException e) {
+				failure = run(group, command, failure);
+			}
+		}
+		failure = run(groups.get(groups.size() - 1), command, failure);
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new JedisException(e);
+			} catch (ExecutionException e) {
+				if (failure == null) {
+					failure = e.getCause() instanceof RuntimeException
+							? (RuntimeException) e.getCause()
+							: new JedisException(e.getCause());
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+		return groups;
+	}
+
+	private static <R> RuntimeException run(Group<R> group, BiFunction<Jedis, String[], R> command,
+			RuntimeException failure) {
+		try {
+			group.result = command.apply(group.jedis, group.args);
+			return failure;
+		} catch (RuntimeException e) {
+			return failure != null ? failure : e;
+		}
+	}
+
+	private Jedis borrow(int index) {
+		Jedis jedis = borrowed[index];
+		if (jedis == null) {
+			jedis = pools.getMasterPools().get(index).getResource();
+			borrowed[index] = jedis;
+		}
+		return jedis;
+	}
+
+	private JedisShardInfo shardInfo(int index) {
+		return new JedisShardInfo(pools.getMasterPools().get(index).getCurrentHostMaster());
 	}
 
 	@Override
 	public void close() {
+		if (pools != null) {
+			release(borrowed);
+			if (borrowedReplicas != null) {
+				release(borrowedReplicas);
+			}
+			return;
+		}
 
 		for (Jedis jedis : getAllShards()) {
 			try {
@@ -28,4 +1264,38 @@ public class ShardedJedisSentinel extends ShardedJedis implements Serializable,
 			}
 		}
 	}
+
+	private static void release(Jedis[] connections) {
+		for (int i = 0; i < connections.length; i++) {
+			Jedis jedis = connections[i];
+			connections[i] = null;
+			if (jedis != null) {
+				try {
+					jedis.close();
+				} catch (Exception ignored) {
+					// 同下，单个节点异常不影响其它连接归还
+				}
+			}
+		}
+	}
+
+	private static class Group<R> {
+
+		private final Jedis jedis;
+		/** 每个 key 在原参数中的序号（不是下标） */
+		private final int[] positions;
+		private final String[] args;
+		private volatile R result;
+
+		Group(Jedis jedis, List<Integer> offsets, String[] all, int stride) {
+			this.jedis = jedis;
+			this.positions = new int[offsets.size()];
+			this.args = new String[offsets.size() * stride];
+			for (int i = 0; i < positions.length; i++) {
+				int offset = offsets.get(i);
+				positions[i] = offset / stride;
+				System.arraycopy(all, offset, args, i * stride, stride);
+			}
+		}
+	}
 }
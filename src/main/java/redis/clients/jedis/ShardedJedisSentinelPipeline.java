@@ -0,0 +1,281 @@
+package redis.clients.jedis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.util.Log;
+import redis.clients.jedis.util.Sharding;
+
+/**
+ * 跨分片的 pipeline：命令先缓存在本地，{@link #sync()} 时按所属 master 分组，
+ * 每个 master 借一个连接发一次 pipeline，各 master 并行执行。
+ * <p>
+ * 每条命令对应一个 {@link CompletableFuture}，某个 master 失败只影响发往它的命令。
+ * 与 {@link ShardedJedisSentinel#getShard(String)} 一样，加入命令时先让该 key 的本地缓存失效，
+ * 之后在本进程读到的不会是写之前缓存的值。
+ * 非线程安全，与 {@link Pipeline} 一样由单个线程使用。
+ */
+public class ShardedJedisSentinelPipeline implements Log {
+
+	private final JedisSentinelPools pools;
+	private final Sharding sharding;
+	private final List<Command<?>> commands = new ArrayList<>();
+
+	public ShardedJedisSentinelPipeline(JedisSentinelPools pools) {
+		this.pools = pools;
+		this.sharding = pools.getSharding();
+	}
+
+	public <T> CompletableFuture<T> execute(String key, Function<Pipeline, Response<T>> command) {
+		// 迁移和热点统计可能在本对象创建之后才开启，每次都重新取
+		Resharding resharding = pools.getResharding();
+		if (resharding != null) {
+			resharding.pull(key);
+		}
+		int shard = sharding.shardIndex(key);
+		HotKeys hotKeys = pools.getHotKeys();
+		if (hotKeys != null) {
+			hotKeys.record(shard, key);
+		}
+		ShardedNearCache nearCache = pools.getNearCache();
+		if (nearCache != null) {
+			nearCache.invalidate(shard, key);
+		}
+		return append(shard, command);
+	}
+
+	public <T> CompletableFuture<T> execute(byte[] key, Function<Pipeline, Response<T>> command) {
+		Resharding resharding = pools.getResharding();
+		if (resharding != null) {
+			resharding.pull(key);
+		}
+		int shard = sharding.shardIndex(key);
+		HotKeys hotKeys = pools.getHotKeys();
+		if (hotKeys != null) {
+			hotKeys.record(shard, key);
+		}
+		ShardedNearCache nearCache = pools.getNearCache();
+		if (nearCache != null) {
+			nearCache.invalidate(shard, key);
+		}
+		return append(shard, command);
+	}
+
+	private <T> CompletableFuture<T> append(int shard, Function<Pipeline, Response<T>> command) {
+		Command<T> cmd = new Command<>(shard, command);
+		commands.add(cmd);
+		return cmd.future;
+	}
+
+	public CompletableFuture<String> set(String key, String value) {
+		return execute(key, p -> p.set(key, value));
+	}
+
+	public CompletableFuture<String> setex(String key, int seconds, String value) {
+		return execute(key, p -> p.setex(key, seconds, value));
+	}
+
+	public CompletableFuture<String> get(String key) {
+		return execute(key, p -> p.get(key));
+	}
+
+	public CompletableFuture<Long> del(String key) {
+		return execute(key, p -> p.del(key));
+	}
+
+	public CompletableFuture<Boolean> exists(String key) {
+		return execute(key, p -> p.exists(key));
+	}
+
+	public CompletableFuture<Long> expire(String key, int seconds) {
+		return execute(key, p -> p.expire(key, seconds));
+	}
+
+	public CompletableFuture<Long> ttl(String key) {
+		return execute(key, p -> p.ttl(key));
+	}
+
+	public CompletableFuture<Long> incr(String key) {
+		return execute(key, p -> p.incr(key));
+	}
+
+	public CompletableFuture<Long> incrBy(String key, long increment) {
+		return execute(key, p -> p.incrBy(key, increment));
+	}
+
+	public CompletableFuture<Long> hset(String key, String field, String value) {
+		return execute(key, p -> p.hset(key, field, value));
+	}
+
+	public CompletableFuture<String> hget(String key, String field) {
+		return execute(key, p -> p.hget(key, field));
+	}
+
+	public CompletableFuture<Map<String, String>> hgetAll(String key) {
+		return execute(key, p -> p.hgetAll(key));
+	}
+
+	public CompletableFuture<Long> hdel(String key, String... fields) {
+		return execute(key, p -> p.hdel(key, fields));
+	}
+
+	public CompletableFuture<Long> sadd(String key, String... members) {
+		return execute(key, p -> p.sadd(key, members));
+	}
+
+	public CompletableFuture<Set<String>> smembers(String key) {
+		return execute(key, p -> p.smembers(key));
+	}
+
+	public CompletableFuture<Long> lpush(String key, String... values) {
+		return execute(key, p -> p.lpush(key, values));
+	}
+
+	public CompletableFuture<Long> rpush(String key, String... values) {
+		return execute(key, p -> p.rpush(key, values));
+	}
+
+	public CompletableFuture<List<String>> lrange(String key, long start, long stop) {
+		return execute(key, p -> p.lrange(key, start, stop));
+	}
+
+	public CompletableFuture<Long> zadd(String key, double score, String member) {
+		return execute(key, p -> p.zadd(key, score, member));
+	}
+
+	public CompletableFuture<Set<String>> zrange(String key, long start, long stop) {
+		return execute(key, p -> p.zrange(key, start, stop));
+	}
+
+	/**
+	 * 已缓存、尚未发送的命令数
+	 */
+	public int size() {
+		return commands.size();
+	}
+
+	/**
+	 * 发送所有缓存的命令并等待各 master 返回，之后可继续复用本对象
+	 */
+	public void sync() {
+		if (commands.isEmpty()) {
+			return;
+		}
+		List<List<Command<?>>> groups = new ArrayList<>(sharding.shards());
+		for (int i = 0; i < sharding.shards(); i++) {
+			groups.add(null);
+		}
+		for (Command<?> cmd : commands) {
+			List<Command<?>> group = groups.get(cmd.shard);
+			if (group == null) {
+				group = new ArrayList<>();
+				groups.set(cmd.shard, group);
+			}
+			group.add(cmd);
+		}
+		commands.clear();
+
+		// 最后一组在当前线程执行，其余交给线程池
+		List<Future<?>> futures = new ArrayList<>();
+		int last = -1;
+		for (int i = 0; i < groups.size(); i++) {
+			if (groups.get(i) == null) {
+				continue;
+			}
+			if (last >= 0) {
+				futures.add(submit(last, groups.get(last)));
+			}
+			last = i;
+		}
+		flush(last, groups.get(last));
+		await(futures);
+	}
+
+	/**
+	 * 同 {@link #sync()}，按命令加入的顺序返回结果；失败的命令对应位置是其异常
+	 */
+	public List<Object> syncAndReturnAll() {
+		List<Command<?>> snapshot = new ArrayList<>(commands);
+		sync();
+		List<Object> results = new ArrayList<>(snapshot.size());
+		for (Command<?> cmd : snapshot) {
+			try {
+				results.add(cmd.future.join());
+			} catch (Exception e) {
+				results.add(e.getCause() != null ? e.getCause() : e);
+			}
+		}
+		return results;
+	}
+
+	private Future<?> submit(int shard, List<Command<?>> group) {
+		try {
+			return pools.getExecutor().submit(() -> flush(shard, group));
+		} catch (RejectedExecutionException e) {
+			flush(shard, group);
+			return CompletableFuture.completedFuture(null);
+		}
+	}
+
+	private void flush(int shard, List<Command<?>> group) {
+		List<Response<?>> responses = new ArrayList<>(group.size());
+		try (Jedis jedis = pools.getMasterPools().get(shard).getResource()) {
+			Pipeline pipeline = jedis.pipelined();
+			for (Command<?> cmd : group) {
+				responses.add(cmd.command.apply(pipeline));
+			}
+			pipeline.sync();
+		} catch (Exception e) {
+			debug("Pipeline on shard {} failed: {}", shard, e);
+			for (Command<?> cmd : group) {
+				cmd.future.completeExceptionally(e);
+			}
+			return;
+		}
+		for (int i = 0; i < group.size(); i++) {
+			group.get(i).complete(responses.get(i));
+		}
+	}
+
+	private static void await(List<Future<?>> futures) {
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new JedisException(e);
+			} catch (ExecutionException ignored) {
+				// flush 已把异常交给各条命令
+			}
+		}
+	}
+
+	private static class Command<T> {
+
+		private final int shard;
+		private final Function<Pipeline, Response<T>> command;
+		private final CompletableFuture<T> future = new CompletableFuture<>();
+
+		Command(int shard, Function<Pipeline, Response<T>> command) {
+			this.shard = shard;
+			this.command = command;
+		}
+
+		@SuppressWarnings("unchecked")
+		void complete(Response<?> response) {
+			try {
+				future.complete(((Response<T>) response).get());
+			} catch (Exception e) {
+				future.completeExceptionally(e);
+			}
+		}
+	}
+}
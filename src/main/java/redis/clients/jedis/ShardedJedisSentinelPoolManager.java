@@ -1,14 +1,17 @@
 package redis.clients.jedis;
 
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 
+import redis.clients.jedis.util.ClassLog;
 import redis.clients.jedis.util.Log;
 import redis.clients.jedis.util.PropertiesPlus;
 import redis.clients.jedis.util.RedisConstants;
+import redis.clients.jedis.util.ShardingStrategy;
 
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 
@@ -47,16 +50,91 @@ public class ShardedJedisSentinelPoolManager implements Log {
 	}
 
 	private static JedisSentinelPools makeShardedSentinelJedisPools(String path) {
-		log.info("makeShardedSentinelJedisPools config file is: {}", path);
+		ClassLog.of(ShardedJedisSentinelPoolManager.class).info("makeShardedSentinelJedisPools config file is: {}", path);
 
 		PropertiesPlus props = PropertiesPlus.load(path);
+		int logAsyncCapacity = props.getInteger(RedisConstants.LOG_ASYNC_CAPACITY, 0);
+		if (logAsyncCapacity > 0) {
+			ClassLog.useAsync(logAsyncCapacity);
+		}
 		GenericObjectPoolConfig<?> config = shardedJedisConfig(props);
 		List<String> redisMasters = props.getList(RedisConstants.REDIS_MASTERS, ",");
 		Set<String> redisSentinel = new HashSet<>(Arrays.asList(props.getProperty(RedisConstants.REDIS_SENTINEL).split(",")));
 		final String timeout = props.getProperty(RedisConstants.CONNECTION_TIMEOUT, "30000");
 		final String password = props.getProperty(RedisConstants.REDIS_PASSWORD, null);
 		final String user = props.getProperty(RedisConstants.REDIS_USER, null);
-		return new JedisSentinelPools(redisMasters, redisSentinel, config, Integer.parseInt(timeout), user, password, Protocol.DEFAULT_DATABASE);
+		long startupTimeout = props.getLong(RedisConstants.STARTUP_TIMEOUT_MILLIS, JedisSentinelPools.DEFAULT_STARTUP_TIMEOUT_MILLIS);
+		JedisSentinelPools pools = new JedisSentinelPools(redisMasters, redisSentinel, config,
+				Integer.parseInt(timeout), Integer.parseInt(timeout), 0, user, password, Protocol.DEFAULT_DATABASE, null,
+				Protocol.DEFAULT_TIMEOUT, Protocol.DEFAULT_TIMEOUT, null, null, null, startupTimeout);
+		pools.setTopologyRefreshMillis(props.getLong(RedisConstants.TOPOLOGY_REFRESH_MILLIS, SentinelTopology.DEFAULT_REFRESH_MILLIS));
+		ShardingStrategy sharding = shardingStrategy(props);
+		pools.setShardingStrategy(sharding);
+		int nearCacheMaxEntries = props.getInteger(RedisConstants.NEAR_CACHE_MAX_ENTRIES, 0);
+		if (nearCacheMaxEntries > 0) {
+			pools.enableNearCache(
+					nearCacheMaxEntries,
+					props.getLong(RedisConstants.NEAR_CACHE_TTL_MILLIS, 60000L),
+					props.getBoolean(RedisConstants.NEAR_CACHE_CONFIGURE_NOTIFICATIONS, false));
+		}
+		if (props.getBoolean(RedisConstants.REPLICA_READS_ENABLED, false)) {
+			ReplicaReadPolicy defaults = ReplicaReadPolicy.DEFAULT;
+			pools.enableReplicaReads(new ReplicaReadPolicy(
+					props.getLong(RedisConstants.REPLICA_READS_MAX_LAG_BYTES, defaults.getMaxLagBytes()),
+					props.getLong(RedisConstants.REPLICA_READS_MAX_LINK_DOWN_MILLIS, defaults.getMaxLinkDownMillis()),
+					props.getBoolean(RedisConstants.REPLICA_READS_FALLBACK_TO_MASTER, defaults.isFallbackToMaster()),
+					props.getLong(RedisConstants.REPLICA_READS_REFRESH_MILLIS, defaults.getRefreshMillis())));
+		}
+		if (props.getBoolean(RedisConstants.HOT_KEYS_ENABLED, false)) {
+			HotKeyPolicy defaults = HotKeyPolicy.DEFAULT;
+			pools.enableHotKeys(new HotKeyPolicy(
+					props.getInteger(RedisConstants.HOT_KEYS_TOP_K, defaults.getTopK()),
+					props.getInteger(RedisConstants.HOT_KEYS_WIDTH, defaults.getWidth()),
+					props.getLong(RedisConstants.HOT_KEYS_HALF_LIFE_MILLIS, defaults.getHalfLifeMillis())));
+		}
+		if (props.getBoolean(RedisConstants.POOL_ADAPTIVE_ENABLED, false)) {
+			PoolSizingPolicy defaults = PoolSizingPolicy.DEFAULT;
+			pools.enableAdaptivePoolSizing(new PoolSizingPolicy(
+					props.getInteger(RedisConstants.POOL_ADAPTIVE_MAX_TOTAL_CONNECTIONS, defaults.getMaxTotalConnections()),
+					props.getInteger(RedisConstants.POOL_ADAPTIVE_MIN_PER_MASTER, defaults.getMinPerMaster()),
+					props.getInteger(RedisConstants.POOL_ADAPTIVE_MAX_PER_MASTER, defaults.getMaxPerMaster()),
+					props.getLong(RedisConstants.POOL_ADAPTIVE_TARGET_WAIT_MICROS, defaults.getTargetWaitMicros()),
+					props.getLong(RedisConstants.POOL_ADAPTIVE_INTERVAL_MILLIS, defaults.getIntervalMillis())));
+		}
+		if (props.getBoolean(RedisConstants.CIRCUIT_BREAKER_ENABLED, false)) {
+			CircuitBreakerPolicy defaults = CircuitBreakerPolicy.DEFAULT;
+			pools.enableCircuitBreakers(new CircuitBreakerPolicy(
+					props.getDouble(RedisConstants.CIRCUIT_BREAKER_FAILURE_RATE, defaults.getFailureRate()),
+					props.getInteger(RedisConstants.CIRCUIT_BREAKER_MINIMUM_CALLS, defaults.getMinimumCalls()),
+					props.getLong(RedisConstants.CIRCUIT_BREAKER_WINDOW_MILLIS, defaults.getWindowMillis()),
+					props.getLong(RedisConstants.CIRCUIT_BREAKER_OPEN_MILLIS, defaults.getOpenMillis()),
+					props.getInteger(RedisConstants.CIRCUIT_BREAKER_HALF_OPEN_PROBES, defaults.getHalfOpenProbes())));
+		}
+		List<String> previousMasters = props.getList(RedisConstants.RESHARD_PREVIOUS_MASTERS, ",");
+		// 旧布局的算法按名字原样解析，默认与当前相同
+		ShardingStrategy previousSharding = ShardingStrategy.of(
+				props.getProperty(RedisConstants.RESHARD_PREVIOUS_STRATEGY, sharding.toString()));
+		if (!previousMasters.isEmpty()
+				&& (!previousMasters.equals(redisMasters) || !previousSharding.toString().equals(sharding.toString()))) {
+			ReshardPolicy defaults = ReshardPolicy.DEFAULT;
+			String checkpoint = props.getProperty(RedisConstants.RESHARD_CHECKPOINT, null);
+			pools.startResharding(previousMasters, previousSharding, new ReshardPolicy(
+					props.getInteger(RedisConstants.RESHARD_SCAN_COUNT, defaults.getScanCount()),
+					props.getInteger(RedisConstants.RESHARD_MAX_KEYS_PER_SECOND, defaults.getMaxKeysPerSecond()),
+					checkpoint == null ? null : Paths.get(checkpoint)));
+		}
+		if (props.getBoolean(RedisConstants.METRICS_JMX_ENABLED, false)) {
+			pools.getMetrics().registerMBeans();
+		}
+		return pools;
+	}
+
+	private static ShardingStrategy shardingStrategy(PropertiesPlus props) {
+		ShardingStrategy strategy = ShardingStrategy.of(props.getProperty(RedisConstants.SHARDING_STRATEGY, "ketama"));
+		if (props.getBoolean(RedisConstants.SHARDING_HASH_TAGS, false) && !strategy.toString().endsWith("+hashtags")) {
+			strategy = strategy.withHashTags();
+		}
+		return strategy;
 	}
 
 	public static JedisSentinelPools getshardedJedisPools() {
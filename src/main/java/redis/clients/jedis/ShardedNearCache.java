@@ -0,0 +1,292 @@
+package redis.clients.jedis;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.util.Log;
+import redis.clients.jedis.util.NearCache;
+import redis.clients.jedis.util.SafeEncoder;
+
+/**
+ * {@link ShardedJedisSentinel} 读命令前面的本地缓存，每个分片一份。
+ * <p>
+ * 每个 master 有一个订阅 keyspace 通知的线程，收到任意事件就让对应 key 失效；
+ * 订阅未建立或断开期间该分片不使用缓存，断开时清空。master 切换时同样清空并重新订阅。
+ * 同一个 key 的 get/hget/hgetAll 结果共用一个缓存项，任何失效都会一起清掉。
+ */
+public class ShardedNearCache implements MasterSwitchListener, Closeable, Log {
+
+	private static final Object NULL = new Object();
+
+	private final JedisSentinelPools pools;
+	private final boolean configureNotifications;
+	private final Shard[] shards;
+
+	ShardedNearCache(JedisSentinelPools pools, int maxEntriesPerShard, long ttlMillis, boolean configureNotifications) {
+		this.pools = pools;
+		this.configureNotifications = configureNotifications;
+		List<SentinelMasterPool> list = pools.getMasterPools();
+		this.shards = new Shard[list.size()];
+		for (int i = 0; i < shards.length; i++) {
+			shards[i] = new Shard(i, new NearCache<>(maxEntriesPerShard, ttlMillis));
+			shards[i].invalidator.start();
+		}
+	}
+
+	String get(int shard, String key, Supplier<String> loader) {
+		Shard s = shards[shard];
+		if (!s.active) {
+			return loader.get();
+		}
+		s.used = true;
+		Object cached = s.cache.get(key);
+		if (cached instanceof String) {
+			return (String) cached;
+		}
+		if (cached == NULL) {
+			return null;
+		}
+		long stamp = s.cache.stamp(key);
+		String value = loader.get();
+		s.cache.put(key, value == null ? NULL : value, stamp);
+		return value;
+	}
+
+	String hget(int shard, String key, String field, Supplier<String> loader) {
+		Shard s = shards[shard];
+		if (!s.active) {
+			return loader.get();
+		}
+		s.used = true;
+		Object cached = s.cache.get(key);
+		HashValue hash = cached instanceof HashValue ? (HashValue) cached : null;
+		if (hash != null && (hash.complete || hash.fields.containsKey(field))) {
+			return hash.fields.get(field);
+		}
+		long stamp = s.cache.stamp(key);
+		String value = loader.get();
+		s.cache.put(key, hash == null ? HashValue.partial(field, value) : hash.with(field, value), stamp);
+		return value;
+	}
+
+	Map<String, String> hgetAll(int shard, String key, Supplier<Map<String, String>> loader) {
+		Shard s = shards[shard];
+		if (!s.active) {
+			return loader.get();
+		}
+		s.used = true;
+		Object cached = s.cache.get(key);
+		if (cached instanceof HashValue && ((HashValue) cached).complete) {
+			return new HashMap<>(((HashValue) cached).fields);
+		}
+		long stamp = s.cache.stamp(key);
+		Map<String, String> value = loader.get();
+		s.cache.put(key, HashValue.complete(value), stamp);
+		return value;
+	}
+
+	void invalidate(int shard, String key) {
+		shards[shard].cache.invalidate(key);
+	}
+
+	/**
+	 * 二进制 key 的写命令使之失效，分片从未缓存过时不转换 key
+	 */
+	void invalidate(int shard, byte[] key) {
+		Shard s = shards[shard];
+		if (s.used) {
+			s.cache.invalidate(SafeEncoder.encode(key));
+		}
+	}
+
+	public void flush(int shard) {
+		shards[shard].cache.clear();
+	}
+
+	public int size(int shard) {
+		return shards[shard].cache.size();
+	}
+
+	public long hits(int shard) {
+		return shards[shard].cache.hits();
+	}
+
+	public long misses(int shard) {
+		return shards[shard].cache.misses();
+	}
+
+	public boolean isActive(int shard) {
+		return shards[shard].active;
+	}
+
+	@Override
+	public void onMasterSwitch(int shard, String masterName, HostAndPort master) {
+		info("Flushing near cache of shard {} after switch of {} to {}", shard, masterName, master);
+		Shard s = shards[shard];
+		s.active = false;
+		s.cache.clear();
+		s.invalidator.reconnect();
+	}
+
+	@Override
+	public void close() {
+		for (Shard shard : shards) {
+			shard.active = false;
+			shard.invalidator.shutdown();
+			shard.cache.clear();
+		}
+	}
+
+	private static final class HashValue {
+
+		private final Map<String, String> fields;
+		private final boolean complete;
+
+		private HashValue(Map<String, String> fields, boolean complete) {
+			this.fields = fields;
+			this.complete = complete;
+		}
+
+		static HashValue partial(String field, String value) {
+			return new HashValue(Collections.singletonMap(field, value), false);
+		}
+
+		static HashValue complete(Map<String, String> all) {
+			return new HashValue(Collections.unmodifiableMap(new HashMap<>(all)), true);
+		}
+
+		HashValue with(String field, String value) {
+			Map<String, String> copy = new HashMap<>(fields);
+			copy.put(field, value);
+			return new HashValue(Collections.unmodifiableMap(copy), false);
+		}
+	}
+
+	private final class Shard {
+
+		private final NearCache<String, Object> cache;
+		private final Invalidator invalidator;
+		private volatile boolean active;
+		/**
+		 * 是否经由缓存读过，之前缓存必定为空
+		 */
+		private volatile boolean used;
+
+		Shard(int index, NearCache<String, Object> cache) {
+			this.cache = cache;
+			this.invalidator = new Invalidator(index, this);
+		}
+	}
+
+	/**
+	 * 订阅当前 master 的 __keyspace@db__:* 通知
+	 */
+	private final class Invalidator extends Thread {
+
+		private final int index;
+		private final Shard shard;
+		private final AtomicBoolean running = new AtomicBoolean(true);
+		private volatile Jedis jedis;
+
+		Invalidator(int index, Shard shard) {
+			super("NearCacheInvalidator-" + index);
+			setDaemon(true);
+			this.index = index;
+			this.shard = shard;
+		}
+
+		@Override
+		public void run() {
+			String prefix = "__keyspace@" + pools.getDatabase() + "__:";
+			while (running.get()) {
+				HostAndPort master = pools.getMasterPools().get(index).getCurrentHostMaster();
+				try {
+					jedis = pools.connect(master);
+					if (!notificationsEnabled(jedis)) {
+						warn("Keyspace notifications are disabled on {}, near cache of shard {} stays off", master, index);
+						sleepQuietly(30_000L);
+						continue;
+					}
+					jedis.psubscribe(new JedisPubSub() {
+						@Override
+						public void onPSubscribe(String pattern, int subscribedChannels) {
+							shard.cache.clear();
+							shard.active = true;
+						}
+
+						@Override
+						public void onPMessage(String pattern, String channel, String message) {
+							shard.cache.invalidate(channel.substring(prefix.length()));
+						}
+					}, prefix + "*");
+				} catch (JedisException e) {
+					if (running.get()) {
+						warn("Lost keyspace notifications from {} for shard {}, retrying", master, index, e);
+						sleepQuietly(1000L);
+					}
+				} finally {
+					shard.active = false;
+					shard.cache.clear();
+					Jedis j = jedis;
+					jedis = null;
+					if (j != null) {
+						j.close();
+					}
+				}
+			}
+		}
+
+		/**
+		 * 至少需要 K 以及 string/hash/generic/expired/evicted 类事件
+		 */
+		private boolean notificationsEnabled(Jedis j) {
+			String flags;
+			try {
+				List<String> reply = j.configGet("notify-keyspace-events");
+				flags = reply.size() > 1 ? reply.get(1) : "";
+			} catch (JedisException e) {
+				warn("Can not check notify-keyspace-events, relying on it being enabled: {}", e.getMessage());
+				return true;
+			}
+			boolean all = flags.indexOf('A') >= 0;
+			boolean enabled = flags.indexOf('K') >= 0
+					&& (all || (flags.indexOf('$') >= 0 && flags.indexOf('h') >= 0 && flags.indexOf('g') >= 0
+							&& flags.indexOf('x') >= 0 && flags.indexOf('e') >= 0));
+			if (!enabled && configureNotifications) {
+				j.configSet("notify-keyspace-events", "K" + (flags.indexOf('E') >= 0 ? "E" : "") + "A");
+				return true;
+			}
+			return enabled;
+		}
+
+		void reconnect() {
+			Jedis j = jedis;
+			if (j != null) {
+				try {
+					j.disconnect();
+				} catch (Exception ignored) {
+				}
+			}
+		}
+
+		void shutdown() {
+			running.set(false);
+			interrupt();
+			reconnect();
+		}
+
+		private void sleepQuietly(long millis) {
+			try {
+				Thread.sleep(millis);
+			} catch (InterruptedException ignored) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
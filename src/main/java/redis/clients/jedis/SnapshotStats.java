@@ -0,0 +1,77 @@
+package redis.clients.jedis;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一个快照文件的导出或导入结果
+ */
+public class SnapshotStats {
+
+	private final String masterName;
+	private final Path file;
+	private final long keys;
+	private final long bytes;
+	private final long skipped;
+	private final long failed;
+	private final long elapsedNanos;
+
+	SnapshotStats(String masterName, Path file, long keys, long bytes, long skipped, long failed, long elapsedNanos) {
+		this.masterName = masterName;
+		this.file = file;
+		this.keys = keys;
+		this.bytes = bytes;
+		this.skipped = skipped;
+		this.failed = failed;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * @return 导出时所在的 master
+	 */
+	public String getMasterName() {
+		return masterName;
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * @return 导出或成功导入的 key 数
+	 */
+	public long getKeys() {
+		return keys;
+	}
+
+	/**
+	 * @return 文件字节数
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * @return 导入时目标上已有同名 key（不覆盖时）或已经过期而跳过的数量；导出时为扫描后已删除或过期的 key 数
+	 */
+	public long getSkipped() {
+		return skipped;
+	}
+
+	/**
+	 * @return RESTORE 失败的 key 数
+	 */
+	public long getFailed() {
+		return failed;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		return masterName + "{file=" + file + ", keys=" + keys + ", bytes=" + bytes + ", skipped=" + skipped
+				+ ", failed=" + failed + ", elapsed=" + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + "ms}";
+	}
+}
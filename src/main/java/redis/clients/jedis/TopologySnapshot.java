@@ -0,0 +1,226 @@
+package redis.clients.jedis;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link SentinelTopology} 在某一时刻的只读副本：各 master 的地址、epoch、副本，以及各 sentinel 的健康状况。
+ */
+public class TopologySnapshot {
+
+	private final long takenMillis;
+	private final long refreshedMillis;
+	private final List<Master> masters;
+	private final List<Sentinel> sentinels;
+
+	TopologySnapshot(long takenMillis, long refreshedMillis, List<Master> masters, List<Sentinel> sentinels) {
+		this.takenMillis = takenMillis;
+		this.refreshedMillis = refreshedMillis;
+		this.masters = Collections.unmodifiableList(masters);
+		this.sentinels = Collections.unmodifiableList(sentinels);
+	}
+
+	public long getTakenMillis() {
+		return takenMillis;
+	}
+
+	/**
+	 * 最近一次向所有 sentinel 全量查询完成的时间，从未查询过时为 0
+	 */
+	public long getRefreshedMillis() {
+		return refreshedMillis;
+	}
+
+	public List<Master> getMasters() {
+		return masters;
+	}
+
+	public List<Sentinel> getSentinels() {
+		return sentinels;
+	}
+
+	public static class Master {
+
+		private final String name;
+		private final HostAndPort address;
+		private final long epoch;
+		private final String flags;
+		private final List<Replica> replicas;
+		private final String source;
+		private final long updatedMillis;
+
+		Master(String name, HostAndPort address, long epoch, String flags, List<Replica> replicas, String source,
+				long updatedMillis) {
+			this.name = name;
+			this.address = address;
+			this.epoch = epoch;
+			this.flags = flags;
+			this.replicas = replicas;
+			this.source = source;
+			this.updatedMillis = updatedMillis;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public HostAndPort getAddress() {
+			return address;
+		}
+
+		/**
+		 * config-epoch，未知时为 {@link SentinelTopology#UNKNOWN_EPOCH}
+		 */
+		public long getEpoch() {
+			return epoch;
+		}
+
+		/**
+		 * sentinel 给出的 flags，如 master、s_down,master；未知时为 null
+		 */
+		public String getFlags() {
+			return flags;
+		}
+
+		/**
+		 * 未从 sentinel 取到过副本列表时为 null
+		 */
+		public List<Replica> getReplicas() {
+			return replicas;
+		}
+
+		/**
+		 * 最近一次更新来自哪个 sentinel
+		 */
+		public String getSource() {
+			return source;
+		}
+
+		public long getUpdatedMillis() {
+			return updatedMillis;
+		}
+
+		@Override
+		public String toString() {
+			return name + " " + address + " epoch " + epoch + (flags == null ? "" : " " + flags)
+					+ (replicas == null ? "" : " " + replicas.size() + " replicas");
+		}
+	}
+
+	public static class Replica {
+
+		private final HostAndPort address;
+		private final String flags;
+		private final long replOffset;
+		private final long linkDownMillis;
+
+		Replica(HostAndPort address, String flags, long replOffset, long linkDownMillis) {
+			this.address = address;
+			this.flags = flags;
+			this.replOffset = replOffset;
+			this.linkDownMillis = linkDownMillis;
+		}
+
+		public HostAndPort getAddress() {
+			return address;
+		}
+
+		public String getFlags() {
+			return flags;
+		}
+
+		/**
+		 * 被 sentinel 标记为主观、客观下线或断开
+		 */
+		public boolean isDown() {
+			return flags.contains("s_down") || flags.contains("o_down") || flags.contains("disconnected");
+		}
+
+		/**
+		 * slave-repl-offset，未知时为 -1
+		 */
+		public long getReplOffset() {
+			return replOffset;
+		}
+
+		/**
+		 * 与 master 断开的时长，未断开为 0
+		 */
+		public long getLinkDownMillis() {
+			return linkDownMillis;
+		}
+
+		@Override
+		public String toString() {
+			return address + " " + flags;
+		}
+	}
+
+	public static class Sentinel {
+
+		private final String address;
+		private final boolean reachable;
+		private final boolean subscribed;
+		private final long latencyMicros;
+		private final long lastOkMillis;
+		private final int masters;
+		private final String lastError;
+
+		Sentinel(String address, boolean reachable, boolean subscribed, long latencyMicros, long lastOkMillis,
+				int masters, String lastError) {
+			this.address = address;
+			this.reachable = reachable;
+			this.subscribed = subscribed;
+			this.latencyMicros = latencyMicros;
+			this.lastOkMillis = lastOkMillis;
+			this.masters = masters;
+			this.lastError = lastError;
+		}
+
+		public String getAddress() {
+			return address;
+		}
+
+		/**
+		 * 最近一次查询是否成功
+		 */
+		public boolean isReachable() {
+			return reachable;
+		}
+
+		/**
+		 * {@link MasterListener} 当前是否订阅着这个 sentinel 的 +switch-master
+		 */
+		public boolean isSubscribed() {
+			return subscribed;
+		}
+
+		/**
+		 * 最近一次成功查询的耗时，未成功过时为 -1
+		 */
+		public long getLatencyMicros() {
+			return latencyMicros;
+		}
+
+		public long getLastOkMillis() {
+			return lastOkMillis;
+		}
+
+		/**
+		 * 该 sentinel 监控的 master 总数（不限于本客户端使用的），没有 SENTINEL MASTERS 权限时为 -1
+		 */
+		public int getMasters() {
+			return masters;
+		}
+
+		public String getLastError() {
+			return lastError;
+		}
+
+		@Override
+		public String toString() {
+			return address + (reachable ? " ok " + latencyMicros + "us, " + masters + " masters" : " down: " + lastError)
+					+ (subscribed ? ", subscribed" : ", not subscribed");
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package redis.clients.jedis.client;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 命令名到方法的表，启动时建好：只收参数都能从命令行字符串转换的方法，
+ * 每个方法预先转成 (Object, Object[])Object 的 {@link MethodHandle}，执行时不再反射查找。
+ */
+final class CommandTable {
+
+    private static final Entry[] NONE = new Entry[0];
+
+    private final Map<String, Entry[]> byName;
+    private final Set<String> names;
+
+    private CommandTable(Map<String, Entry[]> byName, Set<String> names) {
+        this.byName = byName;
+        this.names = names;
+    }
+
+    static CommandTable of(Collection<Method> methods) {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        Map<String, List<Entry>> grouped = new HashMap<>();
+        Set<String> names = new HashSet<>();
+        for (Method method : methods) {
+            if (!supported(method.getParameterTypes())) {
+                continue;
+            }
+            MethodHandle handle;
+            try {
+                handle = lookup.unreflect(method).asFixedArity();
+            } catch (IllegalAccessException e) {
+                continue;
+            }
+            int arity = method.getParameterCount();
+            handle = handle.asSpreader(Object[].class, arity)
+                    .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+            grouped.computeIfAbsent(method.getName().toLowerCase(Locale.ROOT), k -> new ArrayList<>())
+                    .add(new Entry(method, handle));
+            names.add(method.getName());
+        }
+        Map<String, Entry[]> byName = new HashMap<>();
+        // 参数少的在前，同样多时定长的在前，其余按签名，保证选择稳定
+        Comparator<Entry> order = Comparator.<Entry>comparingInt(e -> e.types.length)
+                .thenComparing(e -> e.varargs)
+                .thenComparing(e -> e.method.toGenericString());
+        grouped.forEach((name, entries) -> {
+            entries.sort(order);
+            byName.put(name, entries.toArray(NONE));
+        });
+        return new CommandTable(byName, Collections.unmodifiableSet(names));
+    }
+
+    private static boolean supported(Class<?>[] types) {
+        for (int i = 0; i < types.length; i++) {
+            Class<?> type = types[i];
+            if (type == String[].class && i == types.length - 1) {
+                continue;
+            }
+            if (type != String.class && type != long.class && type != Long.class && type != int.class
+                    && type != Integer.class && type != double.class && type != Double.class) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 方法原来的名字，用于命令补全
+     */
+    Set<String> names() {
+        return names;
+    }
+
+    /**
+     * 先找参数个数相同的方法，没有时找最后一个参数是 String... 且能容纳这些参数的方法
+     */
+    Entry find(String name, int paramCount) {
+        Entry[] entries = byName.getOrDefault(name.toLowerCase(Locale.ROOT), NONE);
+        for (Entry entry : entries) {
+            if (entry.types.length == paramCount) {
+                return entry;
+            }
+        }
+        for (Entry entry : entries) {
+            if (entry.varargs && entry.types.length <= paramCount) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    static final class Entry {
+
+        final Method method;
+        final Class<?>[] types;
+        final boolean varargs;
+        private final MethodHandle handle;
+
+        private Entry(Method method, MethodHandle handle) {
+            this.method = method;
+            this.types = method.getParameterTypes();
+            this.varargs = types.length > 0 && types[types.length - 1].isArray();
+            this.handle = handle;
+        }
+
+        /**
+         * 把命令行参数转换成方法的参数，格式不对时抛出 {@link IllegalArgumentException}
+         */
+        Object[] arguments(List<String> params) {
+            Object[] args = new Object[types.length];
+            for (int i = 0; i < types.length; i++) {
+                if (i == types.length - 1 && varargs) {
+                    args[i] = params.subList(i, params.size()).toArray(new String[0]);
+                } else {
+                    args[i] = resolveValue(params.get(i), types[i]);
+                }
+            }
+            return args;
+        }
+
+        Object invoke(Object target, Object[] args) throws Throwable {
+            return handle.invokeExact(target, args);
+        }
+
+        @Override
+        public String toString() {
+            return method.getName() + Arrays.toString(types);
+        }
+    }
+
+    private static Object resolveValue(String value, Class<?> clazz) {
+        if (clazz == String.class) {
+            return value;
+        }
+        if (clazz == Long.class || clazz == long.class) {
+            return Long.valueOf(value);
+        }
+        if (clazz == Integer.class || clazz == int.class) {
+            return Integer.valueOf(value);
+        }
+        if (clazz == Double.class || clazz == double.class) {
+            return Double.valueOf(value);
+        }
+        throw new IllegalArgumentException("Unsupported parameter type: " + clazz);
+    }
+}
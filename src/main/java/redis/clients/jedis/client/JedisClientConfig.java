@@ -13,6 +13,8 @@ import redis.clients.jedis.Jedis;
 import redis.clients.jedis.Protocol;
 import redis.clients.jedis.JedisSentinelPools;
 import redis.clients.jedis.util.PropertiesPlus;
+import redis.clients.jedis.util.RedisConstants;
+import redis.clients.jedis.util.ShardingStrategy;
 
 public class JedisClientConfig {
 
@@ -35,6 +37,8 @@ public class JedisClientConfig {
 	private final Duration connectionTimeout;
 	private final Duration soTimeout;
 	private final String clientName;
+	private final Duration startupTimeout;
+	private final ShardingStrategy shardingStrategy;
 
 	public JedisClientConfig(String config) {
 		prop = PropertiesPlus.load(config);
@@ -53,6 +57,13 @@ public class JedisClientConfig {
 		connectionTimeout = prop.getDuration("redis.connection-timeout", Duration.ofMillis(Protocol.DEFAULT_TIMEOUT));
 		soTimeout = prop.getDuration("redis.so-timeout", Duration.ofMillis(Protocol.DEFAULT_TIMEOUT));
 		clientName = prop.getString("redis.client-name", null);
+		startupTimeout = prop.getDuration("redis.startup-timeout", Duration.ofMillis(JedisSentinelPools.DEFAULT_STARTUP_TIMEOUT_MILLIS));
+		// 与 ShardedJedisSentinelPoolManager 读同样的键，同一份配置文件的分片才一致
+		ShardingStrategy strategy = ShardingStrategy.of(prop.getString(RedisConstants.SHARDING_STRATEGY, "ketama"));
+		if (prop.getBoolean(RedisConstants.SHARDING_HASH_TAGS, false) && !strategy.toString().endsWith("+hashtags")) {
+			strategy = strategy.withHashTags();
+		}
+		shardingStrategy = strategy;
 	}
 
 	public JedisSentinelPools jedisSentinelPools() {
@@ -61,9 +72,18 @@ public class JedisClientConfig {
 		poolConfig.setMaxIdle(poolMaxIdle);
 		poolConfig.setMaxTotal(poolMaxTotal);
 		poolConfig.setBlockWhenExhausted(poolBlockWhenExhausted);
-		return new JedisSentinelPools(masterNames, sentinels, poolConfig, (int) connectionTimeout.toMillis(), (int) soTimeout.toMillis(),
-				password, database, clientName, (int) sentinelConnectionTimeout.toMillis(), (int) sentinelSoTimeout.toMillis(), sentinelPassword,
-				sentinelClientName);
+		JedisSentinelPools pools = new JedisSentinelPools(masterNames, sentinels, poolConfig, (int) connectionTimeout.toMillis(), (int) soTimeout.toMillis(),
+				0, null, password, database, clientName, (int) sentinelConnectionTimeout.toMillis(), (int) sentinelSoTimeout.toMillis(), null,
+				sentinelPassword, sentinelClientName, startupTimeout.toMillis());
+		pools.setShardingStrategy(shardingStrategy);
+		return pools;
+	}
+
+	/**
+	 * 与应用端一致的分片算法，否则命令行看到的 key 归属与应用不同
+	 */
+	public ShardingStrategy shardingStrategy() {
+		return shardingStrategy;
 	}
 
 	public Set<HostAndPort> sentinels() {
@@ -1,7 +1,14 @@
 package redis.clients.jedis.client;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 import org.jline.reader.EndOfFileException;
 import org.jline.reader.LineReader;
@@ -19,9 +26,13 @@ public class JedisCmdClient {
 					+ "=================================" + System.lineSeparator()
 					+ "usage:" + System.lineSeparator()
 					+ "e.g. config.properties" + System.lineSeparator()
+					+ "     config.properties --batch commands.txt   (- reads stdin)" + System.lineSeparator()
 					+ "=================================");
 			System.exit(-1);
 		}
+		if (args.length >= 3 && "--batch".equals(args[1])) {
+			System.exit(runBatch(args[0], args[2]) == 0 ? 0 : 1);
+		}
 
 		try (Terminal terminal = TerminalBuilder.terminal()) {
 			JedisCmdExecutor jedisCmdExecutor = new JedisCmdExecutor(new JedisClientConfig(args[0]));
@@ -56,4 +67,16 @@ public class JedisCmdClient {
 			// Ctrl+C Ctrl+D
 		}
 	}
+
+	private static long runBatch(String config, String input) throws IOException {
+		JedisCmdExecutor jedisCmdExecutor = new JedisCmdExecutor(new JedisClientConfig(config));
+		PrintWriter printWriter = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+		try (BufferedReader reader = "-".equals(input)
+				? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+				: Files.newBufferedReader(Paths.get(input), StandardCharsets.UTF_8)) {
+			return jedisCmdExecutor.runBatch(reader, printWriter);
+		} finally {
+			printWriter.flush();
+		}
+	}
 }
@@ -3,23 +3,38 @@ package redis.clients.jedis.client;
 import redis.clients.jedis.JedisSentinelPools;
 import redis.clients.jedis.ShardedJedisSentinel;
 import redis.clients.jedis.*;
+import redis.clients.jedis.util.HotKeySketch;
 
+import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.PrintWriter;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.file.Paths;
+import java.lang.reflect.Modifier;
 import java.text.DecimalFormat;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class JedisCmdExecutor {
 
-    private final Set<Method> methods;
+    private static final Set<String> MULTI_KEY_COMMANDS = new HashSet<>(Arrays.asList("mget", "mset", "del", "exists", "unlink"));
+
+    private static final Set<String> SPECIAL_COMMANDS = new HashSet<>(Arrays.asList(
+            "sentinels", "masters", "dbsize", "scan", "flushdb", "deletebypattern", "export", "import", "analyze", "hotkeys"));
+
+    private final CommandTable commandTable;
+    private final CommandTable pipelineTable;
 
     private final int scanParallelism;
-    private final int flushParallelism;
     private final int flushBatch;
+    private final int flushMaxKeysPerSecond;
+    private final boolean flushAsync;
+    private final int snapshotScanCount;
+    private final int analyzeScanCount;
+    private final int batchSize;
+    private final boolean batchPrintReplies;
 
     private final JedisClientConfig jedisClientConfig;
     private final JedisSentinelPools pools;
@@ -28,19 +43,62 @@ public class JedisCmdExecutor {
         this.jedisClientConfig = jedisClientConfig;
         pools = jedisClientConfig.jedisSentinelPools();
         
-        methods = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(ShardedJedis.class.getDeclaredMethods())));
+        Set<Method> all = new HashSet<>(Arrays.asList(ShardedJedis.class.getDeclaredMethods()));
+        // ShardedJedisSentinel 上按 master 拆分的多 key 命令
+        for (Method method : ShardedJedisSentinel.class.getDeclaredMethods()) {
+            if (MULTI_KEY_COMMANDS.contains(method.getName()) && Modifier.isPublic(method.getModifiers())) {
+                all.add(method);
+            }
+        }
+        commandTable = CommandTable.of(all);
+        // 批量模式下单 key 命令走 pipeline，按第一个参数（key）分组；只收 ShardedJedis 上同名同参数的命令，
+        // rename、keys、eval 等多 key 或非 key 命令交给 run()，与交互模式一致
+        Set<String> sharded = new HashSet<>();
+        for (Method method : ShardedJedis.class.getMethods()) {
+            sharded.add(signature(method));
+        }
+        List<Method> pipelined = new ArrayList<>();
+        for (Method method : Pipeline.class.getMethods()) {
+            if (method.getReturnType() == Response.class && method.getParameterCount() > 0
+                    && method.getParameterTypes()[0] == String.class && !MULTI_KEY_COMMANDS.contains(method.getName())
+                    && sharded.contains(signature(method))) {
+                pipelined.add(method);
+            }
+        }
+        pipelineTable = CommandTable.of(pipelined);
         scanParallelism = jedisClientConfig.prop.getInteger("scan.parallelism", 10);
-        flushParallelism = jedisClientConfig.prop.getInteger("flush.parallelism", 10);
         flushBatch = jedisClientConfig.prop.getInteger("flush.batch", 10);
+        flushMaxKeysPerSecond = jedisClientConfig.prop.getInteger("flush.max-keys-per-second", -1);
+        flushAsync = jedisClientConfig.prop.getBoolean("flush.async", true);
+        snapshotScanCount = jedisClientConfig.prop.getInteger("snapshot.scan-count", 1000);
+        analyzeScanCount = jedisClientConfig.prop.getInteger("analyze.scan-count", 1000);
+        batchSize = jedisClientConfig.prop.getInteger("batch.size", 10000);
+        batchPrintReplies = jedisClientConfig.prop.getBoolean("batch.print-replies", false);
+        if (jedisClientConfig.prop.getBoolean("hotkeys.enabled", false)) {
+            HotKeyPolicy defaults = HotKeyPolicy.DEFAULT;
+            pools.enableHotKeys(new HotKeyPolicy(
+                    jedisClientConfig.prop.getInteger("hotkeys.top-k", defaults.getTopK()),
+                    jedisClientConfig.prop.getInteger("hotkeys.width", defaults.getWidth()),
+                    jedisClientConfig.prop.getDuration("hotkeys.half-life", Duration.ofMillis(defaults.getHalfLifeMillis())).toMillis()));
+        }
+    }
+
+    private static String signature(Method method) {
+        return method.getName() + Arrays.toString(method.getParameterTypes());
     }
 
     public Set<String> commands() {
-        Set<String> set = methods.stream().map(Method::getName).collect(Collectors.toSet());
+        Set<String> set = new HashSet<>(commandTable.names());
         set.add("sentinels");
         set.add("masters");
         set.add("dbSize");
         set.add("scan");
         set.add("flushDB");
+        set.add("deleteByPattern");
+        set.add("export");
+        set.add("import");
+        set.add("analyze");
+        set.add("hotkeys");
         return set;
     }
 
@@ -48,104 +106,187 @@ public class JedisCmdExecutor {
         String cmd = words[0];
         LinkedList<String> params = new LinkedList<>(Arrays.asList(words));
         params.removeFirst();
-        if ("sentinels".equalsIgnoreCase(cmd) && params.size() == 0) {
-            doSentinels(writer);
+        if ("sentinels".equalsIgnoreCase(cmd) && (params.size() == 0 || params.size() == 1 && "refresh".equalsIgnoreCase(params.get(0)))) {
+            doSentinels(topology(params.size() == 1), writer);
             return;
         }
-        if ("masters".equalsIgnoreCase(cmd) && params.size() == 0) {
-            doMasters(writer);
+        if ("masters".equalsIgnoreCase(cmd) && (params.size() == 0 || params.size() == 1 && "refresh".equalsIgnoreCase(params.get(0)))) {
+            doMasters(topology(params.size() == 1), writer);
             return;
         }
         if ("dbSize".equalsIgnoreCase(cmd) && params.size() == 0) {
             doDbSize(writer);
             return;
         }
-        if ("scan".equalsIgnoreCase(cmd) && params.size() == 2) {
-            doScan(params.get(0), Integer.parseInt(params.get(1)), writer);
+        if ("scan".equalsIgnoreCase(cmd) && (params.size() == 2 || params.size() == 3)) {
+            doScan(params.get(0), Integer.parseInt(params.get(1)), params.size() > 2 ? params.get(2) : null, writer);
+            return;
+        }
+        if ("deleteByPattern".equalsIgnoreCase(cmd) && params.size() == 2) {
+            if ("Sure".equals(params.get(1))) {
+                doDeleteByPattern(params.get(0), writer);
+                return;
+            }
+        }
+        if ("export".equalsIgnoreCase(cmd) && params.size() == 1) {
+            doSnapshot(pools.exportSnapshot(Paths.get(params.get(0)), snapshotScanCount), "Exported", writer);
+            return;
+        }
+        if ("import".equalsIgnoreCase(cmd) && (params.size() == 1 || params.size() == 2 && "replace".equalsIgnoreCase(params.get(1)))) {
+            doSnapshot(pools.importSnapshot(Paths.get(params.get(0)), params.size() == 2), "Imported", writer);
+            return;
+        }
+        if ("analyze".equalsIgnoreCase(cmd) && params.size() <= 2) {
+            doAnalyze(params.size() > 0 ? Double.parseDouble(params.get(0)) : 1.0,
+                    params.size() > 1 ? Integer.parseInt(params.get(1)) : 20, writer);
+            return;
+        }
+        if ("hotkeys".equalsIgnoreCase(cmd) && params.size() <= 1) {
+            doHotKeys(params.size() > 0 ? Integer.parseInt(params.get(0)) : 10, writer);
             return;
         }
         if ("flushDB".equalsIgnoreCase(cmd) && params.size() == 1) {
             if ("Sure".equals(params.get(0))) {
-                doFlushDB(writer);
+                doDeleteByPattern("*", writer);
                 return;
             }
         }
-        final Method method = chooseBest(cmd, params.size());
-        if (method == null) {
+        CommandTable.Entry entry = commandTable.find(cmd, params.size());
+        if (entry == null) {
             throw new IllegalStateException("No such CMD: '" + cmd + "' with " + params.size() + " args");
         }
-        Class<?>[] pTypes = method.getParameterTypes();
-        final Object[] args = new Object[pTypes.length];
-        for (int i = 0; i < pTypes.length; i++) {
-            if (pTypes[i].isArray()) {
-                if (i != pTypes.length - 1 || !pTypes[i].getComponentType().isAssignableFrom(String.class)) {
-                    throw new IllegalStateException("Unsupported method: " + method);
-                }
-                String[] arr = new String[params.size() - i];
-                for (int j = 0; j < arr.length; j++) {
-                    arr[j] = params.get(i + j);
+        Object[] args = entry.arguments(params);
+        try (ShardedJedis shardedJedis = new ShardedJedisSentinel(jedisSentinelPools())) {
+            formatPrint(entry.invoke(shardedJedis, args), writer);
+        }
+    }
+
+    /**
+     * 非交互的批量模式：逐行读取命令，单 key 命令按 master 分组后用 pipeline 发送，每 batch.size 条同步一次；
+     * 其它命令先同步已缓存的命令，再按交互模式执行。空行和 # 开头的行忽略。
+     * 默认只打印出错的行（行号与错误）和汇总，batch.print-replies 为 true 时打印每条回复。
+     *
+     * @return 出错的命令数
+     */
+    public long runBatch(BufferedReader reader, PrintWriter writer) throws IOException {
+        ShardedJedisSentinelPipeline pipeline = pools.pipelined();
+        List<Long> lineNumbers = new ArrayList<>();
+        List<CompletableFuture<?>> replies = new ArrayList<>();
+        long[] counts = new long[2];
+        long lineNumber = 0;
+        long start = System.currentTimeMillis();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            counts[0]++;
+            String[] words = line.split("\\s+");
+            CommandTable.Entry entry = SPECIAL_COMMANDS.contains(words[0].toLowerCase(Locale.ROOT))
+                    ? null : pipelineTable.find(words[0], words.length - 1);
+            if (entry == null) {
+                syncBatch(pipeline, lineNumbers, replies, counts, writer);
+                try {
+                    run(words, writer);
+                } catch (Throwable e) {
+                    counts[1]++;
+                    writer.println("(" + lineNumber + ") Error: " + e);
                 }
-                args[i] = arr;
-            } else {
-                args[i] = resolveValue(params.get(i), pTypes[i]);
+                continue;
+            }
+            Object[] args;
+            try {
+                args = entry.arguments(Arrays.asList(words).subList(1, words.length));
+            } catch (RuntimeException e) {
+                counts[1]++;
+                writer.println("(" + lineNumber + ") Error: " + e);
+                continue;
             }
+            lineNumbers.add(lineNumber);
+            replies.add(pipeline.execute(words[1], p -> invoke(entry, p, args)));
+            if (pipeline.size() >= batchSize) {
+                syncBatch(pipeline, lineNumbers, replies, counts, writer);
+            }
+        }
+        syncBatch(pipeline, lineNumbers, replies, counts, writer);
+        long elapsed = System.currentTimeMillis() - start;
+        writer.println("Executed " + counts[0] + " commands, " + counts[1] + " errors in " + formatDuration(elapsed)
+                + " (" + (elapsed <= 0 ? counts[0] : counts[0] * 1000 / elapsed) + " commands/s)");
+        writer.flush();
+        return counts[1];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Response<Object> invoke(CommandTable.Entry entry, Pipeline pipeline, Object[] args) {
+        try {
+            return (Response<Object>) entry.invoke(pipeline, args);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
         }
-        try (ShardedJedis shardedJedis = new ShardedJedisSentinel(jedisSentinelPools().getShards())) {
-            formatPrint(method.invoke(shardedJedis, args), writer);
-        } catch (InvocationTargetException e) {
-            throw e.getTargetException();
+    }
+
+    private void syncBatch(ShardedJedisSentinelPipeline pipeline, List<Long> lineNumbers,
+            List<CompletableFuture<?>> replies, long[] counts, PrintWriter writer) {
+        pipeline.sync();
+        for (int i = 0; i < replies.size(); i++) {
+            try {
+                Object reply = replies.get(i).join();
+                if (batchPrintReplies) {
+                    writer.println("(" + lineNumbers.get(i) + ") " + showElement(reply));
+                }
+            } catch (CompletionException e) {
+                counts[1]++;
+                writer.println("(" + lineNumbers.get(i) + ") Error: " + (e.getCause() != null ? e.getCause() : e));
+            }
         }
+        lineNumbers.clear();
+        replies.clear();
+        writer.flush();
     }
 
     private JedisSentinelPools jedisSentinelPools() {
         return pools;
     }
 
-    private void doSentinels(PrintWriter printWriter) {
-        List<String> lst = new LinkedList<>();
-        for (HostAndPort sentinel : jedisClientConfig.sentinels()) {
-            String str;
-            try (Jedis j = jedisClientConfig.sentinel(sentinel)) {
-                str = sentinel + " " + j.sentinelMasters().size();
-            } catch (RuntimeException e) {
-                str = sentinel + " " + e.getMessage();
-            }
-            lst.add(str);
+    /**
+     * 拓扑缓存的快照，从未全量查询过或要求刷新时先并行查询所有 sentinel
+     */
+    private TopologySnapshot topology(boolean refresh) {
+        TopologySnapshot snapshot = pools.getTopology().snapshot();
+        if (refresh || snapshot.getRefreshedMillis() == 0) {
+            snapshot = pools.getTopology().refresh();
         }
-        formatPrint(lst, printWriter);
+        return snapshot;
     }
 
-    private void doMasters(PrintWriter printWriter) {
-        List<Map<String, String>> masters = null;
-        for (HostAndPort sentinel : jedisClientConfig.sentinels()) {
-            try (Jedis j = jedisClientConfig.sentinel(sentinel)) {
-                masters = j.sentinelMasters();
-                break;
-            } catch (RuntimeException ignored) {
+    private static void doSentinels(TopologySnapshot snapshot, PrintWriter printWriter) {
+        formatPrint(snapshot.getSentinels(), printWriter);
+        printRefreshed(snapshot, printWriter);
+    }
 
-            }
-        }
-        if (masters == null) {
-            throw new IllegalStateException("All sentinels not available");
-        }
-        Map<String, Map<String, String>> map = new HashMap<>();
-        for (Map<String, String> master : masters) {
-            map.put(master.get("name"), master);
-        }
+    private static void doMasters(TopologySnapshot snapshot, PrintWriter printWriter) {
         List<String> lst = new LinkedList<>();
-        for (String masterName : jedisClientConfig.masterNames()) {
-            Map<String, String> master = map.get(masterName);
-            if (master == null) {
-                lst.add(masterName + " --> " + "Not Available");
-            } else {
-                lst.add(masterName + " --> " + master.get("ip") + ":" + master.get("port") + " " + master.get("num-slaves"));
-            }
+        for (TopologySnapshot.Master master : snapshot.getMasters()) {
+            List<TopologySnapshot.Replica> replicas = master.getReplicas();
+            lst.add(master.getName() + " --> " + master.getAddress() + " "
+                    + (replicas == null ? "?" : Integer.toString(replicas.size()))
+                    + " epoch " + master.getEpoch() + (master.getFlags() == null ? "" : " " + master.getFlags()));
         }
         formatPrint(lst, printWriter);
+        printRefreshed(snapshot, printWriter);
+    }
+
+    private static void printRefreshed(TopologySnapshot snapshot, PrintWriter printWriter) {
+        printWriter.println("Refreshed " + formatDuration(snapshot.getTakenMillis() - snapshot.getRefreshedMillis()) + " ago");
+        printWriter.flush();
     }
 
     private void doDbSize(PrintWriter printWriter) {
-        try (ShardedJedis shardedJedis = new ShardedJedisSentinel(jedisSentinelPools().getShards())) {
+        try (ShardedJedis shardedJedis = new ShardedJedisSentinel(jedisSentinelPools())) {
             List<String> lst = new LinkedList<>();
             long total = 0;
             for (Jedis j : shardedJedis.getAllShards()) {
@@ -165,114 +306,157 @@ public class JedisCmdExecutor {
         }
     }
 
-    private void doScan(String pattern, int limit, PrintWriter writer) throws InterruptedException {
-        ScanParams scanParams = new ScanParams().match(pattern).count(Math.min(Math.max(1000, limit), 10000));
-        ExecutorService executorService = Executors.newWorkStealingPool(scanParallelism);
-        try (ShardedJedis shardedJedis = new ShardedJedisSentinel(jedisSentinelPools().getShards())) {
-            List<String> err = new LinkedList<>();
-            int seq = 0;
-            CompletionService<ScanResult<String>> cs = new ExecutorCompletionService<>(executorService);
-            Map<Future<ScanResult<String>>, Jedis> scanners = new HashMap<>();
-            long start = System.currentTimeMillis();
-            for (Jedis j : shardedJedis.getAllShards()) {
-                scanners.put(cs.submit(() -> j.scan("0", scanParams)), j);
-            }
-            while (!scanners.isEmpty() && seq < limit) {
-                Future<ScanResult<String>> future = cs.take();
-                Jedis j = scanners.remove(future);
-                ScanResult<String> scanResult;
-                try {
-                    scanResult = future.get();
-                } catch (ExecutionException ee) {
-                    err.add(resolveServer(j) + " " + ee.getCause().getMessage());
-                    continue;
+    private void doScan(String pattern, int limit, String type, PrintWriter writer) {
+        ScanOptions options = new ScanOptions(pattern, Math.min(Math.max(1000, limit), 10000), type, scanParallelism);
+        long start = System.currentTimeMillis();
+        int[] seq = {0};
+        try (Stream<String> keys = pools.scan(options)) {
+            keys.limit(limit).forEach(key -> {
+                writer.print("(" + (++seq[0]) + ") ");
+                writer.println(key);
+                if (seq[0] % 1000 == 0) {
+                    writer.flush();
                 }
-                for (String key : scanResult.getResult()) {
-                    if (seq >= limit) {
-                        break;
-                    }
-                    writer.print("(" + (++seq) + ") ");
-                    writer.println(key);
-                }
-                writer.flush();
-                String cursor = scanResult.getCursor();
-                if (seq < limit && !"0".equals(cursor)) {
-                    scanners.put(cs.submit(() -> j.scan(cursor, scanParams)), j);
+            });
+        } catch (RuntimeException e) {
+            writer.println("Error " + e.getMessage() + (e.getCause() != null ? " " + e.getCause().getMessage() : ""));
+        }
+        long end = System.currentTimeMillis();
+        writer.println("Found " + seq[0] + " in " + formatDuration(end - start));
+        writer.flush();
+    }
+
+    private void doDeleteByPattern(String pattern, PrintWriter writer) throws InterruptedException {
+        DeletePolicy policy = new DeletePolicy(Math.min(Math.max(1000, flushBatch), 10000), flushMaxKeysPerSecond, flushAsync);
+        writer.println("WARNING: delete " + pattern + " on " + pools.getMasterPools().size() + " masters in progress...");
+        writer.flush();
+        long start = System.currentTimeMillis();
+        try (PatternDelete delete = pools.deleteByPattern(pattern, policy)) {
+            while (true) {
+                try {
+                    delete.completion().get(1, TimeUnit.SECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    printDeleteProgress(delete.progress(), System.currentTimeMillis() - start, writer);
+                } catch (ExecutionException e) {
+                    writer.println("Error " + e.getCause().getMessage());
+                    break;
                 }
             }
-            long end = System.currentTimeMillis();
-            writer.println("Found " + seq + " in " + formatDuration(end - start));
-            writer.flush();
-            if (!err.isEmpty()) {
-                writer.println("Error " + err.size());
-                writer.flush();
-                formatPrint(err, writer);
+            List<String> lst = new LinkedList<>();
+            for (DeleteProgress progress : delete.progress()) {
+                lst.add(progress.toString());
             }
-            if (!scanners.isEmpty()) {
-                writer.println("Waiting " + scanners.size() + " scanners to shutdown... ");
-                writer.flush();
-                while (!scanners.isEmpty()) {
-                    scanners.remove(cs.take());
+            formatPrint(lst, writer);
+            printDeleteProgress(delete.progress(), System.currentTimeMillis() - start, writer);
+        }
+    }
+
+    private void doAnalyze(double sampleRate, int topN, PrintWriter writer) {
+        writer.println("Analyzing " + pools.getMasterPools().size() + " masters" + (sampleRate < 1 ? " (sample " + sampleRate + ")" : "") + "...");
+        writer.flush();
+        KeyspaceReport report = pools.analyze(new AnalyzeOptions(analyzeScanCount, sampleRate, topN));
+        long totalKeys = 0;
+        long totalBytes = 0;
+        for (KeyspaceReport.MasterStats m : report.getMasters()) {
+            totalKeys += m.getKeys();
+            totalBytes += m.getBytes();
+        }
+        writer.println("== Masters (key skew " + new DecimalFormat("0.00").format(report.getKeySkew()) + ")");
+        List<String> lst = new LinkedList<>();
+        for (KeyspaceReport.MasterStats m : report.getMasters()) {
+            lst.add(m.getMasterName() + " " + m.getKeys() + " keys (" + percent(m.getKeys(), totalKeys) + "), "
+                    + formatBytes(m.getBytes()) + " (" + percent(m.getBytes(), totalBytes) + ")"
+                    + (m.getError() == null ? "" : " Error: " + m.getError()));
+        }
+        formatPrint(lst, writer);
+        writer.println("== Types");
+        lst = new LinkedList<>();
+        for (KeyspaceReport.TypeStats t : report.getTypes().values()) {
+            StringBuilder sb = new StringBuilder(t.getType() + " " + t.getKeys() + " keys, " + formatBytes(t.getBytes())
+                    + ", " + t.getElements() + " elements, sizes:");
+            long[] histogram = t.getHistogram();
+            for (int i = 0; i < histogram.length; i++) {
+                if (histogram[i] > 0) {
+                    sb.append(" <").append(formatBytes(1L << (i + 1))).append(":").append(histogram[i]);
                 }
-                writer.println("Done");
-                writer.flush();
             }
-        } finally {
-            executorService.shutdownNow();
+            lst.add(sb.toString());
         }
+        formatPrint(lst, writer);
+        writer.println("== Top " + report.getBigKeys().size() + " keys");
+        formatPrint(report.getBigKeys(), writer);
+        writer.println("Analyzed " + totalKeys + " keys, " + formatBytes(totalBytes) + " in "
+                + formatDuration(TimeUnit.NANOSECONDS.toMillis(report.getElapsedNanos())));
+        writer.flush();
     }
 
-    private void doFlushDB(PrintWriter writer) throws InterruptedException, ExecutionException {
-        ScanParams scanParams = new ScanParams().match("*").count(Math.min(Math.max(1000, flushBatch), 10000));
-        ExecutorService executorService = Executors.newWorkStealingPool(flushParallelism);
-        try (ShardedJedis shardedJedis = new ShardedJedisSentinel(jedisSentinelPools().getShards())) {
-            writer.println("WARNING: flushDB(" + shardedJedis.getAllShards().size() + ") in progress...");
+    /**
+     * 本进程经由 ShardedJedisSentinel 和批量模式发出的命令中，各 master 上估计访问次数最高的 key
+     */
+    private void doHotKeys(int topN, PrintWriter writer) {
+        HotKeys hotKeys = pools.getHotKeys();
+        if (hotKeys == null) {
+            writer.println("Hot key detection is disabled, set hotkeys.enabled = true");
             writer.flush();
-            AtomicLong cnt = new AtomicLong();
-            AtomicLong total = new AtomicLong();
-            CompletionService<String> cs = new ExecutorCompletionService<>(executorService);
-            long start = System.currentTimeMillis();
-            for (Jedis j : shardedJedis.getAllShards()) {
-                cs.submit(() -> {
-                    String str;
-                    try {
-                        long sum = 0;
-                        int err = 0;
-                        String cursor = "0";
-                        do {
-                            ScanResult<String> scanResult = j.scan(cursor, scanParams);
-                            if (!scanResult.getResult().isEmpty()) {
-                                total.addAndGet(scanResult.getResult().size());
-                                try {
-                                    long del = j.del(scanResult.getResult().toArray(new String[0]));
-                                    sum += del;
-                                    cnt.addAndGet(del);
-                                } catch (RuntimeException e) {
-                                    err++;
-                                }
-                            }
-                            cursor = scanResult.getCursor();
-                        } while (!"0".equals(cursor));
-                        str = resolveServer(j) + " " + sum + (err > 0 ? " (Error: " + err + " times)" : "");
-                    } catch (RuntimeException e) {
-                        str = resolveServer(j) + " " + e.getMessage();
-                    }
-                    return str;
-                });
-            }
-            int seq = 0;
-            for (int i = 0; i < shardedJedis.getAllShards().size(); i++) {
-                Future<String> future = cs.take();
-                writer.print("(" + (++seq) + ") ");
-                writer.println(future.get());
-                writer.flush();
+            return;
+        }
+        for (int shard = 0; shard < hotKeys.shards(); shard++) {
+            long recorded = hotKeys.getRecorded(shard);
+            writer.println("== " + hotKeys.getMasterName(shard) + " (" + recorded + " commands)");
+            List<String> lst = new LinkedList<>();
+            for (HotKeySketch.HotKey hotKey : hotKeys.topKeys(shard)) {
+                if (lst.size() >= topN) {
+                    break;
+                }
+                lst.add(hotKey.getKey() + " " + hotKey.getCount() + " (" + percent(hotKey.getCount(), recorded) + ")");
             }
-            long end = System.currentTimeMillis();
-            writer.println("Deleted " + cnt.get() + " / " + total.get() + " in " + formatDuration(end - start));
-            writer.flush();
-        } finally {
-            executorService.shutdown();
+            formatPrint(lst, writer);
+        }
+        writer.flush();
+    }
+
+    private static String percent(long part, long total) {
+        return total == 0 ? "0%" : new DecimalFormat("0.0").format(part * 100.0 / total) + "%";
+    }
+
+    private static String formatBytes(long bytes) {
+        String[] units = {"B", "KB", "MB", "GB", "TB"};
+        double value = bytes;
+        int unit = 0;
+        while (value >= 1024 && unit < units.length - 1) {
+            value /= 1024;
+            unit++;
+        }
+        return (unit == 0 ? Long.toString(bytes) : new DecimalFormat("0.#").format(value)) + units[unit];
+    }
+
+    private static void doSnapshot(List<SnapshotStats> stats, String verb, PrintWriter writer) {
+        List<String> lst = new LinkedList<>();
+        long keys = 0;
+        long bytes = 0;
+        long elapsed = 0;
+        for (SnapshotStats s : stats) {
+            lst.add(s.toString());
+            keys += s.getKeys();
+            bytes += s.getBytes();
+            elapsed = Math.max(elapsed, TimeUnit.NANOSECONDS.toMillis(s.getElapsedNanos()));
+        }
+        formatPrint(lst, writer);
+        writer.println(verb + " " + keys + " keys (" + bytes + " bytes) in " + formatDuration(elapsed));
+        writer.flush();
+    }
+
+    private static void printDeleteProgress(List<DeleteProgress> progress, long elapsedMillis, PrintWriter writer) {
+        long matched = 0;
+        long deleted = 0;
+        for (DeleteProgress p : progress) {
+            matched += p.getMatched();
+            deleted += p.getDeleted();
         }
+        long rate = elapsedMillis <= 0 ? 0 : deleted * 1000 / elapsedMillis;
+        writer.println("Deleted " + deleted + " / " + matched + " in " + formatDuration(elapsedMillis) + " (" + rate + " keys/s)");
+        writer.flush();
     }
 
     private static String formatDuration(long millis) {
@@ -303,38 +487,6 @@ public class JedisCmdExecutor {
         return sb.toString();
     }
 
-    private Method chooseBest(String cmd, int paramNum) {
-        Method candidate = null;
-        for (Method method : methods) {
-            if (!method.getName().equalsIgnoreCase(cmd)) {
-                continue;
-            }
-            Class<?>[] pTypes = method.getParameterTypes();
-            boolean incompatible = false;
-            for (Class<?> pType : pTypes) {
-                if (Map.class.isAssignableFrom(pType)) {
-                    incompatible = true;
-                    break;
-                }
-            }
-            if (incompatible) {
-                continue;
-            }
-            if (pTypes.length == paramNum) {
-                candidate = method;
-                break;
-            }
-            if (pTypes.length > paramNum) {
-                continue;
-            }
-            if (pTypes[pTypes.length - 1].isArray()) {
-                candidate = method;
-                break;
-            }
-        }
-        return candidate;
-    }
-
     private static void formatPrint(Object obj, PrintWriter writer) {
         if (obj instanceof Collection) {
             Collection<?> col = (Collection<?>) obj;
@@ -379,31 +531,6 @@ public class JedisCmdExecutor {
         return element.toString();
     }
 
-    private static Object resolveValue(String value, Class<?> clazz) {
-        if (clazz.isAssignableFrom(String.class)) {
-            return value;
-        }
-        if (clazz.isAssignableFrom(Long.class)) {
-            return Long.valueOf(value);
-        }
-        if (clazz.isAssignableFrom(long.class)) {
-            return Long.parseLong(value);
-        }
-        if (clazz.isAssignableFrom(Integer.class)) {
-            return Integer.valueOf(value);
-        }
-        if (clazz.isAssignableFrom(int.class)) {
-            return Integer.parseInt(value);
-        }
-        if (clazz.isAssignableFrom(Double.class)) {
-            return Double.valueOf(value);
-        }
-        if (clazz.isAssignableFrom(double.class)) {
-            return Double.parseDouble(value);
-        }
-        throw new IllegalStateException("Unsupported parameter type: " + clazz);
-    }
-
     private static String resolveServer(Jedis jedis) {
         Client client = jedis.getClient();
         return client.getHost() + ":" + client.getPort();
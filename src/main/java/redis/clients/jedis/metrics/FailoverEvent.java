@@ -0,0 +1,45 @@
+package redis.clients.jedis.metrics;
+
+import redis.clients.jedis.HostAndPort;
+
+/**
+ * 一次 master 切换
+ */
+public final class FailoverEvent {
+
+	private final long timestampMillis;
+	private final HostAndPort from;
+	private final HostAndPort to;
+	private final long switchNanos;
+
+	FailoverEvent(long timestampMillis, HostAndPort from, HostAndPort to, long switchNanos) {
+		this.timestampMillis = timestampMillis;
+		this.from = from;
+		this.to = to;
+		this.switchNanos = switchNanos;
+	}
+
+	public long getTimestampMillis() {
+		return timestampMillis;
+	}
+
+	public HostAndPort getFrom() {
+		return from;
+	}
+
+	public HostAndPort getTo() {
+		return to;
+	}
+
+	/**
+	 * @return 建新连接池、预热到完成替换的耗时
+	 */
+	public long getSwitchNanos() {
+		return switchNanos;
+	}
+
+	@Override
+	public String toString() {
+		return from + " -> " + to + " at " + timestampMillis + " in " + switchNanos / 1_000_000 + "ms";
+	}
+}
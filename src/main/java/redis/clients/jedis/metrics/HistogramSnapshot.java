@@ -0,0 +1,85 @@
+package redis.clients.jedis.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LatencyHistogram} 某一时刻的副本，单位纳秒。分位数取所在桶的上界，不超过最大值。
+ */
+public final class HistogramSnapshot {
+
+	private final long[] counts;
+	private final long count;
+	private final long sum;
+	private final long max;
+
+	HistogramSnapshot(long[] counts, long count, long sum, long max) {
+		this.counts = counts;
+		this.count = count;
+		this.sum = sum;
+		this.max = max;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public double getMean() {
+		return count == 0 ? 0 : (double) sum / count;
+	}
+
+	/**
+	 * @param quantile 0 到 1 之间，例如 0.99
+	 */
+	public long getValueAt(double quantile) {
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(quantile * count));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(LatencyHistogram.upperBound(i), max);
+			}
+		}
+		return max;
+	}
+
+	public long getP50() {
+		return getValueAt(0.5);
+	}
+
+	public long getP99() {
+		return getValueAt(0.99);
+	}
+
+	public long getP999() {
+		return getValueAt(0.999);
+	}
+
+	/**
+	 * 两次快照之间的增量，便于按间隔计算分位数；最大值仍取本次快照的
+	 */
+	public HistogramSnapshot minus(HistogramSnapshot earlier) {
+		long[] diff = new long[counts.length];
+		for (int i = 0; i < diff.length; i++) {
+			diff[i] = counts[i] - earlier.counts[i];
+		}
+		return new HistogramSnapshot(diff, count - earlier.count, sum - earlier.sum, max);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count=%d mean=%.1fus p50=%dus p99=%dus p999=%dus max=%dus",
+				count,
+				getMean() / 1000,
+				TimeUnit.NANOSECONDS.toMicros(getP50()),
+				TimeUnit.NANOSECONDS.toMicros(getP99()),
+				TimeUnit.NANOSECONDS.toMicros(getP999()),
+				TimeUnit.NANOSECONDS.toMicros(max));
+	}
+}
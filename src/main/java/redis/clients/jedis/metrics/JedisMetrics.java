@@ -0,0 +1,111 @@
+package redis.clients.jedis.metrics;
+
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import redis.clients.jedis.util.Log;
+
+/**
+ * 一组 {@link redis.clients.jedis.JedisSentinelPools} 的指标，每个分片一份 master 指标和一份副本指标，
+ * 下标与分片序号一致。可以轮询 {@link #snapshot()}，也可以注册为 JMX MBean：
+ * {@code redis.clients.jedis:type=JedisSentinelPools,id=<序号>,master=<名字>,role=<master|replicas>}
+ */
+public class JedisMetrics implements Closeable, Log {
+
+	public static final String JMX_DOMAIN = "redis.clients.jedis";
+
+	private static final AtomicInteger IDS = new AtomicInteger();
+
+	private final int id = IDS.incrementAndGet();
+	private final List<MasterMetrics> masters;
+	private final List<MasterMetrics> replicas;
+	private final List<ObjectName> registered = new ArrayList<>();
+
+	public JedisMetrics(List<String> masterNames) {
+		List<MasterMetrics> m = new ArrayList<>(masterNames.size());
+		List<MasterMetrics> r = new ArrayList<>(masterNames.size());
+		for (String name : masterNames) {
+			m.add(new MasterMetrics(name, MasterMetrics.ROLE_MASTER));
+			r.add(new MasterMetrics(name, MasterMetrics.ROLE_REPLICAS));
+		}
+		this.masters = Collections.unmodifiableList(m);
+		this.replicas = Collections.unmodifiableList(r);
+	}
+
+	public MasterMetrics master(int shard) {
+		return masters.get(shard);
+	}
+
+	public MasterMetrics replicas(int shard) {
+		return replicas.get(shard);
+	}
+
+	/**
+	 * 不属于任何分片的 master（如重新分片时只在旧布局中的 master）使用的指标，不计入快照和 JMX
+	 */
+	public MasterMetrics detached(String masterName) {
+		return new MasterMetrics(masterName, MasterMetrics.ROLE_MASTER);
+	}
+
+	/**
+	 * 依次为各分片的 master 指标与副本指标；没开启副本读时副本指标全为 0
+	 */
+	public List<MasterSnapshot> snapshot() {
+		List<MasterSnapshot> all = new ArrayList<>(masters.size() * 2);
+		for (int i = 0; i < masters.size(); i++) {
+			all.add(masters.get(i).snapshot());
+			all.add(replicas.get(i).snapshot());
+		}
+		return all;
+	}
+
+	public synchronized void registerMBeans() {
+		if (!registered.isEmpty()) {
+			return;
+		}
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			for (MasterMetrics metrics : masters) {
+				register(server, metrics);
+			}
+			for (MasterMetrics metrics : replicas) {
+				register(server, metrics);
+			}
+		} catch (JMException e) {
+			unregisterMBeans();
+			throw new IllegalStateException("Can not register metrics MBeans", e);
+		}
+	}
+
+	private void register(MBeanServer server, MasterMetrics metrics) throws JMException {
+		ObjectName name = new ObjectName(JMX_DOMAIN + ":type=JedisSentinelPools,id=" + id
+				+ ",master=" + ObjectName.quote(metrics.getMasterName()) + ",role=" + metrics.getRole());
+		server.registerMBean(metrics, name);
+		registered.add(name);
+	}
+
+	public synchronized void unregisterMBeans() {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		for (ObjectName name : registered) {
+			try {
+				server.unregisterMBean(name);
+			} catch (JMException e) {
+				warn("Can not unregister MBean {}: {}", name, e.getMessage());
+			}
+		}
+		registered.clear();
+	}
+
+	@Override
+	public void close() {
+		unregisterMBeans();
+	}
+}
@@ -0,0 +1,69 @@
+package redis.clients.jedis.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁的延迟直方图，单位纳秒。
+ * <p>
+ * 按 2 的幂分段，每段再均分为 8 个桶，相对误差不超过 12.5%；
+ * {@link #record(long)} 只做几次原子加，不分配对象，可以常开。
+ */
+public final class LatencyHistogram {
+
+	private static final int SUB_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	static final int BUCKETS = (64 - SUB_BITS) << SUB_BITS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		counts.incrementAndGet(bucket(nanos));
+		count.incrementAndGet();
+		sum.addAndGet(nanos);
+		long prev;
+		while (nanos > (prev = max.get()) && !max.compareAndSet(prev, nanos)) {
+			// 重试
+		}
+	}
+
+	public long count() {
+		return count.get();
+	}
+
+	public HistogramSnapshot snapshot() {
+		long[] copy = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			copy[i] = counts.get(i);
+			total += copy[i];
+		}
+		return new HistogramSnapshot(copy, total, sum.get(), max.get());
+	}
+
+	static int bucket(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+		return ((shift + 1) << SUB_BITS) | (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+	}
+
+	/**
+	 * @return 桶内的最大值
+	 */
+	static long upperBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = (bucket >>> SUB_BITS) - 1;
+		long mantissa = SUB_BUCKETS | (bucket & (SUB_BUCKETS - 1));
+		return ((mantissa + 1) << shift) - 1;
+	}
+}
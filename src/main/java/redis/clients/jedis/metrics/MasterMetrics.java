@@ -0,0 +1,255 @@
+package redis.clients.jedis.metrics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntSupplier;
+
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.commands.ProtocolCommand;
+
+/**
+ * 一个 master（或它的全部副本）的指标：命令延迟（总体与按命令）、借连接等待、借还次数、连接错误、
+ * 连接池的活跃/空闲/等待数，以及 master 切换记录。
+ * <p>
+ * 记录方法只做原子加，按命令的直方图在该命令第一次出现时创建，之后不再分配对象。
+ */
+public class MasterMetrics implements MasterMetricsMBean {
+
+	public static final String ROLE_MASTER = "master";
+	public static final String ROLE_REPLICAS = "replicas";
+
+	private static final Protocol.Command[] COMMANDS = Protocol.Command.values();
+	private static final int OTHER = COMMANDS.length;
+	private static final int RECENT_FAILOVERS = 16;
+	private static final IntSupplier ZERO = () -> 0;
+
+	private final String masterName;
+	private final String role;
+	private final LatencyHistogram commands = new LatencyHistogram();
+	private final AtomicReferenceArray<LatencyHistogram> byCommand = new AtomicReferenceArray<>(COMMANDS.length + 1);
+	private final LatencyHistogram borrowWait = new LatencyHistogram();
+	private final AtomicLong borrows = new AtomicLong();
+	private final AtomicLong returns = new AtomicLong();
+	private final AtomicLong broken = new AtomicLong();
+	private final AtomicLong errors = new AtomicLong();
+	private final AtomicLong failovers = new AtomicLong();
+	private final Deque<FailoverEvent> recentFailovers = new ArrayDeque<>(RECENT_FAILOVERS);
+	private volatile IntSupplier active = ZERO;
+	private volatile IntSupplier idle = ZERO;
+	private volatile IntSupplier waiters = ZERO;
+	private volatile long lastSwitchNanos = -1L;
+
+	MasterMetrics(String masterName, String role) {
+		this.masterName = masterName;
+		this.role = role;
+	}
+
+	/**
+	 * 指定连接池计数的来源
+	 */
+	public void bindPool(IntSupplier active, IntSupplier idle, IntSupplier waiters) {
+		this.active = active;
+		this.idle = idle;
+		this.waiters = waiters;
+	}
+
+	public void recordCommand(ProtocolCommand command, long nanos) {
+		commands.record(nanos);
+		int index = command instanceof Protocol.Command ? ((Protocol.Command) command).ordinal() : OTHER;
+		LatencyHistogram histogram = byCommand.get(index);
+		if (histogram == null) {
+			byCommand.compareAndSet(index, null, new LatencyHistogram());
+			histogram = byCommand.get(index);
+		}
+		histogram.record(nanos);
+	}
+
+	public void recordError() {
+		errors.incrementAndGet();
+	}
+
+	public void recordBorrow(long waitNanos) {
+		borrows.incrementAndGet();
+		borrowWait.record(waitNanos);
+	}
+
+	public void recordReturn() {
+		returns.incrementAndGet();
+	}
+
+	public void recordBroken() {
+		broken.incrementAndGet();
+	}
+
+	public void recordFailover(HostAndPort from, HostAndPort to, long switchNanos) {
+		failovers.incrementAndGet();
+		lastSwitchNanos = switchNanos;
+		synchronized (recentFailovers) {
+			if (recentFailovers.size() == RECENT_FAILOVERS) {
+				recentFailovers.removeFirst();
+			}
+			recentFailovers.addLast(new FailoverEvent(System.currentTimeMillis(), from, to, switchNanos));
+		}
+	}
+
+	/**
+	 * 借连接等待的累计直方图，可用 {@link HistogramSnapshot#minus(HistogramSnapshot)} 求一段时间内的分位数
+	 */
+	public HistogramSnapshot borrowWaitSnapshot() {
+		return borrowWait.snapshot();
+	}
+
+	public MasterSnapshot snapshot() {
+		Map<String, HistogramSnapshot> perCommand = new LinkedHashMap<>();
+		for (int i = 0; i < byCommand.length(); i++) {
+			LatencyHistogram histogram = byCommand.get(i);
+			if (histogram != null) {
+				perCommand.put(i == OTHER ? "OTHER" : COMMANDS[i].name(), histogram.snapshot());
+			}
+		}
+		List<FailoverEvent> events;
+		synchronized (recentFailovers) {
+			events = new ArrayList<>(recentFailovers);
+		}
+		return new MasterSnapshot(
+				masterName,
+				role,
+				getActive(),
+				getIdle(),
+				getWaiters(),
+				borrows.get(),
+				returns.get(),
+				broken.get(),
+				errors.get(),
+				failovers.get(),
+				lastSwitchNanos,
+				commands.snapshot(),
+				borrowWait.snapshot(),
+				Collections.unmodifiableMap(perCommand),
+				Collections.unmodifiableList(events));
+	}
+
+	@Override
+	public String getMasterName() {
+		return masterName;
+	}
+
+	@Override
+	public String getRole() {
+		return role;
+	}
+
+	@Override
+	public int getActive() {
+		return active.getAsInt();
+	}
+
+	@Override
+	public int getIdle() {
+		return idle.getAsInt();
+	}
+
+	@Override
+	public int getWaiters() {
+		return waiters.getAsInt();
+	}
+
+	@Override
+	public long getBorrowCount() {
+		return borrows.get();
+	}
+
+	@Override
+	public long getReturnCount() {
+		return returns.get();
+	}
+
+	@Override
+	public long getBrokenCount() {
+		return broken.get();
+	}
+
+	@Override
+	public long getErrorCount() {
+		return errors.get();
+	}
+
+	@Override
+	public long getCommandCount() {
+		return commands.count();
+	}
+
+	@Override
+	public double getCommandMeanMicros() {
+		return commands.snapshot().getMean() / 1000;
+	}
+
+	@Override
+	public long getCommandP50Micros() {
+		return micros(commands.snapshot().getP50());
+	}
+
+	@Override
+	public long getCommandP99Micros() {
+		return micros(commands.snapshot().getP99());
+	}
+
+	@Override
+	public long getCommandP999Micros() {
+		return micros(commands.snapshot().getP999());
+	}
+
+	@Override
+	public long getCommandMaxMicros() {
+		return micros(commands.snapshot().getMax());
+	}
+
+	@Override
+	public long getBorrowWaitP99Micros() {
+		return micros(borrowWait.snapshot().getP99());
+	}
+
+	@Override
+	public long getBorrowWaitMaxMicros() {
+		return micros(borrowWait.snapshot().getMax());
+	}
+
+	@Override
+	public long getFailoverCount() {
+		return failovers.get();
+	}
+
+	@Override
+	public long getLastSwitchMillis() {
+		return lastSwitchNanos < 0 ? -1L : TimeUnit.NANOSECONDS.toMillis(lastSwitchNanos);
+	}
+
+	@Override
+	public String[] getCommandLatencies() {
+		List<String> lines = new ArrayList<>();
+		snapshot().getCommands().forEach((name, histogram) -> lines.add(name + " " + histogram));
+		return lines.toArray(new String[0]);
+	}
+
+	@Override
+	public String[] getRecentFailovers() {
+		List<String> lines = new ArrayList<>();
+		synchronized (recentFailovers) {
+			recentFailovers.forEach(event -> lines.add(event.toString()));
+		}
+		return lines.toArray(new String[0]);
+	}
+
+	private static long micros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+}
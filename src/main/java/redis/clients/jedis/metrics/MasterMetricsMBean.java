@@ -0,0 +1,52 @@
+package redis.clients.jedis.metrics;
+
+/**
+ * {@link MasterMetrics} 的 JMX 视图，延迟单位为微秒
+ */
+public interface MasterMetricsMBean {
+
+	String getMasterName();
+
+	String getRole();
+
+	int getActive();
+
+	int getIdle();
+
+	int getWaiters();
+
+	long getBorrowCount();
+
+	long getReturnCount();
+
+	long getBrokenCount();
+
+	long getErrorCount();
+
+	long getCommandCount();
+
+	double getCommandMeanMicros();
+
+	long getCommandP50Micros();
+
+	long getCommandP99Micros();
+
+	long getCommandP999Micros();
+
+	long getCommandMaxMicros();
+
+	long getBorrowWaitP99Micros();
+
+	long getBorrowWaitMaxMicros();
+
+	long getFailoverCount();
+
+	long getLastSwitchMillis();
+
+	/**
+	 * 每种命令一行：命令名、次数和分位数
+	 */
+	String[] getCommandLatencies();
+
+	String[] getRecentFailovers();
+}
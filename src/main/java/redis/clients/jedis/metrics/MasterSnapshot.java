@@ -0,0 +1,131 @@
+package redis.clients.jedis.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link MasterMetrics} 某一时刻的副本
+ */
+public final class MasterSnapshot {
+
+	private final String masterName;
+	private final String role;
+	private final int active;
+	private final int idle;
+	private final int waiters;
+	private final long borrows;
+	private final long returns;
+	private final long broken;
+	private final long errors;
+	private final long failovers;
+	private final long lastSwitchNanos;
+	private final HistogramSnapshot latency;
+	private final HistogramSnapshot borrowWait;
+	private final Map<String, HistogramSnapshot> commands;
+	private final List<FailoverEvent> recentFailovers;
+
+	MasterSnapshot(
+			String masterName,
+			String role,
+			int active,
+			int idle,
+			int waiters,
+			long borrows,
+			long returns,
+			long broken,
+			long errors,
+			long failovers,
+			long lastSwitchNanos,
+			HistogramSnapshot latency,
+			HistogramSnapshot borrowWait,
+			Map<String, HistogramSnapshot> commands,
+			List<FailoverEvent> recentFailovers) {
+		this.masterName = masterName;
+		this.role = role;
+		this.active = active;
+		this.idle = idle;
+		this.waiters = waiters;
+		this.borrows = borrows;
+		this.returns = returns;
+		this.broken = broken;
+		this.errors = errors;
+		this.failovers = failovers;
+		this.lastSwitchNanos = lastSwitchNanos;
+		this.latency = latency;
+		this.borrowWait = borrowWait;
+		this.commands = commands;
+		this.recentFailovers = recentFailovers;
+	}
+
+	public String getMasterName() {
+		return masterName;
+	}
+
+	public String getRole() {
+		return role;
+	}
+
+	public int getActive() {
+		return active;
+	}
+
+	public int getIdle() {
+		return idle;
+	}
+
+	public int getWaiters() {
+		return waiters;
+	}
+
+	public long getBorrows() {
+		return borrows;
+	}
+
+	public long getReturns() {
+		return returns;
+	}
+
+	public long getBroken() {
+		return broken;
+	}
+
+	public long getErrors() {
+		return errors;
+	}
+
+	public long getFailovers() {
+		return failovers;
+	}
+
+	public long getLastSwitchNanos() {
+		return lastSwitchNanos;
+	}
+
+	/**
+	 * 所有命令合并的延迟
+	 */
+	public HistogramSnapshot getLatency() {
+		return latency;
+	}
+
+	public HistogramSnapshot getBorrowWait() {
+		return borrowWait;
+	}
+
+	/**
+	 * 按命令名的延迟，只包含出现过的命令
+	 */
+	public Map<String, HistogramSnapshot> getCommands() {
+		return commands;
+	}
+
+	public List<FailoverEvent> getRecentFailovers() {
+		return recentFailovers;
+	}
+
+	@Override
+	public String toString() {
+		return masterName + "(" + role + ") active=" + active + " idle=" + idle + " waiters=" + waiters
+				+ " borrows=" + borrows + " errors=" + errors + " failovers=" + failovers + " latency[" + latency + "]";
+	}
+}
@@ -0,0 +1,169 @@
+package redis.clients.jedis.util;
+
+import java.io.Closeable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+/**
+ * 多生产者、单消费者的日志环形队列，由 {@link ClassLog#useAsync(int)} 安装。
+ * <p>
+ * 槽位预先分配，写日志只占一个槽位并保存模板和参数的引用，不格式化、不加锁；
+ * 队列满时丢弃并计数，由后台线程定期报告。参数在后台线程格式化，可变对象应先转成字符串再传入。
+ */
+public final class AsyncLogAppender implements Closeable {
+
+	private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+	private static final long DROP_REPORT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+	private final Slot[] slots;
+	private final int mask;
+	private final AtomicLong tail = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private final Thread writer;
+	private volatile long head;
+	private volatile boolean running = true;
+
+	AsyncLogAppender(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity must be positive: " + capacity);
+		}
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		this.slots = new Slot[size];
+		for (int i = 0; i < size; i++) {
+			slots[i] = new Slot(i - size);
+		}
+		this.mask = size - 1;
+		this.writer = new Thread(this::drainLoop, "AsyncLogAppender");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * @return 是否放入队列，队列已满或已关闭时为 false
+	 */
+	boolean offer(Logger logger, Level level, String message, int argCount,
+			Object arg1, Object arg2, Object arg3, Object[] args) {
+		long seq;
+		do {
+			seq = tail.get();
+			if (!running || seq - head >= slots.length) {
+				dropped.incrementAndGet();
+				return false;
+			}
+		} while (!tail.compareAndSet(seq, seq + 1));
+		Slot slot = slots[(int) seq & mask];
+		slot.logger = logger;
+		slot.level = level;
+		slot.message = message;
+		slot.argCount = argCount;
+		slot.arg1 = arg1;
+		slot.arg2 = arg2;
+		slot.arg3 = arg3;
+		slot.args = args;
+		slot.published = seq;
+		return true;
+	}
+
+	public int capacity() {
+		return slots.length;
+	}
+
+	/**
+	 * @return 队列中尚未输出的日志条数
+	 */
+	public int pending() {
+		return (int) Math.max(0, tail.get() - head);
+	}
+
+	/**
+	 * @return 因队列已满而丢弃的日志条数
+	 */
+	public long dropped() {
+		return dropped.get();
+	}
+
+	private void drainLoop() {
+		long reported = 0;
+		long lastReport = System.nanoTime();
+		while (running || head < tail.get()) {
+			if (!drainOne()) {
+				if (!running && head < tail.get()) {
+					// 已占位但还没写完的槽位
+					Thread.yield();
+					continue;
+				}
+				long now = System.nanoTime();
+				long lost = dropped.get();
+				if (lost != reported && now - lastReport >= DROP_REPORT_NANOS) {
+					LoggerFactory.getLogger(AsyncLogAppender.class)
+							.warn("Dropped {} log events, queue capacity {}.", lost - reported, slots.length);
+					reported = lost;
+					lastReport = now;
+				}
+				LockSupport.parkNanos(IDLE_PARK_NANOS);
+			}
+		}
+	}
+
+	private boolean drainOne() {
+		long seq = head;
+		Slot slot = slots[(int) seq & mask];
+		if (slot.published != seq) {
+			return false;
+		}
+		try {
+			ClassLog.write(slot.logger, slot.level, slot.message, slot.argCount, slot.arg1, slot.arg2, slot.arg3, slot.args);
+		} catch (RuntimeException e) {
+			LoggerFactory.getLogger(AsyncLogAppender.class).error("Can not write log event " + slot.message, e);
+		} finally {
+			slot.clear();
+			head = seq + 1;
+		}
+		return true;
+	}
+
+	/**
+	 * 停止接收新日志，输出完已入队的日志后返回
+	 */
+	@Override
+	public void close() {
+		running = false;
+		LockSupport.unpark(writer);
+		try {
+			writer.join(TimeUnit.SECONDS.toMillis(5));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static final class Slot {
+
+		private volatile long published;
+		private Logger logger;
+		private Level level;
+		private String message;
+		private int argCount;
+		private Object arg1;
+		private Object arg2;
+		private Object arg3;
+		private Object[] args;
+
+		Slot(long published) {
+			this.published = published;
+		}
+
+		void clear() {
+			logger = null;
+			message = null;
+			arg1 = null;
+			arg2 = null;
+			arg3 = null;
+			args = null;
+		}
+	}
+}
@@ -0,0 +1,299 @@
+package redis.clients.jedis.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+/**
+ * 按类取得的日志门面，{@link Log} 的各默认方法都委托到这里。
+ * <p>
+ * 先判断级别再处理参数，模板使用 SLF4J 的 {} 占位符，不超过三个参数时不分配数组；
+ * 装上 {@link AsyncLogAppender} 后日志在后台线程输出，调用方不会被阻塞。
+ */
+public final class ClassLog {
+
+	private static final ClassValue<ClassLog> LOGS = new ClassValue<ClassLog>() {
+		@Override
+		protected ClassLog computeValue(Class<?> type) {
+			return new ClassLog(LoggerFactory.getLogger(type));
+		}
+	};
+
+	private static volatile AsyncLogAppender appender;
+
+	private final Logger logger;
+
+	private ClassLog(Logger logger) {
+		this.logger = logger;
+	}
+
+	public static ClassLog of(Class<?> type) {
+		return LOGS.get(type);
+	}
+
+	/**
+	 * 之后的日志交给后台线程输出，队列满时丢弃并计数；重复调用返回已安装的 appender
+	 *
+	 * @param capacity 队列容量，向上取整到 2 的幂
+	 */
+	public static synchronized AsyncLogAppender useAsync(int capacity) {
+		if (appender == null) {
+			appender = new AsyncLogAppender(capacity);
+		}
+		return appender;
+	}
+
+	/**
+	 * 恢复同步输出，输出完队列中剩余的日志
+	 */
+	public static synchronized void useSync() {
+		AsyncLogAppender current = appender;
+		appender = null;
+		if (current != null) {
+			current.close();
+		}
+	}
+
+	public static AsyncLogAppender getAsyncAppender() {
+		return appender;
+	}
+
+	public Logger getLogger() {
+		return logger;
+	}
+
+	public boolean isTraceEnabled() {
+		return logger.isTraceEnabled();
+	}
+
+	public boolean isDebugEnabled() {
+		return logger.isDebugEnabled();
+	}
+
+	public boolean isInfoEnabled() {
+		return logger.isInfoEnabled();
+	}
+
+	public boolean isWarnEnabled() {
+		return logger.isWarnEnabled();
+	}
+
+	public boolean isErrorEnabled() {
+		return logger.isErrorEnabled();
+	}
+
+	public void trace(String message) {
+		if (logger.isTraceEnabled())
+			emit(Level.TRACE, message, 0, null, null, null, null);
+	}
+
+	public void trace(String message, Object arg) {
+		if (logger.isTraceEnabled())
+			emit(Level.TRACE, message, 1, arg, null, null, null);
+	}
+
+	public void trace(String message, Object arg1, Object arg2) {
+		if (logger.isTraceEnabled())
+			emit(Level.TRACE, message, 2, arg1, arg2, null, null);
+	}
+
+	public void trace(String message, Object arg1, Object arg2, Object arg3) {
+		if (logger.isTraceEnabled())
+			emit(Level.TRACE, message, 3, arg1, arg2, arg3, null);
+	}
+
+	public void trace(String message, Object... args) {
+		if (logger.isTraceEnabled())
+			emit(Level.TRACE, message, -1, null, null, null, args);
+	}
+
+	public void debug(String message) {
+		if (logger.isDebugEnabled())
+			emit(Level.DEBUG, message, 0, null, null, null, null);
+	}
+
+	public void debug(String message, Object arg) {
+		if (logger.isDebugEnabled())
+			emit(Level.DEBUG, message, 1, arg, null, null, null);
+	}
+
+	public void debug(String message, Object arg1, Object arg2) {
+		if (logger.isDebugEnabled())
+			emit(Level.DEBUG, message, 2, arg1, arg2, null, null);
+	}
+
+	public void debug(String message, Object arg1, Object arg2, Object arg3) {
+		if (logger.isDebugEnabled())
+			emit(Level.DEBUG, message, 3, arg1, arg2, arg3, null);
+	}
+
+	public void debug(String message, Object... args) {
+		if (logger.isDebugEnabled())
+			emit(Level.DEBUG, message, -1, null, null, null, args);
+	}
+
+	public void info(String message) {
+		if (logger.isInfoEnabled())
+			emit(Level.INFO, message, 0, null, null, null, null);
+	}
+
+	public void info(String message, Object arg) {
+		if (logger.isInfoEnabled())
+			emit(Level.INFO, message, 1, arg, null, null, null);
+	}
+
+	public void info(String message, Object arg1, Object arg2) {
+		if (logger.isInfoEnabled())
+			emit(Level.INFO, message, 2, arg1, arg2, null, null);
+	}
+
+	public void info(String message, Object arg1, Object arg2, Object arg3) {
+		if (logger.isInfoEnabled())
+			emit(Level.INFO, message, 3, arg1, arg2, arg3, null);
+	}
+
+	public void info(String message, Object... args) {
+		if (logger.isInfoEnabled())
+			emit(Level.INFO, message, -1, null, null, null, args);
+	}
+
+	public void warn(String message) {
+		if (logger.isWarnEnabled())
+			emit(Level.WARN, message, 0, null, null, null, null);
+	}
+
+	public void warn(String message, Object arg) {
+		if (logger.isWarnEnabled())
+			emit(Level.WARN, message, 1, arg, null, null, null);
+	}
+
+	public void warn(String message, Object arg1, Object arg2) {
+		if (logger.isWarnEnabled())
+			emit(Level.WARN, message, 2, arg1, arg2, null, null);
+	}
+
+	public void warn(String message, Object arg1, Object arg2, Object arg3) {
+		if (logger.isWarnEnabled())
+			emit(Level.WARN, message, 3, arg1, arg2, arg3, null);
+	}
+
+	public void warn(String message, Object... args) {
+		if (logger.isWarnEnabled())
+			emit(Level.WARN, message, -1, null, null, null, args);
+	}
+
+	public void error(String message) {
+		if (logger.isErrorEnabled())
+			emit(Level.ERROR, message, 0, null, null, null, null);
+	}
+
+	public void error(String message, Object arg) {
+		if (logger.isErrorEnabled())
+			emit(Level.ERROR, message, 1, arg, null, null, null);
+	}
+
+	public void error(String message, Object arg1, Object arg2) {
+		if (logger.isErrorEnabled())
+			emit(Level.ERROR, message, 2, arg1, arg2, null, null);
+	}
+
+	public void error(String message, Object arg1, Object arg2, Object arg3) {
+		if (logger.isErrorEnabled())
+			emit(Level.ERROR, message, 3, arg1, arg2, arg3, null);
+	}
+
+	public void error(String message, Object... args) {
+		if (logger.isErrorEnabled())
+			emit(Level.ERROR, message, -1, null, null, null, args);
+	}
+
+	private void emit(Level level, String message, int argCount, Object arg1, Object arg2, Object arg3, Object[] args) {
+		AsyncLogAppender async = appender;
+		if (async != null) {
+			async.offer(logger, level, message, argCount, arg1, arg2, arg3, args);
+		} else {
+			write(logger, level, message, argCount, arg1, arg2, arg3, args);
+		}
+	}
+
+	/**
+	 * 直接交给 SLF4J，最后一个参数是 {@link Throwable} 且没有对应的占位符时作为异常输出
+	 */
+	static void write(Logger logger, Level level, String message, int argCount,
+			Object arg1, Object arg2, Object arg3, Object[] args) {
+		switch (argCount) {
+			case 0:
+				write(logger, level, message);
+				break;
+			case 1:
+				write(logger, level, message, arg1, null, 1);
+				break;
+			case 2:
+				write(logger, level, message, arg1, arg2, 2);
+				break;
+			case 3:
+				write(logger, level, message, new Object[]{arg1, arg2, arg3});
+				break;
+			default:
+				write(logger, level, message, args);
+		}
+	}
+
+	private static void write(Logger logger, Level level, String message) {
+		switch (level) {
+			case TRACE:
+				logger.trace(message);
+				break;
+			case DEBUG:
+				logger.debug(message);
+				break;
+			case INFO:
+				logger.info(message);
+				break;
+			case WARN:
+				logger.warn(message);
+				break;
+			default:
+				logger.error(message);
+		}
+	}
+
+	private static void write(Logger logger, Level level, String message, Object arg1, Object arg2, int argCount) {
+		boolean one = argCount == 1;
+		switch (level) {
+			case TRACE:
+				if (one) logger.trace(message, arg1); else logger.trace(message, arg1, arg2);
+				break;
+			case DEBUG:
+				if (one) logger.debug(message, arg1); else logger.debug(message, arg1, arg2);
+				break;
+			case INFO:
+				if (one) logger.info(message, arg1); else logger.info(message, arg1, arg2);
+				break;
+			case WARN:
+				if (one) logger.warn(message, arg1); else logger.warn(message, arg1, arg2);
+				break;
+			default:
+				if (one) logger.error(message, arg1); else logger.error(message, arg1, arg2);
+		}
+	}
+
+	private static void write(Logger logger, Level level, String message, Object[] args) {
+		switch (level) {
+			case TRACE:
+				logger.trace(message, args);
+				break;
+			case DEBUG:
+				logger.debug(message, args);
+				break;
+			case INFO:
+				logger.info(message, args);
+				break;
+			case WARN:
+				logger.warn(message, args);
+				break;
+			default:
+				logger.error(message, args);
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package redis.clients.jedis.util;
+
+import java.util.Arrays;
+
+/**
+ * 与 Redis Cluster 相同的 hash tag 规则：key 中第一个 '{' 之后到第一个 '}' 之间的内容非空时，只按这部分分片
+ */
+final class HashTagSharding implements Sharding {
+
+	private final Sharding delegate;
+
+	HashTagSharding(Sharding delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public int shards() {
+		return delegate.shards();
+	}
+
+	@Override
+	public int shardIndex(String key) {
+		int start = key.indexOf('{');
+		if (start >= 0) {
+			int end = key.indexOf('}', start + 1);
+			if (end > start + 1) {
+				return delegate.shardIndex(key.substring(start + 1, end));
+			}
+		}
+		return delegate.shardIndex(key);
+	}
+
+	@Override
+	public int shardIndex(byte[] key) {
+		int start = indexOf(key, (byte) '{', 0);
+		if (start >= 0) {
+			int end = indexOf(key, (byte) '}', start + 1);
+			if (end > start + 1) {
+				return delegate.shardIndex(Arrays.copyOfRange(key, start + 1, end));
+			}
+		}
+		return delegate.shardIndex(key);
+	}
+
+	private static int indexOf(byte[] key, byte b, int from) {
+		for (int i = from; i < key.length; i++) {
+			if (key[i] == b) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,274 @@
+package redis.clients.jedis.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 估计 key 的访问频率并保留最热的 topK 个 key，内存占用固定。
+ * <p>
+ * 所有 key 的次数记在 4 行的 count-min sketch 里（只会高估，不会低估），计数器是原子的，多个线程可以同时记录，
+ * 到 {@link Integer#MAX_VALUE} 为止；
+ * 估计次数超过堆中最小值的 key 才去更新最小堆，堆的锁用 tryLock，抢不到就跳过这一次，写线程之间不会互相阻塞。
+ * <p>
+ * 每过 halfLifeMillis 所有计数减半，排名反映的是最近的访问而不是启动以来的累计；
+ * 减半与并发的记录之间不加锁，可能丢掉少量计数。
+ */
+public class HotKeySketch {
+
+	private static final int DEPTH = 4;
+
+	private final AtomicIntegerArray table;
+	private final int mask;
+	private final int topK;
+	private final long halfLifeNanos;
+	private final AtomicLong nextDecay;
+	private final LongAdder recorded = new LongAdder();
+
+	private final ReentrantLock lock = new ReentrantLock();
+	/** 以下三个由 lock 保护；按 count 排列的最小堆，Counter 记着自己在堆中的下标，计数增加时只需下沉 */
+	private final Counter[] heap;
+	private final Map<String, Counter> index = new HashMap<>();
+	private int size;
+	/** 堆满时堆顶的次数，不到它的 key 不必加锁 */
+	private volatile long threshold;
+
+	/**
+	 * @param width          每行的计数器个数，向上取 2 的幂；越大误差越小
+	 * @param topK           保留的热点 key 个数
+	 * @param halfLifeMillis 计数减半的间隔，&lt;= 0 表示不衰减
+	 */
+	public HotKeySketch(int width, int topK, long halfLifeMillis) {
+		if (width <= 0 || topK <= 0) {
+			throw new IllegalArgumentException("width and topK must be positive");
+		}
+		int w = Integer.highestOneBit(Math.max(16, width - 1) << 1);
+		this.table = new AtomicIntegerArray(DEPTH * w);
+		this.mask = w - 1;
+		this.topK = topK;
+		this.heap = new Counter[topK];
+		this.halfLifeNanos = halfLifeMillis > 0 ? halfLifeMillis * 1_000_000L : Long.MAX_VALUE;
+		this.nextDecay = new AtomicLong(System.nanoTime() + Math.min(halfLifeNanos, Long.MAX_VALUE / 4));
+	}
+
+	public void record(String key) {
+		record(Hashing.MURMUR_HASH.hash(key), key, null);
+	}
+
+	public void record(byte[] key) {
+		record(Hashing.MURMUR_HASH.hash(key), null, key);
+	}
+
+	private void record(long hash, String key, byte[] raw) {
+		decayIfDue();
+		recorded.increment();
+		// 由一个 64 位哈希导出各行的下标（Kirsch-Mitzenmacher）
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32) | 1;
+		int width = mask + 1;
+		long estimate = Long.MAX_VALUE;
+		for (int d = 0; d < DEPTH; d++) {
+			int i = d * width + ((h1 + d * h2) & mask);
+			estimate = Math.min(estimate, increment(i));
+		}
+		if (estimate <= threshold || !lock.tryLock()) {
+			return;
+		}
+		try {
+			offer(key != null ? key : SafeEncoder.encode(raw), estimate);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 计数器到 {@link Integer#MAX_VALUE} 后不再增加；不衰减时最热的 key 也不会溢出成负数
+	 */
+	private int increment(int i) {
+		for (;;) {
+			int count = table.get(i);
+			if (count == Integer.MAX_VALUE || table.compareAndSet(i, count, count + 1)) {
+				return count == Integer.MAX_VALUE ? count : count + 1;
+			}
+		}
+	}
+
+	private void offer(String key, long estimate) {
+		Counter counter = index.get(key);
+		if (counter != null) {
+			if (estimate > counter.count) {
+				counter.count = estimate;
+				siftDown(counter.position);
+			}
+		} else if (size < topK) {
+			counter = new Counter(key, estimate);
+			index.put(key, counter);
+			heap[size] = counter;
+			counter.position = size++;
+			siftUp(counter.position);
+		} else if (estimate > heap[0].count) {
+			// 替换堆顶，新值不小于原堆顶，只需下沉
+			index.remove(heap[0].key);
+			counter = new Counter(key, estimate);
+			index.put(key, counter);
+			heap[0] = counter;
+			siftDown(0);
+		}
+		threshold = size < topK ? 0 : heap[0].count;
+	}
+
+	private void siftUp(int i) {
+		Counter counter = heap[i];
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (heap[parent].count <= counter.count) {
+				break;
+			}
+			place(heap[parent], i);
+			i = parent;
+		}
+		place(counter, i);
+	}
+
+	private void siftDown(int i) {
+		Counter counter = heap[i];
+		int half = size >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1;
+			if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+				child++;
+			}
+			if (counter.count <= heap[child].count) {
+				break;
+			}
+			place(heap[child], i);
+			i = child;
+		}
+		place(counter, i);
+	}
+
+	private void place(Counter counter, int i) {
+		heap[i] = counter;
+		counter.position = i;
+	}
+
+	private void decayIfDue() {
+		long due = nextDecay.get();
+		long now = System.nanoTime();
+		if (now - due < 0 || !nextDecay.compareAndSet(due, now + halfLifeNanos)) {
+			return;
+		}
+		for (int i = 0; i < table.length(); i++) {
+			table.set(i, table.get(i) >>> 1);
+		}
+		recorded.add(-recorded.sum() / 2);
+		lock.lock();
+		try {
+			// 统一减半不改变堆序，只需去掉减到 0 的
+			int n = size;
+			Counter[] counters = Arrays.copyOf(heap, n);
+			Arrays.fill(heap, 0, n, null);
+			size = 0;
+			for (Counter counter : counters) {
+				counter.count >>>= 1;
+				if (counter.count > 0) {
+					place(counter, size++);
+				} else {
+					index.remove(counter.key);
+				}
+			}
+			for (int i = (size >>> 1) - 1; i >= 0; i--) {
+				siftDown(i);
+			}
+			threshold = size < topK ? 0 : heap[0].count;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 当前最热的 key，按估计次数从高到低
+	 */
+	public List<HotKey> top() {
+		List<HotKey> list = new ArrayList<>(topK);
+		lock.lock();
+		try {
+			for (int i = 0; i < size; i++) {
+				list.add(new HotKey(heap[i].key, heap[i].count));
+			}
+		} finally {
+			lock.unlock();
+		}
+		list.sort(Comparator.comparingLong(HotKey::getCount).reversed());
+		return list;
+	}
+
+	/**
+	 * 记录的总次数，与各 key 的次数一起衰减，可用于估算某个 key 的占比
+	 */
+	public long recorded() {
+		return recorded.sum();
+	}
+
+	public void clear() {
+		for (int i = 0; i < table.length(); i++) {
+			table.set(i, 0);
+		}
+		recorded.reset();
+		lock.lock();
+		try {
+			Arrays.fill(heap, null);
+			size = 0;
+			index.clear();
+			threshold = 0;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private static final class Counter {
+
+		private final String key;
+		private long count;
+		private int position;
+
+		Counter(String key, long count) {
+			this.key = key;
+			this.count = count;
+		}
+	}
+
+	public static final class HotKey {
+
+		private final String key;
+		private final long count;
+
+		HotKey(String key, long count) {
+			this.key = key;
+			this.count = count;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		/**
+		 * 衰减后的估计次数，可能偏高
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		@Override
+		public String toString() {
+			return key + "=" + count;
+		}
+	}
+}
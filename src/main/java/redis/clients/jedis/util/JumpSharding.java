@@ -0,0 +1,30 @@
+package redis.clients.jedis.util;
+
+/**
+ * 槽到分片的表用跳跃一致性哈希（Lamping &amp; Veach）生成
+ */
+final class JumpSharding extends SlotSharding {
+
+	private JumpSharding(int shards, int[] owners) {
+		super(shards, owners);
+	}
+
+	static JumpSharding of(int shards) {
+		int[] owners = new int[SLOTS];
+		for (int slot = 0; slot < SLOTS; slot++) {
+			owners[slot] = jump(mix(slot), shards);
+		}
+		return new JumpSharding(shards, owners);
+	}
+
+	static int jump(long key, int buckets) {
+		long b = -1;
+		long j = 0;
+		while (j < buckets) {
+			b = j;
+			key = key * 2862933555777941757L + 1;
+			j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+		}
+		return (int) b;
+	}
+}
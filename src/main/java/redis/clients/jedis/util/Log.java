@@ -1,81 +1,193 @@
 package redis.clients.jedis.util;
 
 import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
+/**
+ * 日志混入接口，按实现类取 {@link ClassLog}。
+ * <p>
+ * 模板使用 {} 占位符，未开启对应级别时不格式化；不超过三个参数时调用本身不分配数组。
+ * 异常作为最后一个参数传入，没有对应的占位符时按异常输出。
+ */
 public interface Log {
-	Logger log = LoggerFactory.getLogger(Thread.currentThread().getStackTrace()[1].getClassName());
+
+	/**
+	 * @deprecated 所有实现类共用一个 logger，输出的类名不对；用 {@link #log()}
+	 */
+	@Deprecated
+	Logger log = ClassLog.of(Log.class).getLogger();
+
+	default ClassLog log() {
+		return ClassLog.of(getClass());
+	}
 
 	default void ifTrace(String message) {
-		if (log.isTraceEnabled())
-			trace(message);
+		log().trace(message);
+	}
+
+	default void trace(String message) {
+		log().trace(message);
+	}
+
+	default void trace(String message, Object value) {
+		log().trace(message, value);
+	}
+
+	default void trace(String message, Object value1, Object value2) {
+		log().trace(message, value1, value2);
+	}
+
+	default void trace(String message, Object value1, Object value2, Object value3) {
+		log().trace(message, value1, value2, value3);
 	}
 
 	default void trace(String message, Object... values) {
-		log.trace(checkFormat(message, values));
+		log().trace(message, values);
 	}
 
+	/**
+	 * @deprecated 模板按 {@link String#format} 的 %s 格式化；改用 {} 占位符，把异常作为最后一个参数
+	 */
+	@Deprecated
 	default void trace(String message, Throwable error, Object... values) {
-		log.trace(checkFormat(message, values), error);
+		log().trace(checkFormat(message, values), error);
 	}
 
 	default void ifDebug(String message) {
-		if (log.isDebugEnabled())
-			debug(message);
+		log().debug(message);
+	}
+
+	default void debug(String message) {
+		log().debug(message);
+	}
+
+	default void debug(String message, Object value) {
+		log().debug(message, value);
+	}
+
+	default void debug(String message, Object value1, Object value2) {
+		log().debug(message, value1, value2);
+	}
+
+	default void debug(String message, Object value1, Object value2, Object value3) {
+		log().debug(message, value1, value2, value3);
 	}
 
 	default void debug(String message, Object... values) {
-		log.debug(checkFormat(message, values));
+		log().debug(message, values);
 	}
 
+	/**
+	 * @deprecated 模板按 {@link String#format} 的 %s 格式化；改用 {} 占位符，把异常作为最后一个参数
+	 */
+	@Deprecated
 	default void debug(String message, Throwable error, Object... values) {
-		log.debug(checkFormat(message, values), error);
+		log().debug(checkFormat(message, values), error);
 	}
 
 	default void ifInfo(String message) {
-		if (log.isInfoEnabled())
-			info(message);
+		log().info(message);
+	}
+
+	default void info(String message) {
+		log().info(message);
+	}
+
+	default void info(String message, Object value) {
+		log().info(message, value);
+	}
+
+	default void info(String message, Object value1, Object value2) {
+		log().info(message, value1, value2);
+	}
+
+	default void info(String message, Object value1, Object value2, Object value3) {
+		log().info(message, value1, value2, value3);
 	}
 
 	default void info(String message, Object... values) {
-		log.info(checkFormat(message, values));
+		log().info(message, values);
 	}
 
+	/**
+	 * @deprecated 模板按 {@link String#format} 的 %s 格式化；改用 {} 占位符，把异常作为最后一个参数
+	 */
+	@Deprecated
 	default void info(String message, Throwable error, Object... values) {
-		log.info(checkFormat(message, values), error);
+		log().info(checkFormat(message, values), error);
 	}
 
 	default void ifWarn(String message) {
-		if (log.isWarnEnabled())
-			warn(message);
+		log().warn(message);
+	}
+
+	default void warn(String message) {
+		log().warn(message);
+	}
+
+	default void warn(String message, Object value) {
+		log().warn(message, value);
+	}
+
+	default void warn(String message, Object value1, Object value2) {
+		log().warn(message, value1, value2);
+	}
+
+	default void warn(String message, Object value1, Object value2, Object value3) {
+		log().warn(message, value1, value2, value3);
 	}
 
 	default void warn(String message, Object... values) {
-		log.warn(checkFormat(message, values));
+		log().warn(message, values);
 	}
 
+	/**
+	 * @deprecated 模板按 {@link String#format} 的 %s 格式化；改用 {} 占位符，把异常作为最后一个参数
+	 */
+	@Deprecated
 	default void warn(String message, Throwable error, Object... values) {
-		log.warn(checkFormat(message, values), error);
+		log().warn(checkFormat(message, values), error);
 	}
 
 	default void ifError(String message) {
-		if (log.isErrorEnabled())
-			error(message);
+		log().error(message);
+	}
+
+	default void error(String message) {
+		log().error(message);
+	}
+
+	default void error(String message, Object value) {
+		log().error(message, value);
+	}
+
+	default void error(String message, Object value1, Object value2) {
+		log().error(message, value1, value2);
+	}
+
+	default void error(String message, Object value1, Object value2, Object value3) {
+		log().error(message, value1, value2, value3);
 	}
 
 	default void error(String message, Object... values) {
-		log.error(checkFormat(message, values));
+		log().error(message, values);
 	}
 
+	/**
+	 * @deprecated 模板按 {@link String#format} 的 %s 格式化；改用 {} 占位符，把异常作为最后一个参数
+	 */
+	@Deprecated
 	default void error(String message, Throwable error, Object... values) {
-		log.error(checkFormat(message, values), error);
+		log().error(checkFormat(message, values), error);
 	}
 
+	/**
+	 * @deprecated 只供上面按 {@link String#format} 格式化的旧方法使用
+	 */
+	@Deprecated
 	default String checkFormat(String msg, Object... refs) {
-		if (refs.length != 0)
+		if (refs.length != 0) {
 			return String.format(msg, refs);
-		else
-			return msg;
+		}
+		return msg;
 	}
-
 }
@@ -0,0 +1,220 @@
+package redis.clients.jedis.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 有界的本地缓存，按 key 分段加锁。
+ * <p>
+ * 每段是一个按访问顺序排列的 LinkedHashMap，配合 TinyLFU 方式的准入：
+ * 段满时，只有访问频率高于 LRU 淘汰候选的新 key 才会被放入，偶发的一次性读取不会把热点挤出去。
+ * <p>
+ * 失效与回填之间的竞争通过 stamp 处理：读取前用 {@link #stamp(Object)} 取得当前版本，
+ * 回填时若该段在此期间发生过失效，{@link #put(Object, Object, long)} 放弃写入。
+ */
+public class NearCache<K, V> {
+
+	private static final int SEGMENTS = 16;
+
+	private final Segment<K, V>[] segments;
+	private final long ttlNanos;
+
+	@SuppressWarnings("unchecked")
+	public NearCache(int maxEntries, long ttlMillis) {
+		if (maxEntries <= 0) {
+			throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+		}
+		this.ttlNanos = ttlMillis > 0 ? ttlMillis * 1_000_000L : Long.MAX_VALUE;
+		int perSegment = Math.max(1, (maxEntries + SEGMENTS - 1) / SEGMENTS);
+		this.segments = (Segment<K, V>[]) new Segment<?, ?>[SEGMENTS];
+		for (int i = 0; i < SEGMENTS; i++) {
+			segments[i] = new Segment<>(perSegment);
+		}
+	}
+
+	public V get(K key) {
+		return segment(key).get(key, System.nanoTime());
+	}
+
+	public long stamp(K key) {
+		return segment(key).stamp();
+	}
+
+	/**
+	 * @return 是否放入缓存；自 stamp 之后该段有过失效、或未通过准入时返回 false
+	 */
+	public boolean put(K key, V value, long stamp) {
+		long expireAt = ttlNanos == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + ttlNanos;
+		return segment(key).put(key, value, stamp, expireAt);
+	}
+
+	public void invalidate(K key) {
+		segment(key).invalidate(key);
+	}
+
+	public void clear() {
+		for (Segment<K, V> segment : segments) {
+			segment.clear();
+		}
+	}
+
+	public int size() {
+		int size = 0;
+		for (Segment<K, V> segment : segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	public long hits() {
+		long hits = 0;
+		for (Segment<K, V> segment : segments) {
+			hits += segment.hits;
+		}
+		return hits;
+	}
+
+	public long misses() {
+		long misses = 0;
+		for (Segment<K, V> segment : segments) {
+			misses += segment.misses;
+		}
+		return misses;
+	}
+
+	private Segment<K, V> segment(K key) {
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return segments[h & (SEGMENTS - 1)];
+	}
+
+	private static final class Node<V> {
+
+		private final V value;
+		private final long expireAt;
+
+		Node(V value, long expireAt) {
+			this.value = value;
+			this.expireAt = expireAt;
+		}
+	}
+
+	private static final class Segment<K, V> {
+
+		private final int capacity;
+		private final LinkedHashMap<K, Node<V>> map;
+		private final FrequencySketch sketch;
+		private long invalidations;
+		private volatile long hits;
+		private volatile long misses;
+
+		Segment(int capacity) {
+			this.capacity = capacity;
+			this.map = new LinkedHashMap<>(Math.min(capacity, 1024), 0.75f, true);
+			this.sketch = new FrequencySketch(capacity);
+		}
+
+		synchronized V get(K key, long now) {
+			sketch.increment(key.hashCode());
+			Node<V> node = map.get(key);
+			if (node != null && node.expireAt - now < 0) {
+				map.remove(key);
+				node = null;
+			}
+			if (node == null) {
+				misses++;
+				return null;
+			}
+			hits++;
+			return node.value;
+		}
+
+		synchronized long stamp() {
+			return invalidations;
+		}
+
+		synchronized boolean put(K key, V value, long stamp, long expireAt) {
+			if (stamp != invalidations) {
+				return false;
+			}
+			if (!map.containsKey(key) && map.size() >= capacity) {
+				Iterator<Map.Entry<K, Node<V>>> it = map.entrySet().iterator();
+				K victim = it.next().getKey();
+				if (sketch.frequency(key.hashCode()) <= sketch.frequency(victim.hashCode())) {
+					return false;
+				}
+				it.remove();
+			}
+			map.put(key, new Node<>(value, expireAt));
+			return true;
+		}
+
+		synchronized void invalidate(K key) {
+			invalidations++;
+			map.remove(key);
+		}
+
+		synchronized void clear() {
+			invalidations++;
+			map.clear();
+		}
+
+		synchronized int size() {
+			return map.size();
+		}
+	}
+
+	/**
+	 * 4 行的 count-min sketch，计数饱和于 15；累计增量达到 10 倍容量时全部减半，使频率随时间衰减
+	 */
+	private static final class FrequencySketch {
+
+		private static final int DEPTH = 4;
+		private static final int MAX_COUNT = 15;
+		private static final int[] SEEDS = { 0x97cb3127, 0xc2b2ae35, 0x85ebca6b, 0x27d4eb2f };
+
+		private final byte[] table;
+		private final int mask;
+		private final int sampleSize;
+		private int additions;
+
+		FrequencySketch(int capacity) {
+			int width = Integer.highestOneBit(Math.max(16, capacity - 1) << 1);
+			this.table = new byte[DEPTH * width];
+			this.mask = width - 1;
+			this.sampleSize = 10 * Math.max(16, capacity);
+		}
+
+		void increment(int hash) {
+			int width = mask + 1;
+			for (int d = 0; d < DEPTH; d++) {
+				int i = d * width + index(hash, d);
+				if (table[i] < MAX_COUNT) {
+					table[i]++;
+				}
+			}
+			if (++additions >= sampleSize) {
+				for (int i = 0; i < table.length; i++) {
+					table[i] = (byte) (table[i] >>> 1);
+				}
+				additions >>>= 1;
+			}
+		}
+
+		int frequency(int hash) {
+			int width = mask + 1;
+			int min = MAX_COUNT;
+			for (int d = 0; d < DEPTH; d++) {
+				min = Math.min(min, table[d * width + index(hash, d)]);
+			}
+			return min;
+		}
+
+		private int index(int hash, int depth) {
+			int h = (hash ^ SEEDS[depth]) * 0x9e3779b9;
+			h ^= (h >>> 15);
+			return h & mask;
+		}
+	}
+}
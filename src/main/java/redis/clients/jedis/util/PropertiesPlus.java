@@ -117,4 +117,13 @@ public class PropertiesPlus extends Properties {
 			return Long.parseLong(value);
 		}
 	}
+
+	public Double getDouble(String key, Double defVal) {
+		final String value = getProperty(key);
+		if (value == null) {
+			return defVal;
+		} else {
+			return Double.parseDouble(value);
+		}
+	}
 }
@@ -17,5 +17,48 @@ public class RedisConstants {
 	public static final String MIN_IDLE = "redis.pool.minIdle";
 	public static final String TEST_ON_BORROW = "redis.pool.testOnBorrow";
 	public static final String TEST_ON_RETURN = "redis.pool.testOnReturn";
+	public static final String POOL_ADAPTIVE_ENABLED = "redis.pool.adaptive.enabled";
+	public static final String POOL_ADAPTIVE_MAX_TOTAL_CONNECTIONS = "redis.pool.adaptive.maxTotalConnections";
+	public static final String POOL_ADAPTIVE_MIN_PER_MASTER = "redis.pool.adaptive.minPerMaster";
+	public static final String POOL_ADAPTIVE_MAX_PER_MASTER = "redis.pool.adaptive.maxPerMaster";
+	public static final String POOL_ADAPTIVE_TARGET_WAIT_MICROS = "redis.pool.adaptive.targetWaitMicros";
+	public static final String POOL_ADAPTIVE_INTERVAL_MILLIS = "redis.pool.adaptive.intervalMillis";
 	public static final String CONNECTION_TIMEOUT = "redis.client.timeout";
+	public static final String STARTUP_TIMEOUT_MILLIS = "redis.startup.timeoutMillis";
+	public static final String TOPOLOGY_REFRESH_MILLIS = "redis.topology.refreshMillis";
+
+	public static final String NEAR_CACHE_MAX_ENTRIES = "redis.nearCache.maxEntries";
+	public static final String NEAR_CACHE_TTL_MILLIS = "redis.nearCache.ttlMillis";
+	public static final String NEAR_CACHE_CONFIGURE_NOTIFICATIONS = "redis.nearCache.configureNotifications";
+
+	public static final String REPLICA_READS_ENABLED = "redis.replicaReads.enabled";
+	public static final String REPLICA_READS_MAX_LAG_BYTES = "redis.replicaReads.maxLagBytes";
+	public static final String REPLICA_READS_MAX_LINK_DOWN_MILLIS = "redis.replicaReads.maxLinkDownMillis";
+	public static final String REPLICA_READS_FALLBACK_TO_MASTER = "redis.replicaReads.fallbackToMaster";
+	public static final String REPLICA_READS_REFRESH_MILLIS = "redis.replicaReads.refreshMillis";
+
+	public static final String HOT_KEYS_ENABLED = "redis.hotKeys.enabled";
+	public static final String HOT_KEYS_TOP_K = "redis.hotKeys.topK";
+	public static final String HOT_KEYS_WIDTH = "redis.hotKeys.width";
+	public static final String HOT_KEYS_HALF_LIFE_MILLIS = "redis.hotKeys.halfLifeMillis";
+
+	public static final String CIRCUIT_BREAKER_ENABLED = "redis.circuitBreaker.enabled";
+	public static final String CIRCUIT_BREAKER_FAILURE_RATE = "redis.circuitBreaker.failureRate";
+	public static final String CIRCUIT_BREAKER_MINIMUM_CALLS = "redis.circuitBreaker.minimumCalls";
+	public static final String CIRCUIT_BREAKER_WINDOW_MILLIS = "redis.circuitBreaker.windowMillis";
+	public static final String CIRCUIT_BREAKER_OPEN_MILLIS = "redis.circuitBreaker.openMillis";
+	public static final String CIRCUIT_BREAKER_HALF_OPEN_PROBES = "redis.circuitBreaker.halfOpenProbes";
+
+	public static final String METRICS_JMX_ENABLED = "redis.metrics.jmx";
+
+	public static final String LOG_ASYNC_CAPACITY = "redis.log.asyncCapacity";
+
+	public static final String SHARDING_STRATEGY = "redis.sharding.strategy";
+	public static final String SHARDING_HASH_TAGS = "redis.sharding.hashTags";
+
+	public static final String RESHARD_PREVIOUS_MASTERS = "redis.reshard.previousMasters";
+	public static final String RESHARD_PREVIOUS_STRATEGY = "redis.reshard.previousStrategy";
+	public static final String RESHARD_SCAN_COUNT = "redis.reshard.scanCount";
+	public static final String RESHARD_MAX_KEYS_PER_SECOND = "redis.reshard.maxKeysPerSecond";
+	public static final String RESHARD_CHECKPOINT = "redis.reshard.checkpoint";
 }
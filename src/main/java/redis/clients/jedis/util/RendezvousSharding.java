@@ -0,0 +1,37 @@
+package redis.clients.jedis.util;
+
+import java.util.List;
+
+/**
+ * 槽到分片的表用最高随机权重哈希生成：每个槽归权重最大的分片，分片的种子是 master 名字的 MurmurHash，
+ * 与分片在列表中的位置无关，所以去掉一个 master 只会让它自己的槽换主
+ */
+final class RendezvousSharding extends SlotSharding {
+
+	private RendezvousSharding(int shards, int[] owners) {
+		super(shards, owners);
+	}
+
+	static RendezvousSharding of(List<String> masterNames) {
+		int shards = masterNames.size();
+		long[] seeds = new long[shards];
+		for (int i = 0; i < shards; i++) {
+			seeds[i] = Hashing.MURMUR_HASH.hash(masterNames.get(i));
+		}
+		int[] owners = new int[SLOTS];
+		for (int slot = 0; slot < SLOTS; slot++) {
+			long slotHash = mix(slot);
+			int best = 0;
+			long bestWeight = Long.MIN_VALUE;
+			for (int i = 0; i < shards; i++) {
+				long weight = mix(slotHash ^ seeds[i]);
+				if (weight > bestWeight) {
+					best = i;
+					bestWeight = weight;
+				}
+			}
+			owners[slot] = best;
+		}
+		return new RendezvousSharding(shards, owners);
+	}
+}
@@ -0,0 +1,116 @@
+package redis.clients.jedis.util;
+
+import java.util.Arrays;
+
+/**
+ * 预先计算好的一致性哈希环，与 {@link Sharded} 对未命名分片的分布完全一致：
+ * 每个分片 160 个虚拟节点，节点名为 "SHARD-i-NODE-n"，使用 MurmurHash。
+ * <p>
+ * 节点保存在有序的 long 数组中，按哈希值的高位预先分桶，查找时只在桶内二分，不装箱；
+ * 实例不可变，可在线程间共享。
+ */
+public final class ShardRing implements Sharding {
+
+	public static final int NODES_PER_SHARD = 160;
+
+	private final int shards;
+	private final long[] hashes;
+	private final int[] owners;
+	private final int bucketShift;
+	/**
+	 * buckets[b] 是第一个高位不小于 b 的节点下标，最后多一项等于节点数
+	 */
+	private final int[] buckets;
+
+	private ShardRing(int shards, long[] hashes, int[] owners) {
+		this.shards = shards;
+		this.hashes = hashes;
+		this.owners = owners;
+		// 桶数取节点数的 2 倍左右，在 256 到 65536 之间
+		int bits = Math.min(16, Math.max(8, 33 - Integer.numberOfLeadingZeros(hashes.length)));
+		this.bucketShift = 64 - bits;
+		this.buckets = new int[(1 << bits) + 1];
+		int idx = 0;
+		for (int b = 0; b < buckets.length; b++) {
+			while (idx < hashes.length && bucket(hashes[idx]) < b) {
+				idx++;
+			}
+			buckets[b] = idx;
+		}
+	}
+
+	/**
+	 * 翻转符号位后取高位，桶号随有符号哈希值单调递增
+	 */
+	private int bucket(long hash) {
+		return (int) ((hash ^ Long.MIN_VALUE) >>> bucketShift);
+	}
+
+	public static ShardRing of(int shards) {
+		if (shards <= 0) {
+			throw new IllegalArgumentException("shards must be positive: " + shards);
+		}
+		int total = shards * NODES_PER_SHARD;
+		long[] raw = new long[total];
+		Integer[] order = new Integer[total];
+		for (int i = 0; i < shards; i++) {
+			for (int n = 0; n < NODES_PER_SHARD; n++) {
+				int seq = i * NODES_PER_SHARD + n;
+				raw[seq] = Hashing.MURMUR_HASH.hash("SHARD-" + i + "-NODE-" + n);
+				order[seq] = seq;
+			}
+		}
+		// 按哈希值排序，哈希相同的保持插入顺序
+		Arrays.sort(order, (a, b) -> {
+			int c = Long.compare(raw[a], raw[b]);
+			return c != 0 ? c : Integer.compare(a, b);
+		});
+
+		long[] hashes = new long[total];
+		int[] owners = new int[total];
+		int size = 0;
+		for (int seq : order) {
+			long hash = raw[seq];
+			if (size > 0 && hashes[size - 1] == hash) {
+				// TreeMap.put 语义：后放入的节点覆盖先放入的
+				owners[size - 1] = seq / NODES_PER_SHARD;
+			} else {
+				hashes[size] = hash;
+				owners[size] = seq / NODES_PER_SHARD;
+				size++;
+			}
+		}
+		return new ShardRing(
+				shards,
+				size == total ? hashes : Arrays.copyOf(hashes, size),
+				size == total ? owners : Arrays.copyOf(owners, size));
+	}
+
+	@Override
+	public int shards() {
+		return shards;
+	}
+
+	@Override
+	public int shardIndex(String key) {
+		return locate(Hashing.MURMUR_HASH.hash(key));
+	}
+
+	@Override
+	public int shardIndex(byte[] key) {
+		return locate(Hashing.MURMUR_HASH.hash(key));
+	}
+
+	private int locate(long hash) {
+		int b = bucket(hash);
+		// 桶内没有不小于 hash 的节点时，插入点正好是下一个非空桶的第一个节点
+		int idx = Arrays.binarySearch(hashes, buckets[b], buckets[b + 1], hash);
+		if (idx < 0) {
+			idx = -idx - 1;
+			if (idx == hashes.length) {
+				idx = 0;
+			}
+		}
+		return owners[idx];
+	}
+}
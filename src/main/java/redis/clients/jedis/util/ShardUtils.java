@@ -1,8 +1,16 @@
 package redis.clients.jedis.util;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 与客户端默认分片（{@link ShardingStrategy#KETAMA}）一致的分片序号，各分片数量的环只构建一次
+ */
 public class ShardUtils {
+
+	private static final ConcurrentMap<Integer, Sharding> RINGS = new ConcurrentHashMap<>();
+
 	public static int shardIndex(String key, int shardNum) {
-		int hash = ((int) Hashing.MURMUR_HASH.hash(key)) & Integer.MAX_VALUE;
-		return hash % shardNum;
+		return RINGS.computeIfAbsent(shardNum, ShardingStrategy.KETAMA::create).shardIndex(key);
 	}
 }
@@ -0,0 +1,13 @@
+package redis.clients.jedis.util;
+
+/**
+ * key 到分片序号的映射，由 {@link ShardingStrategy} 按分片数量创建；实现应当不可变，可在线程间共享
+ */
+public interface Sharding {
+
+	int shards();
+
+	int shardIndex(String key);
+
+	int shardIndex(byte[] key);
+}
@@ -0,0 +1,105 @@
+package redis.clients.jedis.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * 分片算法，客户端、命令行和重新分片共用。
+ * <p>
+ * 内置 {@link #KETAMA}（默认，与 {@link Sharded} 一致）、{@link #JUMP} 和 {@link #RENDEZVOUS}；
+ * 也可以实现本接口，在配置中写类名，见 {@link #of(String)}。
+ */
+public interface ShardingStrategy {
+
+	/**
+	 * 每个分片 160 个虚拟节点的一致性哈希环，与 {@link Sharded} 对未命名分片的分布一致
+	 */
+	ShardingStrategy KETAMA = new Named("ketama", names -> ShardRing.of(names.size()));
+
+	/**
+	 * 跳跃一致性哈希：只能在末尾增减分片，分布最均匀，增加一个分片只迁移 1/(n+1) 的 key
+	 */
+	ShardingStrategy JUMP = new Named("jump", names -> JumpSharding.of(names.size()));
+
+	/**
+	 * 最高随机权重哈希，按 master 的名字而不是位置计算权重：去掉任意一个 master 都只迁移它自己的 key
+	 */
+	ShardingStrategy RENDEZVOUS = new Named("rendezvous", RendezvousSharding::of);
+
+	/**
+	 * @param masterNames 各分片的 master 名字，下标即分片序号，不能重复
+	 */
+	Sharding create(List<String> masterNames);
+
+	/**
+	 * 分片没有名字时（如 {@link ShardUtils}）按 "SHARD-i" 命名
+	 */
+	default Sharding create(int shards) {
+		List<String> names = new ArrayList<>(shards);
+		for (int i = 0; i < shards; i++) {
+			names.add("SHARD-" + i);
+		}
+		return create(names);
+	}
+
+	/**
+	 * key 中含 {tag} 时只按第一个 {} 中的内容分片，同一 tag 的 key 落在同一个 master 上
+	 */
+	default ShardingStrategy withHashTags() {
+		return new Named(this + "+hashtags", names -> new HashTagSharding(create(names)));
+	}
+
+	/**
+	 * @param name ketama、jump、rendezvous，或者带无参构造函数的实现类的全名；
+	 *             后面加 "+hashtags" 表示支持 hash tag
+	 */
+	static ShardingStrategy of(String name) {
+		String trimmed = name.trim();
+		if (trimmed.toLowerCase(Locale.ROOT).endsWith("+hashtags")) {
+			return of(trimmed.substring(0, trimmed.length() - "+hashtags".length())).withHashTags();
+		}
+		switch (trimmed.toLowerCase(Locale.ROOT)) {
+			case "ketama":
+				return KETAMA;
+			case "jump":
+				return JUMP;
+			case "rendezvous":
+				return RENDEZVOUS;
+			default:
+				try {
+					return (ShardingStrategy) Class.forName(trimmed).getDeclaredConstructor().newInstance();
+				} catch (ReflectiveOperationException | ClassCastException e) {
+					throw new IllegalArgumentException("Unknown sharding strategy: " + name, e);
+				}
+		}
+	}
+
+	/**
+	 * 带名字的策略，名字用于日志和重新分片的断点
+	 */
+	final class Named implements ShardingStrategy {
+
+		private final String name;
+		private final Function<List<String>, Sharding> factory;
+
+		public Named(String name, Function<List<String>, Sharding> factory) {
+			this.name = name;
+			this.factory = factory;
+		}
+
+		@Override
+		public Sharding create(List<String> masterNames) {
+			if (masterNames.isEmpty()) {
+				throw new IllegalArgumentException("shards must be positive: 0");
+			}
+			return factory.apply(masterNames);
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package redis.clients.jedis.util;
+
+/**
+ * 先把 key 的 MurmurHash 映射到 {@link #SLOTS} 个槽，再查预先算好的槽到分片的表
+ */
+abstract class SlotSharding implements Sharding {
+
+	static final int SLOTS = 16384;
+
+	private final int shards;
+	private final int[] owners;
+
+	SlotSharding(int shards, int[] owners) {
+		this.shards = shards;
+		this.owners = owners;
+	}
+
+	@Override
+	public int shards() {
+		return shards;
+	}
+
+	@Override
+	public int shardIndex(String key) {
+		return owners[(int) Hashing.MURMUR_HASH.hash(key) & (SLOTS - 1)];
+	}
+
+	@Override
+	public int shardIndex(byte[] key) {
+		return owners[(int) Hashing.MURMUR_HASH.hash(key) & (SLOTS - 1)];
+	}
+
+	/**
+	 * SplitMix64 的混合函数，把槽号和分片号打散成均匀的 64 位值
+	 */
+	static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,137 @@
+package redis.clients.jedis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import redis.clients.jedis.CircuitBreaker.State;
+
+public class CircuitBreakerTest {
+
+	/**
+	 * 4 次调用中一半失败时打开，打开一小时（只由 sentinel 事件半开），2 个探测请求
+	 */
+	private static final CircuitBreakerPolicy POLICY = new CircuitBreakerPolicy(0.5, 4, 10_000L, 3_600_000L, 2);
+
+	private final CircuitBreaker breaker = new CircuitBreaker("master0", POLICY);
+
+	@Test
+	public void opensWhenFailureRateReached() {
+		breaker.onSuccess(breaker.tryAcquire());
+		breaker.onSuccess(breaker.tryAcquire());
+		breaker.onFailure(breaker.tryAcquire());
+		assertEquals(State.CLOSED, breaker.getState());
+
+		breaker.onFailure(breaker.tryAcquire());
+		assertEquals(State.OPEN, breaker.getState());
+		assertEquals(1, breaker.getOpenedCount());
+		assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+		assertEquals(1, breaker.getRejectedCount());
+	}
+
+	@Test
+	public void halfOpensAfterOpenMillis() throws InterruptedException {
+		CircuitBreaker shortOpen = new CircuitBreaker("master0", new CircuitBreakerPolicy(0.5, 4, 10_000L, 20L, 1));
+		shortOpen.onSentinelEvent("+odown", "sentinel");
+		assertEquals(CircuitBreaker.REJECTED, shortOpen.tryAcquire());
+		Thread.sleep(50);
+		long probe = shortOpen.tryAcquire();
+		assertTrue(probe > 0);
+		assertEquals(State.HALF_OPEN, shortOpen.getState());
+		shortOpen.onSuccess(probe);
+		assertEquals(State.CLOSED, shortOpen.getState());
+	}
+
+	@Test
+	public void closesAfterAllProbesSucceed() {
+		halfOpen();
+		long first = breaker.tryAcquire();
+		long second = breaker.tryAcquire();
+		assertTrue(first > 0 && second > 0);
+		// 探测名额用完
+		assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+
+		breaker.onSuccess(first);
+		assertEquals(State.HALF_OPEN, breaker.getState());
+		breaker.onSuccess(second);
+		assertEquals(State.CLOSED, breaker.getState());
+		assertEquals(CircuitBreaker.CALL, breaker.tryAcquire());
+	}
+
+	@Test
+	public void reopensWhenProbeFails() {
+		halfOpen();
+		long probe = breaker.tryAcquire();
+		breaker.onFailure(probe);
+		assertEquals(State.OPEN, breaker.getState());
+		assertEquals("probe failed", breaker.getReason());
+	}
+
+	@Test
+	public void ignoresConnectionsBorrowedBeforeTrip() {
+		long borrowed = breaker.tryAcquire();
+		assertEquals(CircuitBreaker.CALL, borrowed);
+		halfOpen();
+
+		for (int i = 0; i < 10; i++) {
+			breaker.onSuccess(borrowed);
+		}
+		breaker.onFailure(borrowed);
+		assertEquals(State.HALF_OPEN, breaker.getState());
+	}
+
+	@Test
+	public void ignoresProbesOfEarlierRounds() {
+		halfOpen();
+		long stale = breaker.tryAcquire();
+		breaker.onSentinelEvent("+odown", "sentinel");
+		breaker.onSentinelEvent("-odown", "sentinel");
+		assertEquals(State.HALF_OPEN, breaker.getState());
+
+		breaker.onFailure(stale);
+		breaker.onSuccess(stale);
+		assertEquals(State.HALF_OPEN, breaker.getState());
+		// 新一轮的名额不受之前的探测影响
+		long first = breaker.tryAcquire();
+		long second = breaker.tryAcquire();
+		assertTrue(first > stale && second > stale);
+		breaker.onSuccess(first);
+		breaker.onSuccess(second);
+		assertEquals(State.CLOSED, breaker.getState());
+	}
+
+	@Test
+	public void firstFailureAfterSdownOpens() {
+		breaker.onSentinelEvent("+sdown", "sentinel");
+		assertTrue(breaker.isSuspected());
+		assertEquals(State.CLOSED, breaker.getState());
+		breaker.onFailure(breaker.tryAcquire());
+		assertEquals(State.OPEN, breaker.getState());
+
+		breaker.onSentinelEvent("-sdown", "sentinel");
+		assertFalse(breaker.isSuspected());
+		assertEquals(State.HALF_OPEN, breaker.getState());
+	}
+
+	@Test
+	public void switchMasterHalfOpensAndClearsWindow() {
+		breaker.onFailure(breaker.tryAcquire());
+		breaker.onSentinelEvent("+switch-master", "127.0.0.1:6380");
+		assertEquals(State.CLOSED, breaker.getState());
+		assertEquals(0.0, breaker.getFailureRate(), 0.0);
+
+		breaker.onSentinelEvent("+odown", "sentinel");
+		breaker.onSentinelEvent("+switch-master", "127.0.0.1:6381");
+		assertEquals(State.HALF_OPEN, breaker.getState());
+		assertFalse(breaker.isSuspected());
+	}
+
+	private void halfOpen() {
+		breaker.onSentinelEvent("+odown", "sentinel");
+		assertEquals(State.OPEN, breaker.getState());
+		breaker.onSentinelEvent("-odown", "sentinel");
+		assertEquals(State.HALF_OPEN, breaker.getState());
+	}
+}
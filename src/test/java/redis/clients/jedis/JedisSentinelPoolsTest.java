@@ -0,0 +1,83 @@
+package redis.clients.jedis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.simulator.SentinelSimulator;
+import redis.clients.jedis.simulator.SimulatedCluster;
+
+public class JedisSentinelPoolsTest {
+
+	private SimulatedCluster cluster;
+	private SentinelSimulator dead;
+
+	@Before
+	public void setUp() throws IOException {
+		cluster = new SimulatedCluster(1, 0, 4);
+		// 端口保留但拒绝连接
+		dead = new SentinelSimulator();
+		dead.down();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		dead.close();
+		cluster.close();
+	}
+
+	@Test
+	public void resolvesMonitoredMasters() {
+		try (JedisSentinelPools pools = new JedisSentinelPools(cluster.masterNames(),
+				sentinels(live(), dead.address().toString()), new GenericObjectPoolConfig<>())) {
+			assertEquals(cluster.master(0).address(), pools.getMasterPools().get(0).getCurrentHostMaster());
+		}
+	}
+
+	@Test
+	public void unknownMasterIsNotReportedAsUnreachable() {
+		String message = resolveError(Arrays.asList("master0", "nosuch"), sentinels(live()));
+		assertTrue(message, message.startsWith("Unknown master [nosuch], not monitored by any of the 1 sentinels"));
+	}
+
+	@Test
+	public void unknownMasterCountsOnlyAnsweringSentinels() {
+		String message = resolveError(Arrays.asList("master0", "nosuch"), sentinels(live(), dead.address().toString()));
+		assertTrue(message, message.startsWith("Unknown master [nosuch], not monitored by any of the 1 sentinels"));
+	}
+
+	@Test
+	public void unreachableSentinelsAreNotReportedAsUnknownMaster() {
+		String message = resolveError(cluster.masterNames(), sentinels(dead.address().toString()));
+		assertTrue(message, message.startsWith("No sentinel reachable"));
+	}
+
+	private String live() {
+		return cluster.sentinel().address().toString();
+	}
+
+	private static Set<String> sentinels(String... addresses) {
+		return new LinkedHashSet<>(Arrays.asList(addresses));
+	}
+
+	private static String resolveError(List<String> masterNames, Set<String> sentinels) {
+		try (JedisSentinelPools pools = new JedisSentinelPools(masterNames, sentinels, new GenericObjectPoolConfig<>())) {
+			fail("Resolved " + masterNames + " as " + pools.getMasterPools());
+			return null;
+		} catch (JedisException e) {
+			return e.getMessage();
+		}
+	}
+}
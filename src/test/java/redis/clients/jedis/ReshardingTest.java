@@ -0,0 +1,262 @@
+package redis.clients.jedis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import redis.clients.jedis.simulator.SimulatedCluster;
+import redis.clients.jedis.util.Sharding;
+
+public class ReshardingTest {
+
+	private static final List<String> PREVIOUS = Arrays.asList("master0", "master1");
+	private static final int KEYS = 1000;
+	private static final long TTL_MILLIS = 600_000L;
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private SimulatedCluster cluster;
+	private JedisSentinelPools pools;
+	private Sharding previous;
+
+	@Before
+	public void setUp() throws IOException {
+		cluster = new SimulatedCluster(3, 0, 16);
+		pools = cluster.pools();
+		previous = pools.getShardingStrategy().create(PREVIOUS);
+		for (int i = 0; i < KEYS; i++) {
+			String key = key(i);
+			try (Jedis jedis = previousPool(key).getResource()) {
+				// 每 3 个 key 有一个带过期时间
+				if (i % 3 == 0) {
+					jedis.psetex(key, TTL_MILLIS, value(i));
+				} else {
+					jedis.set(key, value(i));
+				}
+			}
+		}
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Resharding resharding = pools.getResharding();
+		if (resharding != null) {
+			resharding.close();
+		}
+		cluster.close();
+	}
+
+	@Test
+	public void movesEveryKeyToItsNewOwnerWithTtl() throws Exception {
+		Resharding resharding = pools.startResharding(PREVIOUS, new ReshardPolicy(50, -1, null));
+		List<ReshardProgress> progress = resharding.completion().get(30, TimeUnit.SECONDS);
+		assertFalse(resharding.isActive());
+
+		long moved = 0;
+		for (ReshardProgress p : progress) {
+			assertTrue(p.isDone());
+			assertEquals(0, p.getFailed());
+			moved += p.getMoved();
+		}
+		int changed = 0;
+		for (int i = 0; i < KEYS; i++) {
+			if (previousPool(key(i)) != owner(key(i))) {
+				changed++;
+			}
+		}
+		assertTrue(changed > 0);
+		assertEquals(changed, moved);
+		assertPlaced(Collections.<String>emptySet());
+	}
+
+	@Test
+	public void keepsNewerValueOnBusyKey() throws Exception {
+		String key = firstMovingKey();
+		try (Jedis jedis = owner(key).getResource()) {
+			jedis.set(key, "newer");
+		}
+		Resharding resharding = pools.startResharding(PREVIOUS, new ReshardPolicy(50, -1, null));
+		List<ReshardProgress> progress = resharding.completion().get(30, TimeUnit.SECONDS);
+
+		long skipped = 0;
+		for (ReshardProgress p : progress) {
+			skipped += p.getSkipped();
+		}
+		assertEquals(1, skipped);
+		try (Jedis jedis = owner(key).getResource()) {
+			assertEquals("newer", jedis.get(key));
+		}
+		try (Jedis jedis = previousPool(key).getResource()) {
+			assertFalse(jedis.exists(key));
+		}
+	}
+
+	@Test
+	public void pullMovesKeyBeforeBackgroundReachesIt() throws Exception {
+		// 后台每秒只扫 1 个 key
+		pools.startResharding(PREVIOUS, new ReshardPolicy(1, 1, null));
+		String key = firstMovingKey();
+		int i = Integer.parseInt(key.substring("key:".length()));
+		try (ShardedJedisSentinel jedis = new ShardedJedisSentinel(pools)) {
+			assertEquals(value(i), jedis.get(key));
+			if (i % 3 == 0) {
+				long ttl = jedis.pttl(key);
+				assertTrue("pttl " + ttl, ttl > 0 && ttl <= TTL_MILLIS);
+			}
+		}
+		try (Jedis jedis = previousPool(key).getResource()) {
+			assertFalse(jedis.exists(key));
+		}
+	}
+
+	@Test
+	public void deletedKeysAreNotCopiedBack() throws Exception {
+		Resharding resharding = pools.startResharding(PREVIOUS, new ReshardPolicy(10, 500, null));
+		Set<String> deleted = ConcurrentHashMap.newKeySet();
+		AtomicInteger badReads = new AtomicInteger();
+		ExecutorService clients = Executors.newFixedThreadPool(4);
+		for (int t = 0; t < 4; t++) {
+			Random random = new Random(t);
+			clients.execute(() -> {
+				try (ShardedJedisSentinel jedis = new ShardedJedisSentinel(pools)) {
+					while (!resharding.completion().isDone()) {
+						int i = random.nextInt(KEYS);
+						String key = key(i);
+						if (random.nextInt(4) == 0) {
+							// 先记下再删，读线程不会把刚删掉的 key 当成丢失
+							deleted.add(key);
+							jedis.del(key);
+						} else {
+							String value = jedis.get(key);
+							if (value == null ? !deleted.contains(key) : !value.equals(value(i))) {
+								badReads.incrementAndGet();
+							}
+						}
+					}
+				}
+			});
+		}
+		resharding.completion().get(60, TimeUnit.SECONDS);
+		clients.shutdown();
+		assertTrue(clients.awaitTermination(10, TimeUnit.SECONDS));
+
+		assertEquals(0, badReads.get());
+		assertFalse(deleted.isEmpty());
+		assertPlaced(deleted);
+	}
+
+	@Test
+	public void resumesFromCheckpoint() throws Exception {
+		Path checkpoint = folder.getRoot().toPath().resolve("reshard.checkpoint");
+		Resharding first = pools.startResharding(PREVIOUS, new ReshardPolicy(10, 200, checkpoint));
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (scanned(first.progress()) < 100) {
+			if (System.nanoTime() - deadline > 0) {
+				fail("No progress: " + first.progress());
+			}
+			Thread.sleep(20);
+		}
+		first.close();
+		long scannedBefore = scanned(first.progress());
+
+		Resharding second = pools.startResharding(PREVIOUS, new ReshardPolicy(50, -1, checkpoint));
+		long scannedAfter = scanned(second.completion().get(30, TimeUnit.SECONDS));
+		assertTrue("rescanned " + scannedAfter + " keys after " + scannedBefore, scannedAfter < KEYS);
+		assertPlaced(Collections.<String>emptySet());
+
+		// 已完成的断点再用一次不做任何事
+		Resharding third = pools.startResharding(PREVIOUS, new ReshardPolicy(50, -1, checkpoint));
+		assertEquals(0, scanned(third.completion().get(30, TimeUnit.SECONDS)));
+	}
+
+	@Test
+	public void rejectsCheckpointOfAnotherPlan() throws Exception {
+		Path checkpoint = folder.getRoot().toPath().resolve("reshard.checkpoint");
+		pools.startResharding(PREVIOUS, new ReshardPolicy(50, -1, checkpoint)).completion().get(30, TimeUnit.SECONDS);
+		try {
+			pools.startResharding(Arrays.asList("master1", "master0"), new ReshardPolicy(50, -1, checkpoint));
+			fail("Checkpoint of another plan accepted");
+		} catch (IllegalStateException expected) {
+			assertTrue(expected.getMessage(), expected.getMessage().contains("another plan"));
+		}
+	}
+
+	/**
+	 * 没删掉的 key 只在新 master 上，值和过期时间都在；删掉的 key 哪里都没有
+	 */
+	private void assertPlaced(Set<String> deleted) {
+		for (int i = 0; i < KEYS; i++) {
+			String key = key(i);
+			SentinelMasterPool owner = owner(key);
+			for (SentinelMasterPool pool : pools.getMasterPools()) {
+				try (Jedis jedis = pool.getResource()) {
+					if (pool != owner || deleted.contains(key)) {
+						assertFalse(key + " left on " + pool.getMasterName(), jedis.exists(key));
+						continue;
+					}
+					assertEquals(key, value(i), jedis.get(key));
+					long ttl = jedis.pttl(key);
+					if (i % 3 == 0) {
+						assertTrue(key + " pttl " + ttl, ttl > 0 && ttl <= TTL_MILLIS);
+					} else {
+						assertEquals(key, -1L, ttl);
+					}
+				}
+			}
+		}
+	}
+
+	private String firstMovingKey() {
+		for (int i = 0; i < KEYS; i++) {
+			if (previousPool(key(i)) != owner(key(i))) {
+				return key(i);
+			}
+		}
+		throw new AssertionError("No key changes owner");
+	}
+
+	private SentinelMasterPool previousPool(String key) {
+		return pools.getMasterPools().get(previous.shardIndex(key));
+	}
+
+	private SentinelMasterPool owner(String key) {
+		return pools.getMasterPools().get(pools.getSharding().shardIndex(key));
+	}
+
+	private static long scanned(List<ReshardProgress> progress) {
+		long scanned = 0;
+		for (ReshardProgress p : progress) {
+			scanned += p.getScanned();
+		}
+		return scanned;
+	}
+
+	private static String key(int i) {
+		return "key:" + i;
+	}
+
+	private static String value(int i) {
+		return "value:" + i;
+	}
+}
@@ -0,0 +1,165 @@
+package redis.clients.jedis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.junit.After;
+import org.junit.Test;
+
+import redis.clients.jedis.simulator.RedisSimulator;
+import redis.clients.jedis.simulator.SimulatedCluster;
+
+public class SentinelMasterPoolTest {
+
+	private SimulatedCluster cluster;
+	private JedisSentinelPools pools;
+
+	@After
+	public void tearDown() throws IOException {
+		if (pools != null) {
+			pools.close();
+		}
+		if (cluster != null) {
+			cluster.close();
+		}
+	}
+
+	@Test
+	public void borrowersSeeNoErrorsAcrossSwitch() throws Exception {
+		cluster = new SimulatedCluster(1, 1, 16);
+		SentinelMasterPool pool = cluster.pools().getMasterPools().get(0);
+		RedisSimulator oldMaster = cluster.master(0);
+		try (Jedis jedis = pool.getResource()) {
+			for (int i = 0; i < 100; i++) {
+				jedis.set("key:" + i, "value:" + i);
+			}
+		}
+		awaitTrue("replicated", () -> cluster.replicas(0).get(0).size(0) == 100);
+		awaitTrue("subscribed", () -> cluster.sentinel().subscribers("+switch-master") == 1);
+
+		// 只读，切换前后读旧 master 或新 master 都应得到同样的值
+		int threads = 8;
+		CountDownLatch started = new CountDownLatch(threads);
+		AtomicInteger reads = new AtomicInteger();
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		AtomicLong stopAt = new AtomicLong(Long.MAX_VALUE);
+		Thread[] borrowers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			int id = t;
+			borrowers[t] = new Thread(() -> {
+				started.countDown();
+				int i = 0;
+				while (System.nanoTime() - stopAt.get() < 0 && error.get() == null) {
+					try (Jedis jedis = pool.getResource()) {
+						int k = (id * 31 + i++) % 100;
+						assertEquals("value:" + k, jedis.get("key:" + k));
+						if (i % 10 == 0) {
+							// 拿着连接跨过切换，旧连接池要等它归还才关闭
+							Thread.sleep(20);
+							assertEquals("value:" + k, jedis.get("key:" + k));
+						}
+						reads.incrementAndGet();
+					} catch (Throwable e) {
+						error.compareAndSet(null, e);
+					}
+				}
+			}, "SentinelMasterPoolTest-" + t);
+			borrowers[t].start();
+		}
+		started.await();
+		Thread.sleep(100);
+		RedisSimulator newMaster = cluster.failover(0);
+		awaitTrue("switched", () -> newMaster.address().equals(pool.getCurrentHostMaster()));
+		int readsAtSwitch = reads.get();
+		Thread.sleep(200);
+		stopAt.set(System.nanoTime());
+		for (Thread borrower : borrowers) {
+			borrower.join();
+		}
+
+		if (error.get() != null) {
+			throw new AssertionError("Borrower failed across switch", error.get());
+		}
+		assertTrue(reads.get() > readsAtSwitch);
+		assertEquals(1, pool.getSwitchCount());
+		// 旧连接池在借出的连接都归还后关闭
+		awaitTrue("old pool drained", () -> oldMaster.connectionCount() == 0);
+	}
+
+	@Test
+	public void supersededPrewarmIsDiscarded() throws Exception {
+		cluster = new SimulatedCluster(1, 2, 16);
+		SentinelMasterPool pool = slowCreatePools().getMasterPools().get(0);
+		RedisSimulator slow = cluster.replicas(0).get(0);
+		RedisSimulator fast = cluster.replicas(0).get(1);
+		// 预热期间 sentinel 又切换到另一台
+		slow.setLatency(500, TimeUnit.MILLISECONDS);
+		awaitTrue("subscribed", () -> cluster.sentinel().subscribers("+switch-master") == 2);
+
+		cluster.sentinel().failover("master0", slow.address());
+		// cluster 自己的连接池和被测的连接池各一条
+		awaitTrue("pre-warm of slow master started", () -> slow.connectionCount() >= 2);
+		fast.promote();
+		cluster.sentinel().failover("master0", fast.address());
+
+		awaitTrue("switched", () -> fast.address().equals(pool.getCurrentHostMaster()));
+		// 慢的预热完成后不再替换，建好的连接池被关闭
+		awaitTrue("superseded pool closed", () -> slow.connectionCount() == 0);
+		assertEquals(fast.address(), pool.getCurrentHostMaster());
+		assertEquals(1, pool.getSwitchCount());
+		try (Jedis jedis = pool.getResource()) {
+			jedis.set("key", "value");
+		}
+		assertEquals(1, fast.size(0));
+	}
+
+	@Test
+	public void switchBackCancelsPrewarm() throws Exception {
+		cluster = new SimulatedCluster(1, 1, 16);
+		SentinelMasterPool pool = slowCreatePools().getMasterPools().get(0);
+		HostAndPort master = pool.getCurrentHostMaster();
+		RedisSimulator replica = cluster.replicas(0).get(0);
+		replica.setLatency(500, TimeUnit.MILLISECONDS);
+
+		CompletableFuture<Boolean> away = pool.switchTo(replica.address());
+		// 预热期间切回当前 master
+		assertFalse(pool.switchTo(master).get());
+		assertFalse(away.get(5, TimeUnit.SECONDS));
+		assertEquals(master, pool.getCurrentHostMaster());
+		assertEquals(0, pool.getSwitchCount());
+	}
+
+	/**
+	 * 新建连接时要 CLIENT SETNAME，给节点加上延迟就能让预热变慢
+	 */
+	private JedisSentinelPools slowCreatePools() {
+		pools = new JedisSentinelPools(cluster.masterNames(),
+				Collections.singleton(cluster.sentinel().address().toString()), new GenericObjectPoolConfig<>(),
+				Protocol.DEFAULT_TIMEOUT, Protocol.DEFAULT_TIMEOUT, 0, null, null, Protocol.DEFAULT_DATABASE,
+				"SentinelMasterPoolTest");
+		return pools;
+	}
+
+	private static void awaitTrue(String what, BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() - deadline > 0) {
+				fail("Timed out waiting until " + what);
+			}
+			Thread.sleep(10);
+		}
+	}
+}
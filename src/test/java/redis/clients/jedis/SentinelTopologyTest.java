@@ -0,0 +1,64 @@
+package redis.clients.jedis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import redis.clients.jedis.simulator.RedisSimulator;
+import redis.clients.jedis.simulator.SimulatedCluster;
+
+public class SentinelTopologyTest {
+
+	private SimulatedCluster cluster;
+
+	@After
+	public void tearDown() throws IOException {
+		if (cluster != null) {
+			cluster.close();
+		}
+	}
+
+	@Test
+	public void backToBackSwitchesEndOnTheLatestMaster() throws Exception {
+		for (int round = 0; round < 20; round++) {
+			cluster = new SimulatedCluster(1, 2, 4);
+			JedisSentinelPools pools = cluster.pools();
+			// 只靠 +switch-master，定期刷新不来纠正
+			pools.setTopologyRefreshMillis(0);
+			awaitSubscribed(cluster);
+			RedisSimulator first = cluster.replicas(0).get(0);
+			RedisSimulator second = cluster.replicas(0).get(1);
+			// 处理第一条 +switch-master 时 sentinel 可能已经切到第二台，epoch 不能配给第一台
+			cluster.sentinel().failover("master0", first.address());
+			cluster.sentinel().failover("master0", second.address());
+
+			SentinelMasterPool pool = pools.getMasterPools().get(0);
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (!second.address().equals(pool.getCurrentHostMaster())) {
+				if (System.nanoTime() - deadline > 0) {
+					fail("Round " + round + ": stuck on " + pool.getCurrentHostMaster() + " (first " + first.address()
+							+ "), expected " + second.address());
+				}
+				Thread.sleep(10);
+			}
+			assertEquals(second.address(), pools.getTopology().getMaster("master0"));
+			cluster.close();
+			cluster = null;
+		}
+	}
+
+	private static void awaitSubscribed(SimulatedCluster cluster) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (cluster.sentinel().subscribers("+switch-master") == 0) {
+			if (System.nanoTime() - deadline > 0) {
+				fail("Not subscribed to the sentinel");
+			}
+			Thread.sleep(10);
+		}
+	}
+}
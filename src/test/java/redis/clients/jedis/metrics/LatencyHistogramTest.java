@@ -0,0 +1,68 @@
+package redis.clients.jedis.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void smallValuesHaveOwnBuckets() {
+		for (int v = 0; v < 8; v++) {
+			assertEquals(v, LatencyHistogram.bucket(v));
+			assertEquals(v, LatencyHistogram.upperBound(v));
+		}
+		assertEquals(8, LatencyHistogram.bucket(8));
+		assertEquals(8, LatencyHistogram.upperBound(8));
+		assertEquals(15, LatencyHistogram.bucket(15));
+		assertEquals(16, LatencyHistogram.bucket(16));
+		assertEquals(17, LatencyHistogram.upperBound(16));
+	}
+
+	@Test
+	public void bucketBoundaries() {
+		for (int b = 1; b < LatencyHistogram.BUCKETS; b++) {
+			long lower = LatencyHistogram.upperBound(b - 1) + 1;
+			long upper = LatencyHistogram.upperBound(b);
+			assertTrue("bucket " + b, upper >= lower);
+			assertEquals("lower bound of bucket " + b, b, LatencyHistogram.bucket(lower));
+			assertEquals("upper bound of bucket " + b, b, LatencyHistogram.bucket(upper));
+			// 每段均分为 8 个桶，桶宽不超过下界的 1/8
+			assertTrue("width of bucket " + b, upper - lower <= lower / 8);
+		}
+		assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBound(LatencyHistogram.BUCKETS - 1));
+		assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucket(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void percentilesUseUpperBoundCappedByMax() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 100; i++) {
+			histogram.record(i * 1000L);
+		}
+		histogram.record(-5);
+		HistogramSnapshot snapshot = histogram.snapshot();
+		assertEquals(101, snapshot.getCount());
+		assertEquals(100_000, snapshot.getMax());
+		long p50 = snapshot.getP50();
+		assertEquals(LatencyHistogram.upperBound(LatencyHistogram.bucket(50_000)), p50);
+		assertTrue(p50 >= 50_000 && p50 <= 50_000 * 9 / 8);
+		assertEquals(100_000, snapshot.getValueAt(1.0));
+		assertEquals(0, snapshot.getValueAt(0.0));
+	}
+
+	@Test
+	public void minusKeepsOnlyTheInterval() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(1_000_000);
+		HistogramSnapshot before = histogram.snapshot();
+		for (int i = 0; i < 10; i++) {
+			histogram.record(10);
+		}
+		HistogramSnapshot delta = histogram.snapshot().minus(before);
+		assertEquals(10, delta.getCount());
+		assertEquals(10, delta.getP99());
+		assertEquals(10.0, delta.getMean(), 0.0);
+	}
+}
@@ -0,0 +1,101 @@
+package redis.clients.jedis.simulator;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import redis.clients.jedis.ShardedJedisSentinel;
+
+/**
+ * 在 {@link SimulatedCluster} 上持续读写，中途让 master0 宕机并切换到副本，
+ * 按 100ms 分桶打印吞吐与错误数，最后给出恢复时间（宕机到最后一次失败）。
+ * <p>
+ * 参数依次为：master 数、并发线程数、运行秒数、宕机时刻（秒）、宕机到切换的毫秒数、注入延迟的毫秒数，
+ * 均可省略：
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=redis.clients.jedis.simulator.FailoverBenchmark -Dexec.args="4 16 10 3 500 0"
+ * </pre>
+ */
+public class FailoverBenchmark {
+
+	private static final long BUCKET_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+	public static void main(String[] args) throws Exception {
+		int masters = arg(args, 0, 4);
+		int threads = arg(args, 1, 16);
+		int seconds = arg(args, 2, 10);
+		int killAt = arg(args, 3, 3);
+		int switchAfterMillis = arg(args, 4, 500);
+		int latencyMillis = arg(args, 5, 0);
+
+		int buckets = (int) (TimeUnit.SECONDS.toNanos(seconds) / BUCKET_NANOS) + 1;
+		AtomicLongArray ok = new AtomicLongArray(buckets);
+		AtomicLongArray failed = new AtomicLongArray(buckets);
+		AtomicLong lastFailure = new AtomicLong();
+
+		try (SimulatedCluster cluster = new SimulatedCluster(masters, 1, threads)) {
+			if (latencyMillis > 0) {
+				cluster.setLatency(latencyMillis, TimeUnit.MILLISECONDS);
+			}
+			FailoverScenario scenario = FailoverScenario.on(cluster)
+					.after(killAt, TimeUnit.SECONDS).kill(0).sdown(0).odown(0)
+					.after(switchAfterMillis, TimeUnit.MILLISECONDS).failover(0);
+
+			long start = System.nanoTime();
+			long end = start + TimeUnit.SECONDS.toNanos(seconds);
+			Thread[] workers = new Thread[threads];
+			for (int i = 0; i < threads; i++) {
+				workers[i] = new Thread(() -> {
+					ThreadLocalRandom random = ThreadLocalRandom.current();
+					long now;
+					while ((now = System.nanoTime()) < end) {
+						String key = "key:" + random.nextInt(100_000);
+						int bucket = (int) ((now - start) / BUCKET_NANOS);
+						try (ShardedJedisSentinel jedis = new ShardedJedisSentinel(cluster.pools())) {
+							jedis.set(key, key);
+							jedis.get(key);
+							ok.incrementAndGet(bucket);
+						} catch (RuntimeException e) {
+							failed.incrementAndGet(bucket);
+							lastFailure.accumulateAndGet(System.nanoTime(), Math::max);
+						}
+					}
+				}, "FailoverBenchmark-" + i);
+				workers[i].start();
+			}
+			List<FailoverScenario.Event> events = scenario.start().get();
+			for (Thread worker : workers) {
+				worker.join();
+			}
+			report(start, ok, failed, lastFailure.get(), events);
+		}
+	}
+
+	private static void report(long start, AtomicLongArray ok, AtomicLongArray failed, long lastFailure,
+			List<FailoverScenario.Event> events) {
+		System.out.println("  time(ms)     ops/s    errors");
+		for (int i = 0; i < ok.length(); i++) {
+			System.out.printf("%10d %9d %9d%n", i * 100, ok.get(i) * 10, failed.get(i));
+		}
+		for (FailoverScenario.Event event : events) {
+			System.out.printf("%10d  %s%n", TimeUnit.NANOSECONDS.toMillis(event.nanoTime() - start), event.name());
+		}
+		long killed = events.get(0).nanoTime();
+		long switched = events.get(events.size() - 1).nanoTime();
+		if (lastFailure < killed) {
+			System.out.println("No failed operation after the master went down.");
+		} else {
+			System.out.printf("time to recover: %d ms after kill, %d ms after +switch-master%n",
+					TimeUnit.NANOSECONDS.toMillis(lastFailure - killed),
+					TimeUnit.NANOSECONDS.toMillis(Math.max(0, lastFailure - switched)));
+		}
+	}
+
+	private static int arg(String[] args, int i, int defaultValue) {
+		return args.length > i ? Integer.parseInt(args[i]) : defaultValue;
+	}
+}
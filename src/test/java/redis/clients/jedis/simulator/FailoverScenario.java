@@ -0,0 +1,168 @@
+package redis.clients.jedis.simulator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按时间编排的故障脚本，例如：
+ *
+ * <pre>
+ * FailoverScenario.on(cluster)
+ * 		.after(2, TimeUnit.SECONDS).kill(0).sdown(0).odown(0)
+ * 		.after(1, TimeUnit.SECONDS).failover(0)
+ * 		.start();
+ * </pre>
+ * <p>
+ * {@link #after(long, TimeUnit)} 的等待相对于上一步；每一步执行的时刻记录在 {@link #events()} 里，
+ * 便于计算恢复时间。
+ */
+public class FailoverScenario {
+
+	private final SimulatedCluster cluster;
+	private final List<Step> steps = new ArrayList<>();
+	private final List<Event> events = Collections.synchronizedList(new ArrayList<>());
+	private long pendingDelayNanos;
+
+	private FailoverScenario(SimulatedCluster cluster) {
+		this.cluster = cluster;
+	}
+
+	public static FailoverScenario on(SimulatedCluster cluster) {
+		return new FailoverScenario(cluster);
+	}
+
+	public FailoverScenario after(long time, TimeUnit unit) {
+		pendingDelayNanos += unit.toNanos(time);
+		return this;
+	}
+
+	/**
+	 * 模拟第 shard 组当前 master 宕机
+	 */
+	public FailoverScenario kill(int shard) {
+		return step("kill " + cluster.masterNames().get(shard), () -> cluster.master(shard).down());
+	}
+
+	public FailoverScenario sdown(int shard) {
+		return step("+sdown " + cluster.masterNames().get(shard),
+				() -> cluster.sentinel().sdown(cluster.masterNames().get(shard)));
+	}
+
+	public FailoverScenario odown(int shard) {
+		return step("+odown " + cluster.masterNames().get(shard),
+				() -> cluster.sentinel().odown(cluster.masterNames().get(shard)));
+	}
+
+	/**
+	 * 提升副本并发布 {@code +switch-master}，见 {@link SimulatedCluster#failover(int)}
+	 */
+	public FailoverScenario failover(int shard) {
+		return step("+switch-master " + cluster.masterNames().get(shard), () -> cluster.failover(shard));
+	}
+
+	/**
+	 * 重新拉起第 shard 组所有宕机的节点
+	 */
+	public FailoverScenario restart(int shard) {
+		return step("restart " + cluster.masterNames().get(shard), () -> {
+			cluster.master(shard).up();
+			for (RedisSimulator replica : cluster.replicas(shard)) {
+				replica.up();
+			}
+		});
+	}
+
+	public FailoverScenario latency(long time, TimeUnit unit) {
+		return step("latency " + unit.toMillis(time) + "ms", () -> cluster.setLatency(time, unit));
+	}
+
+	public FailoverScenario step(String name, IoAction action) {
+		steps.add(new Step(name, pendingDelayNanos, action));
+		pendingDelayNanos = 0;
+		return this;
+	}
+
+	/**
+	 * 在后台线程中按顺序执行脚本
+	 */
+	public CompletableFuture<List<Event>> start() {
+		CompletableFuture<List<Event>> done = new CompletableFuture<>();
+		Thread t = new Thread(() -> {
+			try {
+				run();
+				done.complete(events());
+			} catch (Throwable e) {
+				done.completeExceptionally(e);
+			}
+		}, "FailoverScenario");
+		t.setDaemon(true);
+		t.start();
+		return done;
+	}
+
+	public void run() throws InterruptedException {
+		for (Step step : steps) {
+			if (step.delayNanos > 0) {
+				TimeUnit.NANOSECONDS.sleep(step.delayNanos);
+			}
+			try {
+				step.action.run();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			events.add(new Event(step.name, System.nanoTime()));
+		}
+	}
+
+	public List<Event> events() {
+		synchronized (events) {
+			return new ArrayList<>(events);
+		}
+	}
+
+	@FunctionalInterface
+	public interface IoAction {
+
+		void run() throws IOException;
+	}
+
+	public static final class Event {
+
+		private final String name;
+		private final long nanoTime;
+
+		Event(String name, long nanoTime) {
+			this.name = name;
+			this.nanoTime = nanoTime;
+		}
+
+		public String name() {
+			return name;
+		}
+
+		/**
+		 * @return 执行完这一步时的 {@link System#nanoTime()}
+		 */
+		public long nanoTime() {
+			return nanoTime;
+		}
+	}
+
+	private static final class Step {
+
+		private final String name;
+		private final long delayNanos;
+		private final IoAction action;
+
+		Step(String name, long delayNanos, IoAction action) {
+			this.name = name;
+			this.delayNanos = delayNanos;
+			this.action = action;
+		}
+	}
+}
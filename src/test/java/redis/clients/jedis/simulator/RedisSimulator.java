@@ -0,0 +1,1034 @@
+package redis.clients.jedis.simulator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 内存中的 Redis 替身，支持 string/hash/set/list 的常用命令、SCAN、DUMP/RESTORE、
+ * keyspace 通知，以及把写命令异步复制给 {@link #replicaOf(RedisSimulator) 副本}。
+ * <p>
+ * 与真实 Redis 一样，所有数据命令串行执行；DUMP 的格式只有本模拟器认识。
+ */
+public class RedisSimulator extends RespServer {
+
+	private static final int DATABASES = 16;
+	private static final int BUCKETS = 1024;
+	private static final byte[] DUMP_MAGIC = "SIM1".getBytes(StandardCharsets.US_ASCII);
+
+	private static final Set<String> WRITE_COMMANDS = new HashSet<>(Arrays.asList(
+			"SET", "SETEX", "PSETEX", "SETNX", "GETSET", "APPEND", "INCR", "INCRBY", "DECR", "DECRBY", "MSET",
+			"DEL", "UNLINK", "EXPIRE", "PEXPIRE", "PERSIST", "RESTORE", "FLUSHDB", "FLUSHALL",
+			"HSET", "HMSET", "HDEL", "HINCRBY", "SADD", "SREM", "LPUSH", "RPUSH", "LPOP", "RPOP"));
+
+	private final Db[] dbs = new Db[DATABASES];
+	private final Map<String, String> config = new ConcurrentHashMap<>();
+	private final List<RedisSimulator> replicas = new CopyOnWriteArrayList<>();
+	private final AtomicLong replOffset = new AtomicLong();
+	private final ScheduledExecutorService replication;
+	private volatile RedisSimulator master;
+	private volatile long replicationDelayMillis;
+
+	public RedisSimulator() throws IOException {
+		this(0);
+	}
+
+	public RedisSimulator(int port) throws IOException {
+		super(port);
+		for (int i = 0; i < DATABASES; i++) {
+			dbs[i] = new Db();
+		}
+		config.put("notify-keyspace-events", "");
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+			Thread t = new Thread(r, "RedisSimulator-replication");
+			t.setDaemon(true);
+			return t;
+		});
+		replication = executor;
+	}
+
+	/**
+	 * 成为 master 的副本：只读，接收 master 之后的写命令（不做全量同步）
+	 */
+	public void replicaOf(RedisSimulator master) {
+		if (this.master != null) {
+			this.master.replicas.remove(this);
+		}
+		this.master = master;
+		if (master != null) {
+			master.replicas.add(this);
+		}
+	}
+
+	/**
+	 * 提升为 master，相当于 REPLICAOF NO ONE
+	 */
+	public void promote() {
+		replicaOf(null);
+	}
+
+	public boolean isReplica() {
+		return master != null;
+	}
+
+	public List<RedisSimulator> replicas() {
+		return Collections.unmodifiableList(replicas);
+	}
+
+	public long replicationOffset() {
+		return replOffset.get();
+	}
+
+	public void setReplicationDelay(long time, TimeUnit unit) {
+		replicationDelayMillis = unit.toMillis(time);
+	}
+
+	public synchronized int size(int db) {
+		return dbs[db].size(System.currentTimeMillis());
+	}
+
+	@Override
+	protected void execute(Connection c, String command, List<byte[]> args, RespWriter out) throws IOException {
+		switch (command) {
+		case "PING":
+			if (args.size() > 1) {
+				out.bulk(args.get(1));
+			} else if (c.subscriptions() > 0) {
+				out.array(2).bulk("pong").bulk("");
+			} else {
+				out.simple("PONG");
+			}
+			return;
+		case "ECHO":
+			out.bulk(args.get(1));
+			return;
+		case "AUTH":
+		case "QUIT":
+			out.simple("OK");
+			return;
+		case "SELECT": {
+			int db = Integer.parseInt(str(args.get(1)));
+			if (db < 0 || db >= DATABASES) {
+				out.error("ERR DB index is out of range");
+			} else {
+				c.db = db;
+				out.simple("OK");
+			}
+			return;
+		}
+		case "CLIENT":
+			client(c, args, out);
+			return;
+		case "CONFIG":
+			config(args, out);
+			return;
+		case "INFO":
+			out.bulk(info());
+			return;
+		default:
+		}
+		if (master != null && WRITE_COMMANDS.contains(command)) {
+			out.error("READONLY You can't write against a read only replica.");
+			return;
+		}
+		String event;
+		synchronized (this) {
+			event = data(dbs[c.db], command, args, out);
+		}
+		if (event != null) {
+			replicate(c.db, args);
+			notifyKeyspace(c.db, event, args);
+		}
+	}
+
+	private void client(Connection c, List<byte[]> args, RespWriter out) throws IOException {
+		String sub = str(args.get(1)).toUpperCase(Locale.ROOT);
+		switch (sub) {
+		case "SETNAME":
+			c.name = str(args.get(2));
+			out.simple("OK");
+			break;
+		case "GETNAME":
+			out.bulk(c.name);
+			break;
+		case "ID":
+			out.integer(c.id);
+			break;
+		default:
+			out.error("ERR unsupported CLIENT subcommand '" + sub + "'");
+		}
+	}
+
+	private void config(List<byte[]> args, RespWriter out) throws IOException {
+		String sub = str(args.get(1)).toUpperCase(Locale.ROOT);
+		if ("GET".equals(sub)) {
+			String name = str(args.get(2));
+			List<String> reply = new ArrayList<>();
+			config.forEach((k, v) -> {
+				if (glob(name, k)) {
+					reply.add(k);
+					reply.add(v);
+				}
+			});
+			out.strings(reply);
+		} else if ("SET".equals(sub)) {
+			config.put(str(args.get(2)), str(args.get(3)));
+			out.simple("OK");
+		} else {
+			out.error("ERR unsupported CONFIG subcommand '" + sub + "'");
+		}
+	}
+
+	private String info() {
+		StringBuilder sb = new StringBuilder("# Replication\r\n");
+		RedisSimulator m = master;
+		if (m == null) {
+			sb.append("role:master\r\n");
+			sb.append("connected_slaves:").append(replicas.size()).append("\r\n");
+		} else {
+			sb.append("role:slave\r\n");
+			sb.append("master_host:").append(m.address().getHost()).append("\r\n");
+			sb.append("master_port:").append(m.address().getPort()).append("\r\n");
+			sb.append("master_link_status:").append(m.isDown() ? "down" : "up").append("\r\n");
+			sb.append("slave_repl_offset:").append(replOffset.get()).append("\r\n");
+		}
+		sb.append("master_repl_offset:").append(replOffset.get()).append("\r\n");
+		return sb.toString();
+	}
+
+	private void replicate(int db, List<byte[]> args) {
+		replOffset.incrementAndGet();
+		for (RedisSimulator replica : replicas) {
+			Runnable apply = () -> replica.applyReplicated(db, args);
+			long delay = replicationDelayMillis;
+			if (delay > 0) {
+				replication.schedule(apply, delay, TimeUnit.MILLISECONDS);
+			} else {
+				replication.execute(apply);
+			}
+		}
+	}
+
+	private void applyReplicated(int db, List<byte[]> args) {
+		String command = str(args.get(0)).toUpperCase(Locale.ROOT);
+		try {
+			String event;
+			synchronized (this) {
+				event = data(dbs[db], command, args, DISCARD);
+			}
+			if (event != null) {
+				replOffset.incrementAndGet();
+				notifyKeyspace(db, event, args);
+				for (RedisSimulator replica : replicas) {
+					replication.execute(() -> replica.applyReplicated(db, args));
+				}
+			}
+		} catch (IOException ignored) {
+			// DISCARD 不会抛出
+		}
+	}
+
+	private void notifyKeyspace(int db, String event, List<byte[]> args) {
+		String flags = config.getOrDefault("notify-keyspace-events", "");
+		if (flags.indexOf('K') < 0 || args.size() < 2) {
+			return;
+		}
+		String prefix = "__keyspace@" + db + "__:";
+		String command = str(args.get(0)).toUpperCase(Locale.ROOT);
+		int stride = "MSET".equals(command) ? 2 : 1;
+		int last = "DEL".equals(command) || "UNLINK".equals(command) || "MSET".equals(command) ? args.size() : 2;
+		for (int i = 1; i < last; i += stride) {
+			publish(prefix + new String(args.get(i), StandardCharsets.ISO_8859_1), event);
+		}
+	}
+
+	/**
+	 * 执行数据命令
+	 *
+	 * @return 命令修改了数据时返回 keyspace 事件名，否则返回 null
+	 */
+	private String data(Db db, String command, List<byte[]> args, RespWriter out) throws IOException {
+		long now = System.currentTimeMillis();
+		switch (command) {
+		case "DBSIZE":
+			out.integer(db.size(now));
+			return null;
+		case "FLUSHDB":
+		case "FLUSHALL":
+			db.clear();
+			out.simple("OK");
+			return "flushdb";
+		case "GET": {
+			Object v = db.get(key(args, 1), now);
+			if (v != null && !(v instanceof byte[])) {
+				return wrongType(out);
+			}
+			out.bulk((byte[]) v);
+			return null;
+		}
+		case "SET": {
+			String key = key(args, 1);
+			long expireAt = 0;
+			boolean nx = false;
+			boolean xx = false;
+			for (int i = 3; i < args.size(); i++) {
+				String opt = str(args.get(i)).toUpperCase(Locale.ROOT);
+				if ("EX".equals(opt)) {
+					expireAt = now + 1000L * Long.parseLong(str(args.get(++i)));
+				} else if ("PX".equals(opt)) {
+					expireAt = now + Long.parseLong(str(args.get(++i)));
+				} else if ("NX".equals(opt)) {
+					nx = true;
+				} else if ("XX".equals(opt)) {
+					xx = true;
+				}
+			}
+			boolean exists = db.get(key, now) != null;
+			if ((nx && exists) || (xx && !exists)) {
+				out.bulk((byte[]) null);
+				return null;
+			}
+			db.put(key, args.get(2), expireAt);
+			out.simple("OK");
+			return "set";
+		}
+		case "SETEX":
+		case "PSETEX": {
+			long ttl = Long.parseLong(str(args.get(2)));
+			db.put(key(args, 1), args.get(3), now + ("SETEX".equals(command) ? ttl * 1000L : ttl));
+			out.simple("OK");
+			return "set";
+		}
+		case "SETNX": {
+			String key = key(args, 1);
+			if (db.get(key, now) != null) {
+				out.integer(0);
+				return null;
+			}
+			db.put(key, args.get(2), 0);
+			out.integer(1);
+			return "set";
+		}
+		case "GETSET": {
+			String key = key(args, 1);
+			Object v = db.get(key, now);
+			if (v != null && !(v instanceof byte[])) {
+				return wrongType(out);
+			}
+			db.put(key, args.get(2), 0);
+			out.bulk((byte[]) v);
+			return "set";
+		}
+		case "APPEND": {
+			String key = key(args, 1);
+			Object v = db.get(key, now);
+			if (v != null && !(v instanceof byte[])) {
+				return wrongType(out);
+			}
+			byte[] old = v == null ? new byte[0] : (byte[]) v;
+			byte[] add = args.get(2);
+			byte[] value = Arrays.copyOf(old, old.length + add.length);
+			System.arraycopy(add, 0, value, old.length, add.length);
+			db.replace(key, value);
+			out.integer(value.length);
+			return "append";
+		}
+		case "STRLEN": {
+			Object v = db.get(key(args, 1), now);
+			if (v != null && !(v instanceof byte[])) {
+				return wrongType(out);
+			}
+			out.integer(v == null ? 0 : ((byte[]) v).length);
+			return null;
+		}
+		case "INCR":
+		case "INCRBY":
+		case "DECR":
+		case "DECRBY": {
+			String key = key(args, 1);
+			Object v = db.get(key, now);
+			if (v != null && !(v instanceof byte[])) {
+				return wrongType(out);
+			}
+			long delta = command.endsWith("BY") ? Long.parseLong(str(args.get(2))) : 1;
+			if (command.startsWith("DECR")) {
+				delta = -delta;
+			}
+			long value;
+			try {
+				value = (v == null ? 0 : Long.parseLong(str((byte[]) v))) + delta;
+			} catch (NumberFormatException e) {
+				out.error("ERR value is not an integer or out of range");
+				return null;
+			}
+			db.replace(key, Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+			out.integer(value);
+			return command.startsWith("INCR") ? "incrby" : "decrby";
+		}
+		case "MGET": {
+			List<byte[]> values = new ArrayList<>(args.size() - 1);
+			for (int i = 1; i < args.size(); i++) {
+				Object v = db.get(key(args, i), now);
+				values.add(v instanceof byte[] ? (byte[]) v : null);
+			}
+			out.bulks(values);
+			return null;
+		}
+		case "MSET":
+			for (int i = 1; i + 1 < args.size(); i += 2) {
+				db.put(key(args, i), args.get(i + 1), 0);
+			}
+			out.simple("OK");
+			return "set";
+		case "DEL":
+		case "UNLINK": {
+			long n = 0;
+			for (int i = 1; i < args.size(); i++) {
+				if (db.remove(key(args, i), now) != null) {
+					n++;
+				}
+			}
+			out.integer(n);
+			return n > 0 ? "del" : null;
+		}
+		case "EXISTS": {
+			long n = 0;
+			for (int i = 1; i < args.size(); i++) {
+				if (db.get(key(args, i), now) != null) {
+					n++;
+				}
+			}
+			out.integer(n);
+			return null;
+		}
+		case "EXPIRE":
+		case "PEXPIRE": {
+			Entry e = db.entry(key(args, 1), now);
+			if (e == null) {
+				out.integer(0);
+				return null;
+			}
+			long ttl = Long.parseLong(str(args.get(2)));
+			e.expireAt = now + ("EXPIRE".equals(command) ? ttl * 1000L : ttl);
+			out.integer(1);
+			return "expire";
+		}
+		case "PERSIST": {
+			Entry e = db.entry(key(args, 1), now);
+			if (e == null || e.expireAt == 0) {
+				out.integer(0);
+				return null;
+			}
+			e.expireAt = 0;
+			out.integer(1);
+			return "persist";
+		}
+		case "TTL":
+		case "PTTL": {
+			Entry e = db.entry(key(args, 1), now);
+			long ttl;
+			if (e == null) {
+				ttl = -2;
+			} else if (e.expireAt == 0) {
+				ttl = -1;
+			} else {
+				ttl = "TTL".equals(command) ? (e.expireAt - now + 999) / 1000 : e.expireAt - now;
+			}
+			out.integer(ttl);
+			return null;
+		}
+		case "TYPE": {
+			Entry e = db.entry(key(args, 1), now);
+			out.simple(e == null ? "none" : e.type());
+			return null;
+		}
+		case "MEMORY": {
+			Entry e = db.entry(key(args, 2), now);
+			if (e == null) {
+				out.bulk((byte[]) null);
+			} else {
+				out.integer(48 + args.get(2).length + e.bytes());
+			}
+			return null;
+		}
+		case "DUMP": {
+			Entry e = db.entry(key(args, 1), now);
+			out.bulk(e == null ? null : dump(e.value));
+			return null;
+		}
+		case "RESTORE": {
+			String key = key(args, 1);
+			long ttl = Long.parseLong(str(args.get(2)));
+			boolean replace = args.size() > 4 && "REPLACE".equalsIgnoreCase(str(args.get(4)));
+			if (!replace && db.get(key, now) != null) {
+				out.error("BUSYKEY Target key name already exists.");
+				return null;
+			}
+			Object value;
+			try {
+				value = restore(args.get(3));
+			} catch (IOException e) {
+				out.error("ERR DUMP payload version or checksum are wrong");
+				return null;
+			}
+			db.put(key, value, ttl > 0 ? now + ttl : 0);
+			out.simple("OK");
+			return "restore";
+		}
+		case "SCAN":
+			scan(db, args, out, now);
+			return null;
+		case "KEYS": {
+			String pattern = str(args.get(1));
+			List<String> keys = new ArrayList<>();
+			db.forEach(now, (k, e) -> {
+				if (glob(pattern, k)) {
+					keys.add(k);
+				}
+			});
+			writeKeys(out, keys);
+			return null;
+		}
+		case "RANDOMKEY": {
+			String k = db.randomKey(now);
+			out.bulk(k == null ? null : k.getBytes(StandardCharsets.ISO_8859_1));
+			return null;
+		}
+		case "HSET":
+		case "HMSET": {
+			Map<String, byte[]> hash = hash(db, key(args, 1), now, true);
+			if (hash == null) {
+				return wrongType(out);
+			}
+			long added = 0;
+			for (int i = 2; i + 1 < args.size(); i += 2) {
+				if (hash.put(key(args, i), args.get(i + 1)) == null) {
+					added++;
+				}
+			}
+			if ("HMSET".equals(command)) {
+				out.simple("OK");
+			} else {
+				out.integer(added);
+			}
+			return "hset";
+		}
+		case "HGET": {
+			Map<String, byte[]> hash = hash(db, key(args, 1), now, false);
+			if (hash == null && db.get(key(args, 1), now) != null) {
+				return wrongType(out);
+			}
+			out.bulk(hash == null ? null : hash.get(key(args, 2)));
+			return null;
+		}
+		case "HMGET": {
+			Map<String, byte[]> hash = hash(db, key(args, 1), now, false);
+			List<byte[]> values = new ArrayList<>();
+			for (int i = 2; i < args.size(); i++) {
+				values.add(hash == null ? null : hash.get(key(args, i)));
+			}
+			out.bulks(values);
+			return null;
+		}
+		case "HGETALL": {
+			Map<String, byte[]> hash = hash(db, key(args, 1), now, false);
+			if (hash == null) {
+				if (db.get(key(args, 1), now) != null) {
+					return wrongType(out);
+				}
+				out.array(0);
+				return null;
+			}
+			out.array(hash.size() * 2);
+			for (Map.Entry<String, byte[]> e : hash.entrySet()) {
+				out.bulk(e.getKey().getBytes(StandardCharsets.ISO_8859_1)).bulk(e.getValue());
+			}
+			return null;
+		}
+		case "HDEL": {
+			String key = key(args, 1);
+			Map<String, byte[]> hash = hash(db, key, now, false);
+			long n = 0;
+			if (hash != null) {
+				for (int i = 2; i < args.size(); i++) {
+					if (hash.remove(key(args, i)) != null) {
+						n++;
+					}
+				}
+				if (hash.isEmpty()) {
+					db.remove(key, now);
+				}
+			}
+			out.integer(n);
+			return n > 0 ? "hdel" : null;
+		}
+		case "HLEN": {
+			Map<String, byte[]> hash = hash(db, key(args, 1), now, false);
+			out.integer(hash == null ? 0 : hash.size());
+			return null;
+		}
+		case "HEXISTS": {
+			Map<String, byte[]> hash = hash(db, key(args, 1), now, false);
+			out.integer(hash != null && hash.containsKey(key(args, 2)) ? 1 : 0);
+			return null;
+		}
+		case "HINCRBY": {
+			Map<String, byte[]> hash = hash(db, key(args, 1), now, true);
+			if (hash == null) {
+				return wrongType(out);
+			}
+			byte[] old = hash.get(key(args, 2));
+			long value = (old == null ? 0 : Long.parseLong(str(old))) + Long.parseLong(str(args.get(3)));
+			hash.put(key(args, 2), Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+			out.integer(value);
+			return "hincrby";
+		}
+		case "SADD": {
+			Set<String> set = set(db, key(args, 1), now, true);
+			if (set == null) {
+				return wrongType(out);
+			}
+			long n = 0;
+			for (int i = 2; i < args.size(); i++) {
+				if (set.add(key(args, i))) {
+					n++;
+				}
+			}
+			out.integer(n);
+			return "sadd";
+		}
+		case "SREM": {
+			String key = key(args, 1);
+			Set<String> set = set(db, key, now, false);
+			long n = 0;
+			if (set != null) {
+				for (int i = 2; i < args.size(); i++) {
+					if (set.remove(key(args, i))) {
+						n++;
+					}
+				}
+				if (set.isEmpty()) {
+					db.remove(key, now);
+				}
+			}
+			out.integer(n);
+			return n > 0 ? "srem" : null;
+		}
+		case "SMEMBERS": {
+			Set<String> set = set(db, key(args, 1), now, false);
+			writeKeys(out, set == null ? Collections.emptyList() : new ArrayList<>(set));
+			return null;
+		}
+		case "SCARD": {
+			Set<String> set = set(db, key(args, 1), now, false);
+			out.integer(set == null ? 0 : set.size());
+			return null;
+		}
+		case "SISMEMBER": {
+			Set<String> set = set(db, key(args, 1), now, false);
+			out.integer(set != null && set.contains(key(args, 2)) ? 1 : 0);
+			return null;
+		}
+		case "LPUSH":
+		case "RPUSH": {
+			LinkedList<byte[]> list = list(db, key(args, 1), now, true);
+			if (list == null) {
+				return wrongType(out);
+			}
+			for (int i = 2; i < args.size(); i++) {
+				if ("LPUSH".equals(command)) {
+					list.addFirst(args.get(i));
+				} else {
+					list.addLast(args.get(i));
+				}
+			}
+			out.integer(list.size());
+			return command.toLowerCase(Locale.ROOT);
+		}
+		case "LPOP":
+		case "RPOP": {
+			String key = key(args, 1);
+			LinkedList<byte[]> list = list(db, key, now, false);
+			byte[] v = list == null ? null : ("LPOP".equals(command) ? list.pollFirst() : list.pollLast());
+			if (list != null && list.isEmpty()) {
+				db.remove(key, now);
+			}
+			out.bulk(v);
+			return v == null ? null : command.toLowerCase(Locale.ROOT);
+		}
+		case "LLEN": {
+			LinkedList<byte[]> list = list(db, key(args, 1), now, false);
+			out.integer(list == null ? 0 : list.size());
+			return null;
+		}
+		case "LRANGE": {
+			LinkedList<byte[]> list = list(db, key(args, 1), now, false);
+			List<byte[]> range = new ArrayList<>();
+			if (list != null) {
+				int size = list.size();
+				int start = (int) Long.parseLong(str(args.get(2)));
+				int stop = (int) Long.parseLong(str(args.get(3)));
+				start = start < 0 ? Math.max(0, size + start) : start;
+				stop = stop < 0 ? size + stop : Math.min(stop, size - 1);
+				for (int i = start; i <= stop; i++) {
+					range.add(list.get(i));
+				}
+			}
+			out.bulks(range);
+			return null;
+		}
+		default:
+			out.error("ERR unknown command '" + command.toLowerCase(Locale.ROOT) + "'");
+			return null;
+		}
+	}
+
+	/**
+	 * 游标是桶号：从游标所在的桶开始返回整桶的 key，直到达到 COUNT；
+	 * 全程存在的 key 一定会被返回
+	 */
+	private void scan(Db db, List<byte[]> args, RespWriter out, long now) throws IOException {
+		int cursor = Integer.parseInt(str(args.get(1)));
+		String match = null;
+		String type = null;
+		int count = 10;
+		for (int i = 2; i + 1 < args.size(); i += 2) {
+			String opt = str(args.get(i)).toUpperCase(Locale.ROOT);
+			if ("MATCH".equals(opt)) {
+				match = str(args.get(i + 1));
+			} else if ("COUNT".equals(opt)) {
+				count = Integer.parseInt(str(args.get(i + 1)));
+			} else if ("TYPE".equals(opt)) {
+				type = str(args.get(i + 1)).toLowerCase(Locale.ROOT);
+			}
+		}
+		List<String> keys = new ArrayList<>();
+		int visited = 0;
+		int bucket = cursor;
+		while (bucket < BUCKETS && visited < count) {
+			for (Map.Entry<String, Entry> e : db.buckets[bucket].entrySet()) {
+				visited++;
+				if (e.getValue().expired(now)) {
+					continue;
+				}
+				if (match != null && !glob(match, e.getKey())) {
+					continue;
+				}
+				if (type != null && !type.equals(e.getValue().type())) {
+					continue;
+				}
+				keys.add(e.getKey());
+			}
+			bucket++;
+		}
+		out.array(2).bulk(Integer.toString(bucket >= BUCKETS ? 0 : bucket));
+		writeKeys(out, keys);
+	}
+
+	private static void writeKeys(RespWriter out, List<String> keys) throws IOException {
+		synchronized (out) {
+			out.array(keys.size());
+			for (String k : keys) {
+				out.bulk(k.getBytes(StandardCharsets.ISO_8859_1));
+			}
+		}
+	}
+
+	private static String wrongType(RespWriter out) throws IOException {
+		out.error("WRONGTYPE Operation against a key holding the wrong kind of value");
+		return null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, byte[]> hash(Db db, String key, long now, boolean create) {
+		Object v = db.get(key, now);
+		if (v == null && create) {
+			v = new HashMap<String, byte[]>();
+			db.put(key, v, 0);
+		}
+		return v instanceof Map ? (Map<String, byte[]>) v : null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Set<String> set(Db db, String key, long now, boolean create) {
+		Object v = db.get(key, now);
+		if (v == null && create) {
+			v = new LinkedHashSet<String>();
+			db.put(key, v, 0);
+		}
+		return v instanceof Set ? (Set<String>) v : null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static LinkedList<byte[]> list(Db db, String key, long now, boolean create) {
+		Object v = db.get(key, now);
+		if (v == null && create) {
+			v = new LinkedList<byte[]>();
+			db.put(key, v, 0);
+		}
+		return v instanceof LinkedList ? (LinkedList<byte[]>) v : null;
+	}
+
+	/**
+	 * key 与 hash field、set member 一律按 ISO-8859-1 转成字符串，保证任意字节可以原样还原
+	 */
+	private static String key(List<byte[]> args, int i) {
+		return new String(args.get(i), StandardCharsets.ISO_8859_1);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static byte[] dump(Object value) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.write(DUMP_MAGIC);
+		if (value instanceof byte[]) {
+			out.writeByte('s');
+			writeBytes(out, (byte[]) value);
+		} else if (value instanceof Map) {
+			Map<String, byte[]> hash = (Map<String, byte[]>) value;
+			out.writeByte('h');
+			out.writeInt(hash.size());
+			for (Map.Entry<String, byte[]> e : hash.entrySet()) {
+				writeBytes(out, e.getKey().getBytes(StandardCharsets.ISO_8859_1));
+				writeBytes(out, e.getValue());
+			}
+		} else if (value instanceof Set) {
+			Set<String> set = (Set<String>) value;
+			out.writeByte('S');
+			out.writeInt(set.size());
+			for (String member : set) {
+				writeBytes(out, member.getBytes(StandardCharsets.ISO_8859_1));
+			}
+		} else {
+			List<byte[]> list = (List<byte[]>) value;
+			out.writeByte('l');
+			out.writeInt(list.size());
+			for (byte[] item : list) {
+				writeBytes(out, item);
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	private static Object restore(byte[] payload) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+		byte[] magic = new byte[DUMP_MAGIC.length];
+		in.readFully(magic);
+		if (!Arrays.equals(magic, DUMP_MAGIC)) {
+			throw new IOException("bad magic");
+		}
+		int type = in.readByte();
+		switch (type) {
+		case 's':
+			return readBytes(in);
+		case 'h': {
+			int n = in.readInt();
+			Map<String, byte[]> hash = new HashMap<>();
+			for (int i = 0; i < n; i++) {
+				hash.put(new String(readBytes(in), StandardCharsets.ISO_8859_1), readBytes(in));
+			}
+			return hash;
+		}
+		case 'S': {
+			int n = in.readInt();
+			Set<String> set = new LinkedHashSet<>();
+			for (int i = 0; i < n; i++) {
+				set.add(new String(readBytes(in), StandardCharsets.ISO_8859_1));
+			}
+			return set;
+		}
+		case 'l': {
+			int n = in.readInt();
+			LinkedList<byte[]> list = new LinkedList<>();
+			for (int i = 0; i < n; i++) {
+				list.add(readBytes(in));
+			}
+			return list;
+		}
+		default:
+			throw new IOException("bad type");
+		}
+	}
+
+	private static void writeBytes(DataOutputStream out, byte[] b) throws IOException {
+		out.writeInt(b.length);
+		out.write(b);
+	}
+
+	private static byte[] readBytes(DataInputStream in) throws IOException {
+		byte[] b = new byte[in.readInt()];
+		in.readFully(b);
+		return b;
+	}
+
+	@Override
+	public void close() throws IOException {
+		replicaOf(null);
+		replication.shutdownNow();
+		super.close();
+	}
+
+	/**
+	 * 副本上执行复制来的命令时丢弃应答
+	 */
+	private static final RespWriter DISCARD = new RespWriter(new java.io.OutputStream() {
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	});
+
+	private static final class Entry {
+
+		private Object value;
+		private long expireAt;
+
+		Entry(Object value, long expireAt) {
+			this.value = value;
+			this.expireAt = expireAt;
+		}
+
+		boolean expired(long now) {
+			return expireAt != 0 && expireAt <= now;
+		}
+
+		String type() {
+			if (value instanceof byte[]) {
+				return "string";
+			}
+			if (value instanceof Map) {
+				return "hash";
+			}
+			if (value instanceof Set) {
+				return "set";
+			}
+			return "list";
+		}
+
+		@SuppressWarnings("unchecked")
+		long bytes() {
+			if (value instanceof byte[]) {
+				return ((byte[]) value).length;
+			}
+			long n = 0;
+			if (value instanceof Map) {
+				for (Map.Entry<String, byte[]> e : ((Map<String, byte[]>) value).entrySet()) {
+					n += 16 + e.getKey().length() + e.getValue().length;
+				}
+			} else if (value instanceof Set) {
+				for (String member : (Set<String>) value) {
+					n += 16 + member.length();
+				}
+			} else {
+				for (byte[] item : (List<byte[]>) value) {
+					n += 16 + item.length;
+				}
+			}
+			return n;
+		}
+	}
+
+	private static final class Db {
+
+		@SuppressWarnings("unchecked")
+		private final Map<String, Entry>[] buckets = (Map<String, Entry>[]) new Map<?, ?>[BUCKETS];
+
+		Db() {
+			for (int i = 0; i < BUCKETS; i++) {
+				buckets[i] = new HashMap<>();
+			}
+		}
+
+		private Map<String, Entry> bucket(String key) {
+			int h = key.hashCode();
+			return buckets[(h ^ (h >>> 16)) & (BUCKETS - 1)];
+		}
+
+		Entry entry(String key, long now) {
+			Map<String, Entry> bucket = bucket(key);
+			Entry e = bucket.get(key);
+			if (e != null && e.expired(now)) {
+				bucket.remove(key);
+				return null;
+			}
+			return e;
+		}
+
+		Object get(String key, long now) {
+			Entry e = entry(key, now);
+			return e == null ? null : e.value;
+		}
+
+		void put(String key, Object value, long expireAt) {
+			bucket(key).put(key, new Entry(value, expireAt));
+		}
+
+		/**
+		 * 修改值但保留过期时间
+		 */
+		void replace(String key, Object value) {
+			Entry e = bucket(key).get(key);
+			if (e == null) {
+				put(key, value, 0);
+			} else {
+				e.value = value;
+			}
+		}
+
+		Object remove(String key, long now) {
+			Entry e = bucket(key).remove(key);
+			return e == null || e.expired(now) ? null : e.value;
+		}
+
+		int size(long now) {
+			int[] n = { 0 };
+			forEach(now, (k, e) -> n[0]++);
+			return n[0];
+		}
+
+		String randomKey(long now) {
+			List<String> all = new ArrayList<>();
+			forEach(now, (k, e) -> all.add(k));
+			return all.isEmpty() ? null : all.get((int) (Math.random() * all.size()));
+		}
+
+		void forEach(long now, java.util.function.BiConsumer<String, Entry> action) {
+			for (Map<String, Entry> bucket : buckets) {
+				for (Map.Entry<String, Entry> e : bucket.entrySet()) {
+					if (!e.getValue().expired(now)) {
+						action.accept(e.getKey(), e.getValue());
+					}
+				}
+			}
+		}
+
+		void clear() {
+			for (Map<String, Entry> bucket : buckets) {
+				bucket.clear();
+			}
+		}
+	}
+}
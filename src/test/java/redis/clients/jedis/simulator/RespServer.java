@@ -0,0 +1,408 @@
+package redis.clients.jedis.simulator;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import redis.clients.jedis.HostAndPort;
+
+/**
+ * 本机 RESP 服务端的公共部分：监听、每连接一个线程、解析命令、发布订阅、
+ * 以及模拟宕机（{@link #down()}/{@link #up()}）和注入延迟。
+ */
+public abstract class RespServer implements Closeable {
+
+	private static final AtomicLong CLIENT_IDS = new AtomicLong();
+
+	private final int port;
+	private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+	private volatile ServerSocket server;
+	private volatile boolean closed;
+	private volatile long latencyNanos;
+
+	protected RespServer(int port) throws IOException {
+		this.server = bind(port);
+		this.port = server.getLocalPort();
+		startAcceptor(server);
+	}
+
+	public HostAndPort address() {
+		return new HostAndPort("127.0.0.1", port);
+	}
+
+	/**
+	 * 每条命令在应答前额外等待的时间，模拟网络或服务端延迟
+	 */
+	public void setLatency(long time, TimeUnit unit) {
+		latencyNanos = unit.toNanos(time);
+	}
+
+	public boolean isDown() {
+		return server == null;
+	}
+
+	/**
+	 * 模拟进程宕机：关闭监听和所有连接，之后的连接会被拒绝
+	 */
+	public synchronized void down() throws IOException {
+		ServerSocket s = server;
+		server = null;
+		if (s != null) {
+			s.close();
+		}
+		for (Connection c : connections) {
+			c.close();
+		}
+	}
+
+	public synchronized void up() throws IOException {
+		if (server == null && !closed) {
+			server = bind(port);
+			startAcceptor(server);
+		}
+	}
+
+	public int connectionCount() {
+		return connections.size();
+	}
+
+	/**
+	 * @return 订阅了 channel 的连接数，不含模式订阅
+	 */
+	public int subscribers(String channel) {
+		int subscribers = 0;
+		for (Connection c : connections) {
+			if (c.channels.contains(channel)) {
+				subscribers++;
+			}
+		}
+		return subscribers;
+	}
+
+	/**
+	 * @return 收到消息的订阅者数
+	 */
+	public int publish(String channel, String message) {
+		int receivers = 0;
+		for (Connection c : connections) {
+			receivers += c.deliver(channel, message);
+		}
+		return receivers;
+	}
+
+	protected abstract void execute(Connection c, String command, List<byte[]> args, RespWriter out) throws IOException;
+
+	private static ServerSocket bind(int port) throws IOException {
+		ServerSocket s = new ServerSocket();
+		s.setReuseAddress(true);
+		s.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 128);
+		return s;
+	}
+
+	private void startAcceptor(ServerSocket s) {
+		Thread acceptor = new Thread(() -> {
+			while (!s.isClosed()) {
+				try {
+					Socket socket = s.accept();
+					socket.setTcpNoDelay(true);
+					Connection c = new Connection(socket);
+					connections.add(c);
+					Thread t = new Thread(c, getClass().getSimpleName() + "-" + port + "-conn-" + c.id);
+					t.setDaemon(true);
+					t.start();
+				} catch (IOException ignored) {
+					// 监听已关闭
+				}
+			}
+		}, getClass().getSimpleName() + "-" + port);
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	/**
+	 * 处理订阅相关命令，返回 false 表示不是订阅命令
+	 */
+	private boolean pubsub(Connection c, String command, List<byte[]> args, RespWriter out) throws IOException {
+		switch (command) {
+		case "SUBSCRIBE":
+		case "PSUBSCRIBE": {
+			boolean pattern = "PSUBSCRIBE".equals(command);
+			synchronized (out) {
+				for (int i = 1; i < args.size(); i++) {
+					String channel = str(args.get(i));
+					(pattern ? c.patterns : c.channels).add(channel);
+					out.array(3).bulk(pattern ? "psubscribe" : "subscribe").bulk(channel).integer(c.subscriptions());
+				}
+			}
+			return true;
+		}
+		case "UNSUBSCRIBE":
+		case "PUNSUBSCRIBE": {
+			boolean pattern = "PUNSUBSCRIBE".equals(command);
+			Set<String> set = pattern ? c.patterns : c.channels;
+			List<String> targets = new ArrayList<>();
+			for (int i = 1; i < args.size(); i++) {
+				targets.add(str(args.get(i)));
+			}
+			if (targets.isEmpty()) {
+				targets.addAll(set);
+			}
+			synchronized (out) {
+				if (targets.isEmpty()) {
+					out.array(3).bulk(pattern ? "punsubscribe" : "unsubscribe").bulk((byte[]) null).integer(c.subscriptions());
+				}
+				for (String target : targets) {
+					set.remove(target);
+					out.array(3).bulk(pattern ? "punsubscribe" : "unsubscribe").bulk(target).integer(c.subscriptions());
+				}
+			}
+			return true;
+		}
+		case "PUBLISH":
+			out.integer(publish(str(args.get(1)), str(args.get(2))));
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		down();
+	}
+
+	protected static String str(byte[] b) {
+		return new String(b, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Redis 的 glob 匹配：* ? [abc] [^a] [a-z] 与转义
+	 */
+	public static boolean glob(String pattern, String s) {
+		return glob(pattern, 0, s, 0);
+	}
+
+	private static boolean glob(String p, int pi, String s, int si) {
+		while (pi < p.length()) {
+			char pc = p.charAt(pi);
+			switch (pc) {
+			case '*':
+				while (pi + 1 < p.length() && p.charAt(pi + 1) == '*') {
+					pi++;
+				}
+				if (pi + 1 == p.length()) {
+					return true;
+				}
+				for (int i = si; i <= s.length(); i++) {
+					if (glob(p, pi + 1, s, i)) {
+						return true;
+					}
+				}
+				return false;
+			case '?':
+				if (si >= s.length()) {
+					return false;
+				}
+				break;
+			case '[': {
+				if (si >= s.length()) {
+					return false;
+				}
+				char sc = s.charAt(si);
+				int i = pi + 1;
+				boolean not = i < p.length() && p.charAt(i) == '^';
+				if (not) {
+					i++;
+				}
+				boolean match = false;
+				while (i < p.length() && p.charAt(i) != ']') {
+					if (p.charAt(i) == '\\' && i + 1 < p.length()) {
+						i++;
+						match |= p.charAt(i) == sc;
+					} else if (i + 2 < p.length() && p.charAt(i + 1) == '-' && p.charAt(i + 2) != ']') {
+						char lo = p.charAt(i);
+						char hi = p.charAt(i + 2);
+						match |= sc >= Math.min(lo, hi) && sc <= Math.max(lo, hi);
+						i += 2;
+					} else {
+						match |= p.charAt(i) == sc;
+					}
+					i++;
+				}
+				if (match == not) {
+					return false;
+				}
+				pi = i;
+				break;
+			}
+			case '\\':
+				if (pi + 1 < p.length()) {
+					pi++;
+					pc = p.charAt(pi);
+				}
+				if (si >= s.length() || s.charAt(si) != pc) {
+					return false;
+				}
+				break;
+			default:
+				if (si >= s.length() || s.charAt(si) != pc) {
+					return false;
+				}
+				break;
+			}
+			pi++;
+			si++;
+		}
+		return si == s.length();
+	}
+
+	public class Connection implements Runnable {
+
+		final long id = CLIENT_IDS.incrementAndGet();
+		final Set<String> channels = ConcurrentHashMap.newKeySet();
+		final Set<String> patterns = ConcurrentHashMap.newKeySet();
+		private final Socket socket;
+		private volatile RespWriter out;
+		int db;
+		String name;
+
+		Connection(Socket socket) {
+			this.socket = socket;
+		}
+
+		int subscriptions() {
+			return channels.size() + patterns.size();
+		}
+
+		@Override
+		public void run() {
+			try (Socket s = socket; InputStream in = new BufferedInputStream(s.getInputStream())) {
+				out = new RespWriter(s.getOutputStream());
+				while (true) {
+					List<byte[]> args = readCommand(in);
+					long latency = latencyNanos;
+					if (latency > 0) {
+						TimeUnit.NANOSECONDS.sleep(latency);
+					}
+					String command = str(args.get(0)).toUpperCase(Locale.ROOT);
+					if (!pubsub(this, command, args, out)) {
+						if (subscriptions() > 0 && !"PING".equals(command)) {
+							out.error("ERR only (P)SUBSCRIBE / (P)UNSUBSCRIBE / PING / QUIT allowed in this context");
+						} else {
+							execute(this, command, args, out);
+						}
+					}
+					if (in.available() == 0) {
+						out.flush();
+					}
+					if ("QUIT".equals(command)) {
+						break;
+					}
+				}
+			} catch (IOException | InterruptedException ignored) {
+				// 客户端关闭、连接被重置或模拟宕机
+			} finally {
+				connections.remove(this);
+			}
+		}
+
+		int deliver(String channel, String message) {
+			RespWriter w = out;
+			if (w == null) {
+				return 0;
+			}
+			int delivered = 0;
+			try {
+				synchronized (w) {
+					if (channels.contains(channel)) {
+						w.array(3).bulk("message").bulk(channel).bulk(message);
+						delivered++;
+					}
+					for (String pattern : patterns) {
+						if (glob(pattern, channel)) {
+							w.array(4).bulk("pmessage").bulk(pattern).bulk(channel).bulk(message);
+							delivered++;
+						}
+					}
+					if (delivered > 0) {
+						w.flush();
+					}
+				}
+			} catch (IOException e) {
+				close();
+			}
+			return delivered;
+		}
+
+		void close() {
+			try {
+				socket.close();
+			} catch (IOException ignored) {
+			}
+		}
+	}
+
+	private static List<byte[]> readCommand(InputStream in) throws IOException {
+		int b = in.read();
+		if (b == -1) {
+			throw new EOFException();
+		}
+		if (b != '*') {
+			throw new IOException("Inline commands are not supported");
+		}
+		int n = (int) readLong(in);
+		List<byte[]> args = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			if (in.read() != '$') {
+				throw new IOException("Expected bulk string");
+			}
+			int len = (int) readLong(in);
+			byte[] arg = new byte[len];
+			int off = 0;
+			while (off < len) {
+				int r = in.read(arg, off, len - off);
+				if (r < 0) {
+					throw new EOFException();
+				}
+				off += r;
+			}
+			in.read();
+			in.read();
+			args.add(arg);
+		}
+		return args;
+	}
+
+	private static long readLong(InputStream in) throws IOException {
+		long v = 0;
+		boolean neg = false;
+		int b;
+		while ((b = in.read()) != '\r') {
+			if (b == -1) {
+				throw new EOFException();
+			}
+			if (b == '-') {
+				neg = true;
+			} else {
+				v = v * 10 + (b - '0');
+			}
+		}
+		in.read();
+		return neg ? -v : v;
+	}
+}
@@ -0,0 +1,94 @@
+package redis.clients.jedis.simulator;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * RESP2 应答的写入，订阅消息可能从其它线程写入，所以方法都加锁
+ */
+public class RespWriter {
+
+	private static final byte[] CRLF = { '\r', '\n' };
+
+	private final OutputStream out;
+
+	RespWriter(OutputStream out) {
+		this.out = new BufferedOutputStream(out, 8192);
+	}
+
+	public synchronized RespWriter simple(String s) throws IOException {
+		out.write('+');
+		out.write(s.getBytes(StandardCharsets.UTF_8));
+		out.write(CRLF);
+		return this;
+	}
+
+	public synchronized RespWriter error(String s) throws IOException {
+		out.write('-');
+		out.write(s.getBytes(StandardCharsets.UTF_8));
+		out.write(CRLF);
+		return this;
+	}
+
+	public synchronized RespWriter integer(long n) throws IOException {
+		out.write(':');
+		out.write(Long.toString(n).getBytes(StandardCharsets.US_ASCII));
+		out.write(CRLF);
+		return this;
+	}
+
+	public synchronized RespWriter bulk(byte[] value) throws IOException {
+		if (value == null) {
+			out.write("$-1\r\n".getBytes(StandardCharsets.US_ASCII));
+			return this;
+		}
+		out.write('$');
+		out.write(Integer.toString(value.length).getBytes(StandardCharsets.US_ASCII));
+		out.write(CRLF);
+		out.write(value);
+		out.write(CRLF);
+		return this;
+	}
+
+	public RespWriter bulk(String value) throws IOException {
+		return bulk(value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public synchronized RespWriter array(int size) throws IOException {
+		out.write('*');
+		out.write(Integer.toString(size).getBytes(StandardCharsets.US_ASCII));
+		out.write(CRLF);
+		return this;
+	}
+
+	public synchronized RespWriter nullArray() throws IOException {
+		out.write("*-1\r\n".getBytes(StandardCharsets.US_ASCII));
+		return this;
+	}
+
+	public synchronized RespWriter bulks(Collection<byte[]> values) throws IOException {
+		array(values.size());
+		for (byte[] value : values) {
+			bulk(value);
+		}
+		return this;
+	}
+
+	public synchronized RespWriter strings(Collection<String> values) throws IOException {
+		array(values.size());
+		for (String value : values) {
+			bulk(value);
+		}
+		return this;
+	}
+
+	/**
+	 * 多条订阅消息需要整体写入时，调用方先对本对象加锁
+	 */
+	public synchronized void flush() throws IOException {
+		out.flush();
+	}
+}
@@ -0,0 +1,218 @@
+package redis.clients.jedis.simulator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import redis.clients.jedis.HostAndPort;
+
+/**
+ * Sentinel 替身：应答 {@code SENTINEL get-master-addr-by-name/masters/master/replicas}，
+ * 并在 {@link #failover(String, HostAndPort)} 时发布 {@code +switch-master}。
+ * <p>
+ * 它不做任何故障检测，什么时候下线、什么时候切换都由调用方（通常是 {@link FailoverScenario}）决定。
+ */
+public class SentinelSimulator extends RespServer {
+
+	private final Map<String, Monitored> monitored = new LinkedHashMap<>();
+
+	public SentinelSimulator() throws IOException {
+		this(0);
+	}
+
+	public SentinelSimulator(int port) throws IOException {
+		super(port);
+	}
+
+	public synchronized void monitor(String masterName, HostAndPort master) {
+		monitored.put(masterName, new Monitored(masterName, master));
+	}
+
+	public synchronized void addReplica(String masterName, HostAndPort replica) {
+		monitored(masterName).replicas.add(replica);
+	}
+
+	public synchronized HostAndPort master(String masterName) {
+		return monitored(masterName).master;
+	}
+
+	public synchronized long epoch(String masterName) {
+		return monitored(masterName).epoch;
+	}
+
+	/**
+	 * 发布 {@code +sdown master <name> <ip> <port>}
+	 */
+	public void sdown(String masterName) {
+		flag(masterName, "+sdown", "s_down");
+	}
+
+	/**
+	 * 发布 {@code +odown master <name> <ip> <port> #quorum 1/1}
+	 */
+	public void odown(String masterName) {
+		flag(masterName, "+odown", "o_down");
+	}
+
+	private void flag(String masterName, String channel, String flag) {
+		HostAndPort master;
+		synchronized (this) {
+			Monitored m = monitored(masterName);
+			m.flags = "master," + flag;
+			master = m.master;
+		}
+		publish(channel, "master " + masterName + " " + master.getHost() + " " + master.getPort()
+				+ ("+odown".equals(channel) ? " #quorum 1/1" : ""));
+	}
+
+	/**
+	 * 把 master 切到 newMaster：新 master 从副本列表移除，旧 master 成为副本，
+	 * epoch 加一，依次发布 {@code +new-epoch}、{@code +switch-master}
+	 */
+	public void failover(String masterName, HostAndPort newMaster) {
+		HostAndPort old;
+		long epoch;
+		synchronized (this) {
+			Monitored m = monitored(masterName);
+			old = m.master;
+			m.replicas.remove(newMaster);
+			m.replicas.add(old);
+			m.master = newMaster;
+			m.flags = "master";
+			epoch = ++m.epoch;
+		}
+		publish("+new-epoch", Long.toString(epoch));
+		publish("+switch-master", masterName + " " + old.getHost() + " " + old.getPort() + " "
+				+ newMaster.getHost() + " " + newMaster.getPort());
+	}
+
+	@Override
+	protected void execute(Connection c, String command, List<byte[]> args, RespWriter out) throws IOException {
+		switch (command) {
+		case "PING":
+			out.simple("PONG");
+			break;
+		case "AUTH":
+		case "QUIT":
+			out.simple("OK");
+			break;
+		case "CLIENT":
+			c.name = args.size() > 2 ? str(args.get(2)) : c.name;
+			out.simple("OK");
+			break;
+		case "SENTINEL":
+			sentinel(str(args.get(1)).toLowerCase(Locale.ROOT), args, out);
+			break;
+		default:
+			out.error("ERR unknown command '" + command.toLowerCase(Locale.ROOT) + "'");
+		}
+	}
+
+	private synchronized void sentinel(String sub, List<byte[]> args, RespWriter out) throws IOException {
+		switch (sub) {
+		case "get-master-addr-by-name": {
+			Monitored m = monitored.get(str(args.get(2)));
+			if (m == null) {
+				out.nullArray();
+			} else {
+				out.array(2).bulk(m.master.getHost()).bulk(Integer.toString(m.master.getPort()));
+			}
+			break;
+		}
+		case "masters":
+			out.array(monitored.size());
+			for (Monitored m : monitored.values()) {
+				out.strings(m.info());
+			}
+			break;
+		case "master": {
+			Monitored m = monitored.get(str(args.get(2)));
+			if (m == null) {
+				out.error("ERR No such master with that name");
+			} else {
+				out.strings(m.info());
+			}
+			break;
+		}
+		case "replicas":
+		case "slaves": {
+			Monitored m = monitored.get(str(args.get(2)));
+			if (m == null) {
+				out.error("ERR No such master with that name");
+				break;
+			}
+			out.array(m.replicas.size());
+			for (HostAndPort replica : m.replicas) {
+				out.strings(replicaInfo(replica, m.master));
+			}
+			break;
+		}
+		default:
+			out.error("ERR Unknown sentinel subcommand '" + sub + "'");
+		}
+	}
+
+	private static List<String> replicaInfo(HostAndPort replica, HostAndPort master) {
+		List<String> info = new ArrayList<>();
+		info.add("name");
+		info.add(replica.toString());
+		info.add("ip");
+		info.add(replica.getHost());
+		info.add("port");
+		info.add(Integer.toString(replica.getPort()));
+		info.add("flags");
+		info.add("slave");
+		info.add("master-link-status");
+		info.add("ok");
+		info.add("master-host");
+		info.add(master.getHost());
+		info.add("master-port");
+		info.add(Integer.toString(master.getPort()));
+		return info;
+	}
+
+	private Monitored monitored(String masterName) {
+		Monitored m = monitored.get(masterName);
+		if (m == null) {
+			throw new IllegalArgumentException("Unknown master name: " + masterName);
+		}
+		return m;
+	}
+
+	private static final class Monitored {
+
+		private final String name;
+		private final List<HostAndPort> replicas = new CopyOnWriteArrayList<>();
+		private HostAndPort master;
+		private String flags = "master";
+		private long epoch;
+
+		Monitored(String name, HostAndPort master) {
+			this.name = name;
+			this.master = master;
+		}
+
+		List<String> info() {
+			List<String> info = new ArrayList<>();
+			info.add("name");
+			info.add(name);
+			info.add("ip");
+			info.add(master.getHost());
+			info.add("port");
+			info.add(Integer.toString(master.getPort()));
+			info.add("flags");
+			info.add(flags);
+			info.add("num-slaves");
+			info.add(Integer.toString(replicas.size()));
+			info.add("config-epoch");
+			info.add(Long.toString(epoch));
+			info.add("quorum");
+			info.add("1");
+			return info;
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package redis.clients.jedis.simulator;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisSentinelPools;
+
+/**
+ * 在本机起一个 {@link SentinelSimulator} 和 N 组 master + 副本的 {@link RedisSimulator}，
+ * master 依次命名为 master0、master1...，并据此建好 {@link JedisSentinelPools}
+ */
+public class SimulatedCluster implements Closeable {
+
+	private final SentinelSimulator sentinel;
+	private final List<String> masterNames = new ArrayList<>();
+	private final List<List<RedisSimulator>> nodes = new ArrayList<>();
+	private final JedisSentinelPools pools;
+
+	public SimulatedCluster(int masterCount, int replicasPerMaster, int maxTotal) throws IOException {
+		this(masterCount, replicasPerMaster, poolConfig(maxTotal));
+	}
+
+	public SimulatedCluster(int masterCount, int replicasPerMaster, GenericObjectPoolConfig<?> poolConfig)
+			throws IOException {
+		sentinel = new SentinelSimulator();
+		for (int i = 0; i < masterCount; i++) {
+			String name = "master" + i;
+			RedisSimulator master = new RedisSimulator();
+			List<RedisSimulator> group = new ArrayList<>();
+			group.add(master);
+			sentinel.monitor(name, master.address());
+			for (int r = 0; r < replicasPerMaster; r++) {
+				RedisSimulator replica = new RedisSimulator();
+				replica.replicaOf(master);
+				group.add(replica);
+				sentinel.addReplica(name, replica.address());
+			}
+			masterNames.add(name);
+			nodes.add(group);
+		}
+		pools = new JedisSentinelPools(masterNames, Collections.singleton(sentinel.address().toString()), poolConfig);
+	}
+
+	private static GenericObjectPoolConfig<?> poolConfig(int maxTotal) {
+		GenericObjectPoolConfig<?> poolConfig = new GenericObjectPoolConfig<>();
+		poolConfig.setMaxTotal(maxTotal);
+		poolConfig.setMaxIdle(maxTotal);
+		return poolConfig;
+	}
+
+	public JedisSentinelPools pools() {
+		return pools;
+	}
+
+	public SentinelSimulator sentinel() {
+		return sentinel;
+	}
+
+	public List<String> masterNames() {
+		return Collections.unmodifiableList(masterNames);
+	}
+
+	/**
+	 * 第 shard 组中 sentinel 当前认定的 master
+	 */
+	public RedisSimulator master(int shard) {
+		HostAndPort address = sentinel.master(masterNames.get(shard));
+		for (RedisSimulator node : nodes.get(shard)) {
+			if (node.address().equals(address)) {
+				return node;
+			}
+		}
+		throw new IllegalStateException("No simulator listens on " + address);
+	}
+
+	/**
+	 * 第 shard 组中除当前 master 外的节点
+	 */
+	public List<RedisSimulator> replicas(int shard) {
+		RedisSimulator master = master(shard);
+		List<RedisSimulator> replicas = new ArrayList<>(nodes.get(shard));
+		replicas.remove(master);
+		return replicas;
+	}
+
+	public void setLatency(long time, TimeUnit unit) {
+		for (List<RedisSimulator> group : nodes) {
+			for (RedisSimulator node : group) {
+				node.setLatency(time, unit);
+			}
+		}
+	}
+
+	/**
+	 * 把第 shard 组的第一个副本提升为 master，其它节点（包括旧 master）改为复制它，
+	 * 然后由 sentinel 发布 {@code +switch-master}
+	 *
+	 * @return 新 master
+	 */
+	public RedisSimulator failover(int shard) {
+		List<RedisSimulator> replicas = replicas(shard);
+		if (replicas.isEmpty()) {
+			throw new IllegalStateException(masterNames.get(shard) + " has no replica to promote");
+		}
+		RedisSimulator promoted = replicas.get(0);
+		promoted.promote();
+		for (RedisSimulator node : nodes.get(shard)) {
+			if (node != promoted) {
+				node.replicaOf(promoted);
+			}
+		}
+		sentinel.failover(masterNames.get(shard), promoted.address());
+		return promoted;
+	}
+
+	/**
+	 * 写一份指向本集群的 {@link redis.clients.jedis.client.JedisClientConfig} 配置文件
+	 */
+	public File writeClientConfig() throws IOException {
+		File file = File.createTempFile("simulated", ".properties");
+		file.deleteOnExit();
+		try (Writer w = new FileWriter(file)) {
+			w.write("redis.sentinels = " + sentinel.address() + "\n");
+			w.write("redis.master-names = " + String.join(",", masterNames) + "\n");
+			w.write("redis.pool-max-total = 64\n");
+			w.write("redis.pool-max-idle = 64\n");
+		}
+		return file;
+	}
+
+	@Override
+	public void close() throws IOException {
+		pools.close();
+		for (List<RedisSimulator> group : nodes) {
+			for (RedisSimulator node : group) {
+				node.close();
+			}
+		}
+		sentinel.close();
+	}
+}
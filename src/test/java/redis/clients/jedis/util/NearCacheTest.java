@@ -0,0 +1,101 @@
+package redis.clients.jedis.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class NearCacheTest {
+
+	/**
+	 * 16 段，每段 3 项；Integer 的 hashCode 是它本身，16 的倍数都落在第 0 段
+	 */
+	private final NearCache<Integer, String> cache = new NearCache<>(48, 0);
+
+	@Test
+	public void stampRejectsLoadThatRacedInvalidation() {
+		assertNull(cache.get(0));
+		long stamp = cache.stamp(0);
+		// 回源期间收到失效通知，回源读到的可能是旧值
+		cache.invalidate(0);
+		assertFalse(cache.put(0, "stale", stamp));
+		assertNull(cache.get(0));
+
+		assertTrue(cache.put(0, "fresh", cache.stamp(0)));
+		assertEquals("fresh", cache.get(0));
+	}
+
+	@Test
+	public void stampRejectsLoadThatRacedClear() {
+		long stamp = cache.stamp(16);
+		cache.clear();
+		assertFalse(cache.put(16, "stale", stamp));
+		assertNull(cache.get(16));
+	}
+
+	@Test
+	public void admitsOnlyKeysMoreFrequentThanTheVictim() {
+		fill(0, 16, 32);
+		for (int key : new int[] { 0, 16, 32 }) {
+			cache.get(key);
+		}
+		// 只读过一次的新 key 不把读过两次的挤出去
+		assertNull(cache.get(48));
+		assertFalse(cache.put(48, "v48", cache.stamp(48)));
+		assertEquals(3, cache.size());
+		assertEquals("v0", cache.get(0));
+
+		for (int i = 0; i < 5; i++) {
+			cache.get(48);
+		}
+		assertTrue(cache.put(48, "v48", cache.stamp(48)));
+		assertEquals(3, cache.size());
+		assertEquals("v48", cache.get(48));
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsedInTheSegment() {
+		fill(0, 16, 32);
+		// 访问顺序变为 16、32、0
+		cache.get(0);
+		for (int i = 0; i < 5; i++) {
+			cache.get(48);
+		}
+		assertTrue(cache.put(48, "v48", cache.stamp(48)));
+		assertNull(cache.get(16));
+		assertEquals("v32", cache.get(32));
+		assertEquals("v0", cache.get(0));
+		assertEquals("v48", cache.get(48));
+	}
+
+	@Test
+	public void otherSegmentsAreNotAffected() {
+		fill(0, 16, 32);
+		long stamp = cache.stamp(1);
+		cache.invalidate(0);
+		assertTrue(cache.put(1, "v1", stamp));
+		assertEquals("v1", cache.get(1));
+		assertEquals("v16", cache.get(16));
+	}
+
+	@Test
+	public void expiresAfterTtl() throws InterruptedException {
+		NearCache<Integer, String> shortLived = new NearCache<>(48, 20);
+		assertTrue(shortLived.put(0, "v0", shortLived.stamp(0)));
+		assertEquals("v0", shortLived.get(0));
+		Thread.sleep(50);
+		assertNull(shortLived.get(0));
+		assertEquals(0, shortLived.size());
+		assertEquals(1, shortLived.hits());
+		assertEquals(1, shortLived.misses());
+	}
+
+	private void fill(int... keys) {
+		for (int key : keys) {
+			assertNull(cache.get(key));
+			assertTrue(cache.put(key, "v" + key, cache.stamp(key)));
+		}
+	}
+}
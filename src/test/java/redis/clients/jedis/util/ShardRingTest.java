@@ -0,0 +1,50 @@
+package redis.clients.jedis.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisShardInfo;
+
+public class ShardRingTest {
+
+	private static final int KEYS = 20_000;
+
+	@Test
+	public void sameShardAsSharded() {
+		Random random = new Random(42);
+		for (int n = 1; n <= 16; n++) {
+			List<JedisShardInfo> infos = new ArrayList<>();
+			Map<JedisShardInfo, Integer> index = new IdentityHashMap<>();
+			for (int i = 0; i < n; i++) {
+				JedisShardInfo info = new JedisShardInfo("localhost", 6379 + i);
+				infos.add(info);
+				index.put(info, i);
+			}
+			Sharded<Jedis, JedisShardInfo> sharded = new Sharded<>(infos);
+			ShardRing ring = ShardRing.of(n);
+			assertEquals(n, ring.shards());
+			for (int k = 0; k < KEYS; k++) {
+				String key = k % 2 == 0 ? "key:" + k : Long.toHexString(random.nextLong());
+				int expected = index.get(sharded.getShardInfo(key));
+				assertEquals(n + " shards, key " + key, expected, ring.shardIndex(key));
+
+				byte[] raw = new byte[1 + random.nextInt(32)];
+				random.nextBytes(raw);
+				assertEquals(n + " shards, binary key", (int) index.get(sharded.getShardInfo(raw)), ring.shardIndex(raw));
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsNoShards() {
+		ShardRing.of(0);
+	}
+}
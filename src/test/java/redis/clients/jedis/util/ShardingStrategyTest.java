@@ -0,0 +1,103 @@
+package redis.clients.jedis.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ShardingStrategyTest {
+
+	private static final int KEYS = 20_000;
+
+	@Test
+	public void jumpMovesOnlyToTheNewShard() {
+		for (int n = 1; n <= 16; n++) {
+			Sharding before = ShardingStrategy.JUMP.create(n);
+			Sharding after = ShardingStrategy.JUMP.create(n + 1);
+			int moved = 0;
+			for (int k = 0; k < KEYS; k++) {
+				String key = "key:" + k;
+				int from = before.shardIndex(key);
+				int to = after.shardIndex(key);
+				if (from != to) {
+					assertEquals(n + " -> " + (n + 1) + " shards, key " + key, n, to);
+					moved++;
+				}
+			}
+			double expected = 1.0 / (n + 1);
+			double actual = (double) moved / KEYS;
+			assertEquals(n + " -> " + (n + 1) + " shards", expected, actual, 0.02);
+		}
+	}
+
+	@Test
+	public void rendezvousKeepsOwnersWhenAnotherMasterIsRemoved() {
+		List<String> all = Arrays.asList("master0", "master1", "master2", "master3", "master4");
+		Sharding full = ShardingStrategy.RENDEZVOUS.create(all);
+		for (String removed : all) {
+			List<String> rest = new ArrayList<>(all);
+			rest.remove(removed);
+			Sharding reduced = ShardingStrategy.RENDEZVOUS.create(rest);
+			int[] inherited = new int[rest.size()];
+			for (int k = 0; k < KEYS; k++) {
+				String key = "key:" + k;
+				String owner = all.get(full.shardIndex(key));
+				String newOwner = rest.get(reduced.shardIndex(key));
+				if (owner.equals(removed)) {
+					inherited[rest.indexOf(newOwner)]++;
+				} else {
+					assertEquals("without " + removed + ", key " + key, owner, newOwner);
+				}
+			}
+			// 被去掉的 master 的 key 分散到其余各个 master
+			for (int i = 0; i < inherited.length; i++) {
+				assertTrue("without " + removed + ", " + rest.get(i) + " inherited nothing", inherited[i] > 0);
+			}
+		}
+	}
+
+	@Test
+	public void rendezvousDoesNotDependOnListOrder() {
+		Sharding forward = ShardingStrategy.RENDEZVOUS.create(Arrays.asList("a", "b", "c"));
+		Sharding reversed = ShardingStrategy.RENDEZVOUS.create(Arrays.asList("c", "b", "a"));
+		for (int k = 0; k < KEYS; k++) {
+			String key = "key:" + k;
+			assertEquals(key, 2 - forward.shardIndex(key), reversed.shardIndex(key));
+		}
+	}
+
+	@Test
+	public void hashTagKeysShareAShard() {
+		for (ShardingStrategy strategy : Arrays.asList(ShardingStrategy.KETAMA, ShardingStrategy.JUMP,
+				ShardingStrategy.RENDEZVOUS)) {
+			Sharding plain = strategy.create(8);
+			Sharding tagged = strategy.withHashTags().create(8);
+			for (int t = 0; t < 1000; t++) {
+				String tag = "user" + t;
+				int shard = plain.shardIndex(tag);
+				for (String key : Arrays.asList("{" + tag + "}", "{" + tag + "}:name", "profile:{" + tag + "}",
+						"a{" + tag + "}b}c", "x{" + tag + "}{other}")) {
+					assertEquals(strategy + " " + key, shard, tagged.shardIndex(key));
+					assertEquals(strategy + " binary " + key, shard, tagged.shardIndex(SafeEncoder.encode(key)));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void emptyOrUnclosedTagUsesWholeKey() {
+		Sharding plain = ShardingStrategy.JUMP.create(8);
+		Sharding tagged = ShardingStrategy.JUMP.withHashTags().create(8);
+		for (int k = 0; k < 1000; k++) {
+			for (String key : Arrays.asList("{}" + k, k + "{}", "{}{" + k + "}", "{" + k, k + "}", "}" + k + "{")) {
+				assertEquals(key, plain.shardIndex(key), tagged.shardIndex(key));
+				byte[] raw = SafeEncoder.encode(key);
+				assertEquals("binary " + key, plain.shardIndex(raw), tagged.shardIndex(raw));
+			}
+		}
+	}
+}